@@ -36,6 +36,13 @@ public interface PublishRequestMapper {
 
     void markItemCompleted(PublishRequest item);
 
+    /**
+     * Mark multiple publishing requests as completed
+     *
+     * @param params SQL query parameters
+     */
+    void markItemsCompletedBulk(Map params);
+
     void deleteDeploymentDataForSite(Map params);
 
     PublishRequest checkPublishingStatus(Map params);
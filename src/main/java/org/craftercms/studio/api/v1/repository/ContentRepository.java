@@ -25,8 +25,11 @@ import org.craftercms.studio.api.v1.to.RemoteRepositoryInfoTO;
 import org.craftercms.studio.api.v1.to.VersionTO;
 
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This interface represents the repository layer of Crafter Studio.  All interaction with the backend
@@ -45,6 +48,23 @@ public interface ContentRepository {
      */
     boolean contentExists(String site, String path);
 
+    /**
+     * Determine which of the given paths have content in the repository
+     *
+     * @param site site id where the operation will be executed
+     * @param paths paths to check
+     * @return the paths that have a content object, in the same order they were given
+     */
+    default Set<String> getExistingPaths(String site, Collection<String> paths) {
+        Set<String> existingPaths = new LinkedHashSet<>();
+        for (String path : paths) {
+            if (contentExists(site, path)) {
+                existingPaths.add(path);
+            }
+        }
+        return existingPaths;
+    }
+
     /**
      * This is a faster, but less accurate, version of contentExists. This prioritizes
      * performance over checking the actual underlying repository if the content is actually in the store
@@ -87,6 +107,29 @@ public interface ContentRepository {
      */
     String createFolder(String site, String path, String name);
 
+    /**
+     * Start a write batch for the site in the current thread. Until {@link #commitWriteBatch} is called all content
+     * written by the thread is committed together and writes return the last commit id of the repository. The
+     * content is not written to the work tree until the batch is committed, and the sandbox repository of the site
+     * is only locked during the commit. Only the git commit is batched, callers still update the database for each
+     * item.
+     *
+     * @param site site id where the operation will be executed
+     * @throws ServiceLayerException if the batch can't be started
+     */
+    void startWriteBatch(String site) throws ServiceLayerException;
+
+    /**
+     * Commit all the content written in the write batch of the current thread
+     *
+     * @param site     site id where the operation will be executed
+     * @param fromPath source path of the operation, used for the commit message
+     * @param toPath   target path of the operation, used for the commit message
+     * @return map of the paths of all the items written in the batch to the commit id, empty if nothing was written
+     * @throws ServiceLayerException if the content written in the batch can't be committed
+     */
+    Map<String, String> commitWriteBatch(String site, String fromPath, String toPath) throws ServiceLayerException;
+
     /**
      * delete content
      *
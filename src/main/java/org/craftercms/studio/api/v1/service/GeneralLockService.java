@@ -15,6 +15,8 @@
  */
 package org.craftercms.studio.api.v1.service;
 
+import java.util.concurrent.TimeUnit;
+
 public interface GeneralLockService {
 
     String MASTER_LOCK = "MASTER LOCK";
@@ -25,6 +27,16 @@ public interface GeneralLockService {
 
     boolean tryLock(String objectId);
 
+    /**
+     * Try to lock the given object, waiting up to the given time if the lock is held by another thread.
+     *
+     * @param objectId object identifier
+     * @param timeout maximum time to wait for the lock
+     * @param unit time unit of the timeout
+     * @return true if the lock was obtained, false if the timeout elapsed or the thread was interrupted
+     */
+    boolean tryLock(String objectId, long timeout, TimeUnit unit);
+
     /**
      * Lock content item for synchronized access. Thread is blocked until lock is obtained.
      *
@@ -20,6 +20,7 @@ import org.craftercms.studio.api.v1.to.CopyDependencyConfigTO;
 import org.craftercms.studio.api.v1.to.DeleteDependencyConfigTO;
 import org.craftercms.studio.api.v1.to.DmFolderConfigTO;
 import org.craftercms.studio.api.v1.to.FacetTO;
+import org.craftercms.studio.impl.v1.service.configuration.PathClassifier;
 
 import java.util.List;
 import java.util.Map;
@@ -152,6 +153,13 @@ public interface ServicesConfig {
 	 */
 	List<String> getDisplayInWidgetPathPatterns(String site);
 
+	/**
+	 * Get the classifier for the paths of the given site, built from the repository configuration
+	 * @param site site identifier
+	 * @return the path classifier
+	 */
+	PathClassifier getPathClassifier(String site);
+
 	/**
 	 * get the default timezone value
 	 * @param site
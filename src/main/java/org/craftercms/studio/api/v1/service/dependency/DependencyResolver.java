@@ -49,4 +49,15 @@ public interface DependencyResolver {
      */
     Map<String, Set<String>> resolve(String site, String path);
 
+    /**
+     * Resolves dependent files for the given content, avoids reading the item again when the caller already has it
+     *
+     * @param site site identifier
+     * @param path path of the item
+     * @param content content of the item, if null it will be read from the repository
+     * @return set of paths of files that content is dependant on
+     * @since 4.1.0
+     */
+    Map<String, Set<String>> resolve(String site, String path, String content);
+
 }
@@ -23,7 +23,6 @@ import org.craftercms.studio.api.v1.to.DeploymentItemTO;
 
 import javax.validation.Valid;
 import java.util.List;
-import java.util.Set;
 
 /**
  *document
@@ -46,8 +45,17 @@ public interface PublishingManager {
     void markItemsBlocked(String site, String environment, List<PublishRequest> copyToEnvironmentItems)
         throws DeploymentException;
 
-    List<DeploymentItemTO> processMandatoryDependencies(PublishRequest item, Set<String> pathsToDeploy,
-                                                        Set<String> missingDependenciesPaths)
+    /**
+     * Resolves the deployment items for all the publish requests of a publishing cycle. Ancestors, mandatory
+     * dependencies, workflow entries and existence are resolved for all the requests at once instead of item by item.
+     * @param site the site id
+     * @param environment the publishing target
+     * @param items the publish requests, in the order they should be published
+     * @param processMandatoryDependencies if true, include the never-published ancestors and dependencies
+     * @return the deployment items, grouped by package in the order the packages appear in the requests
+     */
+    List<DeploymentItemTO> planDeployment(String site, String environment, List<PublishRequest> items,
+                                          boolean processMandatoryDependencies)
             throws DeploymentException, ServiceLayerException, UserNotFoundException;
 
     boolean isPublishingBlocked(String site);
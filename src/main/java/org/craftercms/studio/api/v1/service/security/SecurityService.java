@@ -22,6 +22,7 @@ import org.craftercms.studio.api.v1.exception.security.UserExternallyManagedExce
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.springframework.security.core.Authentication;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
@@ -69,6 +70,18 @@ public interface SecurityService {
 
     Set<String> getUserPermissions(String site, String path, String user, List<String> groups);
 
+    /**
+     * Get the permissions of the user for several paths, the roles of the user are resolved only once
+     *
+     * @param site site id
+     * @param paths paths to check
+     * @param user username
+     * @param groups groups of the user
+     * @return the permissions for each path
+     */
+    Map<String, Set<String>> getUserPermissions(String site, Collection<String> paths, String user,
+                                                List<String> groups);
+
     /**
      * Check if user exists
      *
@@ -20,8 +20,8 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
 
+import org.craftercms.studio.api.v2.security.PermissionRules;
 import org.dom4j.Document;
-import org.dom4j.Node;
 
 /**
  * Transfer object for containing the Document object for the file in question. 
@@ -42,7 +42,8 @@ public class PermissionsConfigTO implements TimeStamped, Serializable {
 	protected ZonedDateTime lastUpdated = null;
 	
 	protected Map<String, List<String>> roles = null;
-	protected Map<String, Map<String, List<Node>>> permissions = null;
+	/** permissions compiled for evaluation **/
+	protected transient PermissionRules permissionRules = PermissionRules.EMPTY;
 	
 	@Override
 	public void setLastUpdated(ZonedDateTime lastUpdated) {
@@ -78,11 +79,11 @@ public class PermissionsConfigTO implements TimeStamped, Serializable {
 		this.roles = roles;
 	}
 
-	public Map<String, Map<String, List<Node>>> getPermissions() {
-		return permissions;
+	public PermissionRules getPermissionRules() {
+		return permissionRules;
 	}
 
-	public void setPermissions(Map<String, Map<String, List<Node>>> permissions) {
-		this.permissions = permissions;
+	public void setPermissionRules(PermissionRules permissionRules) {
+		this.permissionRules = permissionRules;
 	}
 }
@@ -15,6 +15,8 @@
  */
 package org.craftercms.studio.api.v1.to;
 
+import org.craftercms.studio.impl.v1.service.configuration.PathClassifier;
+
 import java.io.Serializable;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -55,6 +57,9 @@ public class SiteConfigTO implements Serializable {
     /** web project configuration if the site is dm-based **/
     protected RepositoryConfigTO repositoryConfig = null;
 
+    /** classifier built from the repository configuration **/
+    protected transient PathClassifier pathClassifier = null;
+
 	/** default timezone **/
 	protected String timezone = null;
 
@@ -147,6 +152,14 @@ public class SiteConfigTO implements Serializable {
         this.repositoryConfig = repositoryConfig;
     }
 
+    public PathClassifier getPathClassifier() {
+        return pathClassifier;
+    }
+
+    public void setPathClassifier(PathClassifier pathClassifier) {
+        this.pathClassifier = pathClassifier;
+    }
+
 	public void setTimezone(String timezone) {
 		this.timezone = timezone;
 	}
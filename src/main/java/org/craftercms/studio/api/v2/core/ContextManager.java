@@ -16,6 +16,7 @@
 package org.craftercms.studio.api.v2.core;
 
 import org.craftercms.core.service.Context;
+import org.craftercms.core.service.Item;
 
 /**
  * Manages all {@link Context} objects for sites
@@ -32,6 +33,25 @@ public interface ContextManager {
      */
     Context getContext(String siteId);
 
+    /**
+     * Returns the item for the given path using the context of the site. Items are cached until the path changes in
+     * the sandbox repository, if the cache is enabled
+     * @param siteId the id of the site
+     * @param path the path of the item
+     * @param flatten indicates if the includes of the item should be resolved
+     * @return the item
+     */
+    Item getItem(String siteId, String path, boolean flatten);
+
+    /**
+     * Checks if the given path exists using the context of the site. The result is cached until the path changes in
+     * the sandbox repository, if the cache is enabled
+     * @param siteId the id of the site
+     * @param path the path to check
+     * @return true if the path exists
+     */
+    boolean exists(String siteId, String path);
+
     /**
      * Destroys the context for the given site
      * @param siteId the id of the site
@@ -21,6 +21,7 @@ import org.apache.ibatis.annotations.Param;
 import java.util.List;
 import java.util.Map;
 
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ENTRIES;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 
 public interface AuditDAO {
@@ -39,6 +40,13 @@ public interface AuditDAO {
 
     void insertAuditLogParams(Map params);
 
+    /**
+     * Insert multiple audit log entries with a single statement. The parameters of the entries are not inserted
+     * @param entries audit log entries to insert
+     * @return number of inserted rows
+     */
+    int insertAuditLogs(@Param(ENTRIES) List<AuditLog> entries);
+
     List<AuditLog> selectUserFeedEntriesHideLive(Map params);
 
     List<AuditLog> selectUserFeedEntries(Map params);
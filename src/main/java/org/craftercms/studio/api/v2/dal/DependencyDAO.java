@@ -18,12 +18,11 @@ package org.craftercms.studio.api.v2.dal;
 
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.MODIFIED_MASK;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.NEW_MASK;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.PATHS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SOURCE_PATH;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.TYPE;
@@ -35,58 +34,35 @@ public interface DependencyDAO {
 
     String SOURCE_PATH_COLUMN_NAME = "source_path";
     String TARGET_PATH_COLUMN_NAME = "target_path";
+    String PATH_COLUMN_NAME = "path";
+    String STATE_COLUMN_NAME = "state";
 
     /**
-     * Get soft dependencies from DB for list of content paths
-     *
-     * @param site site identifier
-     * @param paths list of content paths
-     * @param itemSpecificDependenciesPatterns list of patterns that define item specific dependencies
-     * @param modifiedMask state bit mask for modified item
-     * @param newMask state bit mask for new item
-     * @return List of soft dependencies
-     */
-    List<Map<String, String>> getSoftDependenciesForList(@Param("site") String site, @Param("paths") Set<String> paths,
-                                                         @Param("regex") List<String> itemSpecificDependenciesPatterns,
-                                                         @Param(MODIFIED_MASK) long modifiedMask,
-                                                         @Param(NEW_MASK) long newMask);
-
-    /**
-     * Get hard dependencies from DB for list of content paths
+     * Get items depending on given paths
      *
-     * @param site site identifier
+     * @param siteId site identifier
      * @param paths list of content paths
-     * @param itemSpecificDependenciesPatterns list of patterns that define item specific dependencies
-     * @param modifiedMask state bit map for modified item
-     * @param newMask state bit map for new item
-     *
-     * @return List of hard dependencies
+     * @return List of items depending on given paths
      */
-    List<Map<String, String>> getHardDependenciesForList(@Param("site") String site, @Param("paths") Set<String> paths,
-                                                         @Param("regex") List<String> itemSpecificDependenciesPatterns,
-                                                         @Param(MODIFIED_MASK) long modifiedMask,
-                                                         @Param(NEW_MASK) long newMask);
+    List<String> getDependentItems(@Param("siteId") String siteId, @Param("paths") List<String> paths);
 
     /**
-     * Get items depending on given paths
+     * Get all dependencies of a site
      *
      * @param siteId site identifier
-     * @param paths list of content paths
-     * @return List of items depending on given paths
+     * @return list of dependencies, only source and target paths are populated
      */
-    List<String> getDependentItems(@Param("siteId") String siteId, @Param("paths") List<String> paths);
+    List<Dependency> getDependenciesForSite(@Param(SITE_ID) String siteId);
 
     /**
-     * Get item specific dependencies for given paths
+     * Get the state of the existing items for given paths
      *
      * @param siteId site identifier
      * @param paths list of content paths
-     * @param regex list of patterns that define item specific dependencies
-     *
-     * @return list of item specific dependencies
+     * @return list of maps with the path and the state of each item
      */
-    List<String> getItemSpecificDependencies(@Param("siteId") String siteId, @Param("paths") List<String> paths,
-                                             @Param("regex") List<String> regex);
+    List<Map<String, Object>> getItemStatesForList(@Param(SITE_ID) String siteId,
+                                                   @Param(PATHS) Collection<String> paths);
 
     /**
      * Get dependencies for content path by type
@@ -54,8 +54,24 @@ public interface GitLogDAO {
 
     void insertIgnoreGitLogList(@Param(SITE_ID) String siteId, @Param(COMMIT_IDS) List<String> commitIds);
 
+    /**
+     * Mark commit ids as audited for given site
+     * @param siteId site identifier
+     * @param commitIds list of commit ids
+     * @param audited value for audited
+     */
+    void markGitLogAuditedBulk(@Param(SITE_ID) String siteId, @Param(COMMIT_IDS) List<String> commitIds,
+                               @Param(AUDITED) int audited);
+
     List<GitLog> getUnauditedCommits(@Param(SITE_ID) String siteId, @Param(LIMIT) int limit);
 
+    /**
+     * Count the commits that have not been audited for given site
+     * @param siteId site identifier
+     * @return number of unaudited commits
+     */
+    int countUnauditedCommits(@Param(SITE_ID) String siteId);
+
     List<GitLog> getUnprocessedCommitsSinceMarker(@Param(SITE_ID) String siteId, @Param(MARKER) long marker);
 
     int countUnprocessedCommitsSinceMarker(@Param(SITE_ID) String siteId, @Param(MARKER) long marker);
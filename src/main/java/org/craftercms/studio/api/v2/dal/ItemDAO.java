@@ -419,6 +419,13 @@ public interface ItemDAO {
      */
     void clearPreviousPath(@Param(SITE_ID) String siteId, @Param(PATH) String path);
 
+    /**
+     * Clear previous path of multiple content items
+     * @param siteId site identifier
+     * @param paths paths of the content
+     */
+    void clearPreviousPathBulk(@Param(SITE_ID) String siteId, @Param(PATHS) Collection<String> paths);
+
     /**
      * Get in progress items from DB
      * @param siteId site identifier
@@ -451,6 +458,15 @@ public interface ItemDAO {
      */
     void updateCommitId(@Param(SITE_ID) String siteId, @Param(PATH) String path, @Param(COMMIT_ID) String commitId);
 
+    /**
+     * Update commit id for items
+     * @param siteId site identifier
+     * @param paths paths of the items
+     * @param commitId commit id
+     */
+    void updateCommitIds(@Param(SITE_ID) String siteId, @Param(PATHS) Collection<String> paths,
+                         @Param(COMMIT_ID) String commitId);
+
     /**
      * Get change set for subtree
      * @param siteId site identifier
@@ -143,6 +143,25 @@ public interface PublishRequestDAO {
                                                  @Param(STATE) String state,
                                                  @Param(NOW) ZonedDateTime now);
 
+    /**
+     * Get the items ready to be published for each publishing target of the given site
+     * @param siteId site identifier
+     * @param state publishing queue ready state
+     * @param now now
+     * @return the number of items and packages and the oldest scheduled date for each publishing target
+     */
+    List<PublishingTargetQueue> getPublishingTargetQueues(@Param(SITE_ID) String siteId,
+                                                          @Param(STATE) String state,
+                                                          @Param(NOW) ZonedDateTime now);
+
+    /**
+     * Get the sites that have items ready to be published
+     * @param state publishing queue ready state
+     * @param now now
+     * @return the ids of the sites
+     */
+    List<String> getSitesWithItemsReadyForDeployment(@Param(STATE) String state, @Param(NOW) ZonedDateTime now);
+
     /**
      * Get deployment history
      * @param siteId site identifier
@@ -18,6 +18,8 @@ package org.craftercms.studio.api.v2.dal;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import java.util.List;
+
 public class PublishStatus {
 
     public static final String READY = "ready";
@@ -44,6 +46,8 @@ public class PublishStatus {
 
     private boolean published;
 
+    private List<PublishingTargetQueue> queues;
+
     @JsonIgnore
     public long getId() {
         return id;
@@ -137,4 +141,12 @@ public class PublishStatus {
     public void setPublished(boolean published) {
         this.published = published;
     }
+
+    public List<PublishingTargetQueue> getQueues() {
+        return queues;
+    }
+
+    public void setQueues(List<PublishingTargetQueue> queues) {
+        this.queues = queues;
+    }
 }
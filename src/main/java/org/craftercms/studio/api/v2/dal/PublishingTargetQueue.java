@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Items of the publishing queue of a site that are ready to be published to a single publishing target
+ *
+ * @since 4.1.0
+ */
+public class PublishingTargetQueue {
+
+    private String publishingTarget;
+    private int numberOfItems;
+    private int numberOfPackages;
+    private ZonedDateTime oldestScheduledDate;
+    private long lagSeconds;
+
+    public String getPublishingTarget() {
+        return publishingTarget;
+    }
+
+    public void setPublishingTarget(String publishingTarget) {
+        this.publishingTarget = publishingTarget;
+    }
+
+    public int getNumberOfItems() {
+        return numberOfItems;
+    }
+
+    public void setNumberOfItems(int numberOfItems) {
+        this.numberOfItems = numberOfItems;
+    }
+
+    public int getNumberOfPackages() {
+        return numberOfPackages;
+    }
+
+    public void setNumberOfPackages(int numberOfPackages) {
+        this.numberOfPackages = numberOfPackages;
+    }
+
+    public ZonedDateTime getOldestScheduledDate() {
+        return oldestScheduledDate;
+    }
+
+    public void setOldestScheduledDate(ZonedDateTime oldestScheduledDate) {
+        this.oldestScheduledDate = oldestScheduledDate;
+    }
+
+    /**
+     * @return the number of seconds the oldest item has been waiting since its scheduled date
+     */
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public void setLagSeconds(long lagSeconds) {
+        this.lagSeconds = lagSeconds;
+    }
+
+}
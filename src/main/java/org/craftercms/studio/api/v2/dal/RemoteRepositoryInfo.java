@@ -17,6 +17,7 @@
 package org.craftercms.studio.api.v2.dal;
 
 import java.io.Serializable;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 public class RemoteRepositoryInfo implements Serializable {
@@ -30,6 +31,9 @@ public class RemoteRepositoryInfo implements Serializable {
     private List<String> branches;
     private boolean reachable = true;
     private String unreachableReason;
+    private ZonedDateTime lastFetchDate;
+    private Integer ahead;
+    private Integer behind;
 
     public String getName() {
         return name;
@@ -86,4 +90,37 @@ public class RemoteRepositoryInfo implements Serializable {
     public void setUnreachableReason(String unreachableReason) {
         this.unreachableReason = unreachableReason;
     }
+
+    /**
+     * @return the date of the last fetch from the remote, the rest of the information is based on that fetch
+     */
+    public ZonedDateTime getLastFetchDate() {
+        return lastFetchDate;
+    }
+
+    public void setLastFetchDate(ZonedDateTime lastFetchDate) {
+        this.lastFetchDate = lastFetchDate;
+    }
+
+    /**
+     * @return the number of commits in the sandbox branch that are not in the remote branch
+     */
+    public Integer getAhead() {
+        return ahead;
+    }
+
+    public void setAhead(Integer ahead) {
+        this.ahead = ahead;
+    }
+
+    /**
+     * @return the number of commits in the remote branch that are not in the sandbox branch
+     */
+    public Integer getBehind() {
+        return behind;
+    }
+
+    public void setBehind(Integer behind) {
+        this.behind = behind;
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+/**
+ * Executes SQL statements in a single transaction using JDBC batches of a bounded size. Each statement is a
+ * parameterized SQL string, every distinct string is prepared once and consecutive statements with the same SQL are
+ * sent together. Statements are executed in the same order they are added. Nothing is committed until
+ * {@link #commit()} is called: once a batch fails the transaction is rolled back and the rest of the statements are
+ * discarded, same as a script executed with {@link StudioDBScriptRunner}.
+ *
+ * @since 4.1.0
+ */
+public interface StudioDBBatchWriter extends AutoCloseable {
+
+    /**
+     * Adds a statement to the current batch, the batch is executed when it reaches the configured size or when a
+     * statement with a different SQL is added
+     * @param sql the parameterized statement to execute
+     * @param params the values of the parameters of the statement
+     */
+    void addStatement(String sql, Object... params);
+
+    /**
+     * Executes the pending statements without committing them
+     */
+    void flush();
+
+    /**
+     * Executes the pending statements and commits the transaction
+     */
+    void commit();
+
+    /**
+     * @return the number of statements that have been executed
+     */
+    long getExecutedCount();
+
+    /**
+     * @return true if any of the batches failed
+     */
+    boolean isFailed();
+
+    /**
+     * Rolls back any statement that has not been committed and releases the connection
+     */
+    @Override
+    void close();
+
+}
@@ -19,4 +19,11 @@ package org.craftercms.studio.api.v2.dal;
 public interface StudioDBScriptRunnerFactory {
 
     StudioDBScriptRunner getDBScriptRunner();
+
+    /**
+     * Creates a writer that executes statements using JDBC batches
+     *
+     * @since 4.1.0
+     */
+    StudioDBBatchWriter getDBBatchWriter();
 }
@@ -18,22 +18,30 @@ package org.craftercms.studio.api.v2.dal.security;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.craftercms.studio.api.v2.dal.Group;
+import org.craftercms.studio.api.v2.security.PermissionRules;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class SitePermissionMappings {
 
     private String siteId;
-    private Map<String, RolePermissionMappings> rolePermissions = new HashMap<>();
     private Map<String, List<String>> groupToRolesMapping = new HashMap<>();
+    private PermissionRules permissionRules = PermissionRules.EMPTY;
 
     public long getAvailableActions(String username, List<Group> groups, String path) {
+        return permissionRules.getAvailableActions(getRoles(username, groups), path);
+    }
+
+    public Map<String, Long> getAvailableActions(String username, List<Group> groups, Collection<String> paths) {
+        return permissionRules.getAvailableActions(getRoles(username, groups), paths);
+    }
+
+    public List<String> getRoles(String username, List<Group> groups) {
         List<String> rolesList = new ArrayList<>();
         List<String> userRoles = groupToRolesMapping.get(username);
         if (CollectionUtils.isNotEmpty(userRoles)) {
@@ -46,19 +54,7 @@ public class SitePermissionMappings {
             }
         });
 
-        long availableActions = 0L;
-        for (String role : rolesList) {
-            RolePermissionMappings rolePermissionMappings = rolePermissions.get(role);
-            Map<String, Long> rulePermissions = rolePermissionMappings.getRuleContentItemPermissions();
-            for (Map.Entry<String, Long> entry : rulePermissions.entrySet()) {
-                Pattern pattern = Pattern.compile(entry.getKey());
-                Matcher matcher = pattern.matcher(path);
-                if (matcher.matches()) {
-                    availableActions = availableActions | entry.getValue();
-                }
-            }
-        }
-        return availableActions;
+        return rolesList;
     }
 
     public void addGroupToRolesMapping(String group, List<String> roles) {
@@ -78,10 +74,6 @@ public class SitePermissionMappings {
         return this.groupToRolesMapping.get(group);
     }
 
-    public void addRolePermissionMapping(String role, RolePermissionMappings rolePermissionMappings) {
-        rolePermissions.put(role, rolePermissionMappings);
-    }
-
     public String getSiteId() {
         return siteId;
     }
@@ -90,11 +82,11 @@ public class SitePermissionMappings {
         this.siteId = siteId;
     }
 
-    public Map<String, RolePermissionMappings> getRolePermissions() {
-        return rolePermissions;
+    public PermissionRules getPermissionRules() {
+        return permissionRules;
     }
 
-    public void setRolePermissions(Map<String, RolePermissionMappings> rolePermissions) {
-        this.rolePermissions = rolePermissions;
+    public void setPermissionRules(PermissionRules permissionRules) {
+        this.permissionRules = permissionRules;
     }
 }
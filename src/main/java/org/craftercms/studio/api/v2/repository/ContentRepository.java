@@ -71,6 +71,16 @@ public interface ContentRepository {
      */
     List<RepoOperation> getOperationsFromDelta(String site, String commitIdFrom, String commitIdTo);
 
+    /**
+     * Get the operations introduced by each of the given commits (compared to their first parent). All commits are
+     * read with a single walk of the repository
+     *
+     * @param site      site to use
+     * @param commitIds commit IDs to process
+     * @return the operations for each commit, commits that don't exist in the repository are not included
+     */
+    Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds);
+
     /**
      * Get first id from repository for given site
      *
@@ -166,6 +176,26 @@ public interface ContentRepository {
     void publish(String siteId, String sandboxBranch, List<DeploymentItemTO> deploymentItems, String environment,
                  String author, String comment) throws DeploymentException;
 
+    /**
+     * Publish the same content to multiple environments. Implementations can compute the changes only once and
+     * apply them to all the environments, by default the items are published to each environment in order.
+     *
+     * @param siteId site identifier
+     * @param sandboxBranch sandbox branch name
+     * @param deploymentItems items to be published
+     * @param environments environments to publish to, in order
+     * @param author author
+     * @param comment submission comment
+     * @throws DeploymentException deployment error
+     */
+    default void publishToEnvironments(String siteId, String sandboxBranch, List<DeploymentItemTO> deploymentItems,
+                                       List<String> environments, String author, String comment)
+            throws DeploymentException {
+        for (String environment : environments) {
+            publish(siteId, sandboxBranch, deploymentItems, environment, author, comment);
+        }
+    }
+
     /**
      * Check if repository exists for  given site
      *
@@ -284,6 +314,22 @@ public interface ContentRepository {
      */
     void markGitLogAudited(String siteId, String commitId);
 
+    /**
+     * Mark Git logs as audited
+     *
+     * @param siteId    site identifier
+     * @param commitIds commit ids
+     */
+    void markGitLogAuditedBulk(String siteId, List<String> commitIds);
+
+    /**
+     * Count the commits that have not been audited yet
+     *
+     * @param siteId site identifier
+     * @return number of unaudited commits
+     */
+    int countUnauditedCommits(String siteId);
+
     /**
      * Update gitlog table with commit ids from repository
      * @param siteId site identifier
@@ -262,6 +262,12 @@ public interface StudioBlobStoreAdapter extends StudioBlobStore {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    default Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     default GitLog getGitLog(String siteId, String commitId) {
         // This should be handled by the local repository
@@ -318,6 +324,18 @@ public interface StudioBlobStoreAdapter extends StudioBlobStore {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    default void markGitLogAuditedBulk(String siteId, List<String> commitIds) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    default int countUnauditedCommits(String siteId) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     default void updateGitlog(String siteId, String lastProcessedCommitId, int batchSize) {
         // This should be handled by the local repository
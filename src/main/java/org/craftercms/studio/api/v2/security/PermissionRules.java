@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.craftercms.studio.api.v1.constant.StudioXmlConstants;
+import org.dom4j.Document;
+import org.dom4j.Element;
+import org.dom4j.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.craftercms.studio.api.v2.security.ContentItemAvailableActionsConstants.mapPermissionToContentItemAvailableActions;
+
+/**
+ * Permission mappings compiled into an immutable structure: each role has its rules in order, with the regex already
+ * compiled and the allowed permissions as a bit set. When several roles are evaluated together, rules with the same
+ * regex are matched only once per path. The results are memoized by set of roles and path.
+ *
+ * @since 4.1.0
+ */
+public class PermissionRules {
+
+    private static final Logger logger = LoggerFactory.getLogger(PermissionRules.class);
+
+    /**
+     * Name of the role used for the roles that don't have rules
+     */
+    public static final String DEFAULT_ROLE = "*";
+
+    protected static final int MAX_MEMOIZED_PATHS = 10000;
+    protected static final int MAX_ROLE_SETS = 100;
+
+    /**
+     * Empty rules, used when there are no permission mappings
+     */
+    public static final PermissionRules EMPTY = new PermissionRules(false, Collections.emptyMap(),
+            Collections.emptyList());
+
+    protected final boolean useDefaultRole;
+    protected final Map<String, List<Rule>> roleRules;
+    protected final List<String> permissions;
+    protected final long[] permissionActions;
+
+    protected final Cache<Set<String>, RoleSet> roleSets =
+            CacheBuilder.newBuilder().maximumSize(MAX_ROLE_SETS).build();
+    protected final Cache<PathKey, BitSet> memo =
+            CacheBuilder.newBuilder().maximumSize(MAX_MEMOIZED_PATHS).build();
+
+    protected PermissionRules(boolean useDefaultRole, Map<String, List<Rule>> roleRules, List<String> permissions) {
+        this.useDefaultRole = useDefaultRole;
+        this.roleRules = roleRules;
+        this.permissions = permissions;
+        this.permissionActions = new long[permissions.size()];
+        for (int i = 0; i < permissionActions.length; i++) {
+            permissionActions[i] = mapPermissionToContentItemAvailableActions(permissions.get(i));
+        }
+    }
+
+    /**
+     * Compiles the given permission mappings
+     * @param useDefaultRole if the rules of the {@link #DEFAULT_ROLE} should be used for roles without rules
+     * @param documents the permission mappings, if the same role is in more than one the last one is used
+     * @return the compiled rules
+     */
+    public static PermissionRules compile(boolean useDefaultRole, Document... documents) {
+        Map<String, List<Rule>> roleRules = new HashMap<>();
+        Map<String, Integer> permissionIndexes = new LinkedHashMap<>();
+        for (Document document : documents) {
+            if (document == null) {
+                continue;
+            }
+            Element root = document.getRootElement();
+            if (!root.getName().equals(StudioXmlConstants.DOCUMENT_PERMISSIONS)) {
+                continue;
+            }
+            //backwards compatibility for nested <site>
+            Element siteNode = (Element) root.selectSingleNode(StudioXmlConstants.DOCUMENT_ELM_SITE);
+            if (siteNode != null) {
+                root = siteNode;
+            }
+            for (Node roleNode : root.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_ROLE)) {
+                String role = roleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_PERMISSIONS_NAME);
+                List<Rule> rules = new ArrayList<>();
+                for (Node ruleNode : roleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_RULE)) {
+                    String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
+                    BitSet bits = new BitSet();
+                    for (Node permissionNode :
+                            ruleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS)) {
+                        String permission = permissionNode.getText().toLowerCase();
+                        bits.set(permissionIndexes.computeIfAbsent(permission, p -> permissionIndexes.size()));
+                    }
+                    try {
+                        rules.add(new Rule(regex, Pattern.compile(regex), bits));
+                    } catch (PatternSyntaxException e) {
+                        logger.warn("Invalid regex '{}' in the permission rules of role '{}', the rule will be " +
+                                "ignored", regex, role, e);
+                    }
+                }
+                roleRules.put(role, Collections.unmodifiableList(rules));
+            }
+        }
+        return new PermissionRules(useDefaultRole, Collections.unmodifiableMap(roleRules),
+                List.copyOf(permissionIndexes.keySet()));
+    }
+
+    /**
+     * Indicates if there are no roles in the permission mappings
+     */
+    public boolean isEmpty() {
+        return roleRules.isEmpty();
+    }
+
+    /**
+     * Returns all the permissions of the given roles, for any path
+     * @param roles the roles
+     * @return the permissions
+     */
+    public Set<String> getAllPermissions(Collection<String> roles) {
+        return toPermissions(getRoleSet(roles).allPermissions);
+    }
+
+    /**
+     * Returns the permissions of the given roles for the path
+     * @param roles the roles
+     * @param path the path
+     * @param defaultPermission the permission to add if any of the roles has no rules, can be null
+     * @return the permissions
+     */
+    public Set<String> getPermissions(Collection<String> roles, String path, String defaultPermission) {
+        RoleSet roleSet = getRoleSet(roles);
+        return toPermissions(roleSet, getPermissionBits(roleSet, path), defaultPermission);
+    }
+
+    /**
+     * Returns the permissions of the given roles for all the paths, the roles are resolved only once
+     * @param roles the roles
+     * @param paths the paths
+     * @param defaultPermission the permission to add if any of the roles has no rules, can be null
+     * @return the permissions for each path
+     */
+    public Map<String, Set<String>> getPermissions(Collection<String> roles, Collection<String> paths,
+                                                   String defaultPermission) {
+        RoleSet roleSet = getRoleSet(roles);
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        for (String path : paths) {
+            result.put(path, toPermissions(roleSet, getPermissionBits(roleSet, path), defaultPermission));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the available actions of the given roles for the path
+     * @param roles the roles
+     * @param path the path
+     * @return the bitmap of available actions
+     */
+    public long getAvailableActions(Collection<String> roles, String path) {
+        return toAvailableActions(getPermissionBits(getRoleSet(roles), path));
+    }
+
+    /**
+     * Returns the available actions of the given roles for all the paths, the roles are resolved only once
+     * @param roles the roles
+     * @param paths the paths
+     * @return the bitmap of available actions for each path
+     */
+    public Map<String, Long> getAvailableActions(Collection<String> roles, Collection<String> paths) {
+        RoleSet roleSet = getRoleSet(roles);
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (String path : paths) {
+            result.put(path, toAvailableActions(getPermissionBits(roleSet, path)));
+        }
+        return result;
+    }
+
+    protected long toAvailableActions(BitSet bits) {
+        long actions = 0L;
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            actions |= permissionActions[i];
+        }
+        return actions;
+    }
+
+    protected RoleSet getRoleSet(Collection<String> roles) {
+        Set<String> key = roles instanceof Set? (Set<String>) roles : new HashSet<>(roles);
+        RoleSet roleSet = roleSets.getIfPresent(key);
+        if (roleSet == null) {
+            roleSet = new RoleSet(Set.copyOf(key));
+            roleSets.put(roleSet.roles, roleSet);
+        }
+        return roleSet;
+    }
+
+    protected BitSet getPermissionBits(RoleSet roleSet, String path) {
+        PathKey key = new PathKey(roleSet.roles, path);
+        BitSet bits = memo.getIfPresent(key);
+        if (bits == null) {
+            bits = new BitSet();
+            for (Rule rule : roleSet.rules) {
+                if (rule.pattern.matcher(path).matches()) {
+                    bits.or(rule.permissions);
+                }
+            }
+            memo.put(key, bits);
+        }
+        return bits;
+    }
+
+    protected Set<String> toPermissions(RoleSet roleSet, BitSet bits, String defaultPermission) {
+        Set<String> result = toPermissions(bits);
+        if (roleSet.missingRules && defaultPermission != null) {
+            result.add(defaultPermission);
+        }
+        return result;
+    }
+
+    protected Set<String> toPermissions(BitSet bits) {
+        Set<String> result = new HashSet<>();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(permissions.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * The rules of a set of roles, merged by regex
+     */
+    protected class RoleSet {
+
+        protected final Set<String> roles;
+        protected final List<Rule> rules = new ArrayList<>();
+        protected final BitSet allPermissions = new BitSet();
+        protected boolean missingRules;
+
+        protected RoleSet(Set<String> roles) {
+            this.roles = roles;
+            Map<String, Rule> rulesByRegex = new LinkedHashMap<>();
+            for (String role : roles) {
+                List<Rule> roleRules = PermissionRules.this.roleRules.get(role);
+                if (roleRules == null && useDefaultRole) {
+                    roleRules = PermissionRules.this.roleRules.get(DEFAULT_ROLE);
+                }
+                if (roleRules == null || roleRules.isEmpty()) {
+                    missingRules = true;
+                    continue;
+                }
+                for (Rule rule : roleRules) {
+                    rulesByRegex.merge(rule.regex, rule, Rule::merge);
+                    allPermissions.or(rule.permissions);
+                }
+            }
+            rules.addAll(rulesByRegex.values());
+        }
+
+    }
+
+    protected static class Rule {
+
+        protected final String regex;
+        protected final Pattern pattern;
+        protected final BitSet permissions;
+
+        protected Rule(String regex, Pattern pattern, BitSet permissions) {
+            this.regex = regex;
+            this.pattern = pattern;
+            this.permissions = permissions;
+        }
+
+        protected Rule merge(Rule other) {
+            BitSet merged = (BitSet) permissions.clone();
+            merged.or(other.permissions);
+            return new Rule(regex, pattern, merged);
+        }
+
+    }
+
+    protected static class PathKey {
+
+        protected final Set<String> roles;
+        protected final String path;
+
+        protected PathKey(Set<String> roles, String path) {
+            this.roles = roles;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PathKey pathKey = (PathKey) o;
+            return roles.equals(pathKey.roles) && path.equals(pathKey.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(roles, path);
+        }
+
+    }
+
+}
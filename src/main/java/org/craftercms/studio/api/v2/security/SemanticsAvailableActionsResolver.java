@@ -21,6 +21,9 @@ import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v2.dal.Item;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface SemanticsAvailableActionsResolver {
 
     /**
@@ -42,4 +45,15 @@ public interface SemanticsAvailableActionsResolver {
      */
     long calculateContentItemAvailableActions(String username, String siteId, DetailedItem detailedItem)
             throws ServiceLayerException, UserNotFoundException;
+
+    /**
+     * Calculate available actions for given content items, the permissions of the user are resolved for all the
+     * items at once
+     * @param username user name to apply permissions
+     * @param siteId site identifier
+     * @param items Items
+     * @return bitmap representing available actions for each item path
+     */
+    Map<String, Long> calculateContentItemAvailableActions(String username, String siteId, Collection<Item> items)
+            throws ServiceLayerException, UserNotFoundException;
 }
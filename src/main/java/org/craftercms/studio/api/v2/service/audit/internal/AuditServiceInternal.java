@@ -141,6 +141,14 @@ public interface AuditServiceInternal {
      */
     boolean insertAuditLog(AuditLog auditLog);
 
+    /**
+     * Insert multiple audit log entries using batch inserts
+     *
+     * @param auditLogs Audit logs to insert
+     * @return number of inserted entries
+     */
+    int insertAuditLogs(List<AuditLog> auditLogs);
+
     /**
      * Create Audit log entry and populate common properties
      *
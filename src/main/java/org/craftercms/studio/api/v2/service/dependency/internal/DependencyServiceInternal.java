@@ -20,6 +20,7 @@ import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v2.dal.Dependency;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -103,6 +104,25 @@ public interface DependencyServiceInternal {
      */
     List<String> getItemSpecificDependencies(String siteId, List<String> paths);
 
+    /**
+     * Get item specific dependencies for given paths, including the item specific dependencies of the results
+     *
+     * @param siteId site identifier
+     * @param paths paths to get item specific dependencies for
+     * @param depth number of dependency levels to follow, a negative value means all levels
+     * @return set of item specific dependencies
+     */
+    Set<String> getItemSpecificDependencies(String siteId, Collection<String> paths, int depth);
+
+    /**
+     * Get the direct dependencies of given paths
+     *
+     * @param siteId site identifier
+     * @param paths paths to get dependencies for
+     * @return set of paths the given items depend on
+     */
+    Set<String> getDirectDependencies(String siteId, Collection<String> paths);
+
     /**
      * Resolves dependent files for given content of given path
      *
@@ -112,6 +132,17 @@ public interface DependencyServiceInternal {
      */
     Map<String, Set<String>> resolveDependencies(String site, String path);
 
+    /**
+     * Resolves dependent files for the given content of given path
+     *
+     * @param site site identifier
+     * @param path path of the item
+     * @param content content of the item, if null it will be read from the repository when needed
+     * @return set of paths of files that content is dependant on
+     * @since 4.1.0
+     */
+    Map<String, Set<String>> resolveDependencies(String site, String path, String content);
+
     /**
      * Get dependencies for content path by type
      * @param siteId site identifier
@@ -120,4 +151,36 @@ public interface DependencyServiceInternal {
      * @return list of dependencies
      */
     List<Dependency> getDependenciesByType(String siteId, String path, String dependencyType);
+
+    /**
+     * Notifies that the dependencies of the given items have been replaced in the database
+     *
+     * @param siteId site identifier
+     * @param dependencies map of source path to all its target paths
+     */
+    void dependenciesUpdated(String siteId, Map<String, Set<String>> dependencies);
+
+    /**
+     * Notifies that an item has been renamed in all its dependencies in the database
+     *
+     * @param siteId site identifier
+     * @param oldPath old path of the item
+     * @param newPath new path of the item
+     */
+    void dependenciesMoved(String siteId, String oldPath, String newPath);
+
+    /**
+     * Notifies that all dependencies from and to an item have been deleted from the database
+     *
+     * @param siteId site identifier
+     * @param path path of the item
+     */
+    void dependenciesDeleted(String siteId, String path);
+
+    /**
+     * Discards the dependencies of a site kept in memory, they will be loaded again from the database when needed
+     *
+     * @param siteId site identifier
+     */
+    void invalidateDependencies(String siteId);
 }
@@ -401,6 +401,13 @@ public interface ItemServiceInternal {
      */
     void clearPreviousPath(String siteId, String path);
 
+    /**
+     * Clear previous path of multiple content items
+     * @param siteId site identifier
+     * @param paths paths of the content
+     */
+    void clearPreviousPathBulk(String siteId, Collection<String> paths);
+
     /**
      * Convert Publishing History Item to Publishing Dashboard Item
      * @param historyItem publishing history item
@@ -469,6 +476,14 @@ public interface ItemServiceInternal {
      */
     void updateCommitId(String siteId, String path, String commitId);
 
+    /**
+     * Update commit id for items
+     * @param siteId site identifier
+     * @param paths paths of the items
+     * @param commitId commit id
+     */
+    void updateCommitIds(String siteId, Collection<String> paths, String commitId);
+
     /**
      * Get mandatory parents for publishing for given site and list of paths
      * @param siteId site identifier
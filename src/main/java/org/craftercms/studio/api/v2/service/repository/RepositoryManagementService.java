@@ -37,6 +37,15 @@ public interface RepositoryManagementService {
 
     List<RemoteRepositoryInfo> listRemotes(String siteId) throws ServiceLayerException;
 
+    /**
+     * List the remotes of the site
+     *
+     * @param siteId site identifier
+     * @param refresh if true, all remotes are fetched before returning, otherwise the last known state is returned
+     * @return the remote repositories
+     */
+    List<RemoteRepositoryInfo> listRemotes(String siteId, boolean refresh) throws ServiceLayerException;
+
     MergeResult pullFromRemote(String siteId, String remoteName, String remoteBranch, String mergeStrategy)
             throws InvalidRemoteUrlException, ServiceLayerException,
             InvalidRemoteRepositoryCredentialsException, RemoteRepositoryNotFoundException;
@@ -52,6 +61,15 @@ public interface RepositoryManagementService {
 
     RepositoryStatus getRepositoryStatus(String siteId) throws ServiceLayerException;
 
+    /**
+     * Get the status of the sandbox repository of the site
+     *
+     * @param siteId site identifier
+     * @param fullScan if true, the whole worktree is scanned for uncommitted changes
+     * @return the repository status
+     */
+    RepositoryStatus getRepositoryStatus(String siteId, boolean fullScan) throws ServiceLayerException;
+
     RepositoryStatus resolveConflict(String siteId, String path, String resolution)
             throws ServiceLayerException;
 
@@ -35,8 +35,16 @@ public interface RepositoryManagementServiceInternal {
     boolean addRemote(String siteId, RemoteRepository remoteRepository)
             throws ServiceLayerException, InvalidRemoteUrlException, RemoteRepositoryNotFoundException;
 
-    List<RemoteRepositoryInfo> listRemotes(String siteId, String sandboxBranch)
-            ;
+    /**
+     * List the remotes of the site using the last known state of each remote. Remotes that have never been fetched
+     * are fetched before returning, stale ones are refreshed in the background
+     *
+     * @param siteId site identifier
+     * @param sandboxBranch sandbox branch of the site
+     * @param refresh if true, all remotes are fetched before returning
+     * @return the remote repositories
+     */
+    List<RemoteRepositoryInfo> listRemotes(String siteId, String sandboxBranch, boolean refresh);
 
     MergeResult pullFromRemote(String siteId, String remoteName, String remoteBranch, String mergeStrategy)
             throws InvalidRemoteUrlException, ServiceLayerException,
@@ -50,6 +58,16 @@ public interface RepositoryManagementServiceInternal {
 
     RepositoryStatus getRepositoryStatus(String siteId) throws ServiceLayerException;
 
+    /**
+     * Get the status of the sandbox repository of the site. Conflicts and merges in progress are read from the
+     * index, uncommitted changes are checked only for the paths written by Studio since the last scan
+     *
+     * @param siteId site identifier
+     * @param fullScan if true, the whole worktree is scanned
+     * @return the repository status
+     */
+    RepositoryStatus getRepositoryStatus(String siteId, boolean fullScan) throws ServiceLayerException;
+
     boolean resolveConflict(String siteId, String path, String resolution)
             throws ServiceLayerException;
 
@@ -71,6 +71,11 @@ public interface AccessTokenService {
      */
     void deleteExpiredRefreshTokens();
 
+    /**
+     * Writes the pending login entries for persistent access tokens to the audit log
+     */
+    void flushLoginAuditLog();
+
     // Persistent tokens
 
     /**
@@ -78,6 +78,11 @@ public interface AccessTokenServiceInternal {
      */
     void deleteExpiredRefreshTokens();
 
+    /**
+     * Writes the pending login entries for persistent access tokens to the audit log
+     */
+    void flushLoginAuditLog();
+
     // Persistent tokens
 
     /**
@@ -49,6 +49,7 @@ import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.impl.v1.repository.StrSubstitutorVisitor;
 import org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants;
+import org.craftercms.studio.impl.v1.repository.git.SandboxWriteBatch;
 import org.craftercms.studio.impl.v1.repository.git.TreeCopier;
 import org.craftercms.studio.impl.v2.utils.GitUtils;
 import org.craftercms.studio.impl.v2.utils.git.GitCli;
@@ -166,6 +167,8 @@ public class GitRepositoryHelper implements DisposableBean {
 
     private final Cache<String, Repository> repositoryCache = CacheBuilder.newBuilder().build();
 
+    private final ThreadLocal<SandboxWriteBatch> writeBatch = new ThreadLocal<>();
+
     @Override
     public void destroy() throws Exception {
         repositoryCache.asMap().values().forEach(Repository::close);
@@ -435,6 +438,10 @@ public class GitRepositoryHelper implements DisposableBean {
     }
 
     public RevTree getTreeForLastCommit(Repository repository) throws IOException {
+        if (isInWriteBatch(repository)) {
+            // files written in the batch are not committed yet but the current thread should be able to read them
+            return writeBatch.get().getTree();
+        }
         // TODO: JM: Make this method call getTreeForCommit(Repository repository, String commitId)
         ObjectId lastCommitId = repository.resolve(HEAD);
 
@@ -448,6 +455,49 @@ public class GitRepositoryHelper implements DisposableBean {
         }
     }
 
+    /**
+     * Starts a write batch for the sandbox repository of the given site in the current thread. Files written while the
+     * batch is active are only added to the object database, they are committed together when the batch ends.
+     * @param site the site id
+     * @throws IOException if there is any error reading the last commit of the repository
+     */
+    public void startWriteBatch(String site) throws IOException {
+        if (writeBatch.get() != null) {
+            throw new IllegalStateException("There is already a write batch in progress for site " +
+                    writeBatch.get().getSiteId());
+        }
+        writeBatch.set(new SandboxWriteBatch(site, getRepository(site, SANDBOX)));
+    }
+
+    /**
+     * Checks if the current thread has a write batch for the given repository
+     */
+    public boolean isInWriteBatch(Repository repository) {
+        SandboxWriteBatch batch = writeBatch.get();
+        return batch != null && batch.getRepository().getDirectory().equals(repository.getDirectory());
+    }
+
+    /**
+     * Adds a file to the write batch of the current thread, the file is not written to the work tree
+     * @param path the path of the file
+     * @param itemPath the path of the item that was created or updated
+     * @param content the content of the file
+     * @throws IOException if there is any error writing the file to the object database
+     */
+    public void addToWriteBatch(String path, String itemPath, InputStream content) throws IOException {
+        writeBatch.get().add(getGitPath(path), itemPath, content);
+    }
+
+    /**
+     * Ends the write batch of the current thread, the caller needs to close the batch once it has been committed
+     * @return the batch, or null if there was none
+     */
+    public SandboxWriteBatch endWriteBatch() {
+        SandboxWriteBatch batch = writeBatch.get();
+        writeBatch.remove();
+        return batch;
+    }
+
     public List<String> getFilesInCommit(Repository repository, RevCommit commit) {
         List<String> files = new ArrayList<>();
         RevWalk rw = new RevWalk(repository);
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Utility methods to turn the path filters used by the item queries into conditions that the database can resolve
+ * with a range scan of the path index instead of evaluating a regular expression for every item of the site.
+ *
+ * @since 4.1.0
+ */
+public final class PathRegexUtils {
+
+    private static final String REGEX_META_CHARS = ".[]()*+?{}|$^\\";
+    private static final String REGEX_QUANTIFIERS = "*?{";
+    private static final String[] MATCH_ALL_REGEXES = { "", ".*", "^.*", ".*$", "^.*$", "^/.*" };
+
+    private PathRegexUtils() {
+    }
+
+    /**
+     * Checks if the given regex matches every item path
+     * @param regex the regex
+     * @return true if the regex doesn't need to be evaluated
+     */
+    public static boolean matchesAll(String regex) {
+        return regex != null && StringUtils.equalsAny(regex, MATCH_ALL_REGEXES);
+    }
+
+    /**
+     * Returns a LIKE pattern that matches every path that the given regex could match, based on the literal prefix
+     * of the regex. Only regexes anchored to the start of the path have a prefix.
+     * @param regex the regex
+     * @return the LIKE pattern, or null if the regex has no literal prefix
+     */
+    public static String getLikePrefix(String regex) {
+        if (regex == null || !regex.startsWith("^") || hasTopLevelAlternation(regex)) {
+            return null;
+        }
+        StringBuilder prefix = new StringBuilder();
+        int i = 1;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int length = 1;
+            if (c == '\\') {
+                // only escaped punctuation is a literal, classes like \d or \w are not
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    break;
+                }
+                c = regex.charAt(i + 1);
+                length = 2;
+            } else if (REGEX_META_CHARS.indexOf(c) >= 0) {
+                break;
+            }
+            int next = i + length;
+            if (next < regex.length() && REGEX_QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                // the last literal is optional
+                break;
+            }
+            prefix.append(c);
+            i = next;
+        }
+        if (prefix.length() == 0) {
+            return null;
+        }
+        return escapeLike(prefix.toString()) + "%";
+    }
+
+    private static boolean hasTopLevelAlternation(String regex) {
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                int end = getCharacterClassEnd(regex, i);
+                if (StringUtils.containsAny(regex.substring(i, end), "()|")) {
+                    // engines don't agree on where some classes end, so don't guess the depth
+                    return true;
+                }
+                i = end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the bracket that closes the character class starting at the given index, taking into
+     * account nested classes and a closing bracket right after the opening one
+     */
+    private static int getCharacterClassEnd(String regex, int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = getCharacterClassEnd(regex, i);
+            } else if (c == ']') {
+                return i;
+            }
+            i++;
+        }
+        return regex.length();
+    }
+
+    /**
+     * Returns a LIKE pattern that matches all the descendants of the given path
+     * @param path the path
+     * @return the LIKE pattern
+     */
+    public static String getDescendantsLikePattern(String path) {
+        return escapeLike(StringUtils.appendIfMissing(path, "/")) + "%";
+    }
+
+    /**
+     * Escapes the wildcards of a LIKE pattern so the value is matched literally
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    public static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+}
@@ -20,12 +20,14 @@ import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 public interface StudioConfiguration {
 
     /** Override Configuration */
     String STUDIO_CONFIG_OVERRIDE_CONFIG = "studio.config.overrideConfig";
     String STUDIO_CONFIG_GLOBAL_REPO_OVERRIDE_CONFIG = "studio.config.globalRepoOverrideConfig";
+    String STUDIO_CONFIG_GLOBAL_REPO_CHECK_INTERVAL = "studio.config.globalRepoCheckInterval";
 
     /** Content Repository */
     String REPO_BASE_PATH = "studio.repo.basePath";
@@ -41,10 +43,16 @@ public interface StudioConfiguration {
     String REPO_COMMIT_MESSAGE_PROLOGUE = "studio.repo.commitMessagePrologue";
     String REPO_COMMIT_MESSAGE_POSTSCRIPT = "studio.repo.commitMessagePostscript";
     String REPO_SANDBOX_WRITE_COMMIT_MESSAGE = "studio.repo.sandbox.write.commitMessage";
+    String REPO_SANDBOX_GROUP_COMMIT_ENABLED = "studio.repo.sandbox.groupCommit.enabled";
+    String REPO_SANDBOX_GROUP_COMMIT_WINDOW = "studio.repo.sandbox.groupCommit.window";
+    String REPO_SANDBOX_GROUP_COMMIT_TIMEOUT = "studio.repo.sandbox.groupCommit.timeout";
     String REPO_PUBLISHED_COMMIT_MESSAGE = "studio.repo.published.commitMessage";
     String REPO_PUBLISHED_LIVE = "studio.repo.published.live";
     String REPO_PUBLISHED_STAGING = "studio.repo.published.staging";
+    String REPO_PUBLISHED_IN_MEMORY_ENABLED = "studio.repo.published.inMemory.enabled";
     String REPO_SYNC_DB_COMMIT_MESSAGE_NO_PROCESSING = "studio.repo.syncDB.commitMessage.noProcessing";
+    String REPO_SYNC_DB_METADATA_EXTRACTION_POOL_SIZE = "studio.repo.syncDB.metadataExtraction.poolSize";
+    String REPO_SYNC_DB_METADATA_EXTRACTION_WINDOW_SIZE = "studio.repo.syncDB.metadataExtraction.windowSize";
     String REPO_CLEANUP_CRON = "studio.repo.cleanup.cron";
     String REPO_CREATE_REPOSITORY_COMMIT_MESSAGE = "studio.repo.createRepository.commitMessage";
     String REPO_CREATE_SANDBOX_BRANCH_COMMIT_MESSAGE = "studio.repo.createSandboxBranch.commitMessage";
@@ -60,6 +68,9 @@ public interface StudioConfiguration {
     String REPO_COPY_CONTENT_COMMIT_MESSAGE = "studio.repo.copyContent.commitMessage";
     String REPO_PULL_FROM_REMOTE_CONFLICT_NOTIFICATION_ENABLED =
             "studio.repo.pullFromRemote.conflict.notificationEnabled";
+    String REPO_REMOTES_FETCH_POOL_SIZE = "studio.repo.remotes.fetch.poolSize";
+    String REPO_REMOTES_FETCH_TIMEOUT = "studio.repo.remotes.fetch.timeout";
+    String REPO_REMOTES_REFRESH_INTERVAL = "studio.repo.remotes.refreshInterval";
     String REPO_IGNORE_FILES = "studio.repo.ignoreFiles";
     String REPO_RETRYING_OPERATION_MAX_ATTEMPTS = "studio.repo.retryingOperation.maxAttempts";
     String REPO_RETRYING_OPERATION_MAX_SLEEP = "studio.repo.retryingOperation.maxSleep";
@@ -114,6 +125,7 @@ public interface StudioConfiguration {
     String CONFIGURATION_SITE_MUTLI_ENVIRONMENT_CONFIG_BASE_PATH_PATTERN =
             "studio.configuration.site.multiEnvironment.configBasePathPattern";
     String CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH = "studio.configuration.site.contentTypes.configBasePath";
+    String CONFIGURATION_PATH_CLASSIFIER_CACHE_SIZE = "studio.configuration.pathClassifier.cacheSize";
     String CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_PATH = "studio.configuration.site.contentTypes.configPath";
     String CONFIGURATION_SITE_GENERAL_CONFIG_FILE_NAME = "studio.configuration.site.generalConfigFileName";
     String CONFIGURATION_SITE_PERMISSION_MAPPINGS_FILE_NAME = "studio.configuration.site.permissionMappingsFileName";
@@ -219,6 +231,8 @@ public interface StudioConfiguration {
     String PREVIEW_DISABLE_DEPLOY_CRON = "studio.preview.disableDeployCron";
     String PREVIEW_TEMPLATE_NAME = "studio.preview.templateName";
     String PREVIEW_REPO_URL = "studio.preview.repoUrl";
+    String PREVIEW_SYNC_WINDOW = "studio.preview.sync.window";
+    String PREVIEW_SYNC_MAX_CONCURRENT_REQUESTS = "studio.preview.sync.maxConcurrentRequests";
 
     /** Authoring Deployer **/
     String AUTHORING_REPLACE = "studio.authoring.replace";
@@ -269,6 +283,8 @@ public interface StudioConfiguration {
 
     /** Cache Configuration  **/
     String CACHE_TEMPLATES = "studio.cache.templates";
+    String CACHE_CONTENT_STORE_ENABLED = "studio.cache.contentStore.enabled";
+    String CACHE_CONTENT_STORE_CONFIG = "studio.cache.contentStore.config";
 
     /* Content validation */
     String CONTENT_FILENAME_MAX_SIZE = "studio.content.filename.maxSize";
@@ -291,6 +307,10 @@ public interface StudioConfiguration {
             "studio.clockJob.task.auditLogProcessing.batchSizeGitLog";
     String CLOCK_JOB_TASK_AUDIT_LOG_PROCESSING_BATCH_SIZE_AUDITED =
             "studio.clockJob.task.auditLogProcessing.batchSizeAudited";
+    String CLOCK_JOB_SITE_ACTIVITY_ENABLED = "studio.clockJob.siteActivity.enabled";
+    String CLOCK_JOB_SITE_ACTIVITY_ACTIVE_WINDOW = "studio.clockJob.siteActivity.activeWindow";
+    String CLOCK_JOB_SITE_ACTIVITY_SWEEP_INTERVAL = "studio.clockJob.siteActivity.sweepInterval";
+    String CLOCK_JOB_STATS_LOG_INTERVAL = "studio.clockJob.statsLogInterval";
 
     String PLUGIN_BASE_PATTERN = "studio.configuration.plugin.base.pattern";
 
@@ -303,6 +323,10 @@ public interface StudioConfiguration {
     String CONFIGURATION_DASHBOARD_CONTENT_EXPIRED_SORT_BY =
             "studio.configuration.dashboard.contentExpiredQuery.sortBy";
 
+    // Event Broadcaster
+    String EVENTS_BROADCAST_WINDOW = "studio.events.broadcast.window";
+    String EVENTS_BROADCAST_MAX_QUEUE_SIZE = "studio.events.broadcast.maxQueueSize";
+
     // CORS
     String CONFIGURATION_CORS_ALLOWED_ORIGINS = "studio.cors.origins";
 
@@ -325,4 +349,33 @@ public interface StudioConfiguration {
 
     List<HierarchicalConfiguration<ImmutableNode>> getSubConfigs(String key);
 
+    /**
+     * Returns the trimmed values of a comma separated property. The result is cached until the configuration changes
+     * @param key the property key
+     * @return the list of values, empty if the property is not defined
+     */
+    List<String> getCommaSeparatedValues(String key);
+
+    /**
+     * Returns the values of a comma separated property compiled as regular expressions. The result is cached until the
+     * configuration changes
+     * @param key the property key
+     * @param flags the flags for {@link Pattern#compile(String, int)}
+     * @return the list of patterns, empty if the property is not defined
+     */
+    List<Pattern> getPatterns(String key, int flags);
+
+    /**
+     * Discards the values resolved so far, the configuration from the global repository will be loaded again on the
+     * next lookup
+     */
+    void invalidateGlobalRepoConfig();
+
+    /**
+     * Registers a listener that will be called every time the configuration changes, for components that need to
+     * rebuild state derived from the configuration
+     * @param listener the listener
+     */
+    void addChangeListener(Runnable listener);
+
 }
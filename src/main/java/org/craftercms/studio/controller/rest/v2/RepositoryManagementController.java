@@ -78,9 +78,11 @@ public class RepositoryManagementController {
     }
 
     @GetMapping(value = LIST_REMOTES, produces = APPLICATION_JSON_VALUE)
-    public ResultList<RemoteRepositoryInfo> listRemotes(@ValidSiteId @RequestParam(name = "siteId") String siteId)
+    public ResultList<RemoteRepositoryInfo> listRemotes(@ValidSiteId @RequestParam(name = "siteId") String siteId,
+                                                        @RequestParam(name = "refresh", required = false,
+                                                                defaultValue = "false") boolean refresh)
             throws ServiceLayerException {
-        List<RemoteRepositoryInfo> remotes = repositoryManagementService.listRemotes(siteId);
+        List<RemoteRepositoryInfo> remotes = repositoryManagementService.listRemotes(siteId, refresh);
 
         ResultList<RemoteRepositoryInfo> result = new ResultList<>();
         result.setEntities(RESULT_KEY_REMOTES, remotes);
@@ -147,9 +149,11 @@ public class RepositoryManagementController {
     }
 
     @GetMapping(STATUS)
-    public ResultOne<RepositoryStatus> getRepositoryStatus(@ValidSiteId @RequestParam(value = REQUEST_PARAM_SITEID) String siteId)
+    public ResultOne<RepositoryStatus> getRepositoryStatus(@ValidSiteId @RequestParam(value = REQUEST_PARAM_SITEID) String siteId,
+                                                           @RequestParam(name = "fullScan", required = false,
+                                                                   defaultValue = "false") boolean fullScan)
             throws ServiceLayerException {
-        RepositoryStatus status = repositoryManagementService.getRepositoryStatus(siteId);
+        RepositoryStatus status = repositoryManagementService.getRepositoryStatus(siteId, fullScan);
         ResultOne<RepositoryStatus> result = new ResultOne<>();
         result.setEntity(RESULT_KEY_REPOSITORY_STATUS, status);
         result.setResponse(OK);
@@ -42,6 +42,7 @@ import org.craftercms.studio.api.v2.dal.*;
 import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade;
 import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.repository.WorktreeJournal;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -56,6 +57,7 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.*;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.ContextRefreshedEvent;
@@ -74,6 +76,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import static java.lang.Integer.MAX_VALUE;
@@ -111,6 +118,9 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     protected GitRepositoryHelper helper;
     protected RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
     protected RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    protected WorktreeJournal worktreeJournal;
+
+    protected final Map<String, SandboxCommitGroup> commitGroups = new ConcurrentHashMap<>();
 
     @Override
     public boolean contentExists(String site, String path) {
@@ -142,6 +152,59 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         return toReturn;
     }
 
+    @Override
+    public Set<String> getExistingPaths(String site, Collection<String> paths) {
+        Set<String> existingPaths = new LinkedHashSet<>();
+        Map<String, List<String>> pathsByGitPath = new HashMap<>();
+        Set<String> parentGitPaths = new HashSet<>();
+        for (String path : paths) {
+            String gitPath = helper.getGitPath(path);
+            if (StringUtils.isEmpty(gitPath) || gitPath.equals(".")) {
+                existingPaths.add(path);
+                continue;
+            }
+            pathsByGitPath.computeIfAbsent(gitPath, k -> new ArrayList<>()).add(path);
+            for (int i = gitPath.indexOf('/'); i > 0; i = gitPath.indexOf('/', i + 1)) {
+                parentGitPaths.add(gitPath.substring(0, i));
+            }
+        }
+        if (pathsByGitPath.isEmpty()) {
+            return existingPaths;
+        }
+        try {
+            Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+            if (repo != null) {
+                RevTree tree = helper.getTreeForLastCommit(repo);
+                // Walk the tree only once, entering just the folders that contain one of the paths
+                try (TreeWalk tw = new TreeWalk(repo)) {
+                    tw.addTree(tree);
+                    tw.setRecursive(false);
+                    tw.setFilter(PathFilterGroup.createFromStrings(pathsByGitPath.keySet()));
+                    while (tw.next()) {
+                        String gitPath = tw.getPathString();
+                        List<String> matches = pathsByGitPath.get(gitPath);
+                        if (matches != null) {
+                            existingPaths.addAll(matches);
+                        }
+                        if (tw.isSubtree() && parentGitPaths.contains(gitPath)) {
+                            tw.enterSubtree();
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to check for content existence at site '{}' for '{}' paths", site, paths.size(), e);
+        }
+        // Keep the same order as the given paths
+        Set<String> result = new LinkedHashSet<>();
+        for (String path : paths) {
+            if (existingPaths.contains(path)) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
     @Override
     public boolean shallowContentExists(String site, String path) {
         return Files.exists(helper.buildRepoPath(SANDBOX, site).resolve(helper.getGitPath(path)));
@@ -175,6 +238,15 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
     @Override
     public String writeContent(String site, String path, InputStream content) {
+        journalPath(site, path);
+        if (isInWriteBatch(site)) {
+            return writeContentInBatch(site, path, content);
+        }
+        if (StringUtils.isNotEmpty(site) &&
+                studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_ENABLED, Boolean.class, false)) {
+            return writeContentInGroup(site, path, content);
+        }
+
         // Write content to git and commit it
         String commitId = null;
         String gitLockKey = helper.getSandboxRepoLockKey(site, true);
@@ -204,8 +276,258 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         return commitId;
     }
 
+    /**
+     * Adds the content to the write batch of the current thread, the work tree is not updated until the batch is
+     * committed
+     */
+    protected String writeContentInBatch(String site, String path, InputStream content) {
+        Repository repo = helper.getRepository(site, SANDBOX);
+        try {
+            helper.addToWriteBatch(path, path, content);
+            return repo.resolve(HEAD).getName();
+        } catch (IOException e) {
+            logger.error("Failed to write content to site '{}' path '{}'", site, path, e);
+        }
+        return null;
+    }
+
+    /**
+     * Adds the path to the worktree journal before committing it, so it is checked by the next status even if the
+     * commit fails
+     */
+    protected void journalPath(String site, String path) {
+        if (StringUtils.isNotEmpty(site) && worktreeJournal != null) {
+            worktreeJournal.add(site, helper.getGitPath(path));
+        }
+    }
+
+    protected boolean isInWriteBatch(String site) {
+        if (StringUtils.isEmpty(site)) {
+            return false;
+        }
+        Repository repo = helper.getRepository(site, SANDBOX);
+        return repo != null && helper.isInWriteBatch(repo);
+    }
+
+    @Override
+    public void startWriteBatch(String site) throws ServiceLayerException {
+        try {
+            helper.startWriteBatch(site);
+        } catch (IOException | RuntimeException e) {
+            throw new ServiceLayerException("Failed to start the write batch for site " + site, e);
+        }
+    }
+
+    @Override
+    public Map<String, String> commitWriteBatch(String site, String fromPath, String toPath)
+            throws ServiceLayerException {
+        Map<String, String> commitIds = new LinkedHashMap<>();
+        try (SandboxWriteBatch batch = helper.endWriteBatch()) {
+            if (batch == null || batch.getPaths().isEmpty()) {
+                return commitIds;
+            }
+            Repository repo = batch.getRepository();
+            String commitId;
+            String gitLockKey = helper.getSandboxRepoLockKey(site);
+            generalLockService.lock(gitLockKey);
+            try (Git git = new Git(repo)) {
+                commitId = batch.commit(helper.getCurrentUserIdent(),
+                        helper.getCommitMessage(REPO_COPY_CONTENT_COMMIT_MESSAGE)
+                                .replaceAll(PATTERN_FROM_PATH, fromPath)
+                                .replaceAll(PATTERN_TO_PATH, toPath)).getName();
+                // bring the index and the work tree up to date with the new commit
+                CheckoutCommand checkoutCommand = git.checkout()
+                        .setStartPoint(commitId)
+                        .addPaths(new ArrayList<>(batch.getPaths()));
+                retryingRepositoryOperationFacade.call(checkoutCommand);
+            } catch (IOException | GitAPIException | UserNotFoundException e) {
+                throw new ServiceLayerException(format("Failed to commit the write batch in site '%s' paths '%s'",
+                        site, batch.getPaths()), e);
+            } finally {
+                generalLockService.unlock(gitLockKey);
+            }
+            logger.debug("Committed '{}' paths of the write batch in site '{}' with commit id '{}'",
+                    batch.getPaths().size(), site, commitId);
+            for (String itemPath : batch.getItemPaths()) {
+                commitIds.put(itemPath, commitId);
+            }
+        }
+        return commitIds;
+    }
+
+    /**
+     * Writes the content to the sandbox repository but, instead of committing it right away, adds it to the pending
+     * commit group of the site. The first writer of a group waits for the configured window and then commits all the
+     * paths written in the meantime, using a single commit for each author.
+     */
+    protected String writeContentInGroup(String site, String path, InputStream content) {
+        PersonIdent user;
+        String username;
+        String comment;
+        try {
+            user = helper.getCurrentUserIdent();
+            username = securityService.getCurrentUser();
+            comment = helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)
+                    .replace(REPO_COMMIT_MESSAGE_USERNAME_VAR, username)
+                    .replace(REPO_COMMIT_MESSAGE_PATH_VAR, path);
+        } catch (ServiceLayerException | UserNotFoundException e) {
+            logger.error("Failed to write content to site '{}' path '{}'", site, path, e);
+            return null;
+        }
+
+        SandboxCommitGroup group;
+        CompletableFuture<String> future;
+        boolean leader;
+        String gitLockKey = helper.getSandboxRepoLockKey(site, true);
+        generalLockService.lock(gitLockKey);
+        try {
+            Repository repo = helper.getRepository(site, SANDBOX);
+            if (repo == null) {
+                logger.error("Missing repository during write for site '{}' path '{}'", site, path);
+                return null;
+            }
+            group = commitGroups.get(site);
+            if (group != null && !group.canAdd(path, username)) {
+                // the path has pending changes from a different author, they need to be committed first
+                commitGroup(repo, group);
+                group = null;
+            }
+            leader = group == null;
+            if (leader) {
+                group = new SandboxCommitGroup(site);
+                commitGroups.put(site, group);
+            }
+            if (!helper.writeFile(repo, site, path, content)) {
+                logger.error("Failed to write content to site '{}' path '{}'", site, path);
+                if (leader) {
+                    commitGroups.remove(site, group);
+                }
+                return null;
+            }
+            future = group.add(path, username, user, comment);
+        } finally {
+            generalLockService.unlock(gitLockKey);
+        }
+
+        if (leader) {
+            try {
+                Thread.sleep(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_WINDOW, Long.class, 20L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            generalLockService.lock(gitLockKey);
+            try {
+                if (!group.isClosed()) {
+                    commitGroup(helper.getRepository(site, SANDBOX), group);
+                }
+            } finally {
+                generalLockService.unlock(gitLockKey);
+            }
+        }
+
+        long timeout = studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_TIMEOUT, Long.class, 60000L);
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.error("Timed out after '{}' ms waiting for the commit of site '{}' path '{}'", timeout, site, path);
+            generalLockService.lock(gitLockKey);
+            try {
+                if (future.isDone()) {
+                    // the group was committed while waiting for the lock
+                    return future.getNow(null);
+                }
+                // none of the writes in the group can be reported as committed anymore
+                abortGroup(helper.getRepository(site, SANDBOX), group);
+            } finally {
+                generalLockService.unlock(gitLockKey);
+            }
+        } catch (ExecutionException e) {
+            logger.error("Failed to commit content in site '{}' path '{}'", site, path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for the commit of site '{}' path '{}'", site, path);
+        }
+        return null;
+    }
+
+    /**
+     * Commits all the pending writes in the given group, must be called while holding the sandbox lock of the site
+     */
+    protected void commitGroup(Repository repo, SandboxCommitGroup group) {
+        String site = group.getSiteId();
+        commitGroups.remove(site, group);
+        for (SandboxCommitGroup.AuthorCommit commit : group.close()) {
+            String commitId = null;
+            try {
+                commitId = helper.commitFiles(repo, site, commit.getComment(), commit.getUser(),
+                        commit.getPaths().toArray(new String[0]));
+                if (commitId != null) {
+                    logger.debug("Committed '{}' paths for user '{}' in site '{}' with commit id '{}'",
+                            commit.getPaths().size(), commit.getUser().getName(), site, commitId);
+                    // the gitlog entry is created only once, before any of the writers gets the commit id
+                    Map<String, Object> params = new HashMap<>();
+                    params.put("siteId", site);
+                    params.put("commitId", commitId);
+                    params.put("processed", 1);
+                    params.put("audited", 1);
+                    retryingDatabaseOperationFacade.retry(() -> gitLogDao.insertGitLog(params));
+                }
+            } catch (Exception e) {
+                logger.error("Failed to commit the pending writes in site '{}' paths '{}'",
+                        site, commit.getPaths(), e);
+            } finally {
+                commit.getFuture().complete(commitId);
+            }
+        }
+    }
+
+    /**
+     * Discards all the pending writes in the given group, the paths are unstaged so that they are not included in
+     * a later commit and all the writers are told that the write failed. Must be called while holding the sandbox
+     * lock of the site
+     */
+    protected void abortGroup(Repository repo, SandboxCommitGroup group) {
+        String site = group.getSiteId();
+        commitGroups.remove(site, group);
+        try (Git git = new Git(repo)) {
+            for (SandboxCommitGroup.AuthorCommit commit : group.close()) {
+                try {
+                    ResetCommand resetCommand = git.reset();
+                    commit.getPaths().forEach(path -> resetCommand.addPath(helper.getGitPath(path)));
+                    retryingRepositoryOperationFacade.call(resetCommand);
+                } catch (GitAPIException e) {
+                    logger.error("Failed to unstage the pending writes in site '{}' paths '{}'",
+                            site, commit.getPaths(), e);
+                } finally {
+                    commit.getFuture().complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the folder to the write batch of the current thread, the work tree is not updated until the batch is
+     * committed
+     */
+    protected String createFolderInBatch(String site, String path, String name) {
+        Path emptyFilePath = Paths.get(path, name, EMPTY_FILE);
+        Repository repo = helper.getRepository(site, SANDBOX);
+        try {
+            helper.addToWriteBatch(emptyFilePath.toString(), path + FILE_SEPARATOR + name,
+                    InputStream.nullInputStream());
+            return repo.resolve(HEAD).getName();
+        } catch (IOException e) {
+            logger.error("Failed to add file to git in site '{}' path '{}'", site, emptyFilePath, e);
+            return null;
+        }
+    }
+
     @Override
     public String createFolder(String site, String path, String name) {
+        journalPath(site, path + FILE_SEPARATOR + name);
+        if (isInWriteBatch(site)) {
+            return createFolderInBatch(site, path, name);
+        }
         // SJ: Git doesn't care about empty folders, so we will create the folders and put a 0 byte file in them
         String commitId = null;
         boolean result;
@@ -260,6 +582,7 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
     @Override
     public String deleteContent(String site, String path, String approver) {
+        journalPath(site, path);
         String commitId = null;
         boolean isPage = path.endsWith(FILE_SEPARATOR + INDEX_FILE);
         String gitLockKey = helper.getSandboxRepoLockKey(site, true);
@@ -335,6 +658,8 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
     @Override
     public Map<String, String> moveContent(String site, String fromPath, String toPath, String newName) {
+        journalPath(site, fromPath);
+        journalPath(site, StringUtils.isEmpty(newName)? toPath : toPath + FILE_SEPARATOR + newName);
         Map<String, String> toRet = new TreeMap<>();
         String gitLockKey = helper.getSandboxRepoLockKey(site, true);
         generalLockService.lock(gitLockKey);
@@ -421,6 +746,7 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
     @Override
     public String copyContent(String site, String fromPath, String toPath) {
+        journalPath(site, toPath);
         String commitId = null;
         String gitLockKey = helper.getSandboxRepoLockKey(site, true);
         generalLockService.lock(gitLockKey);
@@ -792,6 +1118,8 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
             } catch (GitAPIException e) {
                 logger.error("Failed to create the initial commit for the global repository", e);
             }
+            // the configuration override may have been copied from the bootstrap repo
+            studioConfiguration.invalidateGlobalRepoConfig();
         }
 
         // Create global repository object
@@ -1400,6 +1728,20 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
     @Override
     public boolean isFolder(String siteId, String path) {
+        if (isInWriteBatch(siteId)) {
+            // folders created in the batch only exist in the tree of the batch
+            Repository repo = helper.getRepository(siteId, SANDBOX);
+            String gitPath = helper.getGitPath(path);
+            if (StringUtils.isEmpty(gitPath) || gitPath.equals(".")) {
+                return true;
+            }
+            try (TreeWalk tw = TreeWalk.forPath(repo, gitPath, helper.getTreeForLastCommit(repo))) {
+                return tw != null && tw.isSubtree();
+            } catch (IOException e) {
+                logger.error("Failed to check if the path is a folder in site '{}' path '{}'", siteId, path, e);
+                return false;
+            }
+        }
         Path p = Paths.get(helper.buildRepoPath(StringUtils.isEmpty(siteId) ? GLOBAL : SANDBOX, siteId)
                 .toAbsolutePath().toString(), path);
         File file = p.toFile();
@@ -1550,6 +1892,10 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         return generalLockService;
     }
 
+    public void setWorktreeJournal(WorktreeJournal worktreeJournal) {
+        this.worktreeJournal = worktreeJournal;
+    }
+
     public void setGeneralLockService(GeneralLockService generalLockService) {
         this.generalLockService = generalLockService;
     }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.repository.git;
+
+import org.eclipse.jgit.lib.PersonIdent;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes to the sandbox repository of a site that have been staged but not committed yet. The writes are grouped by
+ * author, identified by the username, so that each author gets a single commit with all the paths written during the
+ * window.
+ *
+ * <p>This class is not thread safe, all the methods must be called while holding the sandbox lock of the site.</p>
+ *
+ * @since 4.1.0
+ */
+public class SandboxCommitGroup {
+
+    protected final String siteId;
+    protected final Map<String, AuthorCommit> commits = new LinkedHashMap<>();
+    protected final Map<String, String> pathAuthors = new HashMap<>();
+    protected boolean closed;
+
+    public SandboxCommitGroup(String siteId) {
+        this.siteId = siteId;
+    }
+
+    public String getSiteId() {
+        return siteId;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Indicates if the given path can be added to this group. A path already written by a different author can't be
+     * added because the pending commit of that author would include the new content.
+     * @param path the path to write
+     * @param username the username of the author of the write
+     * @return true if the path can be added
+     */
+    public boolean canAdd(String path, String username) {
+        String author = pathAuthors.get(path);
+        return !closed && (author == null || author.equals(username));
+    }
+
+    /**
+     * Adds a staged path to the commit of the given author
+     * @param path the path that was written
+     * @param username the username of the author of the write
+     * @param user the git identity of the author
+     * @param comment the commit message for the path
+     * @return the future that will be completed with the commit id once the group is committed
+     */
+    public CompletableFuture<String> add(String path, String username, PersonIdent user, String comment) {
+        AuthorCommit commit = commits.computeIfAbsent(username, key -> new AuthorCommit(user));
+        pathAuthors.put(path, username);
+        commit.paths.add(path);
+        commit.comments.add(comment);
+        return commit.future;
+    }
+
+    /**
+     * Marks the group as closed, no more paths can be added after calling this method
+     * @return the pending commits for each author, in the order they were added
+     */
+    public Collection<AuthorCommit> close() {
+        closed = true;
+        return commits.values();
+    }
+
+    /**
+     * The paths written by a single author
+     */
+    public static class AuthorCommit {
+
+        protected final PersonIdent user;
+        protected final Set<String> paths = new LinkedHashSet<>();
+        protected final Set<String> comments = new LinkedHashSet<>();
+        protected final CompletableFuture<String> future = new CompletableFuture<>();
+
+        protected AuthorCommit(PersonIdent user) {
+            this.user = user;
+        }
+
+        public PersonIdent getUser() {
+            return user;
+        }
+
+        public Set<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * @return the commit message for all the paths
+         */
+        public String getComment() {
+            return String.join("\n", comments);
+        }
+
+        public CompletableFuture<String> getFuture() {
+            return future;
+        }
+
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.repository.git;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Files written to the sandbox repository by a single thread that will be committed together. The files are only
+ * written to the object database, the work tree and the index are not touched until the batch is committed, so
+ * other operations on the repository (resets, pulls, commits of other threads) can't lose or capture them. Until the
+ * commit is done, the batch keeps a tree with the last commit plus the written files, so the thread can read what it
+ * wrote. Other threads can keep committing while the batch is active, the tree follows the last commit of the
+ * repository. Only the folders that contain written files are rebuilt when the tree is requested.
+ *
+ * @since 4.1.0
+ */
+public class SandboxWriteBatch implements AutoCloseable {
+
+    protected final String siteId;
+    protected final Repository repository;
+    protected ObjectId baseTreeId;
+    protected final ObjectInserter inserter;
+    protected final Folder root = new Folder();
+    protected final Set<String> paths = new LinkedHashSet<>();
+    protected final Set<String> itemPaths = new LinkedHashSet<>();
+
+    protected RevTree tree;
+
+    public SandboxWriteBatch(String siteId, Repository repository) throws IOException {
+        this.siteId = siteId;
+        this.repository = repository;
+        this.baseTreeId = resolveHeadTree();
+        inserter = repository.newObjectInserter();
+    }
+
+    protected ObjectId resolveHeadTree() throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            return null;
+        }
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return revWalk.parseCommit(head).getTree().getId();
+        }
+    }
+
+    /**
+     * Adds a file to the batch
+     * @param path the git path of the file
+     * @param itemPath the path of the item that was created or updated
+     * @param content the content of the file
+     */
+    public void add(String path, String itemPath, InputStream content) throws IOException {
+        ObjectId blobId = inserter.insert(Constants.OBJ_BLOB, IOUtils.toByteArray(content));
+        Folder folder = root;
+        String[] names = path.split("/");
+        for (int i = 0; i < names.length - 1; i++) {
+            folder.treeId = null;
+            folder = folder.folders.computeIfAbsent(names[i], name -> new Folder());
+        }
+        folder.treeId = null;
+        folder.files.put(names[names.length - 1], blobId);
+        paths.add(path);
+        itemPaths.add(itemPath);
+        tree = null;
+    }
+
+    /**
+     * Returns the tree of the last commit including all the files written in this batch
+     */
+    public RevTree getTree() throws IOException {
+        ObjectId headTreeId = resolveHeadTree();
+        if (!Objects.equals(headTreeId, baseTreeId)) {
+            // another thread committed since the tree was built
+            baseTreeId = headTreeId;
+            reset(root);
+            tree = null;
+        }
+        if (tree == null) {
+            ObjectId treeId;
+            try (ObjectReader reader = repository.newObjectReader()) {
+                treeId = buildTree(reader, root, baseTreeId);
+            }
+            inserter.flush();
+            try (RevWalk revWalk = new RevWalk(repository)) {
+                tree = revWalk.parseTree(treeId);
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Commits all the files in the batch on top of the last commit of the repository. The caller needs to hold the
+     * lock of the sandbox repository, the work tree and the index still need to be updated after the commit.
+     * @param user the author and committer of the commit
+     * @param message the commit message
+     * @return the id of the new commit
+     * @throws IOException if the commit can't be created or HEAD was moved by another thread
+     */
+    public ObjectId commit(PersonIdent user, String message) throws IOException {
+        RevTree commitTree = getTree();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        CommitBuilder commitBuilder = new CommitBuilder();
+        if (head != null) {
+            commitBuilder.setParentId(head);
+        }
+        commitBuilder.setTreeId(commitTree);
+        commitBuilder.setAuthor(user);
+        commitBuilder.setCommitter(user);
+        commitBuilder.setMessage(message);
+        ObjectId commitId = inserter.insert(commitBuilder);
+        inserter.flush();
+
+        RefUpdate refUpdate = repository.updateRef(Constants.HEAD);
+        refUpdate.setExpectedOldObjectId(head != null ? head : ObjectId.zeroId());
+        refUpdate.setNewObjectId(commitId);
+        refUpdate.setRefLogMessage("commit: " + message.lines().findFirst().orElse(""), false);
+        RefUpdate.Result result = refUpdate.update();
+        if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FAST_FORWARD) {
+            throw new IOException("Failed to update HEAD to commit " + commitId.name() + ": " + result);
+        }
+        return commitId;
+    }
+
+    protected void reset(Folder folder) {
+        folder.treeId = null;
+        folder.folders.values().forEach(this::reset);
+    }
+
+    protected ObjectId buildTree(ObjectReader reader, Folder folder, ObjectId baseId) throws IOException {
+        if (folder.treeId != null) {
+            return folder.treeId;
+        }
+        Map<String, TreeEntry> entries = new TreeMap<>();
+        if (baseId != null) {
+            CanonicalTreeParser parser = new CanonicalTreeParser(null, reader, baseId);
+            while (!parser.eof()) {
+                String name = parser.getEntryPathString();
+                entries.put(name, new TreeEntry(name, parser.getEntryFileMode(), parser.getEntryObjectId()));
+                parser.next();
+            }
+        }
+        for (Map.Entry<String, Folder> child : folder.folders.entrySet()) {
+            TreeEntry existing = entries.get(child.getKey());
+            ObjectId childBaseId = existing != null && existing.mode == FileMode.TREE ? existing.id : null;
+            entries.put(child.getKey(), new TreeEntry(child.getKey(), FileMode.TREE,
+                    buildTree(reader, child.getValue(), childBaseId)));
+        }
+        for (Map.Entry<String, ObjectId> file : folder.files.entrySet()) {
+            entries.put(file.getKey(), new TreeEntry(file.getKey(), FileMode.REGULAR_FILE, file.getValue()));
+        }
+
+        // git sorts the entries of a tree as if the name of the folders ended with a slash
+        List<TreeEntry> sortedEntries = new ArrayList<>(entries.values());
+        Collections.sort(sortedEntries);
+        TreeFormatter formatter = new TreeFormatter();
+        for (TreeEntry entry : sortedEntries) {
+            formatter.append(entry.name, entry.mode, entry.id);
+        }
+        folder.treeId = inserter.insert(formatter);
+        return folder.treeId;
+    }
+
+    public String getSiteId() {
+        return siteId;
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Returns the git paths of all the files written in this batch
+     */
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Returns the paths of all the items created or updated in this batch
+     */
+    public Set<String> getItemPaths() {
+        return itemPaths;
+    }
+
+    @Override
+    public void close() {
+        inserter.close();
+    }
+
+    protected static class Folder {
+
+        protected final Map<String, Folder> folders = new TreeMap<>();
+        protected final Map<String, ObjectId> files = new TreeMap<>();
+
+        protected ObjectId treeId;
+
+    }
+
+    protected static class TreeEntry implements Comparable<TreeEntry> {
+
+        protected final String name;
+        protected final FileMode mode;
+        protected final ObjectId id;
+
+        protected TreeEntry(String name, FileMode mode, ObjectId id) {
+            this.name = name;
+            this.mode = mode;
+            this.id = id;
+        }
+
+        protected String getSortName() {
+            return mode == FileMode.TREE ? name + "/" : name;
+        }
+
+        @Override
+        public int compareTo(TreeEntry other) {
+            return getSortName().compareTo(other.getSortName());
+        }
+
+    }
+
+}
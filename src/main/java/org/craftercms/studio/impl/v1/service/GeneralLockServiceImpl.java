@@ -21,69 +21,120 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.validation.Valid;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static java.lang.String.format;
 
+/**
+ * Default implementation of {@link GeneralLockService}.
+ *
+ * <p>Locks are kept in a {@link ConcurrentHashMap} so callers using different keys never block each other. Each
+ * entry counts the threads holding or waiting for its lock and it is removed once the count drops to zero, so only
+ * the locks currently in use are kept in memory.</p>
+ *
+ * <p>Acquisition statistics (acquisitions, contention, wait and hold times) are collected per key prefix, the site
+ * and path are removed from the keys so all the locks of the same kind are grouped together.</p>
+ */
 public class GeneralLockServiceImpl implements GeneralLockService {
 
     private static final Logger logger = LoggerFactory.getLogger(GeneralLockServiceImpl.class);
 
-    private static final String KEY_FORMAT_CONTENT_ITEM = "CONTENT_ITEM_%s_%s";
+    private static final String KEY_PREFIX_CONTENT_ITEM = "CONTENT_ITEM";
+
+    private static final String KEY_FORMAT_CONTENT_ITEM = KEY_PREFIX_CONTENT_ITEM + "_%s_%s";
+
+    private static final String KEY_PREFIX_OTHER = "OTHER";
+
+    protected final ConcurrentMap<String, NodeLock> nodeLocks = new ConcurrentHashMap<>();
 
-    protected Map<String, ReentrantLock> nodeLocks = new HashMap<>();
+    protected final ConcurrentMap<String, LockStatistics> statistics = new ConcurrentHashMap<>();
 
     @Override
     @Valid
     public void lock(@ValidateStringParam String objectId) {
-        ReentrantLock nodeLock;
         if (logger.isDebugEnabled()) {
             logger.debug("Thread '{}' will attempt to lock object '{}'", Thread.currentThread().getName(), objectId);
         }
-        synchronized (this) {
-            if (nodeLocks.containsKey(objectId)) {
-                nodeLock = nodeLocks.get(objectId);
-            } else {
-                nodeLock = new ReentrantLock();
-                nodeLocks.put(objectId, nodeLock);
-            }
-        }
+        NodeLock nodeLock = acquireReference(objectId);
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' will attempt to lock object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, nodeLock.lock, nodeLock.lock.getHoldCount());
+        }
+        if (!nodeLock.lock.tryLock()) {
+            long waitStart = System.nanoTime();
+            nodeLock.lock.lock();
+            nodeLock.statistics.recordContention(System.nanoTime() - waitStart);
         }
-        nodeLock.lock();
+        nodeLock.locked();
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' has locked object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, nodeLock.lock, nodeLock.lock.getHoldCount());
         }
     }
 
     @Override
     @Valid
     public boolean tryLock(@ValidateStringParam String objectId) {
-        ReentrantLock nodeLock;
         if (logger.isDebugEnabled()) {
             logger.debug("Thread '{}' will attempt to tryLock object '{}'", Thread.currentThread().getName(), objectId);
         }
-        synchronized (this) {
-            if (nodeLocks.containsKey(objectId)) {
-                nodeLock = nodeLocks.get(objectId);
-            } else {
-                nodeLock = new ReentrantLock();
-                nodeLocks.put(objectId, nodeLock);
-            }
-        }
+        NodeLock nodeLock = acquireReference(objectId);
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' will attempt to tryLock object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, nodeLock.lock, nodeLock.lock.getHoldCount());
+        }
+        boolean toRet = nodeLock.lock.tryLock();
+        if (toRet) {
+            nodeLock.locked();
+        } else {
+            nodeLock.statistics.recordFailure();
+            releaseReference(objectId);
         }
-        boolean toRet = nodeLock.tryLock();
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' has completed tryLock on object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, nodeLock.lock, nodeLock.lock.getHoldCount());
+        }
+        return toRet;
+    }
+
+    @Override
+    @Valid
+    public boolean tryLock(@ValidateStringParam String objectId, long timeout, TimeUnit unit) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Thread '{}' will attempt to tryLock object '{}' with timeout '{}' {}",
+                    Thread.currentThread().getName(), objectId, timeout, unit);
+        }
+        NodeLock nodeLock = acquireReference(objectId);
+        boolean toRet = nodeLock.lock.tryLock();
+        if (!toRet) {
+            long waitStart = System.nanoTime();
+            try {
+                toRet = nodeLock.lock.tryLock(timeout, unit);
+            } catch (InterruptedException e) {
+                logger.debug("Thread '{}' was interrupted while waiting for the lock on object '{}'",
+                        Thread.currentThread().getName(), objectId);
+                Thread.currentThread().interrupt();
+            }
+            if (toRet) {
+                nodeLock.statistics.recordContention(System.nanoTime() - waitStart);
+            }
+        }
+        if (toRet) {
+            nodeLock.locked();
+        } else {
+            nodeLock.statistics.recordFailure();
+            releaseReference(objectId);
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("Thread '{}' has completed tryLock on object '{}' using nodeLock '{}' with holdCount '{}'",
+                    Thread.currentThread().getName(), objectId, nodeLock.lock, nodeLock.lock.getHoldCount());
         }
         return toRet;
     }
@@ -91,28 +142,24 @@ public class GeneralLockServiceImpl implements GeneralLockService {
     @Override
     @Valid
     public void unlock(@ValidateStringParam String objectId) {
-        ReentrantLock nodeLock;
         if (logger.isDebugEnabled()) {
             logger.debug("Thread '{}' will attempt to unlock object '{}'", Thread.currentThread().getName(), objectId);
         }
-        synchronized (this) {
-            nodeLock = nodeLocks.get(objectId);
-        }
+        NodeLock nodeLock = nodeLocks.get(objectId);
         if (nodeLock != null) {
             if (logger.isTraceEnabled()) {
                 logger.trace("Thread '{}' will attempt to unlock object '{}' using nodeLock '{}' with holdCount '{}'",
-                        Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                        Thread.currentThread().getName(), objectId, nodeLock.lock, nodeLock.lock.getHoldCount());
             }
             nodeLock.unlock();
+            releaseReference(objectId);
             if (logger.isTraceEnabled()) {
                 logger.trace("Thread '{}' has completed unlock on object '{}' using nodeLock '{}' with holdCount '{}'",
-                        Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                        Thread.currentThread().getName(), objectId, nodeLock.lock, nodeLock.lock.getHoldCount());
             }
         } else {
-            if (logger.isDebugEnabled()) {
-                logger.error("Thread '{}' is unable to unlock object '{}' since the nodeLock was not found",
-                        Thread.currentThread().getName(), objectId);
-            }
+            logger.error("Thread '{}' is unable to unlock object '{}' since the nodeLock was not found",
+                    Thread.currentThread().getName(), objectId);
         }
     }
 
@@ -131,7 +178,180 @@ public class GeneralLockServiceImpl implements GeneralLockService {
         unlock(generateContentItemKey(siteId, path));
     }
 
+    /**
+     * @return the number of locks currently held or waited for
+     */
+    public int getActiveLockCount() {
+        return nodeLocks.size();
+    }
+
+    /**
+     * @return the lock statistics grouped by key prefix, sorted by prefix
+     */
+    public Map<String, LockStatistics> getStatistics() {
+        return new TreeMap<>(statistics);
+    }
+
+    /**
+     * Increments the reference count of the lock for the given key, creating it if needed
+     */
+    protected NodeLock acquireReference(String objectId) {
+        return nodeLocks.compute(objectId, (key, nodeLock) -> {
+            if (nodeLock == null) {
+                nodeLock = new NodeLock(statistics.computeIfAbsent(getKeyPrefix(key), p -> new LockStatistics()));
+            }
+            nodeLock.references++;
+            return nodeLock;
+        });
+    }
+
+    /**
+     * Decrements the reference count of the lock for the given key, removing it once it is no longer used
+     */
+    protected void releaseReference(String objectId) {
+        nodeLocks.computeIfPresent(objectId, (key, nodeLock) -> --nodeLock.references == 0 ? null : nodeLock);
+    }
+
+    /**
+     * Returns the kind of lock for the given key, without the site or path
+     */
+    protected String getKeyPrefix(String objectId) {
+        if (objectId.startsWith(KEY_PREFIX_CONTENT_ITEM + "_")) {
+            return KEY_PREFIX_CONTENT_ITEM;
+        }
+        // Other keys look like {site}_SANDBOX_REPOSITORY_GIT_LOCK, keep the upper case suffix
+        int start = objectId.length();
+        while (start > 0) {
+            char c = objectId.charAt(start - 1);
+            if (!Character.isUpperCase(c) && c != '_' && c != ' ') {
+                break;
+            }
+            start--;
+        }
+        while (start < objectId.length() && objectId.charAt(start) == '_') {
+            start++;
+        }
+        return start < objectId.length() ? objectId.substring(start) : KEY_PREFIX_OTHER;
+    }
+
     private String generateContentItemKey(String siteId, String path) {
         return format(KEY_FORMAT_CONTENT_ITEM, siteId, path);
     }
+
+    /**
+     * Lock for a single key. The reference count is only modified inside the atomic operations of the map.
+     */
+    protected static class NodeLock {
+
+        protected final ReentrantLock lock = new ReentrantLock();
+
+        protected final LockStatistics statistics;
+
+        protected int references;
+
+        /**
+         * Time when the lock was obtained, only accessed by the thread holding the lock
+         */
+        protected long lockedAt;
+
+        protected NodeLock(LockStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        protected void locked() {
+            if (lock.getHoldCount() == 1) {
+                lockedAt = System.nanoTime();
+                statistics.acquisitions.increment();
+            }
+        }
+
+        protected void unlock() {
+            if (lock.getHoldCount() == 1) {
+                statistics.recordHold(System.nanoTime() - lockedAt);
+            }
+            lock.unlock();
+        }
+
+    }
+
+    /**
+     * Statistics for all the locks that share the same key prefix
+     */
+    public static class LockStatistics {
+
+        protected final LongAdder acquisitions = new LongAdder();
+        protected final LongAdder contentions = new LongAdder();
+        protected final LongAdder failures = new LongAdder();
+        protected final LongAdder totalWaitNanos = new LongAdder();
+        protected final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+        protected final LongAdder totalHoldNanos = new LongAdder();
+        protected final LongAccumulator maxHoldNanos = new LongAccumulator(Long::max, 0);
+
+        protected void recordContention(long waitNanos) {
+            contentions.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+        }
+
+        protected void recordFailure() {
+            failures.increment();
+        }
+
+        protected void recordHold(long holdNanos) {
+            totalHoldNanos.add(holdNanos);
+            maxHoldNanos.accumulate(holdNanos);
+        }
+
+        /**
+         * @return the number of times a lock was obtained
+         */
+        public long getAcquisitions() {
+            return acquisitions.sum();
+        }
+
+        /**
+         * @return the number of times a thread had to wait for a lock held by another thread
+         */
+        public long getContentions() {
+            return contentions.sum();
+        }
+
+        /**
+         * @return the number of times a lock could not be obtained using {@code tryLock}
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getTotalWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum());
+        }
+
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+        }
+
+        public long getTotalHoldMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalHoldNanos.sum());
+        }
+
+        public long getMaxHoldMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxHoldNanos.get());
+        }
+
+        @Override
+        public String toString() {
+            return "LockStatistics{" +
+                    "acquisitions=" + getAcquisitions() +
+                    ", contentions=" + getContentions() +
+                    ", failures=" + getFailures() +
+                    ", totalWaitMillis=" + getTotalWaitMillis() +
+                    ", maxWaitMillis=" + getMaxWaitMillis() +
+                    ", totalHoldMillis=" + getTotalHoldMillis() +
+                    ", maxHoldMillis=" + getMaxHoldMillis() +
+                    '}';
+        }
+
+    }
+
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.to.RepositoryConfigTO;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+import static org.craftercms.studio.api.v1.constant.DmConstants.ROOT_PATTERN_DOCUMENTS;
+import static org.craftercms.studio.api.v1.constant.DmConstants.ROOT_PATTERN_PAGES;
+import static org.craftercms.studio.api.v1.constant.DmConstants.SLASH_INDEX_FILE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_ASSET;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_COMPONENT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_CONFIG_REGEX;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_CONTENT_TYPE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_DOCUMENT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FILE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_LEVEL_DESCRIPTOR;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_PAGE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_RENDERING_TEMPLATE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_SCRIPT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY_REGEX;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+
+/**
+ * Classifies the paths of a site using the pattern groups from the repository configuration. All the patterns are
+ * compiled once, when the site configuration is loaded, and each path is matched against every group in a single
+ * pass. The result is kept in a bounded cache because the same paths are classified over and over.
+ *
+ * @since 4.1.0
+ */
+public class PathClassifier {
+
+    public static final int LEVEL_DESCRIPTOR = 1;
+    public static final int PAGE = 1 << 1;
+    public static final int COMPONENT = 1 << 2;
+    public static final int DOCUMENT = 1 << 3;
+    public static final int ASSET = 1 << 4;
+    public static final int RENDERING_TEMPLATE = 1 << 5;
+    public static final int CONTENT_TYPE = 1 << 6;
+    public static final int TAXONOMY = 1 << 7;
+    public static final int SCRIPT = 1 << 8;
+    public static final int CONFIG = 1 << 9;
+
+    private static final Pattern TAXONOMY_PATTERN = Pattern.compile(CONTENT_TYPE_TAXONOMY_REGEX);
+    private static final Pattern CONFIG_PATTERN = Pattern.compile(CONTENT_TYPE_CONFIG_REGEX);
+    private static final Pattern SLASH_INDEX_FILE_PATTERN = Pattern.compile(SLASH_INDEX_FILE);
+    private static final Pattern XML_EXTENSION_PATTERN = Pattern.compile("\\.xml");
+
+    protected final String levelDescriptorSuffix;
+    protected final String contentTypesConfigPath;
+    protected final List<Pattern> pagePatterns;
+    protected final List<Pattern> componentPatterns;
+    protected final List<Pattern> documentPatterns;
+    protected final List<Pattern> assetPatterns;
+    protected final List<Pattern> renderingTemplatePatterns;
+    protected final List<Pattern> scriptsPatterns;
+
+    protected final Cache<String, Integer> cache;
+
+    /**
+     * @param config the repository configuration of the site, can be null
+     * @param contentTypesConfigPath the base path for the content type definitions
+     * @param cacheSize the maximum number of paths to keep in the cache
+     */
+    public PathClassifier(RepositoryConfigTO config, String contentTypesConfigPath, long cacheSize) {
+        this.contentTypesConfigPath = contentTypesConfigPath;
+        if (config != null) {
+            levelDescriptorSuffix = FILE_SEPARATOR + config.getLevelDescriptorName();
+            pagePatterns = compile(config.getPagePatterns());
+            componentPatterns = compile(config.getComponentPatterns());
+            documentPatterns = compile(config.getDocumentPatterns());
+            assetPatterns = compile(config.getAssetPatterns());
+            renderingTemplatePatterns = compile(config.getRenderingTemplatePatterns());
+            scriptsPatterns = compile(config.getScriptsPatterns());
+        } else {
+            levelDescriptorSuffix = FILE_SEPARATOR + null;
+            pagePatterns = Collections.emptyList();
+            componentPatterns = Collections.emptyList();
+            documentPatterns = Collections.emptyList();
+            assetPatterns = Collections.emptyList();
+            renderingTemplatePatterns = Collections.emptyList();
+            scriptsPatterns = Collections.emptyList();
+        }
+        cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * Returns all the groups the given path belongs to
+     * @param path the path to classify
+     * @return the flags for all the matching groups
+     */
+    public int classify(String path) {
+        Integer flags = cache.getIfPresent(path);
+        if (flags == null) {
+            flags = doClassify(path);
+            cache.put(path, flags);
+        }
+        return flags;
+    }
+
+    /**
+     * Returns the content type class (system type) for the given path
+     * @param path the path of the item
+     * @return the content type class
+     */
+    public String getContentTypeClass(String path) {
+        int flags = classify(path);
+        if (is(flags, LEVEL_DESCRIPTOR)) {
+            return CONTENT_TYPE_LEVEL_DESCRIPTOR;
+        } else if (is(flags, PAGE)) {
+            return CONTENT_TYPE_PAGE;
+        } else if (is(flags, COMPONENT)) {
+            return CONTENT_TYPE_COMPONENT;
+        } else if (is(flags, DOCUMENT)) {
+            return CONTENT_TYPE_DOCUMENT;
+        } else if (is(flags, ASSET)) {
+            return CONTENT_TYPE_ASSET;
+        } else if (is(flags, RENDERING_TEMPLATE)) {
+            return CONTENT_TYPE_RENDERING_TEMPLATE;
+        } else if (is(flags, CONTENT_TYPE)) {
+            return CONTENT_TYPE_CONTENT_TYPE;
+        } else if (is(flags, TAXONOMY)) {
+            return CONTENT_TYPE_TAXONOMY;
+        } else if (is(flags, SCRIPT)) {
+            return CONTENT_TYPE_SCRIPT;
+        }
+        return CONTENT_TYPE_FILE;
+    }
+
+    /**
+     * Returns the preview URL for the given path
+     * @param path the path of the item
+     * @return the URL or null if the item can't be previewed
+     */
+    public String getBrowserUrl(String path) {
+        int flags = classify(path);
+        if (is(flags, RENDERING_TEMPLATE | TAXONOMY | COMPONENT | LEVEL_DESCRIPTOR | SCRIPT | CONFIG)) {
+            return null;
+        } else if (is(flags, ASSET)) {
+            return getBrowserUri(path, StringUtils.EMPTY, false);
+        } else if (is(flags, DOCUMENT)) {
+            return getBrowserUri(path, ROOT_PATTERN_DOCUMENTS, false);
+        }
+        return getBrowserUri(path, ROOT_PATTERN_PAGES, true);
+    }
+
+    protected static String getBrowserUri(String uri, String rootPath, boolean isPage) {
+        // the root folders used here don't have any special characters, so they can be replaced as plain text
+        String browserUri = StringUtils.replaceOnce(uri, rootPath, StringUtils.EMPTY);
+        browserUri = SLASH_INDEX_FILE_PATTERN.matcher(browserUri).replaceFirst(StringUtils.EMPTY);
+        if (browserUri.length() == 0) {
+            browserUri = FILE_SEPARATOR;
+        }
+        if (isPage) {
+            browserUri = XML_EXTENSION_PATTERN.matcher(browserUri).replaceFirst(".html");
+        }
+        return browserUri;
+    }
+
+    protected int doClassify(String path) {
+        int flags = 0;
+        if (path.endsWith(levelDescriptorSuffix)) {
+            flags |= LEVEL_DESCRIPTOR;
+        }
+        if (matchesAny(path, pagePatterns)) {
+            flags |= PAGE;
+        }
+        if (matchesAny(path, componentPatterns)) {
+            flags |= COMPONENT;
+        }
+        if (matchesAny(path, documentPatterns)) {
+            flags |= DOCUMENT;
+        }
+        if (matchesAny(path, assetPatterns)) {
+            flags |= ASSET;
+        }
+        if (matchesAny(path, renderingTemplatePatterns)) {
+            flags |= RENDERING_TEMPLATE;
+        }
+        if (StringUtils.startsWith(path, contentTypesConfigPath)) {
+            flags |= CONTENT_TYPE;
+        }
+        if (TAXONOMY_PATTERN.matcher(path).matches()) {
+            flags |= TAXONOMY;
+        }
+        if (matchesAny(path, scriptsPatterns)) {
+            flags |= SCRIPT;
+        }
+        if (CONFIG_PATTERN.matcher(path).matches()) {
+            flags |= CONFIG;
+        }
+        return flags;
+    }
+
+    protected static boolean is(int flags, int mask) {
+        return (flags & mask) != 0;
+    }
+
+    protected static boolean matchesAny(String path, List<Pattern> patterns) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static List<Pattern> compile(List<String> patterns) {
+        if (patterns == null) {
+            return Collections.emptyList();
+        }
+        return patterns.stream().map(Pattern::compile).collect(toList());
+    }
+
+}
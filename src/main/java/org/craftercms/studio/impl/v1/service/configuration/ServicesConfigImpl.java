@@ -240,6 +240,17 @@ public class ServicesConfigImpl implements ServicesConfig {
 		return null;
 	}
 
+	@Override
+    @Valid
+	public PathClassifier getPathClassifier(@ValidateStringParam String site) {
+		SiteConfigTO config = getSiteConfig(site);
+		if (config != null && config.getPathClassifier() != null) {
+			return config.getPathClassifier();
+		}
+		// sites without configuration are not cached, so there is no point in keeping the results
+		return createPathClassifier(null, 0);
+	}
+
 	@Override
     @Valid
 	public List<String> getDisplayInWidgetPathPatterns(@ValidateStringParam String site) {
@@ -454,6 +465,13 @@ public class ServicesConfigImpl implements ServicesConfig {
                 getStringList(node.selectNodes("display-in-widget-patterns/display-in-widget-pattern"));
         repoConfigTO.setDisplayPatterns(displayPatterns);
         siteConfig.setRepositoryConfig(repoConfigTO);
+        siteConfig.setPathClassifier(createPathClassifier(repoConfigTO,
+                studioConfiguration.getProperty(CONFIGURATION_PATH_CLASSIFIER_CACHE_SIZE, Long.class, 10000L)));
+    }
+
+    protected PathClassifier createPathClassifier(RepositoryConfigTO repoConfig, long cacheSize) {
+        return new PathClassifier(repoConfig,
+                studioConfiguration.getProperty(CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH), cacheSize);
     }
 
 
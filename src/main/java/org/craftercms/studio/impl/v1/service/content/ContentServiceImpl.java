@@ -583,7 +583,10 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
 
         if (result) {
             itemServiceInternal.updateCommitId(site, path, commitId);
-            contentRepository.insertGitLog(site, commitId, 1, 1);
+            // with group commits enabled the same commit can be shared by several writes
+            if (contentRepository.getGitLog(site, commitId) == null) {
+                contentRepository.insertGitLog(site, commitId, 1, 1);
+            }
             siteService.updateLastCommitId(site, commitId);
         }
 
@@ -632,7 +635,10 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
             auditLog.setPrimaryTargetValue(folderPath);
             auditServiceInternal.insertAuditLog(auditLog);
 
-            contentRepository.insertGitLog(site, commitId, 1, 1);
+            // inside a write batch the folder is not committed yet and the last commit id is returned instead
+            if (contentRepository.getGitLog(site, commitId) == null) {
+                contentRepository.insertGitLog(site, commitId, 1, 1);
+            }
             siteService.updateLastCommitId(site, commitId);
             applicationContext.publishEvent(new ContentEvent(securityService.getAuthentication(), site, folderPath));
             toRet = true;
@@ -2218,39 +2224,7 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
     @Override
     @Valid
     public String getContentTypeClass(@ValidateStringParam String site, String uri) {
-        // TODO: SJ: This reads: if can't guess what it is, it's a page. This is to be replaced in 3.1+
-        if (uri.endsWith(FILE_SEPARATOR + servicesConfig.getLevelDescriptorName(site))) {
-            return CONTENT_TYPE_LEVEL_DESCRIPTOR;
-        } else if (matchesPatterns(uri, servicesConfig.getPagePatterns(site))) {
-            return CONTENT_TYPE_PAGE;
-        } else if (matchesPatterns(uri, servicesConfig.getComponentPatterns(site))) {
-            return CONTENT_TYPE_COMPONENT;
-        } else if (matchesPatterns(uri, servicesConfig.getDocumentPatterns(site))) {
-            return CONTENT_TYPE_DOCUMENT;
-        } else if (matchesPatterns(uri, servicesConfig.getAssetPatterns(site))) {
-            return CONTENT_TYPE_ASSET;
-        } else if (matchesPatterns(uri, servicesConfig.getRenderingTemplatePatterns(site))) {
-            return CONTENT_TYPE_RENDERING_TEMPLATE;
-        } else if (StringUtils.startsWith(uri, contentTypeService.getConfigPath())) {
-            return CONTENT_TYPE_CONTENT_TYPE;
-        } else if (matchesPatterns(uri, List.of(CONTENT_TYPE_TAXONOMY_REGEX))) {
-            return CONTENT_TYPE_TAXONOMY;
-        } else if (matchesPatterns(uri, servicesConfig.getScriptsPatterns(site))) {
-            return CONTENT_TYPE_SCRIPT;
-        }
-
-        return CONTENT_TYPE_FILE;
-    }
-
-    protected boolean matchesPatterns(String uri, List<String> patterns) {
-        if (patterns != null) {
-            for (String pattern : patterns) {
-                if (uri.matches(pattern)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return servicesConfig.getPathClassifier(site).getContentTypeClass(uri);
     }
 
     @Override
@@ -34,22 +34,46 @@ import org.craftercms.studio.api.v1.service.content.ContentTypeService;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v1.to.ContentTypeConfigTO;
+import org.craftercms.studio.api.v2.event.site.SiteDeleteEvent;
+import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
+import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_FILE_NAME;
+import static org.eclipse.jgit.lib.Constants.HEAD;
 
 /**
  * @author Dejan Brkic
@@ -64,6 +88,9 @@ public class ContentTypeServiceImpl implements ContentTypeService {
     protected SecurityService securityService;
     protected ContentRepository contentRepository;
     protected StudioConfiguration studioConfiguration;
+    protected GitRepositoryHelper gitRepositoryHelper;
+
+    protected final ConcurrentMap<String, ContentTypeRegistry> registries = new ConcurrentHashMap<>();
 
     @Override
     @Valid
@@ -148,35 +175,15 @@ public class ContentTypeServiceImpl implements ContentTypeService {
                                                                    String relativePath) {
         String user = securityService.getCurrentUser();
         Set<String> userRoles = securityService.getUserRoles(site, user);
-        List<ContentTypeConfigTO> allContentTypes = getAllContentTypes(site);
+        ContentTypeRegistry registry = getRegistry(site);
 
-        if (CollectionUtils.isNotEmpty(allContentTypes)) {
+        if (!registry.contentTypes.isEmpty()) {
             List<ContentTypeConfigTO> contentTypes = new ArrayList<>();
-            for (ContentTypeConfigTO contentTypeConfig : allContentTypes) {
-                // check if the path matches one of includes paths
-                if (CollectionUtils.isNotEmpty(contentTypeConfig.getPathIncludes())) {
-                    for (String pathIncludes : contentTypeConfig.getPathIncludes()) {
-                        if (relativePath.matches(pathIncludes)) {
-                            logger.trace("In site '{}' path '{}' matches '{}'", site, relativePath, pathIncludes);
-                            boolean isMatch = true;
-                            if (contentTypeConfig.getPathExcludes() != null) {
-                                for (String excludePath : contentTypeConfig.getPathExcludes()) {
-                                    if (relativePath.matches(excludePath)) {
-                                        logger.trace("In site '{}' path '{}' matches an exclude path '{}'",
-                                                site, relativePath, excludePath);
-                                        isMatch = false;
-                                        break;
-                                    }
-                                }
-                            }
-                            if (isMatch) {
-                                // if a match is found, populate the content type information
-                                addContentTypes(site, userRoles, contentTypeConfig, contentTypes);
-                            }
-                        }
-                    }
-                } else if (CollectionUtils.isEmpty(contentTypeConfig.getPathExcludes())) {
-                    addContentTypes(site, userRoles, contentTypeConfig, contentTypes);
+            for (RegisteredContentType contentType : registry.contentTypes.values()) {
+                if (contentType.matches(relativePath)) {
+                    logger.trace("In site '{}' path '{}' matches content type '{}'",
+                            site, relativePath, contentType.config.getName());
+                    addContentTypes(site, userRoles, contentType.config, contentTypes);
                 }
             }
             return contentTypes;
@@ -223,6 +230,116 @@ public class ContentTypeServiceImpl implements ContentTypeService {
     }
 
     protected List<ContentTypeConfigTO> getAllContentTypes(String site) {
+        return getRegistry(site).getContentTypes();
+    }
+
+    /**
+     * Returns the content types of the site. The registry is kept until the content types folder changes in the
+     * sandbox repository, and then only the content types that changed are loaded again.
+     */
+    protected ContentTypeRegistry getRegistry(String site) {
+        Repository repo = gitRepositoryHelper != null ? gitRepositoryHelper.getRepository(site, SANDBOX) : null;
+        if (repo == null) {
+            return new ContentTypeRegistry(null, null, walkContentTypes(site));
+        }
+        try {
+            ContentTypeRegistry registry = registries.get(site);
+            ObjectId headId = repo.resolve(HEAD);
+            if (registry != null && Objects.equals(headId, registry.headId)) {
+                return registry;
+            }
+            ObjectId treeId = getContentTypesTreeId(site, repo, headId);
+            Map<String, RegisteredContentType> contentTypes;
+            if (registry == null) {
+                logger.debug("Load the content types registry for site '{}'", site);
+                contentTypes = loadChangedContentTypes(site, repo, ObjectId.zeroId(), treeId, new TreeMap<>());
+            } else if (treeId.equals(registry.treeId)) {
+                contentTypes = registry.contentTypes;
+            } else {
+                logger.debug("Update the content types registry for site '{}'", site);
+                contentTypes = loadChangedContentTypes(site, repo, registry.treeId, treeId,
+                        new TreeMap<>(registry.contentTypes));
+            }
+            registry = new ContentTypeRegistry(headId, treeId, contentTypes);
+            registries.put(site, registry);
+            return registry;
+        } catch (IOException e) {
+            logger.warn("Failed to read the content types folder from the repository in site '{}'", site, e);
+            registries.remove(site);
+            return new ContentTypeRegistry(null, null, walkContentTypes(site));
+        }
+    }
+
+    /**
+     * Returns the id of the git tree of the content types folder, or the zero id if the folder doesn't exist
+     */
+    protected ObjectId getContentTypesTreeId(String site, Repository repo, ObjectId headId) throws IOException {
+        if (headId == null) {
+            return ObjectId.zeroId();
+        }
+        String contentTypesRootPath = getConfigPath().replaceAll(StudioConstants.PATTERN_SITE, site);
+        try (RevWalk revWalk = new RevWalk(repo);
+             TreeWalk treeWalk = TreeWalk.forPath(repo, gitRepositoryHelper.getGitPath(contentTypesRootPath),
+                     revWalk.parseCommit(headId).getTree())) {
+            if (treeWalk == null || !treeWalk.isSubtree()) {
+                return ObjectId.zeroId();
+            }
+            return treeWalk.getObjectId(0);
+        }
+    }
+
+    /**
+     * Loads the content types whose configuration file is different in the given trees of the content types folder
+     */
+    protected Map<String, RegisteredContentType> loadChangedContentTypes(String site, Repository repo,
+                                                                       ObjectId oldTreeId, ObjectId newTreeId,
+                                                                       Map<String, RegisteredContentType> contentTypes)
+            throws IOException {
+        String configFileSuffix = FILE_SEPARATOR + getConfigFileName();
+        try (TreeWalk treeWalk = new TreeWalk(repo)) {
+            addTree(treeWalk, oldTreeId);
+            addTree(treeWalk, newTreeId);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathSuffixFilter.create(configFileSuffix)));
+            while (treeWalk.next()) {
+                String contentType = FILE_SEPARATOR + StringUtils.removeEnd(treeWalk.getPathString(),
+                        configFileSuffix);
+                ContentTypeConfigTO config = null;
+                if (treeWalk.getFileMode(1) != FileMode.MISSING) {
+                    config = contentTypesConfig.reloadConfiguration(site, contentType);
+                }
+                if (config != null) {
+                    contentTypes.put(contentType, new RegisteredContentType(config));
+                } else {
+                    contentTypes.remove(contentType);
+                }
+            }
+        }
+        return contentTypes;
+    }
+
+    private void addTree(TreeWalk treeWalk, ObjectId treeId) throws IOException {
+        if (ObjectId.zeroId().equals(treeId)) {
+            treeWalk.addTree(new EmptyTreeIterator());
+        } else {
+            treeWalk.addTree(treeId);
+        }
+    }
+
+    @EventListener
+    public void onSiteDelete(SiteDeleteEvent event) {
+        registries.remove(event.getSiteId());
+    }
+
+    protected Map<String, RegisteredContentType> walkContentTypes(String site) {
+        Map<String, RegisteredContentType> registeredContentTypes = new LinkedHashMap<>();
+        for (ContentTypeConfigTO config : loadAllContentTypes(site)) {
+            registeredContentTypes.put(config.getName(), new RegisteredContentType(config));
+        }
+        return registeredContentTypes;
+    }
+
+    protected List<ContentTypeConfigTO> loadAllContentTypes(String site) {
         String contentTypesRootPath = getConfigPath().replaceAll(StudioConstants.PATTERN_SITE, site);
 
         RepositoryItem[] folders = contentRepository.getContentChildren(site, contentTypesRootPath);
@@ -331,4 +448,74 @@ public class ContentTypeServiceImpl implements ContentTypeService {
     public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
         this.studioConfiguration = studioConfiguration;
     }
+
+    public void setGitRepositoryHelper(GitRepositoryHelper gitRepositoryHelper) {
+        this.gitRepositoryHelper = gitRepositoryHelper;
+    }
+
+    /**
+     * Content types of a site, for the version of the content types folder in the given commit
+     */
+    protected static class ContentTypeRegistry {
+
+        protected final ObjectId headId;
+        protected final ObjectId treeId;
+        protected final Map<String, RegisteredContentType> contentTypes;
+
+        protected ContentTypeRegistry(ObjectId headId, ObjectId treeId,
+                                      Map<String, RegisteredContentType> contentTypes) {
+            this.headId = headId;
+            this.treeId = treeId;
+            this.contentTypes = contentTypes;
+        }
+
+        protected List<ContentTypeConfigTO> getContentTypes() {
+            return contentTypes.values().stream()
+                    .map(contentType -> contentType.config)
+                    .collect(Collectors.toList());
+        }
+
+    }
+
+    /**
+     * Content type configuration with the include and exclude path patterns already compiled
+     */
+    protected static class RegisteredContentType {
+
+        protected final ContentTypeConfigTO config;
+        protected final List<Pattern> pathIncludes;
+        protected final List<Pattern> pathExcludes;
+
+        protected RegisteredContentType(ContentTypeConfigTO config) {
+            this.config = config;
+            this.pathIncludes = compile(config.getName(), config.getPathIncludes());
+            this.pathExcludes = compile(config.getName(), config.getPathExcludes());
+        }
+
+        private static List<Pattern> compile(String contentType, List<String> regexes) {
+            List<Pattern> patterns = new ArrayList<>();
+            if (regexes != null) {
+                for (String regex : regexes) {
+                    try {
+                        patterns.add(Pattern.compile(regex));
+                    } catch (PatternSyntaxException e) {
+                        logger.warn("Invalid path pattern '{}' in content type '{}'", regex, contentType, e);
+                    }
+                }
+            }
+            return patterns;
+        }
+
+        /**
+         * Checks if the content type can be created in the given path
+         */
+        protected boolean matches(String path) {
+            if (CollectionUtils.isEmpty(config.getPathIncludes())) {
+                return CollectionUtils.isEmpty(config.getPathExcludes());
+            }
+            return pathIncludes.stream().anyMatch(pattern -> pattern.matcher(path).matches())
+                    && pathExcludes.stream().noneMatch(pattern -> pattern.matcher(path).matches());
+        }
+
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.dependency;
+
+import org.craftercms.studio.api.v1.to.DependencyResolverConfigTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Dependency resolver configuration of a site with all the regular expressions already compiled, so it can be
+ * cached and reused for every item of the site.
+ *
+ * @since 4.1.0
+ */
+public class CompiledDependencyResolverConfig {
+
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+    private static final String REGEX_QUANTIFIERS = "?*+{";
+
+    private final List<ItemType> itemTypes;
+
+    public CompiledDependencyResolverConfig(DependencyResolverConfigTO config) {
+        List<ItemType> compiledItemTypes = new ArrayList<>();
+        if (config.getItemTypes() != null) {
+            config.getItemTypes().values().stream()
+                    .map(ItemType::new)
+                    .forEach(compiledItemTypes::add);
+        }
+        this.itemTypes = Collections.unmodifiableList(compiledItemTypes);
+    }
+
+    /**
+     * Finds the first item type that includes and does not exclude the given path
+     * @param path the path of the item
+     * @return the item type or null if none matches
+     */
+    public ItemType getItemType(String path) {
+        for (ItemType itemType : itemTypes) {
+            if (itemType.matches(path)) {
+                return itemType;
+            }
+        }
+        return null;
+    }
+
+    protected static List<Pattern> compile(List<String> regexes) {
+        if (regexes == null) {
+            return Collections.emptyList();
+        }
+        return regexes.stream().map(Pattern::compile).collect(toList());
+    }
+
+    protected static boolean matchesAny(String path, List<Pattern> patterns) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the literal text every match of the given regex must start with, or an empty string if it can't be
+     * determined. It is used to skip patterns that can't possibly match the content of an item.
+     */
+    protected static String getLiteralPrefix(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return EMPTY;
+        }
+        int end = 0;
+        while (end < regex.length() && REGEX_META_CHARS.indexOf(regex.charAt(end)) < 0) {
+            end++;
+        }
+        if (end < regex.length() && REGEX_QUANTIFIERS.indexOf(regex.charAt(end)) >= 0) {
+            // the last character is optional
+            end = Math.max(0, end - 1);
+        }
+        return regex.substring(0, end);
+    }
+
+    public static class ItemType {
+
+        private final List<Pattern> includes;
+        private final List<Pattern> excludes;
+        private final Map<String, List<ExtractionPattern>> dependencyTypes;
+
+        protected ItemType(DependencyResolverConfigTO.ItemType itemType) {
+            includes = compile(itemType.getIncludes());
+            excludes = compile(itemType.getExcludes());
+            dependencyTypes = new LinkedHashMap<>();
+            if (itemType.getDependencyTypes() != null) {
+                itemType.getDependencyTypes().values().forEach(dependencyType ->
+                        dependencyTypes.put(dependencyType.getName(), dependencyType.getIncludes().stream()
+                                .map(ExtractionPattern::new)
+                                .collect(toList())));
+            }
+        }
+
+        public boolean matches(String path) {
+            return matchesAny(path, includes) && !matchesAny(path, excludes);
+        }
+
+        /**
+         * @return the extraction patterns for each dependency type, in the order they were configured
+         */
+        public Map<String, List<ExtractionPattern>> getDependencyTypes() {
+            return dependencyTypes;
+        }
+
+    }
+
+    public static class ExtractionPattern {
+
+        private final Pattern find;
+        private final String literalPrefix;
+        private final List<Transform> transforms;
+
+        protected ExtractionPattern(DependencyResolverConfigTO.DependencyExtractionPattern pattern) {
+            find = Pattern.compile(pattern.getFindRegex());
+            literalPrefix = getLiteralPrefix(pattern.getFindRegex());
+            transforms = pattern.getTransforms() == null ? Collections.emptyList() :
+                    pattern.getTransforms().stream().map(Transform::new).collect(toList());
+        }
+
+        public Pattern getFind() {
+            return find;
+        }
+
+        /**
+         * Indicates if the pattern could find any match in the given content
+         * @param content the content of the item
+         * @return false if the content doesn't contain the literal prefix of the pattern
+         */
+        public boolean mayMatch(String content) {
+            return literalPrefix.isEmpty() || content.contains(literalPrefix);
+        }
+
+        public List<Transform> getTransforms() {
+            return transforms;
+        }
+
+    }
+
+    public static class Transform {
+
+        private final Pattern match;
+        private final String replace;
+        private final boolean split;
+        private final Pattern delimiter;
+
+        protected Transform(DependencyResolverConfigTO.DependencyExtractionTransform transform) {
+            match = Pattern.compile(transform.getMatch());
+            replace = transform.getReplace();
+            split = transform.isSplit();
+            delimiter = split ? Pattern.compile(transform.getDelimiter()) : null;
+        }
+
+        public Pattern getMatch() {
+            return match;
+        }
+
+        public String getReplace() {
+            return replace;
+        }
+
+        public boolean isSplit() {
+            return split;
+        }
+
+        public Pattern getDelimiter() {
+            return delimiter;
+        }
+
+    }
+
+}
@@ -114,6 +114,8 @@ public class DependencyServiceImpl implements DependencyService {
                 insertDependenciesIntoDatabase(dependencyEntities);
                 logger.trace("Commit transaction to insert dependencies for site '{}' path '{}'", site, path);
                 transactionManager.commit(txStatus);
+                dependencyService.dependenciesUpdated(site, getDependenciesBySource(List.of(path),
+                        dependencyEntities));
             } catch (Exception e) {
                 logger.error("Failed to insert dependencies for site '{}' path '{}'", site, path, e);
                 transactionManager.rollback(txStatus);
@@ -162,6 +164,7 @@ public class DependencyServiceImpl implements DependencyService {
             insertDependenciesIntoDatabase(dependencyEntities);
             logger.debug("Commit the dependency update transaction in site '{}'", site);
             transactionManager.commit(txStatus);
+            dependencyService.dependenciesUpdated(site, getDependenciesBySource(paths, dependencyEntities));
         } catch (Exception e) {
             logger.error("Failed to update dependencies in site '{}' paths '{}'", site, sbPaths, e);
             transactionManager.rollback(txStatus);
@@ -199,6 +202,22 @@ public class DependencyServiceImpl implements DependencyService {
         return dependencyEntities;
     }
 
+    /**
+     * Groups the dependency entities by source path, including an empty set for the paths without dependencies
+     */
+    private Map<String, Set<String>> getDependenciesBySource(List<String> paths,
+                                                            List<DependencyEntity> dependencyEntities) {
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        for (String path : paths) {
+            dependencies.put(path, new HashSet<>());
+        }
+        for (DependencyEntity dependencyEntity : dependencyEntities) {
+            dependencies.computeIfAbsent(dependencyEntity.getSourcePath(), k -> new HashSet<>())
+                    .add(dependencyEntity.getTargetPath());
+        }
+        return dependencies;
+    }
+
     private String getCleanPath(String path) {
         return path.replaceAll("//", "/");
     }
@@ -240,39 +259,7 @@ public class DependencyServiceImpl implements DependencyService {
             throw new ContentNotFoundException();
         }
 
-        Set<String> toRet = new HashSet<>();
-        Set<String> paths = new HashSet<>();
-        boolean exitCondition = false;
-        paths.add(path);
-        if (depth < 0) {
-            do {
-                List<String> deps = getItemSpecificDependenciesFromDB(site, paths);
-                exitCondition = !toRet.addAll(deps);
-                paths.clear();
-                paths.addAll(deps);
-            } while (!exitCondition);
-        } else {
-            int d = depth;
-            while (d-- > 0) {
-                List<String> deps = getItemSpecificDependenciesFromDB(site, paths);
-                exitCondition = !toRet.addAll(deps);
-                paths.clear();
-                paths.addAll(deps);
-                if (exitCondition) break;
-            }
-        }
-        return toRet;
-    }
-
-    private List<String> getItemSpecificDependenciesFromDB(String site, Set<String> paths) {
-        if (CollectionUtils.isEmpty(paths)) {
-            return new ArrayList<>();
-        }
-        Map<String, Object> params = new HashMap<>();
-        params.put(SITE_PARAM, site);
-        params.put(PATHS_PARAM, paths);
-        params.put(REGEX_PARAM, getItemSpecificDependenciesPatterns());
-        return dependencyMapper.getItemSpecificDependenciesForList(params);
+        return dependencyService.getItemSpecificDependencies(site, List.of(path), depth);
     }
 
     @Override
@@ -380,6 +367,7 @@ public class DependencyServiceImpl implements DependencyService {
         params.put(OLD_PATH_PARAM, oldPath);
         params.put(NEW_PATH_PARAM, newPath);
         retryingDatabaseOperationFacade.retry(() -> dependencyMapper.moveDependency(params));
+        dependencyService.dependenciesMoved(site, oldPath, newPath);
 
         return getItemDependencies(site, newPath, 1);
     }
@@ -396,6 +384,7 @@ public class DependencyServiceImpl implements DependencyService {
         params.put(SITE_PARAM, site);
         params.put(PATH_PARAM, path);
         retryingDatabaseOperationFacade.retry(() -> dependencyMapper.deleteDependenciesForSiteAndPath(params));
+        dependencyService.dependenciesDeleted(site, path);
     }
 
     @Override
@@ -404,6 +393,7 @@ public class DependencyServiceImpl implements DependencyService {
         Map<String, String> params = new HashMap<>();
         params.put(SITE_PARAM, site);
         retryingDatabaseOperationFacade.retry(() -> dependencyMapper.deleteDependenciesForSite(params));
+        dependencyService.invalidateDependencies(site);
     }
 
     @Override
@@ -463,7 +453,7 @@ public class DependencyServiceImpl implements DependencyService {
         depsSource.addAll(children);
         Set<String> dependencies = getContentTypeFilteredDeleteDependencies(site, depsSource);
         toRet.addAll(dependencies);
-        List<String> itemSpecificcDeps = getItemSpecificDependenciesFromDB(site, depsSource);
+        Set<String> itemSpecificcDeps = dependencyService.getItemSpecificDependencies(site, depsSource, 1);
         toRet.addAll(itemSpecificcDeps);
 
         // Step 3: recursion
@@ -485,7 +475,7 @@ public class DependencyServiceImpl implements DependencyService {
 
     private Set<String> getContentTypeFilteredDeleteDependencies(String site, Set<String> paths) {
         Set<String> toRet = new HashSet<>();
-        List<String> deps = getItemDependenciesFromDB(site, paths);
+        Set<String> deps = dependencyService.getDirectDependencies(site, paths);
         for (String dep : deps) {
             ContentItemTO item = contentService.getContentItem(site, dep, 0);
             List<DeleteDependencyConfigTO> deleteDependencyConfigList =
@@ -16,6 +16,7 @@
 
 package org.craftercms.studio.impl.v1.service.dependency;
 
+import com.google.common.cache.Cache;
 import org.apache.commons.collections4.CollectionUtils;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.slf4j.Logger;
@@ -25,7 +26,6 @@ import org.craftercms.studio.api.v1.service.dependency.DependencyResolver;
 import org.craftercms.studio.api.v1.to.DependencyResolverConfigTO;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
-import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.dom4j.Document;
 import org.dom4j.Element;
 
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -53,26 +54,37 @@ public class RegexDependencyResolver implements DependencyResolver {
 
     private static final Logger logger = LoggerFactory.getLogger(RegexDependencyResolver.class);
 
+    /**
+     * Matches a whole value in a single group, used to apply the replacement of split transforms
+     */
+    private static final Pattern SPLIT_VALUE_PATTERN = Pattern.compile("^(.*)$", Pattern.DOTALL);
+
     protected ContentService contentService;
     protected StudioConfiguration studioConfiguration;
     protected ConfigurationService configurationService;
+    protected Cache<String, Object> configurationCache;
 
     @Override
     public Map<String, Set<String>> resolve(String site, String path) {
+        return resolve(site, path, null);
+    }
+
+    @Override
+    public Map<String, Set<String>> resolve(String site, String path, String content) {
         Map<String, Set<String>> toRet = new HashMap<>();
         try {
             logger.debug("Get the dependency resolver configuration for site '{}'", site);
-            DependencyResolverConfigTO config = getConfiguration(site);
+            CompiledDependencyResolverConfig config = getCompiledConfiguration(site);
             if (config != null) {
                 logger.debug("Determine the item type site '{}' path '{}'", site, path);
-                DependencyResolverConfigTO.ItemType itemType = getItemTypeResolverConfig(site, path, config);
+                CompiledDependencyResolverConfig.ItemType itemType = config.getItemType(path);
                 if (itemType != null) {
-                    String content = contentService.getContentAsString(site, path);
+                    if (content == null) {
+                        content = contentService.getContentAsString(site, path);
+                    }
                     if (content != null) {
-                        Map<String, DependencyResolverConfigTO.DependencyType> dependencyTypes =
-                                itemType.getDependencyTypes();
                         logger.debug("Get dependencies for site '{}' path '{}'", site, path);
-                        toRet = getDependencies(site, path, content, dependencyTypes);
+                        toRet = getDependencies(site, path, content, itemType.getDependencyTypes());
                     } else {
                         logger.error("Failed to extract dependencies from empty content item site '{}' path '{}'",
                                 site, path);
@@ -92,6 +104,26 @@ public class RegexDependencyResolver implements DependencyResolver {
         return toRet;
     }
 
+    /**
+     * Returns the compiled configuration for the given site. It is kept in the configuration cache, next to the XML
+     * document it was built from, so it is invalidated every time the configuration changes.
+     */
+    protected CompiledDependencyResolverConfig getCompiledConfiguration(String site) {
+        String cacheKey = configurationService.getCacheKey(site, MODULE_STUDIO, getConfigFileName(),
+                studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE), "object");
+        CompiledDependencyResolverConfig config =
+                (CompiledDependencyResolverConfig) configurationCache.getIfPresent(cacheKey);
+        if (config == null) {
+            logger.debug("Cache miss in site '{}' cache key '{}'", site, cacheKey);
+            DependencyResolverConfigTO configTO = getConfiguration(site);
+            if (configTO != null) {
+                config = new CompiledDependencyResolverConfig(configTO);
+                configurationCache.put(cacheKey, config);
+            }
+        }
+        return config;
+    }
+
     private DependencyResolverConfigTO getConfiguration(String site) {
         DependencyResolverConfigTO config = null;
         logger.debug("Get the configuration location for site '{}'", site);
@@ -119,14 +151,14 @@ public class RegexDependencyResolver implements DependencyResolver {
             if (itemTypesEl != null) {
                 logger.trace("Load the dependency configuration according to the XML structure");
                 Map<String, DependencyResolverConfigTO.ItemType> itemTypes =
-                        new HashMap<>();
+                        new LinkedHashMap<>();
                 Iterator<Element> iterItemTypes = itemTypesEl.elementIterator(XML_CONFIGURATION_ITEM_TYPE);
                 logger.trace("Populate the item types");
                 while (iterItemTypes.hasNext()) {
                     DependencyResolverConfigTO.ItemType itemType = new DependencyResolverConfigTO.ItemType();
                     List<String> itemTypeIncludes = new ArrayList<>();
                     Map<String, DependencyResolverConfigTO.DependencyType> dependencyTypes =
-                            new HashMap<>();
+                            new LinkedHashMap<>();
                     Element itemTypeEl = iterItemTypes.next();
                     String typeName = itemTypeEl.valueOf(XML_CONFIGURATION_NAME);
                     Element includesIT = itemTypeEl.element(XML_CONFIGURATION_INCLUDES);
@@ -213,65 +245,44 @@ public class RegexDependencyResolver implements DependencyResolver {
         return config;
     }
 
-    private DependencyResolverConfigTO.ItemType getItemTypeResolverConfig(String site, String path,
-                                                                          DependencyResolverConfigTO config) {
-        logger.trace("Loop through all item types to match the path against the include patterns");
-        Map<String, DependencyResolverConfigTO.ItemType> itemTypes = config.getItemTypes();
-        DependencyResolverConfigTO.ItemType itemType = null;
-        if (itemTypes != null) {
-            for (Map.Entry<String, DependencyResolverConfigTO.ItemType> entry : itemTypes.entrySet()) {
-                DependencyResolverConfigTO.ItemType it = entry.getValue();
-                List<String> includes = it.getIncludes();
-                List<String> excludes = it.getExcludes();
-                if (ContentUtils.matchesPatterns(path, includes) && !ContentUtils.matchesPatterns(path, excludes)) {
-                    itemType = it;
-                    break;
-                }
-            }
-        }
-        return itemType;
-    }
-
-    private Map<String, Set<String>> getDependencies(String site, String path, String content, Map<String,
-            DependencyResolverConfigTO.DependencyType> dependencyTypes) {
+    private Map<String, Set<String>> getDependencies(String site, String path, String content,
+                                                     Map<String, List<CompiledDependencyResolverConfig.ExtractionPattern>>
+                                                             dependencyTypes) {
         Map<String, Set<String>> toRet = new HashMap<>();
+        // the same path is usually referenced several times and by several dependency types
+        Map<String, Boolean> existingPaths = new HashMap<>();
         logger.debug("Get the dependencies for site '{}' path '{}'", site, path);
-        for (Map.Entry<String, DependencyResolverConfigTO.DependencyType> dependencyTypeEntry :
+        for (Map.Entry<String, List<CompiledDependencyResolverConfig.ExtractionPattern>> dependencyTypeEntry :
                 dependencyTypes.entrySet()) {
             Set<String> extractedPaths = new HashSet<>();
-            DependencyResolverConfigTO.DependencyType dependencyType = dependencyTypeEntry.getValue();
-            List<DependencyResolverConfigTO.DependencyExtractionPattern> extractionPatterns =
-                    dependencyType.getIncludes();
             logger.debug("Loop through all extraction patterns in site '{}' for '{}'",
                     site, dependencyTypeEntry.getKey());
-            for (DependencyResolverConfigTO.DependencyExtractionPattern extractionPattern :
-                    extractionPatterns) {
-                Pattern pattern = Pattern.compile(extractionPattern.getFindRegex());
-                Matcher matcher = pattern.matcher(content);
+            for (CompiledDependencyResolverConfig.ExtractionPattern extractionPattern :
+                    dependencyTypeEntry.getValue()) {
+                if (!extractionPattern.mayMatch(content)) {
+                    continue;
+                }
+                Matcher matcher = extractionPattern.getFind().matcher(content);
                 logger.debug("Match content in site '{}' against the regular expression '{}'",
-                        site, extractionPattern.getFindRegex());
+                        site, extractionPattern.getFind());
                 while (matcher.find()) {
                     String matchedValue = matcher.group();
                     List<String> matchedPaths = new LinkedList<>();
                     logger.debug("Matched site '{}' path '{}'", site, matchedValue);
                     if (CollectionUtils.isNotEmpty(extractionPattern.getTransforms())) {
-                        for (DependencyResolverConfigTO.DependencyExtractionTransform transform :
+                        for (CompiledDependencyResolverConfig.Transform transform :
                                 extractionPattern.getTransforms()) {
-                            Pattern find = Pattern.compile(transform.getMatch());
-                            Matcher replaceMatcher = find.matcher(matchedValue);
+                            Matcher replaceMatcher = transform.getMatch().matcher(matchedValue);
 
                             if (transform.isSplit()) {
                                 if (replaceMatcher.matches()) {
                                     matchedValue = replaceMatcher.group(1);
-                                    String[] splitValues = matchedValue.split(transform.getDelimiter());
+                                    String[] splitValues = transform.getDelimiter().split(matchedValue);
 
                                     List<String> transformedValues = Stream.of(splitValues)
                                             // simulate a regex to be able to apply the replace from the config
-                                            .map(v -> {
-                                                Pattern p = Pattern.compile("(" + v + ")");
-                                                Matcher m = p.matcher(v);
-                                                return m.replaceAll(transform.getReplace());
-                                            })
+                                            .map(v -> SPLIT_VALUE_PATTERN.matcher(v)
+                                                    .replaceAll(transform.getReplace()))
                                             .collect(Collectors.toList());
 
                                     matchedPaths.addAll(transformedValues);
@@ -285,7 +296,8 @@ public class RegexDependencyResolver implements DependencyResolver {
                         matchedPaths.add(matchedValue);
                     }
                     for (String matchedPath : matchedPaths) {
-                        if (contentService.shallowContentExists(site, matchedPath)) {
+                        if (existingPaths.computeIfAbsent(matchedPath,
+                                p -> contentService.shallowContentExists(site, p))) {
                             logger.debug("Content exists for matched site '{}' path '{}'", site, matchedPath);
                             extractedPaths.add(matchedPath);
                         } else {
@@ -296,7 +308,7 @@ public class RegexDependencyResolver implements DependencyResolver {
                     }
                 }
             }
-            toRet.put(dependencyType.getName(), extractedPaths);
+            toRet.put(dependencyTypeEntry.getKey(), extractedPaths);
         }
         return toRet;
     }
@@ -341,4 +353,12 @@ public class RegexDependencyResolver implements DependencyResolver {
     public void setConfigurationService(ConfigurationService configurationService) {
         this.configurationService = configurationService;
     }
+
+    public Cache<String, Object> getConfigurationCache() {
+        return configurationCache;
+    }
+
+    public void setConfigurationCache(Cache<String, Object> configurationCache) {
+        this.configurationCache = configurationCache;
+    }
 }
@@ -52,6 +52,8 @@ import java.util.*;
 
 import static java.util.Arrays.asList;
 import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.StringUtils.*;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FOLDER;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
@@ -130,11 +132,7 @@ public class PublishingManagerImpl implements PublishingManager {
             throw new DeploymentException("Cannot process item, item is null.");
         }
 
-        DeploymentItemTO deploymentItem = new DeploymentItemTO();
-        deploymentItem.setSite(item.getSite());
-        deploymentItem.setPath(item.getPath());
-        deploymentItem.setCommitId(item.getCommitId());
-        deploymentItem.setPackageId(item.getPackageId());
+        DeploymentItemTO deploymentItem = createDeploymentItem(item);
 
         String site = item.getSite();
         String path = item.getPath();
@@ -175,15 +173,227 @@ public class PublishingManagerImpl implements PublishingManager {
         return deploymentItem;
     }
 
+    private DeploymentItemTO createDeploymentItem(PublishRequest item) {
+        DeploymentItemTO deploymentItem = new DeploymentItemTO();
+        deploymentItem.setSite(item.getSite());
+        deploymentItem.setPath(item.getPath());
+        deploymentItem.setCommitId(item.getCommitId());
+        deploymentItem.setPackageId(item.getPackageId());
+        return deploymentItem;
+    }
+
+    @Override
+    public List<DeploymentItemTO> planDeployment(String site, String environment, List<PublishRequest> items,
+                                                 boolean processMandatoryDependencies)
+            throws DeploymentException, ServiceLayerException, UserNotFoundException {
+        long start = System.currentTimeMillis();
+        boolean isLive = isLiveEnv(site, environment);
+
+        Map<String, List<PublishRequest>> packages = new LinkedHashMap<>();
+        Set<String> requestedPaths = new HashSet<>();
+        for (PublishRequest item : items) {
+            if (item == null) {
+                throw new DeploymentException("Cannot process item, item is null.");
+            }
+            packages.computeIfAbsent(item.getPackageId(), k -> new ArrayList<>()).add(item);
+            requestedPaths.add(item.getPath());
+        }
+        // Same as processItem, the previous path of the moved items is cleared before looking for dependencies
+        if (isLive) {
+            itemServiceInternal.clearPreviousPathBulk(site, getMovedPaths(items));
+        }
+
+        // Phase 1: resolve the missing ancestors & dependencies of each package, one round per dependency level
+        Set<String> missingPaths = new LinkedHashSet<>();
+        Map<String, List<PublishRequest>> missingItems = new HashMap<>();
+        if (processMandatoryDependencies) {
+            for (Map.Entry<String, List<PublishRequest>> entry : packages.entrySet()) {
+                PublishRequest origin = entry.getValue().get(0);
+                List<PublishRequest> packageMissingItems = new ArrayList<>();
+                List<PublishRequest> pending = entry.getValue();
+                while (!pending.isEmpty()) {
+                    List<Item> candidates = new ArrayList<>(getMandatoryAncestors(site, pending));
+                    if (!isEnablePublishingWithoutDependencies()) {
+                        candidates.addAll(getMandatoryDependencies(site, pending));
+                    }
+                    List<PublishRequest> found = new ArrayList<>();
+                    for (Item it : candidates) {
+                        if (isMissingDependency(it, requestedPaths) && missingPaths.add(it.getPath())) {
+                            found.add(createMissingItem(site, it, origin));
+                        }
+                    }
+                    packageMissingItems.addAll(found);
+                    pending = found;
+                }
+                missingItems.put(entry.getKey(), packageMissingItems);
+            }
+            if (!missingPaths.isEmpty()) {
+                deploymentService.cancelWorkflowBulk(site, missingPaths);
+                if (isLive) {
+                    itemServiceInternal.clearPreviousPathBulk(site, getMovedPaths(missingItems.values().stream()
+                            .flatMap(List::stream).collect(toList())));
+                }
+            }
+        }
+        long dependenciesEnd = System.currentTimeMillis();
+
+        // Phase 2: check the existence of all the items with a single pass over the repository
+        List<PublishRequest> plannedItems = new ArrayList<>();
+        for (Map.Entry<String, List<PublishRequest>> entry : packages.entrySet()) {
+            plannedItems.addAll(entry.getValue());
+            plannedItems.addAll(missingItems.getOrDefault(entry.getKey(), Collections.emptyList()));
+        }
+        Set<String> pathsToCheck = plannedItems.stream()
+                .filter(item -> !StringUtils.equals(item.getAction(), PublishRequest.Action.DELETE))
+                .map(PublishRequest::getPath)
+                .collect(toCollection(LinkedHashSet::new));
+        Set<String> existingPaths = contentRepository.getExistingPaths(site, pathsToCheck);
+        long existenceEnd = System.currentTimeMillis();
+
+        // Phase 3: build the deployment items in order
+        List<DeploymentItemTO> deploymentItems = new ArrayList<>();
+        List<PublishRequest> blacklistedItems = new ArrayList<>();
+        for (PublishRequest item : plannedItems) {
+            if (StringUtils.equals(item.getAction(), PublishRequest.Action.DELETE)) {
+                deploymentItems.add(processItem(item));
+                continue;
+            }
+            String path = item.getPath();
+            // the workflow entry is only needed for the few items that are missing from the repository
+            if (!existingPaths.contains(path) &&
+                    workflowServiceInternal.getWorkflowEntry(site, path, item.getPackageId()) == null) {
+                logger.warn("Item in site '{}' path '{}' doesn't exist in the database nor the git repository. " +
+                        "Skipping publishing of this item.", site, path);
+                continue;
+            }
+            if (isPathBlackListed(path)) {
+                logger.debug("The file in site '{}' path '{}' matches the publishing blacklist and will not be " +
+                        "published", site, path);
+                blacklistedItems.add(item);
+                continue;
+            }
+            DeploymentItemTO deploymentItem = createDeploymentItem(item);
+            if (StringUtils.equals(item.getAction(), PublishRequest.Action.MOVE)) {
+                deploymentItem.setMove(true);
+                deploymentItem.setOldPath(item.getOldPath());
+            }
+            deploymentItems.add(deploymentItem);
+        }
+        markItemsCompleted(site, environment, blacklistedItems);
+
+        long end = System.currentTimeMillis();
+        logger.info("Planned '{}' items for '{}' publish requests and '{}' mandatory dependencies in site '{}' " +
+                        "target '{}', dependencies '{}' ms, existence check '{}' ms, deployment items '{}' ms",
+                deploymentItems.size(), items.size(), missingPaths.size(), site, environment,
+                dependenciesEnd - start, existenceEnd - dependenciesEnd, end - existenceEnd);
+        return deploymentItems;
+    }
+
+    private Set<String> getMovedPaths(List<PublishRequest> items) {
+        return items.stream()
+                .filter(item -> StringUtils.equals(item.getAction(), PublishRequest.Action.MOVE) &&
+                        isNotEmpty(item.getOldPath()))
+                .map(PublishRequest::getPath)
+                .collect(toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Indicates if the given item must be published along with the requested items
+     */
+    private boolean isMissingDependency(Item it, Set<String> requestedPaths) {
+        return Objects.nonNull(it) && !StringUtils.equals(it.getSystemType(), CONTENT_TYPE_FOLDER) &&
+                (ItemState.isNew(it.getState()) || isNotEmpty(it.getPreviousPath())) &&
+                !requestedPaths.contains(it.getPath());
+    }
+
+    /**
+     * Loads the ancestors of all the new or moved pages with a single query, closest ancestors first
+     */
+    private List<Item> getMandatoryAncestors(String site, List<PublishRequest> items) {
+        List<String> pagePatterns = servicesConfig.getPagePatterns(site);
+        Set<String> ancestors = new LinkedHashSet<>();
+        for (PublishRequest item : items) {
+            if (isNewOrMoved(item) && matchesPatterns(item.getPath(), pagePatterns)) {
+                ancestors.addAll(getAncestors(item.getPath()));
+            }
+        }
+        if (ancestors.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Item> itemsByPath = new HashMap<>();
+        itemServiceInternal.getItems(site, new ArrayList<>(ancestors), true)
+                .forEach(it -> itemsByPath.put(it.getPath(), it));
+        List<Item> result = new ArrayList<>();
+        for (String ancestor : ancestors) {
+            // prefer the content of the folder, same as getItem
+            Item it = itemsByPath.getOrDefault(ancestor + FILE_SEPARATOR + DmConstants.INDEX_FILE,
+                    itemsByPath.get(ancestor));
+            if (it != null) {
+                result.add(it);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the publishing dependencies of all the new or moved items with a single query
+     */
+    private List<Item> getMandatoryDependencies(String site, List<PublishRequest> items)
+            throws ServiceLayerException {
+        List<String> paths = items.stream()
+                .filter(this::isNewOrMoved)
+                .map(PublishRequest::getPath)
+                .collect(toList());
+        if (paths.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> dependentPaths = dependencyService.getPublishingDependencies(site, paths);
+        if (CollectionUtils.isEmpty(dependentPaths)) {
+            return Collections.emptyList();
+        }
+        Map<String, Item> itemsByPath = new HashMap<>();
+        itemServiceInternal.getItems(site, dependentPaths).forEach(it -> itemsByPath.put(it.getPath(), it));
+        return dependentPaths.stream()
+                .map(itemsByPath::get)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
+    private boolean isNewOrMoved(PublishRequest item) {
+        return StringUtils.equals(item.getAction(), PublishRequest.Action.NEW) ||
+                StringUtils.equals(item.getAction(), PublishRequest.Action.MOVE);
+    }
+
+    /**
+     * Returns the ancestor folders of the given path, closest ancestors first
+     */
+    private List<String> getAncestors(String path) {
+        Path p = Paths.get(path);
+        List<Path> parts = new LinkedList<>();
+        if (Objects.nonNull(p.getParent())) {
+            p.getParent().iterator().forEachRemaining(parts::add);
+        }
+        List<String> ancestors = new LinkedList<>();
+        StringBuilder sbAncestor = new StringBuilder();
+        for (Path ancestor : parts) {
+            if (isNotEmpty(ancestor.toString())) {
+                sbAncestor.append(FILE_SEPARATOR).append(ancestor);
+                ancestors.add(0, sbAncestor.toString());
+            }
+        }
+        return ancestors;
+    }
+
     @Override
     public void setPublishedState(String site, String environment, List<PublishRequest> items) {
         boolean isLive = isLiveEnv(site, environment);
+        Set<String> publishedPaths = new LinkedHashSet<>();
         items.forEach(publishRequest -> {
             String path = publishRequest.getPath();
             Workflow workflowEntry =
                     workflowServiceInternal.getWorkflowEntry(site, path, publishRequest.getPackageId());
             if (workflowEntry != null) {
-                setPublishedState(path, site, isLive);
+                publishedPaths.add(path);
                 return;
             }
             if (!contentService.contentExists(site, path)) {
@@ -197,18 +407,20 @@ public class PublishingManagerImpl implements PublishingManager {
                                 "in git. This may cause problems in the publishing target '{}'",
                         site, path, environment);
             } else {
-                setPublishedState(path, site, isLive);
+                publishedPaths.add(path);
             }
         });
-    }
-
-    private void setPublishedState(String path, String site, boolean isLive) {
+        if (publishedPaths.isEmpty()) {
+            return;
+        }
+        // all the state changes for the package are applied with a few statements
         if (isLive) {
-            itemServiceInternal.updateStateBits(site, path, PUBLISH_TO_STAGE_AND_LIVE_ON_MASK,
+            itemServiceInternal.updateStateBitsBulk(site, publishedPaths, PUBLISH_TO_STAGE_AND_LIVE_ON_MASK,
                     PUBLISH_TO_STAGE_AND_LIVE_OFF_MASK);
-            itemServiceInternal.clearPreviousPath(site, path);
+            itemServiceInternal.clearPreviousPathBulk(site, publishedPaths);
         } else {
-            itemServiceInternal.updateStateBits(site, path, PUBLISH_TO_STAGE_ON_MASK, PUBLISH_TO_STAGE_OFF_MASK);
+            itemServiceInternal.updateStateBitsBulk(site, publishedPaths, PUBLISH_TO_STAGE_ON_MASK,
+                    PUBLISH_TO_STAGE_OFF_MASK);
         }
     }
 
@@ -304,12 +516,21 @@ public class PublishingManagerImpl implements PublishingManager {
     public void markItemsCompleted(@ValidateStringParam String site,
                                    @ValidateStringParam String environment,
                                    List<PublishRequest> processedItems) {
+        if (CollectionUtils.isEmpty(processedItems)) {
+            return;
+        }
         ZonedDateTime publishedOn = DateUtils.getCurrentTime();
+        List<Long> ids = new ArrayList<>();
         for (PublishRequest item : processedItems) {
             item.setState(PublishRequest.State.COMPLETED);
             item.setPublishedOn(publishedOn);
-            retryingDatabaseOperationFacade.retry(() -> publishRequestMapper.markItemCompleted(item));
+            ids.add(item.getId());
         }
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        params.put("state", PublishRequest.State.COMPLETED);
+        params.put("publishedOn", publishedOn);
+        retryingDatabaseOperationFacade.retry(() -> publishRequestMapper.markItemsCompletedBulk(params));
     }
 
     @Override
@@ -345,91 +566,14 @@ public class PublishingManagerImpl implements PublishingManager {
         }
     }
 
-    @Override
-    public List<DeploymentItemTO> processMandatoryDependencies(PublishRequest item,
-                                                               Set<String> pathsToDeploy,
-                                                               Set<String> missingDependenciesPaths)
-            throws DeploymentException, ServiceLayerException, UserNotFoundException {
-        List<DeploymentItemTO> mandatoryDependencies = new ArrayList<>();
-        String site = item.getSite();
-        String path = item.getPath();
-
-        if (StringUtils.equals(item.getAction(), PublishRequest.Action.NEW) ||
-                StringUtils.equals(item.getAction(), PublishRequest.Action.MOVE)) {
-            if (matchesPatterns(path, servicesConfig.getPagePatterns(site))) {
-                Path p = Paths.get(path);
-                List<Path> parts = new LinkedList<>();
-                if (Objects.nonNull(p.getParent())) {
-                    p.getParent().iterator().forEachRemaining(parts::add);
-                }
-                List<String> ancestors = new LinkedList<>();
-                if (CollectionUtils.isNotEmpty(parts)) {
-                    StringBuilder sbAncestor = new StringBuilder();
-                    for (Path ancestor : parts) {
-                        if (isNotEmpty(ancestor.toString())) {
-                            sbAncestor.append(FILE_SEPARATOR).append(ancestor);
-                            ancestors.add(0, sbAncestor.toString());
-                        }
-                    }
-                }
-
-                if (CollectionUtils.isNotEmpty(ancestors)) {
-                    Iterator<String> ancestorIterator = ancestors.iterator();
-                    boolean breakLoop = false;
-                    while (!breakLoop && ancestorIterator.hasNext()) {
-                        String anc = ancestorIterator.next();
-                        Item it = itemServiceInternal.getItem(site, anc, true);
-                        if (Objects.nonNull(it) && !StringUtils.equals(it.getSystemType(), CONTENT_TYPE_FOLDER) &&
-                                (ItemState.isNew(it.getState()) || isNotEmpty(it.getPreviousPath())) &&
-                                !missingDependenciesPaths.contains(it.getPath()) &&
-                                !pathsToDeploy.contains(it.getPath())) {
-                            deploymentService.cancelWorkflow(site, it.getPath());
-                            missingDependenciesPaths.add(it.getPath());
-                            PublishRequest parentItem = createMissingItem(site, it.getPath(), item);
-                            DeploymentItemTO parentDeploymentItem = processItem(parentItem);
-                            mandatoryDependencies.add(parentDeploymentItem);
-                            mandatoryDependencies.addAll(
-                                    processMandatoryDependencies(parentItem, pathsToDeploy, missingDependenciesPaths));
-                        }
-                    }
-                }
-            }
-
-            if (!isEnablePublishingWithoutDependencies()) {
-                List<String> dependentPaths = dependencyService.getPublishingDependencies(site, path);
-                for (String dependentPath : dependentPaths) {
-                    // TODO: SJ: This bypasses the Content Service, fix
-                    Item it = itemServiceInternal.getItem(site, dependentPath);
-                    if (ItemState.isNew(it.getState()) || isNotEmpty(it.getPreviousPath())) {
-                        if (!StringUtils.equals(it.getSystemType(), CONTENT_TYPE_FOLDER) &&
-                                !missingDependenciesPaths.contains(dependentPath) &&
-                                !pathsToDeploy.contains(dependentPath)) {
-                            deploymentService.cancelWorkflow(site, dependentPath);
-                            missingDependenciesPaths.add(dependentPath);
-                            PublishRequest dependentItem = createMissingItem(site, dependentPath, item);
-                            DeploymentItemTO dependentDeploymentItem = processItem(dependentItem);
-                            if (Objects.nonNull(dependentDeploymentItem)) {
-                                mandatoryDependencies.add(dependentDeploymentItem);
-                            }
-                            mandatoryDependencies.addAll(
-                                    processMandatoryDependencies(dependentItem, pathsToDeploy, missingDependenciesPaths));
-                        }
-                    }
-                }
-            }
-        }
-
-        return mandatoryDependencies;
-    }
-
-    private PublishRequest createMissingItem(String site, String itemPath, PublishRequest item) {
+    private PublishRequest createMissingItem(String site, Item it, PublishRequest item) {
+        String itemPath = it.getPath();
         PublishRequest missingItem = new PublishRequest();
         missingItem.setSite(site);
         missingItem.setEnvironment(item.getEnvironment());
         missingItem.setPath(itemPath);
         missingItem.setScheduledDate(item.getScheduledDate());
         missingItem.setState(item.getState());
-        Item it = itemServiceInternal.getItem(site, itemPath);
         if (ItemState.isNew(it.getState())) {
             missingItem.setAction(PublishRequest.Action.NEW);
         }
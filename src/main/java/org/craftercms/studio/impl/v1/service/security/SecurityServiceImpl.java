@@ -38,6 +38,7 @@ import org.craftercms.studio.api.v1.to.ContentTypeConfigTO;
 import org.craftercms.studio.api.v1.to.PermissionsConfigTO;
 import org.craftercms.studio.api.v2.dal.Group;
 import org.craftercms.studio.api.v2.dal.User;
+import org.craftercms.studio.api.v2.security.PermissionRules;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.service.security.GroupService;
@@ -156,7 +157,17 @@ public class SecurityServiceImpl implements SecurityService {
     public Set<String> getUserPermissions(@ValidateStringParam final String site,
                                           @ValidateSecurePathParam String path,
                                           @ValidateStringParam String user, List<String> groups) {
-        Set<String> permissions = new HashSet<>();
+        return getUserPermissions(site, Collections.singletonList(path), user, groups).get(path);
+    }
+
+    @Override
+    @Valid
+    public Map<String, Set<String>> getUserPermissions(@ValidateStringParam final String site,
+                                                       Collection<String> paths,
+                                                       @ValidateStringParam String user, List<String> groups) {
+        Map<String, Set<String>> permissions = new LinkedHashMap<>();
+        // paths that only get the site permissions
+        Set<String> notAllowedPaths = new HashSet<>();
         if (StringUtils.isNotEmpty(site)) {
             PermissionsConfigTO rolesConfig = loadConfiguration(site, getRoleMappingsFileName());
             PermissionsConfigTO permissionsConfig = loadConfiguration(site, getPermissionsFileName());
@@ -164,28 +175,32 @@ public class SecurityServiceImpl implements SecurityService {
             addUserRoles(roles, site, user);
             addGroupRoles(roles, site, groups, rolesConfig);
             // resolve the permission
-            permissions = populateUserPermissions(site, path, roles, permissionsConfig);
-            logger.trace("Check if the user is allowed to edit the content in site '{}' path '{}' user '{}' " +
-                            "groups '{}'", site, path, user, groups);
-
-            // TODO: SJ: refactor the code below if it's still in use, otherwise remove
-            if (path.indexOf("/site") == 0) { // If it's content a file
-                try {
-                    ContentTypeConfigTO config = contentTypeService.getContentTypeForContent(site, path);
-                    boolean isAllowed = contentTypeService.isUserAllowed(roles, config);
-                    if (!isAllowed) {
-                        logger.trace("User '{}' is not permitted to access site '{}' path '{}', add " +
-                                "permission '{}'", user, site, path, StudioConstants.PERMISSION_VALUE_NOT_ALLOWED);
-                        // If no default role is set
-                        permissions.add(StudioConstants.PERMISSION_VALUE_NOT_ALLOWED);
-                        return permissions;
+            permissions.putAll(populateUserPermissions(site, paths, roles, permissionsConfig));
+            for (String path : paths) {
+                logger.trace("Check if the user is allowed to edit the content in site '{}' path '{}' user '{}' " +
+                        "groups '{}'", site, path, user, groups);
+
+                // TODO: SJ: refactor the code below if it's still in use, otherwise remove
+                if (path.indexOf("/site") == 0) { // If it's content a file
+                    try {
+                        ContentTypeConfigTO config = contentTypeService.getContentTypeForContent(site, path);
+                        boolean isAllowed = contentTypeService.isUserAllowed(roles, config);
+                        if (!isAllowed) {
+                            logger.trace("User '{}' is not permitted to access site '{}' path '{}', add " +
+                                    "permission '{}'", user, site, path, StudioConstants.PERMISSION_VALUE_NOT_ALLOWED);
+                            // If no default role is set
+                            permissions.get(path).add(StudioConstants.PERMISSION_VALUE_NOT_ALLOWED);
+                            notAllowedPaths.add(path);
+                        }
+                    } catch (ServiceLayerException e) {
+                        // TODO: SJ: Is this really a debug?
+                        logger.debug("Failed to get content type in site '{}' path '{}'. Skip user role check for " +
+                                "user '{}'", site, path, user, e);
                     }
-                } catch (ServiceLayerException e) {
-                    // TODO: SJ: Is this really a debug?
-                    logger.debug("Failed to get content type in site '{}' path '{}'. Skip user role check for " +
-                                    "user '{}'", site, path, user, e);
                 }
             }
+        } else {
+            paths.forEach(path -> permissions.put(path, new HashSet<>()));
         }
 
         PermissionsConfigTO globalRolesConfig = loadGlobalRolesConfiguration();
@@ -193,7 +208,11 @@ public class SecurityServiceImpl implements SecurityService {
         Set<String> roles = new HashSet<>();
         addGlobalUserRoles(user, roles, globalRolesConfig);
         addGlobalGroupRoles(roles, groups, globalRolesConfig);
-        permissions.addAll(populateUserGlobalPermissions(path, roles, globalPermissionsConfig));
+        List<String> globalPaths = paths.stream()
+                .filter(path -> !notAllowedPaths.contains(path))
+                .collect(Collectors.toList());
+        populateUserGlobalPermissions(globalPaths, roles, globalPermissionsConfig)
+                .forEach((path, globalPermissions) -> permissions.get(path).addAll(globalPermissions));
         return permissions;
     }
 
@@ -229,59 +248,19 @@ public class SecurityServiceImpl implements SecurityService {
         }
     }
 
-    protected Set<String> populateUserGlobalPermissions(String path, Set<String> roles,
-                                                  PermissionsConfigTO permissionsConfig) {
-        Set<String> permissions = new HashSet<>();
-        if (roles != null && !roles.isEmpty()) {
-            for (String role : roles) {
-                // TODO: SJ: Avoid string literals
-                Map<String, Map<String, List<Node>>> permissionsMap = permissionsConfig.getPermissions();
-                Map<String, List<Node>> siteRoles = permissionsMap.get("###GLOBAL###");
-                if (siteRoles == null || siteRoles.isEmpty()) {
-                    siteRoles = permissionsMap.get("*");
-                }
-                if (siteRoles != null && !siteRoles.isEmpty()) {
-                    List<Node> ruleNodes = siteRoles.get(role);
-                    if (ruleNodes == null || ruleNodes.isEmpty()) {
-                        ruleNodes = siteRoles.get("*");
-                    }
-                    if (ruleNodes != null && !ruleNodes.isEmpty()) {
-                        for (Node ruleNode : ruleNodes) {
-                            String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
-                            if (path.matches(regex)) {
-                                logger.trace("Global permissions found by matching regex '{}' in role '{}'",
-                                        regex, role);
-
-                                List<Node> permissionNodes =
-                                        ruleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                                for (Node permissionNode : permissionNodes) {
-                                    String permission = permissionNode.getText().toLowerCase();
-                                    logger.debug("Add the global permissions '{}' to role '{}' path '{}'",
-                                            permission, role, path);
-                                    permissions.add(permission);
-                                }
-                            }
-                        }
-                    } else {
-                        // If no default role is set
-                        logger.debug("No default role is set. Add the default permission '{}'",
-                                StudioConstants.PERMISSION_VALUE_READ);
-                        permissions.add(StudioConstants.PERMISSION_VALUE_READ);
-                    }
-                } else {
-                    // If no default site is set
-                    logger.debug("No default site is set. Add the default permission '{}'",
-                            StudioConstants.PERMISSION_VALUE_READ);
-                    permissions.add(StudioConstants.PERMISSION_VALUE_READ);
-                }
-            }
-        } else {
+    protected Map<String, Set<String>> populateUserGlobalPermissions(Collection<String> paths, Set<String> roles,
+                                                                     PermissionsConfigTO permissionsConfig) {
+        if (roles == null || roles.isEmpty()) {
             // If user or group did not match the roles-mapping file
             logger.debug("No user or group match found. Add the default permission '{}'",
                     StudioConstants.PERMISSION_VALUE_READ);
-            permissions.add(StudioConstants.PERMISSION_VALUE_READ);
+            Map<String, Set<String>> permissions = new LinkedHashMap<>();
+            paths.forEach(path -> permissions.put(path, new HashSet<>(Set.of(StudioConstants.PERMISSION_VALUE_READ))));
+            return permissions;
         }
-        return permissions;
+        // roles without rules get the default permission
+        return getPermissionRules(permissionsConfig)
+                .getPermissions(roles, paths, StudioConstants.PERMISSION_VALUE_READ);
     }
 
     /* Derives a key based off the site and filename */
@@ -389,55 +368,28 @@ public class SecurityServiceImpl implements SecurityService {
     }
 
     /**
-     * populate user permissions
+     * populate user permissions for several paths, the rules of the roles are resolved only once
      *
      * @param site
-     * @param path
+     * @param paths
      * @param roles
      * @param permissionsConfig
      */
-    protected Set<String> populateUserPermissions(String site, String path, Set<String> roles,
-                                                  PermissionsConfigTO permissionsConfig) {
-        Set<String> permissions = new HashSet<>();
+    protected Map<String, Set<String>> populateUserPermissions(String site, Collection<String> paths,
+                                                               Set<String> roles,
+                                                               PermissionsConfigTO permissionsConfig) {
         if (CollectionUtils.isEmpty(roles)) {
             // User has no access to the site
+            Map<String, Set<String>> permissions = new LinkedHashMap<>();
+            paths.forEach(path -> permissions.put(path, new HashSet<>()));
             return permissions;
         }
-        Map<String, Map<String, List<Node>>> permissionsMap = permissionsConfig.getPermissions();
-        Map<String, List<Node>> siteRoles = permissionsMap.getOrDefault(site, permissionsMap.get("*"));
-        if (MapUtils.isEmpty(siteRoles)) {
-            logger.debug("No default role is set site '{}' path '{}'. Add the default permission '{}'",
-                    site, path, PERMISSION_CONTENT_READ);
-            // This site has no role configured
-            permissions.add(PERMISSION_CONTENT_READ);
-            return permissions;
-        }
-        for (String role : roles) {
-            List<Node> ruleNodes = siteRoles.getOrDefault(role, siteRoles.get("*"));
-            if (CollectionUtils.isEmpty(ruleNodes)) {
-                logger.debug("No default role is set site '{}' path '{}'. Add the default permission '{}'",
-                        site, path, PERMISSION_CONTENT_READ);
-                // No rule for this role
-                permissions.add(PERMISSION_CONTENT_READ);
-            }
-            for (Node ruleNode : ruleNodes) {
-                String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
-                if (path.matches(regex)) {
-                    logger.debug("Permissions found in site '{}' matching regex '{}' for role '{}'",
-                            site, regex, role);
-
-                    List<Node> permissionNodes = ruleNode.selectNodes(
-                            StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                    for (Node permissionNode : permissionNodes) {
-                        String permission = permissionNode.getText().toLowerCase();
-                        logger.trace("Add permission '{}' to site '{}' path '{}' role '{}'",
-                                permission, site, path, role);
-                        permissions.add(permission);
-                    }
-                }
-            }
-        }
-        return permissions;
+        // Roles without rules, or sites without roles, get the default permission
+        return getPermissionRules(permissionsConfig).getPermissions(roles, paths, PERMISSION_CONTENT_READ);
+    }
+
+    protected PermissionRules getPermissionRules(PermissionsConfigTO permissionsConfig) {
+        return permissionsConfig != null? permissionsConfig.getPermissionRules() : PermissionRules.EMPTY;
     }
 
     protected PermissionsConfigTO loadConfiguration(String site, String filename) {
@@ -457,7 +409,7 @@ public class SecurityServiceImpl implements SecurityService {
                     loadRoles(root, config);
 
                     // permissions file
-                    loadPermissions(site, root, config);
+                    loadPermissions(root, config);
 
                     config.setKey(site + ":" + filename);
                     config.setLastUpdated(DateUtils.getCurrentTime());
@@ -501,27 +453,9 @@ public class SecurityServiceImpl implements SecurityService {
         return rolesMap;
     }
 
-    protected void loadPermissions(String siteId, Element root, PermissionsConfigTO config) {
+    protected void loadPermissions(Element root, PermissionsConfigTO config) {
         if (root.getName().equals(StudioXmlConstants.DOCUMENT_PERMISSIONS)) {
-            Map<String, Map<String, List<Node>>> permissionsMap = new HashMap<>();
-
-            //backwards compatibility for nested <site>
-            Element permissionsRoot = root;
-            Element siteNode = (Element) permissionsRoot.selectSingleNode(StudioXmlConstants.DOCUMENT_ELM_SITE);
-            if (siteNode != null) {
-                permissionsRoot = siteNode;
-            }
-
-            List<Node> roleNodes = permissionsRoot.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_ROLE);
-            Map<String, List<Node>> rules = new HashMap<>();
-            for (Node roleNode : roleNodes) {
-                String roleName = roleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_PERMISSIONS_NAME);
-                List<Node> ruleNodes = roleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_RULE);
-                rules.put(roleName, ruleNodes);
-            }
-            permissionsMap.put(siteId, rules);
-
-            config.setPermissions(permissionsMap);
+            config.setPermissionRules(PermissionRules.compile(true, root.getDocument()));
         }
     }
 
@@ -539,7 +473,7 @@ public class SecurityServiceImpl implements SecurityService {
                     Element root = document.getRootElement();
 
                     // permissions file
-                    loadPermissions("###GLOBAL###", root, config);
+                    loadPermissions(root, config);
 
                     String globalPermissionsKey = "###GLOBAL###:" + getGlobalPermissionsFileName();
                     config.setKey(globalPermissionsKey);
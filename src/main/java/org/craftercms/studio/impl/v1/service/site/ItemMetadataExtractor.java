@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.site;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.service.dependency.internal.DependencyServiceInternal;
+import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
+import org.craftercms.studio.api.v2.utils.StudioUtils;
+import org.craftercms.studio.impl.v1.util.ContentUtils;
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.dom4j.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.craftercms.studio.api.v1.constant.DmConstants.ROOT_PATTERN_ASSETS;
+import static org.craftercms.studio.api.v1.constant.DmConstants.ROOT_PATTERN_PAGES;
+import static org.craftercms.studio.api.v1.constant.DmConstants.XML_PATTERN;
+import static org.craftercms.studio.api.v1.constant.StudioXmlConstants.DOCUMENT_ELM_CONTENT_TYPE;
+import static org.craftercms.studio.api.v1.constant.StudioXmlConstants.DOCUMENT_ELM_DISABLED;
+import static org.craftercms.studio.api.v1.constant.StudioXmlConstants.DOCUMENT_ELM_INTERNAL_TITLE;
+
+/**
+ * Extracts the metadata needed to sync the item and dependency tables for a list of paths. Items are processed in
+ * parallel using the given executor, reading the content of each item only once, while the results are returned in
+ * the same order as the paths. Only a bounded number of items are extracted ahead of the consumer. If the extraction
+ * of an item fails the error is logged and only the metadata that can be derived from the path is returned, so a
+ * single item doesn't abort the whole sync.
+ *
+ * @since 4.1.0
+ */
+public class ItemMetadataExtractor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemMetadataExtractor.class);
+
+    protected final String siteId;
+    protected final Iterator<String> paths;
+    protected final int windowSize;
+    protected final Deque<Future<ItemMetadata>> pending = new ArrayDeque<>();
+
+    protected final AsyncTaskExecutor executor;
+    protected final ContentService contentService;
+    protected final ContentRepository contentRepository;
+    protected final ItemServiceInternal itemServiceInternal;
+    protected final DependencyServiceInternal dependencyServiceInternal;
+
+    /**
+     * @param siteId the id of the site
+     * @param paths the paths to extract, in the order the results will be consumed. Null paths are allowed for
+     *              entries that don't need any metadata
+     */
+    public ItemMetadataExtractor(String siteId, List<String> paths, int windowSize, AsyncTaskExecutor executor,
+                                 ContentService contentService, ContentRepository contentRepository,
+                                 ItemServiceInternal itemServiceInternal,
+                                 DependencyServiceInternal dependencyServiceInternal) {
+        this.siteId = siteId;
+        this.paths = paths.iterator();
+        this.windowSize = Math.max(1, windowSize);
+        this.executor = executor;
+        this.contentService = contentService;
+        this.contentRepository = contentRepository;
+        this.itemServiceInternal = itemServiceInternal;
+        this.dependencyServiceInternal = dependencyServiceInternal;
+    }
+
+    /**
+     * Returns the metadata for the next path, waiting for the extraction to finish if needed
+     * @return the metadata, or null if the path was null
+     */
+    public ItemMetadata next() {
+        fill();
+        Future<ItemMetadata> future = pending.poll();
+        if (future == null) {
+            throw new NoSuchElementException("All the item metadata has already been consumed for site " + siteId);
+        }
+        fill();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while extracting item metadata for site " + siteId, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to extract item metadata for site " + siteId, e.getCause());
+        }
+    }
+
+    protected void fill() {
+        while (pending.size() < windowSize && paths.hasNext()) {
+            String path = paths.next();
+            if (path == null) {
+                pending.add(CompletableFuture.completedFuture(null));
+            } else {
+                try {
+                    pending.add(executor.submit(() -> extractOrDegrade(path)));
+                } catch (TaskRejectedException e) {
+                    logger.debug("Executor is busy, extracting metadata in the caller thread for site '{}' " +
+                            "path '{}'", siteId, path);
+                    pending.add(CompletableFuture.completedFuture(extractOrDegrade(path)));
+                }
+            }
+        }
+    }
+
+    protected ItemMetadata extractOrDegrade(String path) {
+        try {
+            return extract(path);
+        } catch (Exception e) {
+            logger.error("Failed to extract metadata for site '{}' path '{}'", siteId, path, e);
+            return createMetadata(path);
+        }
+    }
+
+    /**
+     * Creates the metadata that can be derived from the path alone
+     */
+    protected ItemMetadata createMetadata(String path) {
+        ItemMetadata metadata = new ItemMetadata();
+        metadata.label = FilenameUtils.getName(path);
+        metadata.contentTypeId = StringUtils.EMPTY;
+        metadata.mimeType = StudioUtils.getMimeType(FilenameUtils.getName(path));
+        return metadata;
+    }
+
+    protected ItemMetadata extract(String path) {
+        ItemMetadata metadata = createMetadata(path);
+        String content = null;
+        if (StringUtils.endsWith(path, XML_PATTERN)) {
+            content = contentService.getContentAsString(siteId, path);
+            if (content != null) {
+                try {
+                    Document contentDoc = ContentUtils.convertStreamToXml(IOUtils.toInputStream(content, UTF_8));
+                    if (contentDoc != null) {
+                        Element rootElement = contentDoc.getRootElement();
+                        String internalName = rootElement.valueOf(DOCUMENT_ELM_INTERNAL_TITLE);
+                        if (StringUtils.isNotEmpty(internalName)) {
+                            metadata.label = internalName;
+                        }
+                        metadata.contentTypeId = rootElement.valueOf(DOCUMENT_ELM_CONTENT_TYPE);
+                        metadata.disabled = Boolean.parseBoolean(rootElement.valueOf(DOCUMENT_ELM_DISABLED));
+                    }
+                } catch (DocumentException e) {
+                    logger.error("Failed to extract metadata from XML file at site '{}' path '{}'",
+                            siteId, path, e);
+                }
+            }
+        }
+        if (StringUtils.startsWith(path, ROOT_PATTERN_PAGES) || StringUtils.startsWith(path, ROOT_PATTERN_ASSETS)) {
+            metadata.previewUrl = itemServiceInternal.getBrowserUrl(siteId, path);
+        }
+        metadata.systemType = contentService.getContentTypeClass(siteId, path);
+        metadata.size = contentRepository.getContentSize(siteId, path);
+        metadata.dependencies = dependencyServiceInternal.resolveDependencies(siteId, path, content);
+        return metadata;
+    }
+
+    @Override
+    public void close() {
+        pending.forEach(future -> future.cancel(false));
+        pending.clear();
+    }
+
+    /**
+     * Metadata of a single item, as stored in the item and dependency tables
+     */
+    public static class ItemMetadata {
+
+        protected String label;
+        protected String contentTypeId;
+        protected boolean disabled;
+        protected String previewUrl;
+        protected String systemType;
+        protected String mimeType;
+        protected long size;
+        protected Map<String, Set<String>> dependencies;
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getContentTypeId() {
+            return contentTypeId;
+        }
+
+        public boolean isDisabled() {
+            return disabled;
+        }
+
+        public String getPreviewUrl() {
+            return previewUrl;
+        }
+
+        public String getSystemType() {
+            return systemType;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Map<String, Set<String>> getDependencies() {
+            return dependencies;
+        }
+
+    }
+
+}
@@ -72,35 +72,32 @@ import org.craftercms.studio.api.v2.service.site.SitesService;
 import org.craftercms.studio.api.v2.service.workflow.internal.WorkflowServiceInternal;
 import org.craftercms.studio.api.v2.upgrade.StudioUpgradeManager;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
-import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.impl.v1.repository.job.RebuildRepositoryMetadata;
 import org.craftercms.studio.impl.v1.repository.job.SyncDatabaseWithRepository;
+import org.craftercms.studio.impl.v1.service.site.ItemMetadataExtractor.ItemMetadata;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.lang.NonNull;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Size;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.ZonedDateTime;
 import java.util.*;
 
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.craftercms.studio.api.v1.constant.DmConstants.*;
@@ -110,7 +107,6 @@ import static org.craftercms.studio.api.v1.dal.SiteFeed.*;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.*;
 import static org.craftercms.studio.api.v2.dal.ItemState.*;
 import static org.craftercms.studio.api.v2.dal.PublishStatus.READY;
-import static org.craftercms.studio.api.v2.utils.SqlStatementGeneratorUtils.*;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.*;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.GIT_REPO_USER_USERNAME;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
@@ -156,6 +152,8 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
     protected String[] configurationPatterns;
 
     protected StudioDBScriptRunnerFactory studioDBScriptRunnerFactory;
+    protected AsyncTaskExecutor metadataExtractionExecutor;
+    protected int metadataExtractionWindowSize;
     protected DependencyServiceInternal dependencyServiceInternal;
     protected RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
 
@@ -364,85 +362,52 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
             return;
         }
 
-        StudioDBScriptRunner studioDBScriptRunner = studioDBScriptRunnerFactory.getDBScriptRunner();
-
-        // TODO: SJ: Refactor to avoid string literals
-        try {
-            String createdFileScriptFilename = "createdFiles_" + UUID.randomUUID();
-            Path createdFileScriptPath = Files.createTempFile(createdFileScriptFilename, ".sql");
-            String updateParentIdScriptFilename = "updateParentId_" + UUID.randomUUID();
-            Path updateParentIdScriptPath = Files.createTempFile(updateParentIdScriptFilename, ".sql");
-            for (String key : createdFiles.keySet()) {
-                String path = key;
-                if (StringUtils.equals("D", createdFiles.get(path))) {
-                    continue;
-                }
-                if (createdFiles.get(path).length() > 1) {
-                    path = createdFiles.get(path);
-                }
-
-                // Item
-                String label = FilenameUtils.getName(path);
-                String contentTypeId = StringUtils.EMPTY;
-                boolean disabled = false;
-                if (StringUtils.endsWith(path, XML_PATTERN)) {
-                    try {
-                        Document contentDoc = contentService.getContentAsDocument(siteId, path);
-                        if (contentDoc != null) {
-                            Element rootElement = contentDoc.getRootElement();
-                            String internalName = rootElement.valueOf(DOCUMENT_ELM_INTERNAL_TITLE);
-                            if (isNotEmpty(internalName)) {
-                                label = internalName;
-                            }
-                            contentTypeId = rootElement.valueOf(DOCUMENT_ELM_CONTENT_TYPE);
-                            disabled = Boolean.parseBoolean(rootElement.valueOf(DOCUMENT_ELM_DISABLED));
-                        }
-                    } catch (DocumentException e) {
-                        logger.error("Failed to extract metadata from XML file at site '{}' path '{}'",
-                                siteId, path, e);
-                    }
-                }
-                String previewUrl = null;
-                if (StringUtils.startsWith(path, ROOT_PATTERN_PAGES) ||
-                        StringUtils.startsWith(path, ROOT_PATTERN_ASSETS)) {
-                    previewUrl = itemServiceInternal.getBrowserUrl(siteId, path);
-                }
-                processAncestors(siteFeed.getId(), path, userObj.getId(), now, lastCommitId, createdFileScriptPath);
-                long state = NEW.value;
-                if (disabled) {
-                    state = state | DISABLED.value;
-                }
-
-                if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(path))) {
-                    addUpdateParentIdScriptSnippets(siteFeed.getId(), path, updateParentIdScriptPath);
+        List<String> paths = new ArrayList<>();
+        for (String key : createdFiles.keySet()) {
+            if (StringUtils.equals("D", createdFiles.get(key))) {
+                continue;
+            }
+            paths.add(createdFiles.get(key).length() > 1 ? createdFiles.get(key) : key);
+        }
+        List<String> metadataPaths = paths.stream()
+                .map(path -> ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(path)) ? null : path)
+                .collect(toList());
+
+        try (SiteSyncBatch batch = new SiteSyncBatch(studioDBScriptRunnerFactory.getDBBatchWriter(), siteId,
+                siteFeed.getId(), paths.size());
+             ItemMetadataExtractor extractor = createMetadataExtractor(siteId, metadataPaths)) {
+            for (String path : paths) {
+                ItemMetadata metadata = extractor.next();
+                processAncestors(siteFeed.getId(), path, userObj.getId(), now, lastCommitId, batch);
+
+                if (metadata == null) {
+                    addParentLinks(path, batch);
                 } else {
-                    Files.write(createdFileScriptPath, insertItemRow(siteFeed.getId(), path, previewUrl, state,
-                            null, userObj.getId(), now, userObj.getId(), now, null, label, contentTypeId,
-                            contentService.getContentTypeClass(siteId, path),
-                            StudioUtils.getMimeType(FilenameUtils.getName(path)), Locale.US.toString(), null,
-                            contentRepositoryV2.getContentSize(siteId, path), null, lastCommitId, null).getBytes(UTF_8),
-                            StandardOpenOption.APPEND);
-                    Files.write(createdFileScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+                    long state = NEW.value;
+                    if (metadata.isDisabled()) {
+                        state = state | DISABLED.value;
+                    }
+                    batch.insertItem(path, metadata.getPreviewUrl(), state, userObj.getId(), now, userObj.getId(), now,
+                            metadata.getLabel(), metadata.getContentTypeId(), metadata.getSystemType(),
+                            metadata.getMimeType(), Locale.US.toString(), metadata.getSize(), lastCommitId);
 
-                    addUpdateParentIdScriptSnippets(siteFeed.getId(), path, updateParentIdScriptPath);
+                    addParentLinks(path, batch);
 
-                    addDependenciesScriptSnippets(siteId, path, null, createdFileScriptPath);
+                    addDependencies(siteId, path, null, metadata.getDependencies(), batch);
                 }
+                batch.operationProcessed();
             }
-
-            studioDBScriptRunner.execute(createdFileScriptPath.toFile());
-            studioDBScriptRunner.execute(updateParentIdScriptPath.toFile());
-            if (logger.isDebugEnabled()) {
-                logger.debug("ProcessCreatedFiles finished in '{}' milliseconds",
-                        (System.currentTimeMillis() - startProcessCreatedFilesMark));
-            }
-        } catch (IOException e) {
-            logger.error("Failed to create the database script file for processingCreatedFiles in site '{}'", siteId, e);
+            batch.commit();
+        }
+        dependencyServiceInternal.invalidateDependencies(siteId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("ProcessCreatedFiles finished in '{}' milliseconds",
+                    (System.currentTimeMillis() - startProcessCreatedFilesMark));
         }
     }
 
     private void processAncestors(long siteId, String path, long userId, ZonedDateTime now, String commitId,
-                                  Path createFileScriptPath) throws IOException {
+                                  SiteSyncBatch batch) {
         Path p = Paths.get(path);
         List<Path> parts = new LinkedList<>();
         if (nonNull(p.getParent())) {
@@ -453,53 +418,43 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
             for (Path ancestor : parts) {
                 if (isNotEmpty(ancestor.toString())) {
                     currentPath = currentPath + FILE_SEPARATOR + ancestor;
-                    Files.write(createFileScriptPath, insertItemRow(siteId, currentPath, null, NEW.value, null, userId
-                            , now, userId, now, null, ancestor.toString(), null, CONTENT_TYPE_FOLDER, null,
-                            Locale.US.toString(), null, 0L, null, commitId, null).getBytes(UTF_8),
-                            StandardOpenOption.APPEND);
-                    Files.write(createFileScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+                    if (batch.addFolder(currentPath)) {
+                        batch.insertItem(currentPath, null, NEW.value, userId, now, userId, now,
+                                ancestor.toString(), null, CONTENT_TYPE_FOLDER, null, Locale.US.toString(), 0L,
+                                commitId);
+                    }
                 }
             }
         }
     }
 
-    private void addUpdateParentIdScriptSnippets(long siteId, String path, Path updateParentIdScriptPath) throws IOException {
+    private void addParentLinks(String path, SiteSyncBatch batch) {
+        if (batch.hasParentLink(path)) {
+            // the ancestors have been added too
+            return;
+        }
         String parentPath = FilenameUtils.getPrefix(path) +
                 FilenameUtils.getPathNoEndSeparator(StringUtils.replace(path, "/index.xml", ""));
         if (isNotEmpty(parentPath) && !StringUtils.equals(parentPath, path)) {
-            addUpdateParentIdScriptSnippets(siteId, parentPath, updateParentIdScriptPath);
+            addParentLinks(parentPath, batch);
             if (StringUtils.endsWith(path, "/index.xml")) {
-                addUpdateParentIdScriptSnippets(siteId, StringUtils.replace(path,
-                        "/index.xml", ""), updateParentIdScriptPath);
+                addParentLinks(StringUtils.replace(path, "/index.xml", ""), batch);
             }
-            Files.write(updateParentIdScriptPath, updateParentId(siteId, path, parentPath).getBytes(UTF_8),
-                    StandardOpenOption.APPEND);
-            Files.write(updateParentIdScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+            batch.addParentLink(path, parentPath);
         }
     }
 
-    private void addDependenciesScriptSnippets(String siteId, String path, String oldPath, Path file) throws IOException {
-        long startDependencyResolver = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
-        Map<String, Set<String>> dependencies = dependencyServiceInternal.resolveDependencies(siteId, path);
-        if (logger.isDebugEnabled()) {
-            logger.debug("Dependency resolver for site '{}' path '{}' finished in '{}' milliseconds",
-                    siteId, path, (System.currentTimeMillis() - startDependencyResolver));
-        }
+    private void addDependencies(String siteId, String path, String oldPath, Map<String, Set<String>> dependencies,
+                                 SiteSyncBatch batch) {
         if (StringUtils.isEmpty(oldPath)) {
-            Files.write(file, deleteDependencySourcePathRows(siteId, path).getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.APPEND);
-            Files.write(file, "\n\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            batch.deleteDependencies(path);
         } else {
-            Files.write(file, deleteDependencySourcePathRows(siteId, oldPath).getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.APPEND);
-            Files.write(file, "\n\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            batch.deleteDependencies(oldPath);
         }
         if (nonNull(dependencies) && !dependencies.isEmpty()) {
             for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
                 for (String targetPath : entry.getValue()) {
-                    Files.write(file, insertDependencyRow(siteId, path, targetPath, entry.getKey())
-                            .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
-                    Files.write(file, "\n\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                    batch.addDependency(path, targetPath, entry.getKey());
                 }
             }
         }
@@ -995,19 +950,9 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
         }
 
         long startUpdateDBMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
-        StudioDBScriptRunner studioDBScriptRunner = studioDBScriptRunnerFactory.getDBScriptRunner();
-        try {
-            String repoOperationsScriptFilename = "repoOperations_" + UUID.randomUUID();
-            Path repoOperationsScriptPath = Files.createTempFile(repoOperationsScriptFilename, ".sql");
-            String updateParentIdScriptFilename = "updateParentId_" + UUID.randomUUID();
-            Path updateParentIdScriptPath = Files.createTempFile(updateParentIdScriptFilename, ".sql");
-            toReturn = processRepoOperations(site, repoOperationsDelta, repoOperationsScriptPath,
-                    updateParentIdScriptPath);
-            studioDBScriptRunner.execute(repoOperationsScriptPath.toFile());
-            studioDBScriptRunner.execute(updateParentIdScriptPath.toFile());
-        } catch (IOException e) {
-            logger.error("Failed to create the database script for processing the created files in site '{}'", site);
-        }
+        toReturn = processRepoOperations(site, repoOperationsDelta);
+        // The batch updates the dependency table directly
+        dependencyServiceInternal.invalidateDependencies(site);
 
         if (logger.isDebugEnabled()) {
             logger.debug("Database update completed in '{}' milliseconds",
@@ -1053,8 +998,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
         return toReturn;
     }
 
-    private boolean processRepoOperations(String siteId, List<RepoOperation> repoOperations,
-                                          Path repoOperationsScriptPath, Path updateParentIdScriptPath) throws IOException {
+    private boolean processRepoOperations(String siteId, List<RepoOperation> repoOperations) {
         boolean toReturn = true;
         long startProcessRepoOperationMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
         SiteFeed siteFeed;
@@ -1074,242 +1018,109 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
                     siteId,e);
         }
 
-        String label;
-        String contentTypeId;
-        String previewUrl;
-        boolean disabled;
         long state;
         long onStateBitMap;
         long offStateBitmap;
-        for (RepoOperation repoOperation : repoOperations) {
-            switch (repoOperation.getAction()) {
-                case CREATE:
-                case COPY:
-                    if (cachedUsers.containsKey(repoOperation.getAuthor())) {
-                        userObj = cachedUsers.get(repoOperation.getAuthor());
-                    } else {
-                        try {
-                            userObj = userServiceInternal.getUserByIdOrUsername(-1, repoOperation.getAuthor());
-                        } catch (UserNotFoundException | ServiceLayerException e) {
-                            logger.debug("User '{}' not found while processing operations in site '{}'",
-                                    repoOperation.getAuthor(), siteId, e);
-                        }
-                    }
-                    if (Objects.isNull(userObj)) {
-                        userObj = cachedUsers.get(GIT_REPO_USER_USERNAME);
-                    }
-                    label = FilenameUtils.getName(repoOperation.getPath());
-                    contentTypeId = StringUtils.EMPTY;
-                    disabled = false;
-                    if (StringUtils.endsWith(repoOperation.getPath(), XML_PATTERN)) {
-                        try {
-                            Document contentDoc = contentService.getContentAsDocument(siteId, repoOperation.getPath());
-                            if (contentDoc != null) {
-                                Element rootElement = contentDoc.getRootElement();
-                                String internalName = rootElement.valueOf(DOCUMENT_ELM_INTERNAL_TITLE);
-                                if (isNotEmpty(internalName)) {
-                                    label = internalName;
-                                }
-                                contentTypeId = rootElement.valueOf(DOCUMENT_ELM_CONTENT_TYPE);
-                                disabled = Boolean.parseBoolean(rootElement.valueOf(DOCUMENT_ELM_DISABLED));
-                            }
-                        } catch (DocumentException e) {
-                            logger.error("Failed to extract metadata from the XML site '{}' path '{}'",
-                                    siteId, repoOperation.getPath(), e);
-                        }
-                    }
-                    previewUrl = null;
-                    if (StringUtils.startsWith(repoOperation.getPath(), ROOT_PATTERN_PAGES) ||
-                            StringUtils.startsWith(repoOperation.getPath(), ROOT_PATTERN_ASSETS)) {
-                        previewUrl = itemServiceInternal.getBrowserUrl(siteId, repoOperation.getPath());
-                    }
-                    processAncestors(siteFeed.getId(), repoOperation.getPath(), userObj.getId(),
-                            repoOperation.getDateTime(), repoOperation.getCommitId(), repoOperationsScriptPath);
-                    state = NEW.value;
-                    if (disabled) {
-                        state = state | DISABLED.value;
-                    }
-
-                    if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getPath(),
-                                updateParentIdScriptPath);
-                    } else {
-                        Files.write(repoOperationsScriptPath, insertItemRow(siteFeed.getId(),
-                                repoOperation.getPath(), previewUrl, state, null, userObj.getId(),
-                                repoOperation.getDateTime(), userObj.getId(), repoOperation.getDateTime(),
-                                null, label, contentTypeId,
-                                contentService.getContentTypeClass(siteId, repoOperation.getPath()),
-                                StudioUtils.getMimeType(FilenameUtils.getName(repoOperation.getPath())),
-                                Locale.US.toString(), null,
-                                contentRepositoryV2.getContentSize(siteId, repoOperation.getPath()), null,
-                                repoOperation.getCommitId(), null).getBytes(UTF_8), StandardOpenOption.APPEND);
-                        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                        logger.debug("Extract dependencies from site '{}' path '{}'",
-                                siteId, repoOperation.getPath());
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getPath(),
-                                updateParentIdScriptPath);
-                        addDependenciesScriptSnippets(siteId, repoOperation.getPath(), null,
-                                repoOperationsScriptPath);
-                    }
-                    break;
-
-                case UPDATE:
-                    if (!ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
-                        if (cachedUsers.containsKey(repoOperation.getAuthor())) {
-                            userObj = cachedUsers.get(repoOperation.getAuthor());
+        List<String> metadataPaths = repoOperations.stream().map(this::getMetadataPath).collect(toList());
+        SiteSyncBatch batch = new SiteSyncBatch(studioDBScriptRunnerFactory.getDBBatchWriter(), siteId,
+                siteFeed.getId(), repoOperations.size());
+        try (batch; ItemMetadataExtractor extractor = createMetadataExtractor(siteId, metadataPaths)) {
+            for (RepoOperation repoOperation : repoOperations) {
+                ItemMetadata metadata = extractor.next();
+                switch (repoOperation.getAction()) {
+                    case CREATE:
+                    case COPY:
+                        userObj = getOperationAuthor(siteId, repoOperation, cachedUsers);
+                        processAncestors(siteFeed.getId(), repoOperation.getPath(), userObj.getId(),
+                                repoOperation.getDateTime(), repoOperation.getCommitId(), batch);
+
+                        if (metadata == null) {
+                            addParentLinks(repoOperation.getPath(), batch);
                         } else {
-                            try {
-                                userObj = userServiceInternal.getUserByIdOrUsername(-1, repoOperation.getAuthor());
-                            } catch (UserNotFoundException | ServiceLayerException e) {
-                                logger.debug("User '{}' not found while processing operations in site '{}'",
-                                        repoOperation.getAuthor(), siteId, e);
+                            state = NEW.value;
+                            if (metadata.isDisabled()) {
+                                state = state | DISABLED.value;
                             }
+                            batch.insertItem(repoOperation.getPath(), metadata.getPreviewUrl(), state,
+                                    userObj.getId(), repoOperation.getDateTime(), userObj.getId(),
+                                    repoOperation.getDateTime(), metadata.getLabel(), metadata.getContentTypeId(),
+                                    metadata.getSystemType(), metadata.getMimeType(), Locale.US.toString(),
+                                    metadata.getSize(), repoOperation.getCommitId());
+                            addParentLinks(repoOperation.getPath(), batch);
+                            addDependencies(siteId, repoOperation.getPath(), null, metadata.getDependencies(),
+                                    batch);
                         }
-                        if (Objects.isNull(userObj)) {
-                            userObj = cachedUsers.get(GIT_REPO_USER_USERNAME);
-                        }
-                        label = FilenameUtils.getName(repoOperation.getPath());
-                        contentTypeId = StringUtils.EMPTY;
-                        disabled = false;
-                        if (StringUtils.endsWith(repoOperation.getPath(), XML_PATTERN)) {
-                            try {
-                                Document contentDoc = contentService.getContentAsDocument(siteId, repoOperation.getPath());
-                                if (contentDoc != null) {
-                                    Element rootElement = contentDoc.getRootElement();
-                                    String internalName = rootElement.valueOf(DOCUMENT_ELM_INTERNAL_TITLE);
-                                    if (isNotEmpty(internalName)) {
-                                        label = internalName;
-                                    }
-                                    contentTypeId = rootElement.valueOf(DOCUMENT_ELM_CONTENT_TYPE);
-                                    disabled = Boolean.parseBoolean(rootElement.valueOf(DOCUMENT_ELM_DISABLED));
-                                }
-                            } catch (DocumentException e) {
-                                logger.error("Failed to extract metadata from the XML site '{}' path '{}'",
-                                        siteId, repoOperation.getPath(), e);
+                        break;
+
+                    case UPDATE:
+                        if (metadata != null) {
+                            userObj = getOperationAuthor(siteId, repoOperation, cachedUsers);
+                            onStateBitMap = SAVE_AND_CLOSE_ON_MASK;
+                            offStateBitmap = SAVE_AND_CLOSE_OFF_MASK;
+                            if (metadata.isDisabled()) {
+                                onStateBitMap = onStateBitMap | DISABLED.value;
+                            } else {
+                                offStateBitmap = offStateBitmap | DISABLED.value;
                             }
+
+                            batch.updateItem(repoOperation.getPath(), metadata.getPreviewUrl(), onStateBitMap,
+                                    offStateBitmap, userObj.getId(), repoOperation.getDateTime(), metadata.getLabel(),
+                                    metadata.getContentTypeId(), metadata.getSystemType(), metadata.getMimeType(),
+                                    metadata.getSize(), repoOperation.getCommitId());
+                            addDependencies(siteId, repoOperation.getPath(), null, metadata.getDependencies(),
+                                    batch);
                         }
-                        previewUrl = null;
-                        if (StringUtils.startsWith(repoOperation.getPath(), ROOT_PATTERN_PAGES) ||
-                                StringUtils.startsWith(repoOperation.getPath(), ROOT_PATTERN_ASSETS)) {
-                            previewUrl = itemServiceInternal.getBrowserUrl(siteId, repoOperation.getPath());
+                        break;
+                    case DELETE:
+                        batch.deleteItem(repoOperation.getPath());
+                        String folder = FILE_SEPARATOR + FilenameUtils.getPathNoEndSeparator(repoOperation.getPath());
+                        if (!contentRepositoryV2.contentExists(siteId, folder)) {
+                            batch.deleteItem(folder);
+                            batch.removeFolder(folder);
                         }
-                        onStateBitMap = SAVE_AND_CLOSE_ON_MASK;
-                        offStateBitmap = SAVE_AND_CLOSE_OFF_MASK;
-                        if (disabled) {
-                            onStateBitMap = onStateBitMap | DISABLED.value;
+                        batch.deleteAllDependencies(repoOperation.getPath());
+                        break;
+
+                    case MOVE:
+                        userObj = getOperationAuthor(siteId, repoOperation, cachedUsers);
+                        processAncestors(siteFeed.getId(), repoOperation.getMoveToPath(), userObj.getId(),
+                                repoOperation.getDateTime(), repoOperation.getCommitId(), batch);
+                        if (metadata == null) {
+                            addParentLinks(repoOperation.getMoveToPath(), batch);
                         } else {
-                            offStateBitmap = offStateBitmap | DISABLED.value;
-                        }
-
-                        Files.write(repoOperationsScriptPath, updateItemRow(siteFeed.getId(),
-                                repoOperation.getPath(), previewUrl, onStateBitMap, offStateBitmap, userObj.getId(),
-                                repoOperation.getDateTime(), label, contentTypeId,
-                                contentService.getContentTypeClass(siteId, repoOperation.getPath()),
-                                StudioUtils.getMimeType(FilenameUtils.getName(repoOperation.getPath())),
-                                contentRepositoryV2.getContentSize(siteId, repoOperation.getPath()),
-                                repoOperation.getCommitId()).getBytes(UTF_8), StandardOpenOption.APPEND);
-                        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                        logger.debug("Extract dependencies from site '{}' path '{}'",
-                                siteId, repoOperation.getPath());
-                        addDependenciesScriptSnippets(siteId, repoOperation.getPath(), null, repoOperationsScriptPath);
-                    }
-                    break;
-                case DELETE:
-                    Files.write(repoOperationsScriptPath,
-                            deleteItemRow(siteFeed.getId(), repoOperation.getPath()).getBytes(UTF_8),
-                            StandardOpenOption.APPEND);
-                    String folder = FILE_SEPARATOR + FilenameUtils.getPathNoEndSeparator(repoOperation.getPath());
-                    if (!contentRepositoryV2.contentExists(siteId, folder)) {
-                        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                        Files.write(repoOperationsScriptPath,
-                                deleteItemRow(siteFeed.getId(), folder).getBytes(UTF_8), StandardOpenOption.APPEND);
-                    }
-                    Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                    Files.write(repoOperationsScriptPath,
-                            deleteDependencyRows(siteId, repoOperation.getPath()).getBytes(UTF_8),
-                            StandardOpenOption.APPEND);
-                    Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                    break;
-
-                case MOVE:
-                    if (cachedUsers.containsKey(repoOperation.getAuthor())) {
-                        userObj = cachedUsers.get(repoOperation.getAuthor());
-                    } else {
-                        try {
-                            userObj = userServiceInternal.getUserByIdOrUsername(-1, repoOperation.getAuthor());
-                        } catch (UserNotFoundException | ServiceLayerException e) {
-                            logger.debug("User '{}' not found while processing operations in site '{}'",
-                                    repoOperation.getAuthor(), siteId, e);
-                        }
-                    }
-                    if (Objects.isNull(userObj)) {
-                        userObj = cachedUsers.get(GIT_REPO_USER_USERNAME);
-                    }
-                    label = FilenameUtils.getName(repoOperation.getMoveToPath());
-                    contentTypeId = StringUtils.EMPTY;
-                    disabled = false;
-                    if (StringUtils.endsWith(repoOperation.getMoveToPath(), XML_PATTERN)) {
-                        try {
-                            Document contentDoc = contentService.getContentAsDocument(siteId, repoOperation.getMoveToPath());
-                            if (contentDoc != null) {
-                                Element rootElement = contentDoc.getRootElement();
-                                String internalName = rootElement.valueOf(DOCUMENT_ELM_INTERNAL_TITLE);
-                                if (isNotEmpty(internalName)) {
-                                    label = internalName;
-                                }
-                                contentTypeId = rootElement.valueOf(DOCUMENT_ELM_CONTENT_TYPE);
-                                disabled = Boolean.parseBoolean(rootElement.valueOf(DOCUMENT_ELM_DISABLED));
+                            onStateBitMap = SAVE_AND_CLOSE_ON_MASK;
+                            offStateBitmap = SAVE_AND_CLOSE_OFF_MASK;
+                            if (metadata.isDisabled()) {
+                                onStateBitMap = onStateBitMap | DISABLED.value;
+                            } else {
+                                offStateBitmap = offStateBitmap | DISABLED.value;
                             }
-                        } catch (DocumentException e) {
-                            logger.error("Failed to extact metadata from the XML site '{}' path '{}'",
-                                    siteId, repoOperation.getMoveToPath(), e);
+                            batch.moveItem(repoOperation.getPath(), repoOperation.getMoveToPath(), onStateBitMap,
+                                    offStateBitmap);
+                            batch.updateItem(repoOperation.getPath(), metadata.getPreviewUrl(), onStateBitMap,
+                                    offStateBitmap, userObj.getId(), repoOperation.getDateTime(), metadata.getLabel(),
+                                    metadata.getContentTypeId(), metadata.getSystemType(), metadata.getMimeType(),
+                                    metadata.getSize(), repoOperation.getCommitId());
+                            addParentLinks(repoOperation.getMoveToPath(), batch);
+                            addDependencies(siteId, repoOperation.getMoveToPath(),
+                                    repoOperation.getPath(), metadata.getDependencies(), batch);
                         }
-                    }
-                    previewUrl = null;
-                    if (StringUtils.startsWith(repoOperation.getMoveToPath(), ROOT_PATTERN_PAGES) ||
-                            StringUtils.startsWith(repoOperation.getMoveToPath(), ROOT_PATTERN_ASSETS)) {
-                        previewUrl = itemServiceInternal.getBrowserUrl(siteId, repoOperation.getMoveToPath());
-                    }
-                    processAncestors(siteFeed.getId(), repoOperation.getMoveToPath(), userObj.getId(),
-                            repoOperation.getDateTime(), repoOperation.getCommitId(), repoOperationsScriptPath);
-                    onStateBitMap = SAVE_AND_CLOSE_ON_MASK;
-                    offStateBitmap = SAVE_AND_CLOSE_OFF_MASK;
-                    if (disabled) {
-                        onStateBitMap = onStateBitMap | DISABLED.value;
-                    } else {
-                        offStateBitmap = offStateBitmap | DISABLED.value;
-                    }
-                    if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath())) ||
-                            ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getMoveToPath()))) {
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getMoveToPath(),
-                                updateParentIdScriptPath);
-                    } else {
-                        Files.write(repoOperationsScriptPath, moveItemRow(siteId, repoOperation.getPath(),
-                                repoOperation.getMoveToPath(), onStateBitMap, offStateBitmap).getBytes(UTF_8),
-                                StandardOpenOption.APPEND);
-                        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                        Files.write(repoOperationsScriptPath, updateItemRow(siteFeed.getId(),
-                                repoOperation.getPath(), previewUrl, onStateBitMap, offStateBitmap, userObj.getId(),
-                                repoOperation.getDateTime(), label, contentTypeId,
-                                contentService.getContentTypeClass(siteId, repoOperation.getPath()),
-                                StudioUtils.getMimeType(FilenameUtils.getName(repoOperation.getPath())),
-                                contentRepositoryV2.getContentSize(siteId, repoOperation.getPath()),
-                                repoOperation.getCommitId()).getBytes(UTF_8), StandardOpenOption.APPEND);
-                        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getMoveToPath(), updateParentIdScriptPath);
-                        addDependenciesScriptSnippets(siteId, repoOperation.getMoveToPath(),
-                                repoOperation.getPath(), repoOperationsScriptPath);
-                    }
-                    invalidateConfigurationCacheIfRequired(siteId, repoOperation.getMoveToPath());
-                    break;
-
-                default:
-                    logger.error("Failed to process unknown repo operation '{}' in site '{}'",
-                            siteId, repoOperation.getAction());
-                    toReturn = false;
-                    break;
+                        invalidateConfigurationCacheIfRequired(siteId, repoOperation.getMoveToPath());
+                        break;
+
+                    default:
+                        logger.error("Failed to process unknown repo operation '{}' in site '{}'",
+                                siteId, repoOperation.getAction());
+                        toReturn = false;
+                        break;
+                }
+                batch.operationProcessed();
+                invalidateConfigurationCacheIfRequired(siteId, repoOperation.getPath());
             }
-            invalidateConfigurationCacheIfRequired(siteId, repoOperation.getPath());
+            batch.commit();
+        }
+        if (batch.isFailed()) {
+            toReturn = false;
         }
         if (logger.isDebugEnabled()) {
             logger.debug("Completed processing repo operations in site '{}'. Processing finished in '{}' milliseconds",
@@ -1318,6 +1129,46 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
         return toReturn;
     }
 
+    /**
+     * Returns the path that needs metadata extracted for the given operation, or null if none is needed
+     */
+    private String getMetadataPath(RepoOperation repoOperation) {
+        boolean ignored = ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()));
+        switch (repoOperation.getAction()) {
+            case CREATE:
+            case COPY:
+            case UPDATE:
+                return ignored ? null : repoOperation.getPath();
+            case MOVE:
+                return ignored || ArrayUtils.contains(IGNORE_FILES,
+                        FilenameUtils.getName(repoOperation.getMoveToPath())) ? null : repoOperation.getMoveToPath();
+            default:
+                return null;
+        }
+    }
+
+    private User getOperationAuthor(String siteId, RepoOperation repoOperation, Map<String, User> cachedUsers) {
+        User userObj = cachedUsers.get(repoOperation.getAuthor());
+        if (Objects.isNull(userObj)) {
+            try {
+                userObj = userServiceInternal.getUserByIdOrUsername(-1, repoOperation.getAuthor());
+                cachedUsers.put(repoOperation.getAuthor(), userObj);
+            } catch (UserNotFoundException | ServiceLayerException e) {
+                logger.debug("User '{}' not found while processing operations in site '{}'",
+                        repoOperation.getAuthor(), siteId, e);
+            }
+        }
+        if (Objects.isNull(userObj)) {
+            userObj = cachedUsers.get(GIT_REPO_USER_USERNAME);
+        }
+        return userObj;
+    }
+
+    protected ItemMetadataExtractor createMetadataExtractor(String siteId, List<String> paths) {
+        return new ItemMetadataExtractor(siteId, paths, metadataExtractionWindowSize, metadataExtractionExecutor,
+                contentService, contentRepositoryV2, itemServiceInternal, dependencyServiceInternal);
+    }
+
     protected void invalidateConfigurationCacheIfRequired(String siteId, String path) {
         if (RegexUtils.matchesAny(path, configurationPatterns)) {
             configurationService.invalidateConfiguration(siteId, path);
@@ -1677,6 +1528,14 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
         this.studioDBScriptRunnerFactory = studioDBScriptRunner;
     }
 
+    public void setMetadataExtractionExecutor(AsyncTaskExecutor metadataExtractionExecutor) {
+        this.metadataExtractionExecutor = metadataExtractionExecutor;
+    }
+
+    public void setMetadataExtractionWindowSize(int metadataExtractionWindowSize) {
+        this.metadataExtractionWindowSize = metadataExtractionWindowSize;
+    }
+
     public void setDependencyServiceInternal(DependencyServiceInternal dependencyServiceInternal) {
         this.dependencyServiceInternal = dependencyServiceInternal;
     }
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.site;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v2.dal.StudioDBBatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.craftercms.studio.api.v2.utils.PathRegexUtils.getDescendantsLikePattern;
+import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
+
+/**
+ * Collects the database changes needed to sync the item and dependency tables of a site with its repository. All
+ * changes are done in a single transaction that is only committed by {@link #commit()}, if the sync fails or the
+ * batch is closed without committing the database is left untouched.
+ *
+ * <p>Item statements are executed in batches as they are added. Dependencies are kept in memory and written once all
+ * the operations are processed: the deletes are applied to the pending inserts right away and to the existing rows
+ * at the end, so all the deletes and all the inserts can be sent in their own batches. Parent links are executed at
+ * the end because they need all the items to exist. Ancestor folders and parent links are only added once no matter
+ * how many operations include them.</p>
+ *
+ * @since 4.1.0
+ */
+public class SiteSyncBatch implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteSyncBatch.class);
+
+    protected static final int PROGRESS_INTERVAL = 1000;
+
+    protected static final String ITEM_INSERT =
+            "INSERT INTO item (site_id, path, preview_url, state, locked_by, created_by, created_on, last_modified_by," +
+                    " last_modified_on, last_published_on, label, content_type_id, system_type, mime_type," +
+                    " locale_code, translation_source_id, size, parent_id, commit_id, previous_path, ignored)" +
+                    " VALUES (?, ?, ?, ?, NULL, ?, ?, ?, ?, NULL, ?, ?, ?, ?, ?, NULL, ?, NULL, ?, NULL, ?)" +
+                    " ON DUPLICATE KEY UPDATE site_id = VALUES(site_id), path = VALUES(path)," +
+                    " preview_url = VALUES(preview_url), state = VALUES(state), locked_by = VALUES(locked_by)," +
+                    " last_modified_by = VALUES(last_modified_by), last_modified_on = VALUES(last_modified_on)," +
+                    " last_published_on = VALUES(last_published_on), label = VALUES(label)," +
+                    " content_type_id = VALUES(content_type_id), system_type = VALUES(system_type)," +
+                    " mime_type = VALUES(mime_type), locale_code = VALUES(locale_code)," +
+                    " translation_source_id = VALUES(translation_source_id), size = VALUES(size)," +
+                    " parent_id = VALUES(parent_id), commit_id = VALUES(commit_id)," +
+                    " previous_path = VALUES(previous_path), ignored = VALUES(ignored)";
+
+    protected static final String ITEM_UPDATE =
+            "UPDATE item SET preview_url = ?, state = (state | ?) & ~?, last_modified_by = ?, last_modified_on = ?," +
+                    " label = ?, content_type_id = ?, system_type = ?, mime_type = ?, size = ?, commit_id = ?," +
+                    " ignored = ? WHERE site_id = ? AND path = ?";
+
+    protected static final String ITEM_DELETE = "DELETE FROM item WHERE site_id = ? AND path = ?";
+
+    protected static final String ITEM_MOVE =
+            "UPDATE item SET path = REPLACE(path, ?, ?), state = (state | ?) & ~?" +
+                    " WHERE site_id = ? AND (path = ? OR path LIKE ?)";
+
+    protected static final String ITEM_UPDATE_PARENT_ID =
+            "UPDATE item SET parent_id = (SELECT parent.id FROM (SELECT id, path FROM item WHERE site_id = ?" +
+                    " AND (path = ? OR path = ?) ORDER BY path DESC LIMIT 1) AS parent)" +
+                    " WHERE site_id = ? AND path = ?";
+
+    protected static final String DEPENDENCY_INSERT =
+            "INSERT INTO dependency (site, source_path, target_path, type) VALUES (?, ?, ?, ?)";
+
+    protected static final String DEPENDENCY_DELETE_SOURCE =
+            "DELETE FROM dependency WHERE site = ? AND source_path = ?";
+
+    protected static final String DEPENDENCY_DELETE =
+            "DELETE FROM dependency WHERE site = ? AND (source_path = ? OR target_path = ?)";
+
+    protected final StudioDBBatchWriter writer;
+    protected final String siteId;
+    protected final long siteFeedId;
+    protected final int totalOperations;
+    protected final long startMark = System.currentTimeMillis();
+
+    protected final Set<String> folders = new HashSet<>();
+    protected final Map<String, String> parentLinks = new LinkedHashMap<>();
+    protected final Set<String> deletedDependencySources = new LinkedHashSet<>();
+    protected final Set<String> deletedDependencyPaths = new LinkedHashSet<>();
+    protected final Map<String, List<Dependency>> pendingDependencies = new LinkedHashMap<>();
+    protected int processedOperations = 0;
+
+    public SiteSyncBatch(StudioDBBatchWriter writer, String siteId, long siteFeedId, int totalOperations) {
+        this.writer = writer;
+        this.siteId = siteId;
+        this.siteFeedId = siteFeedId;
+        this.totalOperations = totalOperations;
+    }
+
+    /**
+     * Registers an ancestor folder
+     * @param path the path of the folder
+     * @return true if the folder row still needs to be added
+     */
+    public boolean addFolder(String path) {
+        return folders.add(path);
+    }
+
+    /**
+     * Forgets an ancestor folder after its row has been deleted, so it can be added again by later operations
+     * @param path the path of the folder
+     */
+    public void removeFolder(String path) {
+        folders.remove(path);
+    }
+
+    public boolean hasParentLink(String path) {
+        return parentLinks.containsKey(path);
+    }
+
+    /**
+     * Registers the update of the parent id of an item
+     * @param path the path of the item
+     * @param parentPath the path of the parent folder
+     */
+    public void addParentLink(String path, String parentPath) {
+        parentLinks.putIfAbsent(path, parentPath);
+    }
+
+    public void insertItem(String path, String previewUrl, long state, Long createdBy, ZonedDateTime createdOn,
+                           Long lastModifiedBy, ZonedDateTime lastModifiedOn, String label, String contentTypeId,
+                           String systemType, String mimeType, String localeCode, Long size, String commitId) {
+        writer.addStatement(ITEM_INSERT, siteFeedId, path, StringUtils.defaultIfEmpty(previewUrl, null), state,
+                createdBy, toTimestamp(createdOn), lastModifiedBy, toTimestamp(lastModifiedOn), label,
+                StringUtils.defaultIfEmpty(contentTypeId, null), systemType,
+                StringUtils.defaultIfEmpty(mimeType, null), localeCode, size, commitId, getIgnoredAsInt(path));
+    }
+
+    public void updateItem(String path, String previewUrl, long onStatesBitMap, long offStatesBitMap,
+                           Long lastModifiedBy, ZonedDateTime lastModifiedOn, String label, String contentTypeId,
+                           String systemType, String mimeType, Long size, String commitId) {
+        writer.addStatement(ITEM_UPDATE, StringUtils.defaultIfEmpty(previewUrl, null), onStatesBitMap,
+                offStatesBitMap, lastModifiedBy, toTimestamp(lastModifiedOn), label,
+                StringUtils.defaultIfEmpty(contentTypeId, null), systemType,
+                StringUtils.defaultIfEmpty(mimeType, null), size, commitId, getIgnoredAsInt(path), siteFeedId, path);
+    }
+
+    public void deleteItem(String path) {
+        writer.addStatement(ITEM_DELETE, siteFeedId, path);
+    }
+
+    public void moveItem(String oldPath, String newPath, long onStatesBitMap, long offStatesBitMap) {
+        writer.addStatement(ITEM_MOVE, oldPath, newPath, onStatesBitMap, offStatesBitMap, siteFeedId, oldPath,
+                getDescendantsLikePattern(oldPath));
+    }
+
+    /**
+     * Deletes the dependencies that have the given path as source
+     */
+    public void deleteDependencies(String sourcePath) {
+        pendingDependencies.remove(sourcePath);
+        deletedDependencySources.add(sourcePath);
+    }
+
+    /**
+     * Deletes the dependencies that have the given path as source or target
+     */
+    public void deleteAllDependencies(String path) {
+        pendingDependencies.remove(path);
+        pendingDependencies.values().forEach(dependencies ->
+                dependencies.removeIf(dependency -> dependency.targetPath.equals(path)));
+        deletedDependencyPaths.add(path);
+    }
+
+    public void addDependency(String sourcePath, String targetPath, String type) {
+        pendingDependencies.computeIfAbsent(sourcePath, path -> new ArrayList<>())
+                .add(new Dependency(targetPath, type));
+    }
+
+    public void operationProcessed() {
+        if (++processedOperations % PROGRESS_INTERVAL == 0) {
+            logger.info("Processed '{}' of '{}' repo operations in site '{}' ({} operations/s)",
+                    processedOperations, totalOperations, siteId, getRate(processedOperations));
+        }
+    }
+
+    public boolean isFailed() {
+        return writer.isFailed();
+    }
+
+    /**
+     * Writes the dependencies and parent links and commits all the changes
+     */
+    public void commit() {
+        // the pending dependencies are not affected by the deletes, they were already applied to them
+        deletedDependencySources.forEach(path -> writer.addStatement(DEPENDENCY_DELETE_SOURCE, siteId, path));
+        deletedDependencyPaths.forEach(path -> writer.addStatement(DEPENDENCY_DELETE, siteId, path, path));
+        pendingDependencies.forEach((sourcePath, dependencies) -> dependencies.forEach(dependency ->
+                writer.addStatement(DEPENDENCY_INSERT, siteId, sourcePath, dependency.targetPath, dependency.type)));
+        parentLinks.forEach((path, parentPath) -> writer.addStatement(ITEM_UPDATE_PARENT_ID, siteFeedId,
+                parentPath + "/index.xml", parentPath, siteFeedId, path));
+        writer.commit();
+        logger.info("Synced '{}' repo operations to the database in site '{}' using '{}' statements in '{}' " +
+                        "milliseconds ({} statements/s)", processedOperations, siteId, writer.getExecutedCount(),
+                System.currentTimeMillis() - startMark, getRate(writer.getExecutedCount()));
+    }
+
+    /**
+     * Releases the connection, any change that was not committed is discarded
+     */
+    @Override
+    public void close() {
+        writer.close();
+    }
+
+    protected long getRate(long count) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - startMark);
+        return count * 1000 / elapsed;
+    }
+
+    protected static Timestamp toTimestamp(ZonedDateTime dateTime) {
+        return Objects.isNull(dateTime) ? null : new Timestamp(dateTime.toInstant().toEpochMilli());
+    }
+
+    protected static int getIgnoredAsInt(String path) {
+        return ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(path)) ? 1 : 0;
+    }
+
+    protected static class Dependency {
+
+        protected final String targetPath;
+        protected final String type;
+
+        protected Dependency(String targetPath, String type) {
+            this.targetPath = targetPath;
+            this.type = type;
+        }
+
+    }
+
+}
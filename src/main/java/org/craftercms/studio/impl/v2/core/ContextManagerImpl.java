@@ -15,60 +15,410 @@
  */
 package org.craftercms.studio.impl.v2.core;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.commons.lang3.StringUtils;
 import org.craftercms.core.service.ContentStoreService;
 import org.craftercms.core.service.Context;
+import org.craftercms.core.service.Item;
 import org.craftercms.studio.api.v2.core.ContextManager;
+import org.craftercms.studio.api.v2.event.content.ContentEvent;
+import org.craftercms.studio.api.v2.event.content.MoveContentEvent;
+import org.craftercms.studio.api.v2.event.site.SiteDeleteEvent;
+import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 
 import java.beans.ConstructorProperties;
+import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import static org.craftercms.core.store.impl.filesystem.FileSystemContentStoreAdapter.STORE_TYPE;
+import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_BASE_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SANDBOX_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITES_REPOS_PATH;
+import static org.eclipse.jgit.lib.Constants.HEAD;
 
 /**
  * Default implementation of {@link ContextManager}
  *
+ * <p>The contexts are created without the Crafter Core cache because its entries can't be invalidated by path.
+ * Instead, items are cached in a single bounded cache shared by all sites that follows the last commit of the sandbox
+ * repository of each site: when the commit changes only the paths in the delta between both commits, their
+ * descendants and their ancestors are removed. Content events from Studio remove the affected paths right away, even
+ * if they have not been committed yet. Cached items are shared, so callers always get a copy.</p>
+ *
  * @author joseross
  * @since 4.0.0
  */
 public class ContextManagerImpl implements ContextManager {
 
+    private static final Logger logger = LoggerFactory.getLogger(ContextManagerImpl.class);
+
     public static final String TAG = ContextManagerImpl.class.getName();
 
+    /**
+     * Suffix of the level descriptors, changes in them affect the merged descriptors of the whole folder
+     */
+    public static final String LEVEL_DESCRIPTOR_SUFFIX = ".level.xml";
+
     protected StudioConfiguration studioConfiguration;
     protected ContentStoreService contentStoreService;
+    protected GitRepositoryHelper gitRepositoryHelper;
+    protected String blobFileExtension;
+    protected boolean cacheEnabled;
+    protected String cacheConfig = "maximumSize=1000";
 
     protected Map<String, Context> contexts = new ConcurrentHashMap<>();
 
+    protected final Map<String, SiteCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Entries of all sites, so the configured bound applies to the whole cache
+     */
+    protected volatile Cache<CacheKey, Object> entries;
+
     @ConstructorProperties({"studioConfiguration", "contentStoreService"})
     public ContextManagerImpl(StudioConfiguration studioConfiguration, ContentStoreService contentStoreService) {
         this.studioConfiguration = studioConfiguration;
         this.contentStoreService = contentStoreService;
     }
 
+    public void setGitRepositoryHelper(GitRepositoryHelper gitRepositoryHelper) {
+        this.gitRepositoryHelper = gitRepositoryHelper;
+    }
+
+    public void setBlobFileExtension(String blobFileExtension) {
+        this.blobFileExtension = blobFileExtension;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public void setCacheConfig(String cacheConfig) {
+        this.cacheConfig = cacheConfig;
+    }
+
     @Override
     public Context getContext(String siteId) {
-        if (!contexts.containsKey(siteId)) {
-            var rootFolder =  "file://" + Paths.get(studioConfiguration.getProperty(REPO_BASE_PATH),
-                    studioConfiguration.getProperty(SITES_REPOS_PATH), siteId,
-                    studioConfiguration.getProperty(SANDBOX_PATH))
-                    .toAbsolutePath().toString();
-            contexts.put(siteId, contentStoreService.getContext(TAG, STORE_TYPE, rootFolder, true, false, 0, true));
-        }
-        return contexts.get(siteId);
+        // the context needs to be created only once, otherwise the extra ones are never destroyed
+        return contexts.computeIfAbsent(siteId, this::createContext);
+    }
+
+    protected Context createContext(String siteId) {
+        var rootFolder =  "file://" + Paths.get(studioConfiguration.getProperty(REPO_BASE_PATH),
+                studioConfiguration.getProperty(SITES_REPOS_PATH), siteId,
+                studioConfiguration.getProperty(SANDBOX_PATH))
+                .toAbsolutePath().toString();
+        return contentStoreService.getContext(TAG, STORE_TYPE, rootFolder, true, false, 0, true);
     }
 
     @Override
     public void destroyContext(String siteId) {
+        removeCache(siteId);
         var context = contexts.remove(siteId);
         if (context != null) {
             contentStoreService.destroyContext(context);
         }
     }
 
+    @Override
+    public Item getItem(String siteId, String path, boolean flatten) {
+        var context = getContext(siteId);
+        Item item = getCached(siteId, new CacheKey(siteId, path, flatten? CacheKey.FLATTENED_ITEM : CacheKey.ITEM),
+                () -> contentStoreService.getItem(context, null, path, null, flatten));
+        // callers can modify the item or its descriptor, that should not affect the cached one
+        return cacheEnabled && item != null? new Item(item, true) : item;
+    }
+
+    @Override
+    public boolean exists(String siteId, String path) {
+        var context = getContext(siteId);
+        return getCached(siteId, new CacheKey(siteId, path, CacheKey.EXISTS),
+                () -> contentStoreService.exists(context, path));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T getCached(String siteId, CacheKey key, Supplier<T> loader) {
+        SiteCache cache = cacheEnabled? getCache(siteId) : null;
+        if (cache == null) {
+            return loader.get();
+        }
+        Cache<CacheKey, Object> entries = getEntries();
+        Object value = entries.getIfPresent(key);
+        if (value == null) {
+            long version = cache.version.get();
+            value = loader.get();
+            if (value != null) {
+                entries.put(key, value);
+                // an invalidation may have happened while loading, in that case the value could be stale
+                if (cache.version.get() != version) {
+                    entries.invalidate(key);
+                }
+            }
+        }
+        return (T) value;
+    }
+
+    /**
+     * Returns the cache of the site, first removing all the paths that changed since the last known commit
+     * @return the cache or null if the last commit of the sandbox repository can't be found or if another thread is
+     * updating the cache
+     */
+    protected SiteCache getCache(String siteId) {
+        String commitId = getLastCommitId(siteId);
+        if (commitId == null) {
+            return null;
+        }
+        SiteCache cache = caches.computeIfAbsent(siteId, id -> new SiteCache(id, commitId));
+        if (!commitId.equals(cache.commitId)) {
+            // only one thread calculates the delta, the others read from the store until it's done
+            if (!cache.updateLock.tryLock()) {
+                return null;
+            }
+            try {
+                updateCache(siteId, cache);
+            } finally {
+                cache.updateLock.unlock();
+            }
+        }
+        return cache;
+    }
+
+    protected Cache<CacheKey, Object> getEntries() {
+        if (entries == null) {
+            synchronized (this) {
+                if (entries == null) {
+                    entries = CacheBuilder.from(cacheConfig).recordStats().build();
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Removes the cache of the site and all its entries
+     */
+    protected void removeCache(String siteId) {
+        SiteCache cache = caches.remove(siteId);
+        if (cache != null) {
+            invalidateAll(cache);
+        }
+    }
+
+    /**
+     * Removes from the cache all the paths that changed between the last known commit and the current one, if the
+     * delta can't be calculated the whole cache is cleared
+     */
+    protected void updateCache(String siteId, SiteCache cache) {
+        String previousCommitId = cache.commitId;
+        // the commit could have changed again while waiting
+        String commitId = getLastCommitId(siteId);
+        if (commitId == null || commitId.equals(previousCommitId)) {
+            return;
+        }
+        try {
+            Set<String> paths = getChangedPaths(siteId, previousCommitId, commitId);
+            invalidate(cache, paths);
+            CacheStats stats = getEntries().stats();
+            logger.debug("Updated the content store cache for site '{}' from commit '{}' to '{}', " +
+                            "'{}' paths changed, hits '{}' misses '{}' evictions '{}' size '{}'",
+                    siteId, previousCommitId, commitId, paths.size(), stats.hitCount(),
+                    stats.missCount(), stats.evictionCount(), getEntries().size());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to get the changes in site '{}' from commit '{}' to '{}', the whole content store " +
+                    "cache will be cleared", siteId, previousCommitId, commitId, e);
+            invalidateAll(cache);
+        }
+        // the cache has no entries older than the commit at this point
+        cache.commitId = commitId;
+    }
+
+    /**
+     * Returns the paths changed between both commits, the repository is only read so no lock is needed
+     */
+    protected Set<String> getChangedPaths(String siteId, String fromCommitId, String toCommitId) throws IOException {
+        Repository repository = gitRepositoryHelper.getRepository(siteId, SANDBOX);
+        if (repository == null) {
+            throw new IOException("Sandbox repository not found for site " + siteId);
+        }
+        Set<String> paths = new HashSet<>();
+        try (RevWalk revWalk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(revWalk.parseCommit(ObjectId.fromString(fromCommitId)).getTree());
+            treeWalk.addTree(revWalk.parseCommit(ObjectId.fromString(toCommitId)).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            while (treeWalk.next()) {
+                // renames are reported as a delete and an add, so both paths are included
+                String path = "/" + treeWalk.getPathString();
+                paths.add(path);
+                if (StringUtils.isNotEmpty(blobFileExtension)) {
+                    // blob pointers change the item of the original path
+                    paths.add(StringUtils.removeEnd(path, "." + blobFileExtension));
+                }
+            }
+        }
+        return paths;
+    }
+
+    protected String getLastCommitId(String siteId) {
+        try {
+            Repository repository = gitRepositoryHelper.getRepository(siteId, SANDBOX);
+            if (repository != null) {
+                ObjectId head = repository.resolve(HEAD);
+                return head != null? head.getName() : null;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to get the last commit of site '{}', the content store cache will not be used",
+                    siteId, e);
+        }
+        return null;
+    }
+
+    /**
+     * Removes all the entries of the site from the cache
+     */
+    protected void invalidateAll(SiteCache cache) {
+        cache.version.incrementAndGet();
+        getEntries().asMap().keySet().removeIf(key -> key.siteId.equals(cache.siteId));
+    }
+
+    /**
+     * Removes the given paths, their descendants, their ancestors and all flattened items of the site from the cache
+     */
+    protected void invalidate(SiteCache cache, Collection<String> paths) {
+        cache.version.incrementAndGet();
+        if (paths.isEmpty()) {
+            return;
+        }
+        if (paths.stream().anyMatch(StringUtils::isEmpty)) {
+            invalidateAll(cache);
+            return;
+        }
+        Set<String> folders = new HashSet<>();
+        for (String path : paths) {
+            String normalized = StringUtils.removeEnd(path, "/");
+            if (normalized.endsWith(LEVEL_DESCRIPTOR_SUFFIX)) {
+                // the merged descriptors of the folder and all its descendants change
+                normalized = StringUtils.substringBeforeLast(normalized, "/");
+            }
+            folders.add(normalized);
+        }
+        // flattened items can include any other item
+        getEntries().asMap().keySet().removeIf(key -> key.siteId.equals(cache.siteId) &&
+                (key.type == CacheKey.FLATTENED_ITEM || folders.stream().anyMatch(key::isAffectedBy)));
+    }
+
+    protected void invalidate(String siteId, Collection<String> paths) {
+        if (siteId == null) {
+            return;
+        }
+        SiteCache cache = caches.get(siteId);
+        if (cache != null) {
+            invalidate(cache, paths);
+        }
+    }
+
+    /**
+     * Returns the statistics of the content store cache of all sites
+     */
+    public CacheStats getCacheStats() {
+        return getEntries().stats();
+    }
+
+    @EventListener
+    public void onContentEvent(ContentEvent event) {
+        if (event instanceof MoveContentEvent) {
+            invalidate(event.getSiteId(), List.of(Objects.toString(event.getTargetPath(), ""),
+                    Objects.toString(((MoveContentEvent) event).getSourcePath(), "")));
+        } else {
+            invalidate(event.getSiteId(), List.of(Objects.toString(event.getTargetPath(), "")));
+        }
+    }
+
+    @EventListener
+    public void onSiteDelete(SiteDeleteEvent event) {
+        if (event.getSiteId() != null) {
+            removeCache(event.getSiteId());
+        }
+    }
+
+    protected static class SiteCache {
+
+        protected final String siteId;
+        protected final AtomicLong version = new AtomicLong();
+        protected final Lock updateLock = new ReentrantLock();
+
+        protected volatile String commitId;
+
+        protected SiteCache(String siteId, String commitId) {
+            this.siteId = siteId;
+            this.commitId = commitId;
+        }
+
+    }
+
+    protected static class CacheKey {
+
+        protected static final int ITEM = 0;
+        protected static final int FLATTENED_ITEM = 1;
+        protected static final int EXISTS = 2;
+
+        protected final String siteId;
+        protected final String path;
+        protected final int type;
+
+        protected CacheKey(String siteId, String path, int type) {
+            this.siteId = siteId;
+            this.path = path;
+            this.type = type;
+        }
+
+        protected boolean isAffectedBy(String changedPath) {
+            // folders above the changed path can be created or deleted with it
+            return path.equals(changedPath) || path.startsWith(changedPath + "/") ||
+                    changedPath.startsWith(StringUtils.removeEnd(path, "/") + "/");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return type == cacheKey.type && siteId.equals(cacheKey.siteId) && path.equals(cacheKey.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(siteId, path, type);
+        }
+
+    }
+
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.dal;
+
+import org.craftercms.studio.api.v2.dal.StudioDBBatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Default implementation of {@link StudioDBBatchWriter}, uses a single connection and transaction for all the
+ * batches.
+ *
+ * @since 4.1.0
+ */
+public class StudioDBBatchWriterImpl implements StudioDBBatchWriter {
+
+    private final static Logger logger = LoggerFactory.getLogger(StudioDBBatchWriterImpl.class);
+
+    protected DataSource dataSource;
+    protected int batchSize;
+    protected Connection connection = null;
+    protected final Map<String, PreparedStatement> statements = new HashMap<>();
+    protected PreparedStatement currentStatement = null;
+    protected String currentSql = null;
+    protected boolean autoCommit;
+    protected int pendingCount = 0;
+    protected long executedCount = 0;
+    protected long uncommittedCount = 0;
+    protected boolean failed = false;
+
+    protected StudioDBBatchWriterImpl(DataSource dataSource, int batchSize) {
+        this.dataSource = dataSource;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    protected void openConnection() throws SQLException {
+        if (Objects.isNull(connection)) {
+            connection = dataSource.getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+        }
+    }
+
+    protected void closeConnection() {
+        if (!Objects.isNull(connection)) {
+            try {
+                for (PreparedStatement statement : statements.values()) {
+                    statement.close();
+                }
+                connection.setAutoCommit(autoCommit);
+                connection.close();
+            } catch (SQLException e) {
+                logger.error("Failed to close the connection to the DB", e);
+            }
+            statements.clear();
+            currentStatement = null;
+            currentSql = null;
+            connection = null;
+        }
+    }
+
+    @Override
+    public void addStatement(String sql, Object... params) {
+        if (failed) {
+            return;
+        }
+        try {
+            openConnection();
+            if (!sql.equals(currentSql)) {
+                // the pending statements need to run first to keep the order
+                flush();
+                if (failed) {
+                    return;
+                }
+                PreparedStatement statement = statements.get(sql);
+                if (statement == null) {
+                    statement = connection.prepareStatement(sql);
+                    statements.put(sql, statement);
+                }
+                currentStatement = statement;
+                currentSql = sql;
+            }
+            for (int i = 0; i < params.length; i++) {
+                currentStatement.setObject(i + 1, params[i]);
+            }
+            currentStatement.addBatch();
+        } catch (SQLException e) {
+            logger.error("Failed to add a statement to the DB batch", e);
+            fail();
+            return;
+        }
+        if (++pendingCount >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (failed || pendingCount == 0) {
+            return;
+        }
+        try {
+            currentStatement.executeBatch();
+            executedCount += pendingCount;
+            uncommittedCount += pendingCount;
+        } catch (SQLException e) {
+            logger.error("Failed to execute a DB batch of '{}' statements, the '{}' statements already executed " +
+                    "will be rolled back", pendingCount, uncommittedCount, e);
+            fail();
+        } finally {
+            pendingCount = 0;
+        }
+    }
+
+    @Override
+    public void commit() {
+        flush();
+        if (failed || Objects.isNull(connection)) {
+            return;
+        }
+        try {
+            connection.commit();
+            uncommittedCount = 0;
+        } catch (SQLException e) {
+            logger.error("Failed to commit '{}' statements to the DB", uncommittedCount, e);
+            fail();
+        }
+    }
+
+    protected void fail() {
+        failed = true;
+        rollback();
+    }
+
+    protected void rollback() {
+        if (Objects.isNull(connection)) {
+            return;
+        }
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.error("Failed to rollback the DB transaction", e);
+        }
+        uncommittedCount = 0;
+    }
+
+    @Override
+    public long getExecutedCount() {
+        return executedCount;
+    }
+
+    @Override
+    public boolean isFailed() {
+        return failed;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!failed && (pendingCount > 0 || uncommittedCount > 0)) {
+                logger.warn("Discarding '{}' DB statements that were not committed", pendingCount + uncommittedCount);
+                pendingCount = 0;
+                rollback();
+            }
+        } finally {
+            closeConnection();
+        }
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package org.craftercms.studio.impl.v2.dal;
 
+import org.craftercms.studio.api.v2.dal.StudioDBBatchWriter;
 import org.craftercms.studio.api.v2.dal.StudioDBScriptRunner;
 import org.craftercms.studio.api.v2.dal.StudioDBScriptRunnerFactory;
 
@@ -26,12 +27,18 @@ public class StudioDBScriptRunnerFactoryImpl implements StudioDBScriptRunnerFact
     protected String delimiter;
     protected DataSource dataSource;
     protected int scriptLinesBufferSize = 10000;
+    protected int batchSize = 1000;
 
     @Override
     public StudioDBScriptRunner getDBScriptRunner() {
         return new StudioDBScriptRunnerImpl(delimiter, dataSource, scriptLinesBufferSize);
     }
 
+    @Override
+    public StudioDBBatchWriter getDBBatchWriter() {
+        return new StudioDBBatchWriterImpl(dataSource, batchSize);
+    }
+
     public String getDelimiter() {
         return delimiter;
     }
@@ -55,4 +62,12 @@ public class StudioDBScriptRunnerFactoryImpl implements StudioDBScriptRunnerFact
     public void setScriptLinesBufferSize(int scriptLinesBufferSize) {
         this.scriptLinesBufferSize = scriptLinesBufferSize;
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
@@ -22,13 +22,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.client.RestClientException;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONFIG_SITEENV_VARIABLE;
@@ -45,6 +53,10 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.*;
  *     <li>Issues deployments to the authoring and preview target on a preview sync event</li>
  * </ul>
  *
+ * <p>When a {@link TaskScheduler} is provided, sync events for the same site received within a short window are
+ * merged into a single deployment for each target, and the deployments are sent from the scheduler threads instead
+ * of the thread that published the event.</p>
+ *
  * @author avasquez
  */
 public class PreviewDeployer extends AbstractDeployer {
@@ -54,6 +66,11 @@ public class PreviewDeployer extends AbstractDeployer {
     private final static String ENV_PREVIEW = "preview";
     private final static String ENV_AUTHORING = "authoring";
 
+    protected TaskScheduler taskScheduler;
+
+    protected final ConcurrentMap<String, PendingSync> pendingSyncs = new ConcurrentHashMap<>();
+    protected final AtomicLong requestedSyncs = new AtomicLong();
+    protected final AtomicLong executedSyncs = new AtomicLong();
 
     @EventListener
     public void onSiteCreateComplete(SiteEvent event) {
@@ -73,9 +90,59 @@ public class PreviewDeployer extends AbstractDeployer {
 
     protected void doPreviewSync(String siteId, boolean waitTillDone) {
         if (isNotEmpty(siteId)) {
-            doDeployment(siteId, ENV_AUTHORING, false);
-            doDeployment(siteId, ENV_PREVIEW, waitTillDone);
+            CompletableFuture<Void> future = requestPreviewSync(siteId, waitTillDone);
+            if (waitTillDone) {
+                future.join();
+            }
+        }
+    }
+
+    /**
+     * Requests a deployment to the authoring and preview targets of the given site. The request is merged with any
+     * other request for the same site that has not been sent yet.
+     * @param siteId the id of the site
+     * @param waitTillDone indicates if the deployer should wait for the deployment to finish before returning
+     * @return a future that will be completed once the deployment request has been sent
+     */
+    public CompletableFuture<Void> requestPreviewSync(String siteId, boolean waitTillDone) {
+        requestedSyncs.incrementAndGet();
+        if (taskScheduler != null) {
+            try {
+                while (true) {
+                    PendingSync sync = pendingSyncs.computeIfAbsent(siteId, PendingSync::new);
+                    if (sync.merge(waitTillDone)) {
+                        return sync.future;
+                    }
+                    // the sync already started and won't include this change, wait for it to leave the map
+                    pendingSyncs.remove(siteId, sync);
+                }
+            } catch (TaskRejectedException e) {
+                logger.warn("Preview sync scheduler is not accepting tasks, syncing site '{}' directly", siteId);
+            }
         }
+        executedSyncs.incrementAndGet();
+        doDeployment(siteId, ENV_AUTHORING, false);
+        doDeployment(siteId, ENV_PREVIEW, waitTillDone);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Returns the number of sites with a sync waiting to be sent
+     */
+    public int getQueueDepth() {
+        return pendingSyncs.size();
+    }
+
+    /**
+     * Returns the average number of sync requests merged into each deployment
+     */
+    public double getCoalescingRatio() {
+        long executed = executedSyncs.get();
+        return executed == 0 ? 0 : (double) requestedSyncs.get() / executed;
+    }
+
+    protected long getSyncWindow() {
+        return studioConfiguration.getProperty(PREVIEW_SYNC_WINDOW, Long.class, 500L);
     }
 
     @Override
@@ -155,4 +222,86 @@ public class PreviewDeployer extends AbstractDeployer {
                                   .replaceAll(CONFIG_SITEENV_VARIABLE, environment);
     }
 
+    public void setTaskScheduler(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Sync requests for a single site that have not been sent to the deployer yet
+     */
+    protected class PendingSync implements Runnable {
+
+        protected final String siteId;
+        protected final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        protected ScheduledFuture<?> scheduledTask;
+        protected int requests;
+        protected boolean waitTillDone;
+        protected boolean started;
+
+        protected PendingSync(String siteId) {
+            this.siteId = siteId;
+        }
+
+        /**
+         * Adds a request to this sync. If the scheduler rejects the sync after other requests were merged, the sync is
+         * run by the calling thread
+         * @return false if the sync has already started and the request needs a new one
+         */
+        protected boolean merge(boolean wait) {
+            boolean rejected = false;
+            synchronized (this) {
+                if (started) {
+                    return false;
+                }
+                try {
+                    if (scheduledTask == null) {
+                        scheduledTask = taskScheduler.schedule(this,
+                                Instant.now().plusMillis(wait ? 0 : getSyncWindow()));
+                    } else if (wait && !waitTillDone && scheduledTask.cancel(false)) {
+                        // callers waiting for the deployment should not wait for the window to close
+                        scheduledTask = taskScheduler.schedule(this, Instant.now());
+                    }
+                } catch (TaskRejectedException e) {
+                    if (requests == 0) {
+                        started = true;
+                        pendingSyncs.remove(siteId, this);
+                        throw e;
+                    }
+                    // the scheduled task was already cancelled, the requests merged so far still need the sync
+                    rejected = true;
+                }
+                requests++;
+                waitTillDone |= wait;
+            }
+            if (rejected) {
+                logger.warn("Preview sync scheduler is not accepting tasks, syncing site '{}' directly", siteId);
+                run();
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            boolean wait;
+            int merged;
+            synchronized (this) {
+                started = true;
+                wait = waitTillDone;
+                merged = requests;
+            }
+            pendingSyncs.remove(siteId, this);
+            executedSyncs.incrementAndGet();
+            logger.debug("Sync preview in site '{}' for '{}' requests, '{}' sites still pending",
+                    siteId, merged, pendingSyncs.size());
+            try {
+                doDeployment(siteId, ENV_AUTHORING, false);
+                doDeployment(siteId, ENV_PREVIEW, wait);
+            } finally {
+                future.complete(null);
+            }
+        }
+
+    }
+
 }
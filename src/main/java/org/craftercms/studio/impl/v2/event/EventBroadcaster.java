@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2007-2022 Crafter Software Corporation. All Rights Reserved.
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License version 3 as published by
@@ -17,16 +17,36 @@ package org.craftercms.studio.impl.v2.event;
 
 import org.craftercms.studio.api.v2.event.BroadcastEvent;
 import org.craftercms.studio.api.v2.event.SiteAwareEvent;
+import org.craftercms.studio.api.v2.event.content.ContentEvent;
+import org.craftercms.studio.api.v2.event.content.MoveContentEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementation of {@link EventListener} that broadcasts events to the message broker
  *
+ * <p>When a {@link TaskScheduler} is provided, events are queued for each destination and sent from the scheduler
+ * threads after a short window, so the thread that published the event never waits for the broker. Content events
+ * for the same path and type received within the window are merged into the latest one, and events that don't fit
+ * in the queue of the destination are dropped.</p>
+ *
  * @author joseross
  * @since 4.0.0
  */
@@ -39,20 +59,184 @@ public class EventBroadcaster {
     @Autowired
     protected SimpMessagingTemplate messagingTemplate;
 
+    protected TaskScheduler taskScheduler;
+    protected long window = 200;
+    protected int maxQueueSize = 1000;
+
+    protected final ConcurrentMap<String, PendingBroadcast> pendingBroadcasts = new ConcurrentHashMap<>();
+    protected final AtomicLong coalescedEvents = new AtomicLong();
+    protected final AtomicLong droppedEvents = new AtomicLong();
+    protected final AtomicLong sentEvents = new AtomicLong();
+
     @Order
     @EventListener
     public void publishEvent(BroadcastEvent event) {
         logger.debug("Broadcast event '{}'", event);
-        long startTime = System.currentTimeMillis();
         String destination = DESTINATION_ROOT;
         if (event instanceof SiteAwareEvent) {
             destination += "/" + ((SiteAwareEvent) event).getSiteId();
         }
+        if (taskScheduler != null) {
+            try {
+                while (true) {
+                    PendingBroadcast broadcast = pendingBroadcasts.computeIfAbsent(destination,
+                            PendingBroadcast::new);
+                    if (broadcast.add(event)) {
+                        return;
+                    }
+                    // the broadcast is already being sent and won't include this event, wait for it to leave the map
+                    pendingBroadcasts.remove(destination, broadcast);
+                }
+            } catch (TaskRejectedException e) {
+                logger.warn("Event broadcast scheduler is not accepting tasks, sending event '{}' directly", event);
+            }
+        }
+        send(destination, event);
+    }
+
+    protected void send(String destination, BroadcastEvent event) {
+        long startTime = System.currentTimeMillis();
         messagingTemplate.convertAndSend(destination, event);
+        sentEvents.incrementAndGet();
         if (logger.isTraceEnabled()) {
             long total = System.currentTimeMillis() - startTime;
             logger.trace("Broadcast of event '{}' took '{}' milliseconds", event, total);
         }
     }
 
+    /**
+     * Returns the key used to merge events waiting to be sent, only content events for the same path and type are
+     * merged
+     */
+    protected Object getCoalescingKey(BroadcastEvent event) {
+        if (event instanceof MoveContentEvent) {
+            MoveContentEvent moveEvent = (MoveContentEvent) event;
+            return Arrays.asList(event.getClass(), moveEvent.getSourcePath(), moveEvent.getTargetPath());
+        }
+        if (event instanceof ContentEvent) {
+            return Arrays.asList(event.getClass(), ((ContentEvent) event).getTargetPath());
+        }
+        return event;
+    }
+
+    /**
+     * Returns the number of events waiting to be sent
+     */
+    public int getQueueSize() {
+        return pendingBroadcasts.values().stream().mapToInt(PendingBroadcast::size).sum();
+    }
+
+    /**
+     * Returns the number of events merged into a later event for the same path
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents.get();
+    }
+
+    /**
+     * Returns the number of events dropped because the queue of the destination was full
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Returns the number of events sent to the message broker
+     */
+    public long getSentEvents() {
+        return sentEvents.get();
+    }
+
+    public void setTaskScheduler(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    public void setWindow(long window) {
+        this.window = window;
+    }
+
+    public void setMaxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Events for a single destination that have not been sent to the message broker yet
+     */
+    protected class PendingBroadcast implements Runnable {
+
+        protected final String destination;
+        protected final Map<Object, BroadcastEvent> events = new LinkedHashMap<>();
+
+        protected int dropped;
+        protected boolean scheduled;
+        protected boolean started;
+
+        protected PendingBroadcast(String destination) {
+            this.destination = destination;
+        }
+
+        /**
+         * Adds an event to this broadcast
+         * @return false if the broadcast has already started and the event needs a new one
+         */
+        protected synchronized boolean add(BroadcastEvent event) {
+            if (started) {
+                return false;
+            }
+            Object key = getCoalescingKey(event);
+            boolean merged = events.containsKey(key);
+            if (!merged && events.size() >= maxQueueSize) {
+                dropped++;
+                droppedEvents.incrementAndGet();
+                return true;
+            }
+            if (!scheduled) {
+                try {
+                    taskScheduler.schedule(this, Instant.now().plusMillis(window));
+                    scheduled = true;
+                } catch (TaskRejectedException e) {
+                    started = true;
+                    pendingBroadcasts.remove(destination, this);
+                    throw e;
+                }
+            }
+            if (merged) {
+                // the merged event moves to the end so it keeps its order with other events for the same path
+                events.remove(key);
+                coalescedEvents.incrementAndGet();
+            }
+            events.put(key, event);
+            return true;
+        }
+
+        protected synchronized int size() {
+            return events.size();
+        }
+
+        @Override
+        public void run() {
+            List<BroadcastEvent> batch;
+            int droppedInBatch;
+            synchronized (this) {
+                started = true;
+                batch = new ArrayList<>(events.values());
+                droppedInBatch = dropped;
+            }
+            pendingBroadcasts.remove(destination, this);
+            if (droppedInBatch > 0) {
+                logger.warn("Dropped '{}' events for destination '{}' because the queue was full",
+                        droppedInBatch, destination);
+            }
+            logger.debug("Broadcast '{}' events to destination '{}'", batch.size(), destination);
+            for (BroadcastEvent event : batch) {
+                try {
+                    send(destination, event);
+                } catch (MessagingException e) {
+                    logger.error("Failed to broadcast event '{}' to destination '{}'", event, destination, e);
+                }
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.craftercms.studio.api.v2.dal.PublishRequest;
+import org.craftercms.studio.api.v2.dal.PublishRequestDAO;
+import org.craftercms.studio.api.v2.event.SiteAwareEvent;
+import org.craftercms.studio.api.v2.event.content.ContentEvent;
+import org.craftercms.studio.api.v2.event.publish.PublishEvent;
+import org.craftercms.studio.api.v2.event.repository.RepositoryEvent;
+import org.craftercms.studio.api.v2.event.site.SiteDeleteEvent;
+import org.craftercms.studio.api.v2.event.site.SiteEvent;
+import org.craftercms.studio.api.v2.event.workflow.WorkflowEvent;
+import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
+import org.craftercms.studio.impl.v2.utils.DateUtils;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
+import static org.eclipse.jgit.lib.Constants.HEAD;
+
+/**
+ * Keeps track of the sites that have pending work for the site tasks of the Studio clock. A site becomes active when
+ * an event is published for it, when the HEAD of its sandbox repository changes (for example after a pull or a
+ * direct push), when it has items ready to be published, or periodically as a safety net. Active sites are processed
+ * on every tick until the active window expires, so the tasks that only run every N cycles still get to execute.
+ *
+ * @since 4.1.0
+ */
+public class SiteActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteActivityTracker.class);
+
+    protected final ConcurrentMap<String, Long> activeUntil = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, Long> nextSweep = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, String> lastHeads = new ConcurrentHashMap<>();
+
+    protected boolean enabled = true;
+    protected long activeWindow;
+    protected long sweepInterval;
+    protected GitRepositoryHelper helper;
+    protected PublishRequestDAO publishRequestDao;
+
+    @EventListener({ContentEvent.class, PublishEvent.class, RepositoryEvent.class, WorkflowEvent.class,
+            SiteEvent.class})
+    public void onSiteActivity(SiteAwareEvent event) {
+        markActive(event.getSiteId());
+    }
+
+    @EventListener
+    public void onSiteDelete(SiteDeleteEvent event) {
+        activeUntil.remove(event.getSiteId());
+        nextSweep.remove(event.getSiteId());
+        lastHeads.remove(event.getSiteId());
+    }
+
+    /**
+     * Marks the given site as having pending work
+     * @param siteId the id of the site
+     */
+    public void markActive(String siteId) {
+        if (isNotEmpty(siteId)) {
+            activeUntil.put(siteId, System.currentTimeMillis() + activeWindow);
+        }
+    }
+
+    /**
+     * Returns the sites that should be processed in the current tick
+     * @param sites all the created sites
+     * @return the active sites, in the same order
+     */
+    public List<String> getActiveSites(List<String> sites) {
+        if (!enabled) {
+            return sites;
+        }
+        long now = System.currentTimeMillis();
+        Set<String> readySites = new HashSet<>(publishRequestDao.getSitesWithItemsReadyForDeployment(
+                PublishRequest.State.READY_FOR_LIVE, DateUtils.getCurrentTime()));
+        List<String> activeSites = new ArrayList<>();
+        for (String site : sites) {
+            Long sweep = nextSweep.get(site);
+            if (sweep == null) {
+                // sites are processed right away the first time, the following sweeps are spread over the interval
+                nextSweep.put(site, now + ThreadLocalRandom.current().nextLong(Math.max(1, sweepInterval)));
+                markActive(site);
+            } else if (sweep <= now) {
+                nextSweep.put(site, now + sweepInterval);
+                markActive(site);
+            }
+            if (hasNewCommits(site) || readySites.contains(site)) {
+                markActive(site);
+            }
+            if (activeUntil.getOrDefault(site, 0L) > now) {
+                activeSites.add(site);
+            }
+        }
+
+        Set<String> existingSites = new HashSet<>(sites);
+        nextSweep.keySet().retainAll(existingSites);
+        lastHeads.keySet().retainAll(existingSites);
+
+        logger.debug("Process '{}' active sites out of '{}' sites", activeSites.size(), sites.size());
+        return activeSites;
+    }
+
+    /**
+     * Checks if the HEAD of the sandbox repository changed since the last check. The ref is read without the
+     * repository lock, so the clock is never blocked by a long write
+     */
+    protected boolean hasNewCommits(String site) {
+        try {
+            Repository repo = helper.getRepository(site, SANDBOX);
+            if (repo == null) {
+                return false;
+            }
+            Ref head = repo.exactRef(HEAD);
+            if (head == null || head.getObjectId() == null) {
+                return false;
+            }
+            String previousHead = lastHeads.put(site, head.getObjectId().getName());
+            return previousHead != null && !previousHead.equals(head.getObjectId().getName());
+        } catch (IOException e) {
+            logger.debug("Failed to read the HEAD of the sandbox repository in site '{}'", site, e);
+            return true;
+        }
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setActiveWindow(long activeWindow) {
+        this.activeWindow = activeWindow;
+    }
+
+    public void setSweepInterval(long sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+
+    public void setHelper(GitRepositoryHelper helper) {
+        this.helper = helper;
+    }
+
+    public void setPublishRequestDao(PublishRequestDAO publishRequestDao) {
+        this.publishRequestDao = publishRequestDao;
+    }
+
+}
@@ -16,10 +16,10 @@
 
 package org.craftercms.studio.impl.v2.job;
 
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tika.io.FilenameUtils;
-import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.service.content.ContentService;
@@ -29,15 +29,21 @@ import org.craftercms.studio.api.v2.dal.RepoOperation;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static java.util.stream.Collectors.toList;
 import static org.craftercms.studio.api.v1.dal.SiteFeed.STATE_READY;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.*;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
-import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.PREVIOUS_COMMIT_SUFFIX;
 
 public class StudioAuditLogProcessingTask extends StudioClockTask {
 
@@ -46,6 +52,8 @@ public class StudioAuditLogProcessingTask extends StudioClockTask {
     private int batchSizeGitLog = 1000;
     private int batchSizeAudited = 100;
     private ContentService contentService;
+    private PlatformTransactionManager transactionManager;
+    private final Map<String, Integer> auditLag = new ConcurrentHashMap<>();
 
     @Override
     protected void executeInternal(String site) {
@@ -75,132 +83,105 @@ public class StudioAuditLogProcessingTask extends StudioClockTask {
 
     private void processAuditLogFromRepo(String siteId, int batchSize) throws SiteNotFoundException {
         List<GitLog> unauditedGitlogs = contentRepository.getUnauditedCommits(siteId, batchSize);
-        if (unauditedGitlogs != null) {
+        if (CollectionUtils.isEmpty(unauditedGitlogs)) {
+            updateAuditLag(siteId, 0);
+        } else {
             SiteFeed siteFeed = siteService.getSite(siteId);
-            for (GitLog gl : unauditedGitlogs) {
-                if (contentRepository.commitIdExists(siteId, gl.getCommitId())) {
-                    String prevCommitId = gl.getCommitId() + PREVIOUS_COMMIT_SUFFIX;
-                    List<RepoOperation> operations = contentRepository.getOperationsFromDelta(siteId, prevCommitId,
-                            gl.getCommitId());
-                    for (RepoOperation repoOperation : operations) {
-                        if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getMoveToPath())) ||
-                                ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
-                            continue;
-                        }
-                        // TODO: JM: Is activityInfo used at all? Should it? Review and remove
-                        Map<String, String> activityInfo = new HashMap<>();
-                        String contentClass;
-                        AuditLog auditLog;
-                        switch (repoOperation.getAction()) {
-                            case CREATE:
-                            case COPY:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath());
-                                if (repoOperation.getPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Add an audit log entry in site '{}' for path '{}'",
-                                        siteId, repoOperation.getPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_CREATE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath()));
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditServiceInternal.insertAuditLog(auditLog);
-
-                                break;
-
-                            case UPDATE:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath());
-                                if (repoOperation.getPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Add an audit log entry in site '{}' for path '{}'",
-                                        siteId, repoOperation.getPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_UPDATE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath()));
-                                auditServiceInternal.insertAuditLog(auditLog);
-                                break;
-
-                            case DELETE:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath());
-                                if (repoOperation.getPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Add an audit log entry in site '{}' for path '{}'",
-                                        siteId, repoOperation.getPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_DELETE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath()));
-                                auditServiceInternal.insertAuditLog(auditLog);
-
-                                break;
-
-                            case MOVE:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getMoveToPath());
-                                if (repoOperation.getMoveToPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Add an audit log entry in site '{}' for path '{}'",
-                                        siteId, repoOperation.getMoveToPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_MOVE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getMoveToPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getMoveToPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getMoveToPath()));
-                                auditServiceInternal.insertAuditLog(auditLog);
-
-                                break;
-
-                            default:
-                                logger.error("Failed to add an audit entry in site '{}' for the unknown " +
-                                                "repo operation '{}'",
-                                        siteId, repoOperation.getAction());
-                                break;
-                        }
+            List<String> commitIds = unauditedGitlogs.stream().map(GitLog::getCommitId).collect(toList());
+            // All commits of the batch are read with a single walk of the repository
+            Map<String, List<RepoOperation>> operationsByCommit =
+                    contentRepository.getOperationsFromCommits(siteId, commitIds);
+            // The same paths tend to be touched by many commits, classify each one only once per batch
+            Map<String, String> contentClasses = new HashMap<>();
+            List<AuditLog> auditLogs = new ArrayList<>();
+            for (List<RepoOperation> operations : operationsByCommit.values()) {
+                for (RepoOperation repoOperation : operations) {
+                    if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getMoveToPath())) ||
+                            ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
+                        continue;
+                    }
+                    AuditLog auditLog = createAuditLogEntry(siteId, siteFeed, repoOperation, contentClasses);
+                    if (auditLog != null) {
+                        auditLogs.add(auditLog);
                     }
                 }
-                contentRepository.markGitLogAudited(siteId, gl.getCommitId());
             }
+            // The entries and the audited flags are written together, a failure leaves the whole batch for a retry
+            DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
+            transactionDefinition.setName("processAuditLog");
+            TransactionStatus txStatus = transactionManager.getTransaction(transactionDefinition);
+            try {
+                auditServiceInternal.insertAuditLogs(auditLogs);
+                contentRepository.markGitLogAuditedBulk(siteId, commitIds);
+                transactionManager.commit(txStatus);
+            } catch (Exception e) {
+                transactionManager.rollback(txStatus);
+                throw e;
+            }
+            logger.debug("Added '{}' audit log entries in site '{}' for '{}' commits",
+                    auditLogs.size(), siteId, commitIds.size());
+            // Only a full batch can leave more commits behind
+            updateAuditLag(siteId, unauditedGitlogs.size() < batchSize ? 0 :
+                    contentRepository.countUnauditedCommits(siteId));
+        }
+    }
+
+    private AuditLog createAuditLogEntry(String siteId, SiteFeed siteFeed, RepoOperation repoOperation,
+                                         Map<String, String> contentClasses) {
+        String operation;
+        String path = repoOperation.getPath();
+        switch (repoOperation.getAction()) {
+            case CREATE:
+            case COPY:
+                operation = OPERATION_CREATE;
+                break;
+            case UPDATE:
+                operation = OPERATION_UPDATE;
+                break;
+            case DELETE:
+                operation = OPERATION_DELETE;
+                break;
+            case MOVE:
+                operation = OPERATION_MOVE;
+                path = repoOperation.getMoveToPath();
+                break;
+            default:
+                logger.error("Failed to add an audit entry in site '{}' for the unknown repo operation '{}'",
+                        siteId, repoOperation.getAction());
+                return null;
+        }
+        logger.trace("Add an audit log entry in site '{}' for path '{}'", siteId, path);
+        AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
+        auditLog.setOperation(operation);
+        auditLog.setOperationTimestamp(repoOperation.getDateTime());
+        auditLog.setSiteId(siteFeed.getId());
+        auditLog.setActorId(repoOperation.getAuthor());
+        auditLog.setActorDetails(repoOperation.getAuthor());
+        auditLog.setOrigin(ORIGIN_GIT);
+        auditLog.setPrimaryTargetId(siteId + ":" + path);
+        auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
+        auditLog.setPrimaryTargetValue(path);
+        auditLog.setPrimaryTargetSubtype(contentClasses.computeIfAbsent(path,
+                p -> contentService.getContentTypeClass(siteId, p)));
+        return auditLog;
+    }
+
+    private void updateAuditLag(String siteId, int lag) {
+        Integer previousLag = auditLag.put(siteId, lag);
+        if (lag > 0 || (previousLag != null && previousLag > 0)) {
+            logger.debug("Site '{}' has '{}' commits pending to be audited", siteId, lag);
         }
     }
 
+    /**
+     * Returns the number of commits of each site that are pending to be added to the audit log, as of the last
+     * execution of this task
+     * @return the number of unaudited commits by site
+     */
+    public Map<String, Integer> getAuditLag() {
+        return Collections.unmodifiableMap(auditLag);
+    }
+
     public void setAuditServiceInternal(AuditServiceInternal auditServiceInternal) {
         this.auditServiceInternal = auditServiceInternal;
     }
@@ -216,4 +197,8 @@ public class StudioAuditLogProcessingTask extends StudioClockTask {
     public void setContentService(ContentService contentService) {
         this.contentService = contentService;
     }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
 }
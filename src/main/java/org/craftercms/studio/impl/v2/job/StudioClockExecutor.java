@@ -51,6 +51,9 @@ public class StudioClockExecutor implements Job {
     private GeneralLockService generalLockService;
     private List<Job> globalTasks;
     private List<SiteJob> siteTasks;
+    private SiteActivityTracker siteActivityTracker;
+    private long statsLogInterval;
+    private long lastStatsLog = System.currentTimeMillis();
     private static int threadCounter = 0;
 
     @Override
@@ -80,6 +83,9 @@ public class StudioClockExecutor implements Job {
         }
 
         List<String> sites = siteService.getAllCreatedSites();
+        if (siteActivityTracker != null) {
+            sites = siteActivityTracker.getActiveSites(sites);
+        }
         for (String site : sites) {
             taskExecutor.execute(() -> {
                 String tasksLock = STUDIO_CLOCK_EXECUTOR_SITE_LOCK.replaceAll(PATTERN_SITE, site);
@@ -94,6 +100,24 @@ public class StudioClockExecutor implements Job {
                 }
             });
         }
+
+        logStats();
+    }
+
+    private void logStats() {
+        long now = System.currentTimeMillis();
+        if (statsLogInterval <= 0 || now - lastStatsLog < statsLogInterval) {
+            return;
+        }
+        lastStatsLog = now;
+        for (SiteJob siteTask : siteTasks) {
+            if (siteTask instanceof StudioClockTask) {
+                StudioClockTask clockTask = (StudioClockTask) siteTask;
+                logger.info("Clock Task '{}' executed '{}' times, total time '{}' ms, max time '{}' ms",
+                        clockTask.getClass().getSimpleName(), clockTask.getExecutions(),
+                        clockTask.getExecutionTime(), clockTask.getMaxExecutionTime());
+            }
+        }
     }
 
     public void setTaskExecutor(TaskExecutor taskExecutor) {
@@ -119,4 +143,12 @@ public class StudioClockExecutor implements Job {
     public void setSystemStatusProvider(SystemStatusProvider systemStatusProvider) {
         this.systemStatusProvider = systemStatusProvider;
     }
+
+    public void setSiteActivityTracker(SiteActivityTracker siteActivityTracker) {
+        this.siteActivityTracker = siteActivityTracker;
+    }
+
+    public void setStatsLogInterval(long statsLogInterval) {
+        this.statsLogInterval = statsLogInterval;
+    }
 }
@@ -28,6 +28,10 @@ import org.springframework.lang.NonNull;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public abstract class StudioClockTask implements SiteJob, ApplicationContextAware {
 
@@ -41,6 +45,10 @@ public abstract class StudioClockTask implements SiteJob, ApplicationContextAwar
     protected ContentRepository contentRepository;
     protected ApplicationContext applicationContext;
 
+    protected final LongAdder executions = new LongAdder();
+    protected final LongAdder executionTime = new LongAdder();
+    protected final AtomicLong maxExecutionTime = new AtomicLong();
+
     protected synchronized boolean checkCycleCounter(String site) {
         if (!counters.containsKey(site)) {
             setCycleCounter(site, executeEveryNCycles);
@@ -69,11 +77,42 @@ public abstract class StudioClockTask implements SiteJob, ApplicationContextAwar
             } catch (InterruptedException e) {
                 logger.debug("Woke up from the random offset in site '{}'", site);
             }
-            executeInternal(site);
+            long start = System.nanoTime();
+            try {
+                executeInternal(site);
+            } finally {
+                long time = System.nanoTime() - start;
+                executions.increment();
+                executionTime.add(time);
+                maxExecutionTime.accumulateAndGet(time, Math::max);
+                logger.debug("Clock Task '{}' for site '{}' completed in '{}' ms", this.getClass().getName(), site,
+                        NANOSECONDS.toMillis(time));
+            }
             setCycleCounter(site, executeEveryNCycles);
         }
     }
 
+    /**
+     * @return the number of times the task has been executed for any site
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * @return the total time in milliseconds spent executing the task for all sites
+     */
+    public long getExecutionTime() {
+        return NANOSECONDS.toMillis(executionTime.sum());
+    }
+
+    /**
+     * @return the longest time in milliseconds spent executing the task for a single site
+     */
+    public long getMaxExecutionTime() {
+        return NANOSECONDS.toMillis(maxExecutionTime.get());
+    }
+
     public void setExecuteEveryNCycles(int executeEveryNCycles) {
         this.executeEveryNCycles = executeEveryNCycles;
     }
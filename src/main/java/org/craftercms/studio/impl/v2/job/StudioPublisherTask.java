@@ -88,71 +88,19 @@ public class StudioPublisherTask extends StudioClockTask {
                 if (!retryCounter.containsKey(siteId)) {
                     retryCounter.put(siteId, maxRetryCounter);
                 }
-                Set<String> environments = getAllPublishingEnvironments(siteId);
-                for (String environment : environments) {
-                    env = environment;
-                    logger.trace("Process content item ready for publishing in site '{}'", siteId);
-                    itemsToDeploy = publishingManager.getItemsReadyForDeployment(siteId, environment);
-                    while (CollectionUtils.isNotEmpty(itemsToDeploy)) {
-                        logger.trace("Publish '{}' items in site '{}'", itemsToDeploy.size(), siteId);
-                        publishingManager.markItemsProcessing(siteId, environment, itemsToDeploy);
-                        List<String> commitIds = itemsToDeploy.stream()
-                                .map(PublishRequest::getCommitId)
-                                .distinct().collect(toList());
-
-                        boolean allCommitsPresent = true;
-                        StringBuilder sbMissingCommits = new StringBuilder();
-                        for (String commit : commitIds) {
-                            if (StringUtils.isNotEmpty(commit)) {
-                                boolean commitPresent = contentRepository.commitIdExists(siteId,
-                                        commit);
-                                if (!commitPresent) {
-                                    sbMissingCommits.append(commit).append("; ");
-                                    logger.trace("Commit ID '{}' is not in the git repo for " +
-                                            "site '{}'. Skip a publishing cycle and try " +
-                                            "again next cycle.", commit, siteId);
-                                    allCommitsPresent = false;
-                                }
-                            }
-                        }
-
-                        if (allCommitsPresent) {
-                            logger.info("Publish started in site '{}' for target '{}' with '{}' items " +
-                                            "ready to be published",
-                                    siteId, environment, itemsToDeploy.size());
-                            String packageId = itemsToDeploy.get(0).getPackageId();
-                            PublishingProgressObserver observer =
-                                    new PublishingProgressObserver(siteId, packageId, environment,
-                                            itemsToDeploy.size());
-                            publishingProgressServiceInternal.addObserver(observer);
-                            doPublishing(siteId, itemsToDeploy, environment);
-                            applicationContext.publishEvent(new PublishEvent(siteId));
-                            retryCounter.remove(siteId);
-                            dbErrorNotifiedSites.remove(siteId);
-                            itemsToDeploy =
-                                    publishingManager.getItemsReadyForDeployment(siteId, environment);
-                        } else {
-                            publishingManager.markItemsReady(siteId, environment, itemsToDeploy);
-                            int retriesLeft = retryCounter.get(siteId) - 1;
-                            itemsToDeploy = null;
-                            if (retriesLeft > 0) {
-                                retryCounter.put(siteId, retriesLeft);
-                                logger.info("The commit IDs '{}' are not in the git repo for site '{}'. " +
-                                        "Skip a publishing cycle and try again next cycle. " +
-                                        "'{}' retries left.",
-                                        sbMissingCommits, siteId, retriesLeft);
-                            } else {
-                                retryCounter.remove(siteId);
-                                siteService.enablePublishing(siteId, false);
-                                logger.error("Exhausted publish retries for site '{}' after '{}' attempts " +
-                                        "due to missing commit IDs '{}'",
-                                        siteId, maxRetryCounter, sbMissingCommits);
-                                throw new DeploymentException("Deployment failed after " + maxRetryCounter
-                                        + " retries. The following commits are not present in local " +
-                                        "repository " + sbMissingCommits);
-                            }
+                // each target publishes one batch per round, so a steady queue for one target doesn't delay
+                // the packages of the other targets until it is drained
+                Set<String> pendingEnvironments = getAllPublishingEnvironments(siteId);
+                while (!pendingEnvironments.isEmpty()) {
+                    Iterator<String> iterator = pendingEnvironments.iterator();
+                    while (iterator.hasNext()) {
+                        env = iterator.next();
+                        logger.trace("Process content item ready for publishing in site '{}' for target '{}'",
+                                siteId, env);
+                        itemsToDeploy = publishingManager.getItemsReadyForDeployment(siteId, env);
+                        if (CollectionUtils.isEmpty(itemsToDeploy) || !publishBatch(siteId, env, itemsToDeploy)) {
+                            iterator.remove();
                         }
-
                     }
                 }
             } catch (UncategorizedSQLException e) {
@@ -185,45 +133,99 @@ public class StudioPublisherTask extends StudioClockTask {
         }
     }
 
+    /**
+     * Publishes a single batch of items ready for the given target
+     * @return false if the batch was returned to the queue because some commits are not in the repository yet
+     */
+    private boolean publishBatch(String siteId, String environment, List<PublishRequest> itemsToDeploy)
+            throws DeploymentException, ServiceLayerException, UserNotFoundException {
+        logger.trace("Publish '{}' items in site '{}'", itemsToDeploy.size(), siteId);
+        publishingManager.markItemsProcessing(siteId, environment, itemsToDeploy);
+        List<String> commitIds = itemsToDeploy.stream()
+                .map(PublishRequest::getCommitId)
+                .distinct().collect(toList());
+
+        boolean allCommitsPresent = true;
+        StringBuilder sbMissingCommits = new StringBuilder();
+        for (String commit : commitIds) {
+            if (StringUtils.isNotEmpty(commit)) {
+                boolean commitPresent = contentRepository.commitIdExists(siteId, commit);
+                if (!commitPresent) {
+                    sbMissingCommits.append(commit).append("; ");
+                    logger.trace("Commit ID '{}' is not in the git repo for site '{}'. Skip a publishing cycle " +
+                            "and try again next cycle.", commit, siteId);
+                    allCommitsPresent = false;
+                }
+            }
+        }
+
+        if (allCommitsPresent) {
+            logger.info("Publish started in site '{}' for target '{}' with '{}' items ready to be published",
+                    siteId, environment, itemsToDeploy.size());
+            String packageId = itemsToDeploy.get(0).getPackageId();
+            PublishingProgressObserver observer =
+                    new PublishingProgressObserver(siteId, packageId, environment, itemsToDeploy.size());
+            publishingProgressServiceInternal.addObserver(observer);
+            doPublishing(siteId, itemsToDeploy, environment);
+            applicationContext.publishEvent(new PublishEvent(siteId));
+            retryCounter.remove(siteId);
+            dbErrorNotifiedSites.remove(siteId);
+            return true;
+        }
+
+        publishingManager.markItemsReady(siteId, environment, itemsToDeploy);
+        int retriesLeft = retryCounter.get(siteId) - 1;
+        if (retriesLeft > 0) {
+            retryCounter.put(siteId, retriesLeft);
+            logger.info("The commit IDs '{}' are not in the git repo for site '{}'. Skip a publishing cycle and " +
+                    "try again next cycle. '{}' retries left.", sbMissingCommits, siteId, retriesLeft);
+            return false;
+        }
+        retryCounter.remove(siteId);
+        siteService.enablePublishing(siteId, false);
+        logger.error("Exhausted publish retries for site '{}' after '{}' attempts due to missing commit IDs '{}'",
+                siteId, maxRetryCounter, sbMissingCommits);
+        throw new DeploymentException("Deployment failed after " + maxRetryCounter + " retries. The following " +
+                "commits are not present in local repository " + sbMissingCommits);
+    }
+
     private void doPublishing(String siteId, List<PublishRequest> itemsToDeploy, String environment)
             throws DeploymentException, ServiceLayerException, UserNotFoundException {
         siteService.updatePublishingStatus(siteId, PROCESSING);
         String status;
         String author = itemsToDeploy.get(0).getUser();
         StringBuilder sbComment = new StringBuilder();
-        List<DeploymentItemTO> completeDeploymentItemList = new ArrayList<>();
-        Set<String> processedPaths = new HashSet<>();
-        String currentPackageId = StringUtils.EMPTY;
         try {
             logger.info("Publish '{}' items in site '{}' to target '{}'", itemsToDeploy.size(), siteId, environment);
-            Set<String> packageIds = new HashSet<>();
+            List<DeploymentItemTO> completeDeploymentItemList = publishingManager.planDeployment(siteId, environment,
+                    itemsToDeploy, isMandatoryDependenciesCheckEnabled());
+            Map<String, Integer> packageSizes = new LinkedHashMap<>();
             for (PublishRequest item : itemsToDeploy) {
-                processPublishingRequest(siteId, environment, item, completeDeploymentItemList, processedPaths);
-                if (!StringUtils.equals(currentPackageId, item.getPackageId())) {
-                    currentPackageId = item.getPackageId();
-                    publishingProgressServiceInternal.updateObserver(siteId, currentPackageId);
-                } else {
-                    publishingProgressServiceInternal.updateObserver(siteId);
-                }
-
-                if (packageIds.add(item.getPackageId())) {
+                if (!packageSizes.containsKey(item.getPackageId())) {
                     sbComment.append(item.getSubmissionComment()).append("\n");
                 }
+                packageSizes.merge(item.getPackageId(), 1, Integer::sum);
             }
+            packageSizes.forEach((packageId, size) ->
+                    publishingProgressServiceInternal.updateObserver(siteId, size, packageId));
+            Set<String> packageIds = packageSizes.keySet();
             publishingProgressServiceInternal.removeObserver(siteId);
             siteService.updatePublishingStatus(siteId, PUBLISHING);
             String pkgId = completeDeploymentItemList.get(0).getPackageId();
             PublishingProgressObserver observer = new PublishingProgressObserver(siteId, pkgId, environment,
                     completeDeploymentItemList.size());
             publishingProgressServiceInternal.addObserver(observer);
+            long deployStart = System.currentTimeMillis();
             deploy(siteId, environment, completeDeploymentItemList, author,
                     sbComment.toString());
+            long deployEnd = System.currentTimeMillis();
             generateWorkflowActivity(siteId, environment, packageIds,  author, OPERATION_PUBLISHED);
             publishingManager.markItemsCompleted(siteId, environment, itemsToDeploy);
             publishingManager.setPublishedState(siteId, environment, itemsToDeploy);
 
-            logger.info("Published '{}' items in site '{}' to target '{}'",
-                    itemsToDeploy.size(), siteId, environment);
+            logger.info("Published '{}' items of packages '{}' in site '{}' to target '{}', deployment '{}' ms, " +
+                            "item state updates '{}' ms", itemsToDeploy.size(), packageIds, siteId, environment,
+                    deployEnd - deployStart, System.currentTimeMillis() - deployEnd);
 
             if (publishingManager.isPublishingQueueEmpty(siteId)) {
                 status = READY;
@@ -240,54 +242,22 @@ public class StudioPublisherTask extends StudioClockTask {
         }
     }
 
-    private void processPublishingRequest(String siteId, String environment, PublishRequest item,
-                                          List<DeploymentItemTO> completeDeploymentItemList, Set<String> processedPaths)
-            throws ServiceLayerException, DeploymentException, UserNotFoundException {
-        List<DeploymentItemTO> missingDependencies = new ArrayList<>();
-        Set<String> missingDependenciesPaths = new HashSet<>();
-        try {
-            List<DeploymentItemTO> deploymentItemList = new ArrayList<>();
-
-            logger.trace("Process item in site '{}' path '{}'", siteId, item.getPath());
-            DeploymentItemTO deploymentItem = publishingManager.processItem(item);
-            if (deploymentItem != null) {
-                deploymentItemList.add(deploymentItem);
-            }
-            logger.trace("Processing completed for item in site '{}' path '{}'", siteId, item.getPath());
-
-            if (isMandatoryDependenciesCheckEnabled()) {
-                logger.trace("Start mandatory dependency processing for site '{}' path '{}'",
-                        siteId, item.getPath());
-                missingDependencies.addAll(publishingManager
-                        .processMandatoryDependencies(item, processedPaths, missingDependenciesPaths));
-                logger.trace("Mandatory dependency processing for site '{}' path '{}' completed",
-                        siteId, item.getPath());
-            }
-            deploymentItemList.addAll(missingDependencies);
-            completeDeploymentItemList.addAll(deploymentItemList);
-        } catch (Exception e) {
-            logger.error("Failed to publish items from site '{}' to target '{}'", siteId, environment, e);
-
-            publishingManager.markItemsReady(siteId, environment, List.of(item));
-            siteService.enablePublishing(siteId, false);
-            siteService.updatePublishingStatus(siteId, ERROR);
-            throw e;
-        }
-    }
-
     private void deploy(String site, String environment, List<DeploymentItemTO> items, String author, String comment)
             throws DeploymentException, SiteNotFoundException {
         logger.trace("Publish '{}' items from site '{}' to target '{}' by author '{}' with comment '{}'",
                 items.size(), site, environment, author, comment);
         SiteFeed siteFeed = siteService.getSite(site);
+        List<String> environments = new ArrayList<>();
         if (servicesConfig.isStagingEnvironmentEnabled(site)) {
             String liveEnvironment = servicesConfig.getLiveEnvironment(site);
             if (StringUtils.equals(liveEnvironment, environment)) {
-                String stagingEnvironment = servicesConfig.getStagingEnvironment(site);
-                contentRepository.publish(site, siteFeed.getSandboxBranch(), items, stagingEnvironment, author, comment);
+                environments.add(servicesConfig.getStagingEnvironment(site));
             }
         }
-        contentRepository.publish(site, siteFeed.getSandboxBranch(), items, environment, author, comment);
+        environments.add(environment);
+        // staging and live are updated from the same resolved items
+        contentRepository.publishToEnvironments(site, siteFeed.getSandboxBranch(), items, environments, author,
+                comment);
     }
 
     protected void generateWorkflowActivity(String site, String environment, Set<String> packageIds, String username,
@@ -324,7 +294,7 @@ public class StudioPublisherTask extends StudioClockTask {
     }
 
     private Set<String> getAllPublishingEnvironments(String site) {
-        Set<String> environments = new HashSet<>();
+        Set<String> environments = new LinkedHashSet<>();
         environments.add(servicesConfig.getLiveEnvironment(site));
         if (servicesConfig.isStagingEnvironmentEnabled(site)) {
             environments.add(servicesConfig.getStagingEnvironment(site));
@@ -64,6 +64,7 @@ import org.eclipse.jgit.api.errors.EmptyCommitException;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.internal.storage.file.LockFile;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -73,6 +74,7 @@ import org.eclipse.jgit.revwalk.filter.*;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
@@ -96,6 +98,7 @@ import java.util.stream.Stream;
 import static java.lang.String.format;
 import static java.nio.file.StandardOpenOption.APPEND;
 import static java.time.ZoneOffset.UTC;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.collections4.CollectionUtils.union;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
@@ -505,58 +508,93 @@ public class GitContentRepository implements ContentRepository {
         return toReturn;
     }
 
+    @Override
+    public Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds) {
+        Map<String, List<RepoOperation>> operations = new LinkedHashMap<>();
+        Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+        if (repo == null || CollectionUtils.isEmpty(commitIds)) {
+            return operations;
+        }
+        long startMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0;
+        // A single reader is shared by the walk and the diffs, so pack files and trees are only opened once
+        try (ObjectReader reader = repo.newObjectReader();
+             RevWalk revWalk = new RevWalk(reader);
+             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diffFormatter.setReader(reader, repo.getConfig());
+            for (String commitId : commitIds) {
+                try {
+                    ObjectId objectId = repo.resolve(commitId);
+                    if (objectId == null || !reader.has(objectId)) {
+                        logger.debug("Commit ID '{}' doesn't exist in site '{}'", commitId, site);
+                        continue;
+                    }
+                    RevCommit commit = revWalk.parseCommit(objectId);
+                    if (commit.getParentCount() == 0) {
+                        operations.put(commitId, new ArrayList<>());
+                        continue;
+                    }
+                    RevCommit parent = revWalk.parseCommit(commit.getParent(0));
+                    List<DiffEntry> diffEntries = diffFormatter.scan(parent.getTree(), commit.getTree());
+                    operations.put(commitId, processDiffEntry(diffEntries, commit));
+                } catch (IOException e) {
+                    logger.error("Failed to get the operations for commit ID '{}' in site '{}'", commitId, site, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to get the operations for '{}' commits in site '{}'", commitIds.size(), site, e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Got the operations for '{}' commits in site '{}' in '{}' ms",
+                    commitIds.size(), site, System.currentTimeMillis() - startMark);
+        }
+        return operations;
+    }
+
     private List<RepoOperation> processDiffEntry(Git git, List<DiffEntry> diffEntries, ObjectId commitId)
             throws GitAPIException, IOException {
+        RevCommit revCommit;
+        try (RevWalk revWalk = new RevWalk(git.getRepository())) {
+            revCommit = revWalk.parseCommit(commitId);
+        }
+        if (revCommit == null) {
+            LogCommand logCommand = git.log().setMaxCount(1);
+            Iterable<RevCommit> iterable = retryingRepositoryOperationFacade.call(logCommand);
+            revCommit = iterable.iterator().next();
+        }
+        return processDiffEntry(diffEntries, revCommit);
+    }
+
+    private List<RepoOperation> processDiffEntry(List<DiffEntry> diffEntries, RevCommit revCommit) {
         int size = diffEntries.size();
         logger.debug("Process '{}' diff entries", size);
         long startMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0;
         List<RepoOperation> toReturn = new ArrayList<>();
 
-        int idx = 0;
+        ZonedDateTime commitTime = Instant.ofEpochSecond(revCommit.getCommitTime()).atZone(UTC);
+        String author = revCommit.getAuthorIdent().getName();
+        String commitId = revCommit.getId().getName();
+
         for (DiffEntry diffEntry : diffEntries) {
-            ++idx;
-            long startProcessEntryMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0;
             // Update the paths to have a preceding separator
             String pathNew = FILE_SEPARATOR + diffEntry.getNewPath();
             String pathOld = FILE_SEPARATOR + diffEntry.getOldPath();
 
             RepoOperation repoOperation = null;
-            Iterable<RevCommit> iterable;
-            RevCommit revCommit;
-            ZonedDateTime commitTime;
-            String author;
-
-            try (Repository repo = git.getRepository()) {
-                try (RevWalk revWalk = new RevWalk(repo)) {
-                    revCommit = revWalk.parseCommit(commitId);
-                }
-            }
-            if (revCommit == null) {
-                LogCommand logCommand = git.log().setMaxCount(1);
-                iterable = retryingRepositoryOperationFacade.call(logCommand);
-                revCommit = iterable.iterator().next();
-            }
-            commitTime = Instant.ofEpochSecond(revCommit.getCommitTime()).atZone(UTC);
-            author = revCommit.getAuthorIdent().getName();
-
             switch (diffEntry.getChangeType()) {
                 case ADD:
-                    repoOperation = new RepoOperation(CREATE, pathNew, commitTime, null,
-                            revCommit.getId().getName());
+                    repoOperation = new RepoOperation(CREATE, pathNew, commitTime, null, commitId);
                     break;
                 case MODIFY:
-                    repoOperation = new RepoOperation(UPDATE, pathNew, commitTime, null,
-                            revCommit.getId().getName());
+                    repoOperation = new RepoOperation(UPDATE, pathNew, commitTime, null, commitId);
                     break;
                 case DELETE:
-                    repoOperation = new RepoOperation(DELETE, pathOld, commitTime, null,
-                            revCommit.getId().getName());
+                    repoOperation = new RepoOperation(DELETE, pathOld, commitTime, null, commitId);
                     break;
                 case RENAME:
-                    repoOperation = new RepoOperation(MOVE, pathOld, commitTime, pathNew, commitId.getName());
+                    repoOperation = new RepoOperation(MOVE, pathOld, commitTime, pathNew, commitId);
                     break;
                 case COPY:
-                    repoOperation = new RepoOperation(COPY, pathNew, commitTime, null, commitId.getName());
+                    repoOperation = new RepoOperation(COPY, pathNew, commitTime, null, commitId);
                     break;
                 default:
                     logger.error("Unknown git operation '{}'", diffEntry.getChangeType());
@@ -772,9 +810,52 @@ public class GitContentRepository implements ContentRepository {
     @Override
     public void publish(String site, String sandboxBranch, List<DeploymentItemTO> deploymentItems, String environment,
                         String author, String comment) throws DeploymentException {
-        if (CollectionUtils.isEmpty(deploymentItems)) {
+        publishItems(site, sandboxBranch, deploymentItems, Collections.singletonList(environment), author, comment);
+    }
+
+    @Override
+    public void publishToEnvironments(String site, String sandboxBranch, List<DeploymentItemTO> deploymentItems,
+                                      List<String> environments, String author, String comment)
+            throws DeploymentException {
+        publishItems(site, sandboxBranch, deploymentItems, environments, author, comment);
+    }
+
+    /**
+     * Publishes the items to the given publishing targets, the last published date of the items is updated after
+     * the published repository has been unlocked
+     */
+    protected void publishItems(String site, String sandboxBranch, List<DeploymentItemTO> deploymentItems,
+                                List<String> environments, String author, String comment)
+            throws DeploymentException {
+        if (CollectionUtils.isEmpty(deploymentItems) || CollectionUtils.isEmpty(environments)) {
             return;
         }
+        PublishStats stats = new PublishStats();
+        doPublish(site, sandboxBranch, deploymentItems, environments, author, comment, stats);
+        long gitEnd = System.nanoTime();
+
+        // the git commit succeeded, the item table is updated outside of the lock using a single statement
+        if (!stats.publishedPaths.isEmpty()) {
+            itemServiceInternal.updateLastPublishedOnBulk(site, stats.publishedPaths, DateUtils.getCurrentTime());
+        }
+        long end = System.nanoTime();
+        logger.info("Published '{}' items of packages '{}' in site '{}' to targets '{}', git '{}' ms " +
+                        "(progress updates '{}' ms), database '{}' ms", stats.publishedPaths.size(),
+                deploymentItems.stream().map(DeploymentItemTO::getPackageId).distinct().collect(Collectors.toList()),
+                site, environments, NANOSECONDS.toMillis(gitEnd - stats.start),
+                NANOSECONDS.toMillis(stats.observerTime), NANOSECONDS.toMillis(end - gitEnd));
+    }
+
+    protected boolean isPublishInMemoryEnabled() {
+        return studioConfiguration.getProperty(REPO_PUBLISHED_IN_MEMORY_ENABLED, Boolean.class, false);
+    }
+
+    /**
+     * Updates the published repository while holding its lock, the changes to the database are only collected
+     */
+    protected void doPublish(String site, String sandboxBranch, List<DeploymentItemTO> deploymentItems,
+                             List<String> environments, String author, String comment, PublishStats stats)
+            throws DeploymentException {
         String commitId = EMPTY;
         String gitLockKey = helper.getPublishedRepoLockKey(site);
         generalLockService.lock(gitLockKey);
@@ -793,6 +874,18 @@ public class GitContentRepository implements ContentRepository {
             }
 
             try (Git git = new Git(repo)) {
+                // the working tree can only have one publishing target checked out at a time, the trees of several
+                // targets are always built in memory and only the last one is checked out
+                if (isPublishInMemoryEnabled() || environments.size() > 1) {
+                    publishInMemory(site, repo, git, sandboxBranchName, deploymentItems, environments, author,
+                            comment, stats);
+                    if (repoCreated) {
+                        siteService.setPublishedRepoCreated(site);
+                    }
+                    return;
+                }
+
+                String environment = environments.get(0);
                 String inProgressBranchName = environment + IN_PROGRESS_BRANCH_NAME_SUFFIX;
 
                 // fetch "origin/master"
@@ -883,41 +976,11 @@ public class GitContentRepository implements ContentRepository {
                 logger.debug("Checkout deployed files started for site '{}'", site);
                 AddCommand addCommand = git.add();
                 String currentPackageId = deploymentItems.get(0).getPackageId();
-                // TODO: SJ: Review the following code and refactor for better performance
-                // TODO: The logic should be something like:
-                // TODO: If item doesn't exist in git, the repo was reset and the commit ID doesn't mean anything
-                // TODO:   skip this file
-                // TODO: If the commit ID is null, use HEAD
-                // TODO: Publish the file
                 for (DeploymentItemTO deploymentItem : deploymentItems) {
-                    commitId = deploymentItem.getCommitId();
                     path = helper.getGitPath(deploymentItem.getPath());
-                    // If the commit ID is null OR the commit ID doesn't exist in the published repo
-                    if (Objects.isNull(commitId) || !commitIdExists(site, PUBLISHED, commitId)) {
-                        // If the content exists in the sandbox repository
-                        // TODO: The contentExists call is expensive, review
-                        // TODO: Why check the sandbox and not published/master from which we would be publishing
-                        if (contentExists(site, path)) {
-                            if (Objects.isNull(commitId)) {
-                                logger.warn("Commit ID is null for path '{}' site '{}'. This git repository " +
-                                        "may have been reset externally at some point.", path, site);
-                            } else {
-                                logger.warn("Commit ID '{}' in the database doesn't exist for " +
-                                                "path '{}' site '{}' in the git repository. " +
-                                                "This git repository may have been reset at some point.",
-                                        commitId, path, site);
-                            }
-                            // Log that we're publishing from HEAD
-                            logger.info("The commit ID for path '{}' site '{}' is null, using HEAD instead",
-                                    path, site);
-                            // Set the commit ID to head
-                            commitId = getRepoLastCommitId(site);
-                        } else {
-                            // The content doesn't exist in the sandbox, skip publishing it
-                            logger.warn("Path '{}' in site '{}' doesn't exist in git, skip " +
-                                    "the publishing of this item.", path, site);
-                            continue;
-                        }
+                    commitId = resolvePublishCommitId(site, deploymentItem);
+                    if (Objects.isNull(commitId)) {
+                        continue;
                     }
                     // The commit ID is not null and the content exists in the published repository OR
                     // The commit ID was null and it was set to HEAD to avoid the null issue
@@ -952,15 +1015,9 @@ public class GitContentRepository implements ContentRepository {
                     }
 
                     addCommand.addFilepattern(path);
-                    itemServiceInternal.updateLastPublishedOn(site, deploymentItem.getPath(),
-                            DateUtils.getCurrentTime());
+                    stats.publishedPaths.add(deploymentItem.getPath());
 
-                    if (!StringUtils.equals(currentPackageId, deploymentItem.getPackageId())) {
-                        currentPackageId = deploymentItem.getPackageId();
-                        publishingProgressServiceInternal.updateObserver(site, currentPackageId);
-                    } else {
-                        publishingProgressServiceInternal.updateObserver(site);
-                    }
+                    currentPackageId = updatePublishingProgress(site, currentPackageId, deploymentItem, stats);
                 } // end of for loop
 
                 // All deployable files are now checked out in the temporary in-progress publishing branch
@@ -976,48 +1033,20 @@ public class GitContentRepository implements ContentRepository {
                 retryingRepositoryOperationFacade.call(addCommand);
                 logger.debug("Git add all published items completed in site '{}'", site);
 
-                commitMessage = commitMessage.replace("{username}", author);
-                commitMessage =
-                        commitMessage.replace("{datetime}",
-                                DateUtils.getCurrentTime().format(
-                                        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HHmmssSSSX")));
-                commitMessage = commitMessage.replace("{source}", "UI");
-                commitMessage = commitMessage.replace("{message}", comment);
-                StringBuilder sb = new StringBuilder();
-                for (String c : deployedCommits) {
-                    sb.append(c).append(" ");
-                }
-                StringBuilder sbPackage = new StringBuilder();
-                for (String p : deployedPackages) {
-                    sbPackage.append(p).append(" ");
-                }
-                commitMessage = commitMessage.replace("{commit_id}", sb.toString().trim());
-                commitMessage = commitMessage.replace("{package_id}", sbPackage.toString().trim());
-
-                String prologue = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_PROLOGUE);
-                String postscript = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_POSTSCRIPT);
-                StringBuilder sbCommitMessage = new StringBuilder();
-                if (StringUtils.isNotEmpty(prologue)) {
-                    sbCommitMessage.append(prologue).append("\n\n");
-                }
-                sbCommitMessage.append(commitMessage);
-                if (StringUtils.isNotEmpty(postscript)) {
-                    sbCommitMessage.append("\n\n").append(postscript);
-                }
+                commitMessage = buildPublishCommitMessage(commitMessage, author, comment, deployedCommits,
+                        deployedPackages);
 
                 logger.debug("Git commit all published items for site '{}' started", site);
                 CommitCommand commitCommand =
-                        git.commit().setMessage(sbCommitMessage.toString()).setAuthor(authorIdent);
+                        git.commit().setMessage(addCommitMessagePrologueAndPostscript(commitMessage))
+                                .setAuthor(authorIdent);
                 RevCommit revCommit = retryingRepositoryOperationFacade.call(commitCommand);
                 logger.debug("Git commit all published items for site '{}' completed", site);
 
                 int commitTime = revCommit.getCommitTime();
 
                 // tag
-                ZonedDateTime tagDate2 = Instant.ofEpochSecond(commitTime).atZone(UTC);
-                String publishDate = DateUtils.formatCurrentTime("yyyy-MM-dd'T'HHmmssSSSX");
-                String tagName2 = DateUtils.formatDate(tagDate2, "yyyy-MM-dd'T'HHmmssSSSX") +
-                        "_published_on_" + publishDate;
+                String tagName2 = getPublishTagName(commitTime);
                 PersonIdent authorIdent2 = helper.getAuthorIdent(user);
 
                 logger.debug("Git tag started for site '{}'", site);
@@ -1047,15 +1076,344 @@ public class GitContentRepository implements ContentRepository {
                 }
             }
         } catch (Exception e) {
-            logger.error("Failed to publish site '{}' to publishing target '{}' commit ID is '{}'",
-                    site, environment, commitId, e);
-            throw new DeploymentException(format("Failed to publish site '%s' to publishing target " +
-                            "'%s' commit ID is '%s'", site, environment, commitId), e);
+            logger.error("Failed to publish site '{}' to publishing targets '{}' commit ID is '{}'",
+                    site, environments, commitId, e);
+            throw new DeploymentException(format("Failed to publish site '%s' to publishing targets " +
+                            "'%s' commit ID is '%s'", site, environments, commitId), e);
         } finally {
             generalLockService.unlock(gitLockKey);
         }
     }
 
+    protected String updatePublishingProgress(String site, String currentPackageId, DeploymentItemTO deploymentItem,
+                                              PublishStats stats) {
+        long start = System.nanoTime();
+        try {
+            if (!StringUtils.equals(currentPackageId, deploymentItem.getPackageId())) {
+                currentPackageId = deploymentItem.getPackageId();
+                publishingProgressServiceInternal.updateObserver(site, currentPackageId);
+            } else {
+                publishingProgressServiceInternal.updateObserver(site);
+            }
+        } finally {
+            stats.observerTime += System.nanoTime() - start;
+        }
+        return currentPackageId;
+    }
+
+    /**
+     * Publishes the given items building the new tree of each publishing target directly from the object database.
+     * The result is the same history created by the regular publishing process: the in-progress branch starts at
+     * the publishing target and is always fast-forwarded into it, so the publishing target ends at a commit with the
+     * previous one as its only parent. The items are resolved only once and applied to the trees of all the given
+     * publishing targets in the same pass, and a single tag is created for the whole publish. Once all the branches
+     * are updated the last publishing target is checked out, same as the regular process, so only the files that
+     * changed are written to the working tree and index. Publishing to several targets always uses this method.
+     */
+    protected void publishInMemory(String site, Repository repo, Git git, String sandboxBranchName,
+                                   List<DeploymentItemTO> deploymentItems, List<String> environments, String author,
+                                   String comment, PublishStats stats)
+            throws GitAPIException, IOException, ServiceLayerException, UserNotFoundException {
+        long startTime = System.currentTimeMillis();
+
+        // fetch "origin/master", this only updates the object database and the remote tracking branches
+        logger.debug("Fetch from sandbox in site '{}'", site);
+        retryingRepositoryOperationFacade.call(git.fetch());
+
+        // the working tree is not updated until the end, so the branches that will change can't be checked out
+        List<String> updatedBranches = new ArrayList<>(environments);
+        updatedBranches.add(sandboxBranchName);
+        detachHeadIfNeeded(repo, updatedBranches.toArray(new String[0]));
+
+        try (ObjectInserter inserter = repo.newObjectInserter();
+             ObjectReader reader = inserter.newReader();
+             RevWalk revWalk = new RevWalk(reader)) {
+            RevCommit sandboxCommit = updateSandboxBranch(repo, revWalk, inserter, sandboxBranchName);
+
+            Map<String, Ref> environmentRefs = new LinkedHashMap<>();
+            Map<String, RevCommit> environmentCommits = new LinkedHashMap<>();
+            Map<String, PublishedTreeEditor> trees = new LinkedHashMap<>();
+            for (String environment : environments) {
+                Ref environmentRef = repo.exactRef(R_HEADS + environment);
+                RevCommit environmentCommit;
+                if (environmentRef == null) {
+                    logger.info("Unable to find the publishing target branch '{}' in site '{}'. " +
+                            "Create a new branch.", environment, site);
+                    // the new branch starts with an empty commit, only the root .gitignore is kept
+                    PublishedTreeEditor initialTree = new PublishedTreeEditor(reader);
+                    initialTree.checkout(sandboxCommit.getTree(), DOT_GIT_IGNORE);
+                    CommitBuilder initialCommit = new CommitBuilder();
+                    initialCommit.setTreeId(initialTree.writeTree(inserter));
+                    initialCommit.setAuthor(new PersonIdent(repo));
+                    initialCommit.setCommitter(new PersonIdent(repo));
+                    initialCommit.setMessage(helper.getCommitMessage(REPO_INITIAL_COMMIT_COMMIT_MESSAGE));
+                    environmentCommit = revWalk.parseCommit(inserter.insert(initialCommit));
+                } else {
+                    environmentCommit = revWalk.parseCommit(environmentRef.getObjectId());
+                }
+                PublishedTreeEditor tree = new PublishedTreeEditor(reader);
+                tree.load(environmentCommit.getTree());
+
+                environmentRefs.put(environment, environmentRef);
+                environmentCommits.put(environment, environmentCommit);
+                trees.put(environment, tree);
+            }
+
+            Map<String, RevTree> commitTrees = new HashMap<>();
+            Set<String> deployedCommits = new HashSet<>();
+            Set<String> deployedPackages = new HashSet<>();
+            String currentPackageId = deploymentItems.get(0).getPackageId();
+            logger.debug("Build the published trees started for site '{}'", site);
+            for (DeploymentItemTO deploymentItem : deploymentItems) {
+                String commitId = resolvePublishCommitId(site, deploymentItem);
+                if (Objects.isNull(commitId)) {
+                    continue;
+                }
+                String path = helper.getGitPath(deploymentItem.getPath());
+                logger.debug("Publish path '{}' site '{}' commit ID '{}'", path, site, commitId);
+
+                RevTree commitTree = commitTrees.get(commitId);
+                if (commitTree == null) {
+                    commitTree = revWalk.parseCommit(repo.resolve(commitId)).getTree();
+                    commitTrees.put(commitId, commitTree);
+                }
+                for (PublishedTreeEditor tree : trees.values()) {
+                    tree.checkout(commitTree, path);
+
+                    if (deploymentItem.isMove() &&
+                            !StringUtils.equals(deploymentItem.getPath(), deploymentItem.getOldPath())) {
+                        tree.move(helper.getGitPath(deploymentItem.getOldPath()));
+                    }
+                    if (deploymentItem.isDelete()) {
+                        tree.delete(path);
+                    }
+                }
+
+                deployedCommits.add(commitId);
+                String packageId = deploymentItem.getPackageId();
+                if (StringUtils.isNotEmpty(packageId)) {
+                    deployedPackages.add(packageId);
+                }
+                stats.publishedPaths.add(deploymentItem.getPath());
+
+                currentPackageId = updatePublishingProgress(site, currentPackageId, deploymentItem, stats);
+            }
+            logger.debug("Build the published trees completed for site '{}'", site);
+
+            User user = userServiceInternal.getUserByIdOrUsername(-1, author);
+            PersonIdent authorIdent = helper.getAuthorIdent(user);
+            String commitMessage = buildPublishCommitMessage(
+                    studioConfiguration.getProperty(REPO_PUBLISHED_COMMIT_MESSAGE), author, comment,
+                    deployedCommits, deployedPackages);
+
+            RevCommit lastCommit = null;
+            for (String environment : environments) {
+                Ref environmentRef = environmentRefs.get(environment);
+
+                CommitBuilder publishCommit = new CommitBuilder();
+                publishCommit.setTreeId(trees.get(environment).writeTree(inserter));
+                publishCommit.setParentId(environmentCommits.get(environment));
+                publishCommit.setAuthor(authorIdent);
+                publishCommit.setCommitter(new PersonIdent(repo));
+                publishCommit.setMessage(addCommitMessagePrologueAndPostscript(commitMessage));
+                RevCommit revCommit = revWalk.parseCommit(inserter.insert(publishCommit));
+                inserter.flush();
+
+                logger.debug("Update the publishing target branch '{}' for site '{}'", environment, site);
+                updateRef(repo, R_HEADS + environment,
+                        environmentRef == null ? ObjectId.zeroId() : environmentRef.getObjectId(), revCommit,
+                        "publish: " + revCommit.getShortMessage());
+                lastCommit = revCommit;
+            }
+
+            // a single tag for the whole publish, on the commit of the publishing target that will be checked out
+            String tagName = getPublishTagName(lastCommit.getCommitTime());
+            TagBuilder tag = new TagBuilder();
+            tag.setTag(tagName);
+            tag.setObjectId(lastCommit);
+            tag.setTagger(helper.getAuthorIdent(user));
+            tag.setMessage(commitMessage);
+            ObjectId tagId = inserter.insert(tag);
+            inserter.flush();
+            updateRef(repo, R_TAGS + tagName, ObjectId.zeroId(), tagId, "tagged " + tagName);
+        }
+
+        // leave the repository as the regular process does, with the last publishing target checked out
+        String lastEnvironment = environments.get(environments.size() - 1);
+        logger.debug("Checkout publishing target branch '{}' for site '{}'", lastEnvironment, site);
+        try {
+            retryingRepositoryOperationFacade.call(git.checkout().setName(lastEnvironment).setForced(true));
+        } catch (GitAPIException e) {
+            // the branches are already published, the next publish will checkout a publishing target again
+            logger.error("Failed to checkout the publishing target branch '{}' in site '{}' after publishing",
+                    lastEnvironment, site, e);
+        }
+
+        logger.debug("Published '{}' items without working tree to targets '{}' in site '{}' in '{}' ms",
+                deploymentItems.size(), environments, site, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Detaches HEAD if it points to one of the given branches, so the working tree and index stay consistent with
+     * HEAD when those branches are updated without a checkout
+     */
+    protected void detachHeadIfNeeded(Repository repo, String... branches) throws IOException {
+        Ref head = repo.exactRef(HEAD);
+        if (head == null || !head.isSymbolic() || head.getObjectId() == null) {
+            return;
+        }
+        String target = head.getTarget().getName();
+        if (Stream.of(branches).anyMatch(branch -> StringUtils.equals(target, R_HEADS + branch))) {
+            logger.debug("Detach HEAD from branch '{}' in repository '{}'", target, repo.getDirectory());
+            RefUpdate refUpdate = repo.updateRef(HEAD, true);
+            refUpdate.setNewObjectId(head.getObjectId());
+            checkRefUpdate(HEAD, refUpdate.forceUpdate());
+        }
+    }
+
+    /**
+     * Equivalent of pulling the sandbox branch using the {@code theirs} strategy, without a checkout
+     * @return the resulting commit of the sandbox branch
+     */
+    protected RevCommit updateSandboxBranch(Repository repo, RevWalk revWalk, ObjectInserter inserter,
+                                            String sandboxBranchName) throws IOException, GitAPIException {
+        String remoteBranch = R_REMOTES + DEFAULT_REMOTE_NAME + FILE_SEPARATOR + sandboxBranchName;
+        Ref remoteRef = repo.exactRef(remoteBranch);
+        if (remoteRef == null) {
+            throw new RefNotFoundException(format("Remote branch '%s' not found in repository '%s'",
+                    remoteBranch, repo.getDirectory()));
+        }
+        RevCommit remoteCommit = revWalk.parseCommit(remoteRef.getObjectId());
+        String localBranch = R_HEADS + sandboxBranchName;
+        Ref localRef = repo.exactRef(localBranch);
+        if (localRef == null) {
+            updateRef(repo, localBranch, ObjectId.zeroId(), remoteCommit, "branch: Created from " + remoteBranch);
+            return remoteCommit;
+        }
+
+        RevCommit localCommit = revWalk.parseCommit(localRef.getObjectId());
+        if (revWalk.isMergedInto(remoteCommit, localCommit)) {
+            return localCommit;
+        }
+        if (revWalk.isMergedInto(localCommit, remoteCommit)) {
+            updateRef(repo, localBranch, localCommit, remoteCommit, "pull: Fast-forward");
+            return remoteCommit;
+        }
+
+        // the branches diverged, merge taking the tree from the sandbox (same as the theirs strategy)
+        String remoteUrl = repo.getConfig().getString("remote", DEFAULT_REMOTE_NAME, "url");
+        CommitBuilder mergeCommit = new CommitBuilder();
+        mergeCommit.setTreeId(remoteCommit.getTree());
+        mergeCommit.setParentIds(localCommit, remoteCommit);
+        mergeCommit.setAuthor(new PersonIdent(repo));
+        mergeCommit.setCommitter(new PersonIdent(repo));
+        mergeCommit.setMessage(format("Merge branch '%s' of %s", sandboxBranchName, remoteUrl));
+        RevCommit merged = revWalk.parseCommit(inserter.insert(mergeCommit));
+        inserter.flush();
+        updateRef(repo, localBranch, localCommit, merged, "pull: Merge made by the 'theirs' strategy.");
+        return merged;
+    }
+
+    protected void updateRef(Repository repo, String name, AnyObjectId expectedOldId, AnyObjectId newId,
+                             String refLogMessage) throws IOException {
+        RefUpdate refUpdate = repo.updateRef(name);
+        refUpdate.setExpectedOldObjectId(expectedOldId);
+        refUpdate.setNewObjectId(newId);
+        refUpdate.setRefLogMessage(refLogMessage, false);
+        checkRefUpdate(name, refUpdate.update());
+    }
+
+    protected void checkRefUpdate(String name, RefUpdate.Result result) throws IOException {
+        switch (result) {
+            case NEW:
+            case FORCED:
+            case FAST_FORWARD:
+            case NO_CHANGE:
+                break;
+            default:
+                throw new IOException(format("Failed to update ref '%s', result was '%s'", name, result));
+        }
+    }
+
+    /**
+     * Resolves the sandbox commit that should be used to publish the given item
+     * @param site the site id
+     * @param deploymentItem the item to publish
+     * @return the commit id or null if the item should be skipped
+     */
+    protected String resolvePublishCommitId(String site, DeploymentItemTO deploymentItem) {
+        String commitId = deploymentItem.getCommitId();
+        String path = helper.getGitPath(deploymentItem.getPath());
+        // The common case only needs a lookup of the commit in the published repo, which already fetched the sandbox
+        if (Objects.isNull(commitId) || !commitIdExists(site, PUBLISHED, commitId)) {
+            // The repo was reset and the commit ID doesn't mean anything, the item will be published from the sandbox
+            // HEAD so that is where it needs to exist. The tree walk is only done for items in this situation
+            if (contentExists(site, path)) {
+                if (Objects.isNull(commitId)) {
+                    logger.warn("Commit ID is null for path '{}' site '{}'. This git repository " +
+                            "may have been reset externally at some point.", path, site);
+                } else {
+                    logger.warn("Commit ID '{}' in the database doesn't exist for " +
+                                    "path '{}' site '{}' in the git repository. " +
+                                    "This git repository may have been reset at some point.",
+                            commitId, path, site);
+                }
+                // Log that we're publishing from HEAD
+                logger.info("The commit ID for path '{}' site '{}' is null, using HEAD instead",
+                        path, site);
+                // Set the commit ID to head
+                commitId = getRepoLastCommitId(site);
+            } else {
+                // The content doesn't exist in the sandbox, skip publishing it
+                logger.warn("Path '{}' in site '{}' doesn't exist in git, skip " +
+                        "the publishing of this item.", path, site);
+                return null;
+            }
+        }
+        return commitId;
+    }
+
+    protected String buildPublishCommitMessage(String template, String author, String comment,
+                                               Set<String> deployedCommits, Set<String> deployedPackages) {
+        String commitMessage = template.replace("{username}", author);
+        commitMessage =
+                commitMessage.replace("{datetime}",
+                        DateUtils.getCurrentTime().format(
+                                DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HHmmssSSSX")));
+        commitMessage = commitMessage.replace("{source}", "UI");
+        commitMessage = commitMessage.replace("{message}", comment);
+        StringBuilder sb = new StringBuilder();
+        for (String c : deployedCommits) {
+            sb.append(c).append(" ");
+        }
+        StringBuilder sbPackage = new StringBuilder();
+        for (String p : deployedPackages) {
+            sbPackage.append(p).append(" ");
+        }
+        commitMessage = commitMessage.replace("{commit_id}", sb.toString().trim());
+        return commitMessage.replace("{package_id}", sbPackage.toString().trim());
+    }
+
+    protected String addCommitMessagePrologueAndPostscript(String commitMessage) {
+        String prologue = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_PROLOGUE);
+        String postscript = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_POSTSCRIPT);
+        StringBuilder sbCommitMessage = new StringBuilder();
+        if (StringUtils.isNotEmpty(prologue)) {
+            sbCommitMessage.append(prologue).append("\n\n");
+        }
+        sbCommitMessage.append(commitMessage);
+        if (StringUtils.isNotEmpty(postscript)) {
+            sbCommitMessage.append("\n\n").append(postscript);
+        }
+        return sbCommitMessage.toString();
+    }
+
+    protected String getPublishTagName(int commitTime) {
+        ZonedDateTime tagDate = Instant.ofEpochSecond(commitTime).atZone(UTC);
+        String publishDate = DateUtils.formatCurrentTime("yyyy-MM-dd'T'HHmmssSSSX");
+        return DateUtils.formatDate(tagDate, "yyyy-MM-dd'T'HHmmssSSSX") + "_published_on_" + publishDate;
+    }
+
     protected void resetIfNeeded(Repository repo, Git git) throws IOException, GitAPIException {
         String currentBranch = repo.getBranch();
         if (currentBranch.endsWith(IN_PROGRESS_BRANCH_NAME_SUFFIX)) {
@@ -1365,8 +1723,7 @@ public class GitContentRepository implements ContentRepository {
 
     @Override
     public Item getItem(String siteId, String path, boolean flatten) {
-        var context = contextManager.getContext(siteId);
-        return contentStoreService.getItem(context, null, path, null, flatten);
+        return contextManager.getItem(siteId, path, flatten);
     }
 
     @Override
@@ -1539,6 +1896,23 @@ public class GitContentRepository implements ContentRepository {
         }
     }
 
+    @Override
+    public void markGitLogAuditedBulk(String siteId, List<String> commitIds) {
+        if (CollectionUtils.isNotEmpty(commitIds)) {
+            String lockKey = "GitLogLock:" + siteId;
+            generalLockService.lock(lockKey);
+            try {
+                int batchSize = studioUtils.getBulkOperationsBatchSize();
+                for (int i = 0; i < commitIds.size(); i += batchSize) {
+                    List<String> part = commitIds.subList(i, Math.min(i + batchSize, commitIds.size()));
+                    retryingDatabaseOperationFacade.retry(() -> gitLogDao.markGitLogAuditedBulk(siteId, part, 1));
+                }
+            } finally {
+                generalLockService.unlock(lockKey);
+            }
+        }
+    }
+
     @Override
     public void updateGitlog(String siteId, String lastProcessedCommitId, int batchSize) {
         RingBuffer<RevCommit> commitIds = new RingBuffer<>(batchSize);
@@ -1612,6 +1986,11 @@ public class GitContentRepository implements ContentRepository {
         return gitLogDao.getUnauditedCommits(siteId, batchSize);
     }
 
+    @Override
+    public int countUnauditedCommits(String siteId) {
+        return gitLogDao.countUnauditedCommits(siteId);
+    }
+
     @Override
     public List<GitLog> getUnprocessedCommits(String siteId, long marker) {
         return gitLogDao.getUnprocessedCommitsSinceMarker(siteId, marker);
@@ -2126,4 +2505,15 @@ public class GitContentRepository implements ContentRepository {
         this.scriptRunnerFactory = scriptRunnerFactory;
     }
 
+    /**
+     * Changes collected while publishing a list of items, they are applied once the publishing commit exists
+     */
+    protected static class PublishStats {
+
+        protected final long start = System.nanoTime();
+        protected final List<String> publishedPaths = new ArrayList<>();
+        protected long observerTime;
+
+    }
+
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+
+import java.io.IOException;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.INDEX_FILE;
+import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.EMPTY_FILE;
+
+/**
+ * In-memory copy of a published branch tree. It supports the same operations the publisher performs on the
+ * working tree of the published repository (checkout of paths from a sandbox commit, removal of deleted or moved
+ * items and clean up of their parent folders) so a new tree can be written directly to the object database.
+ *
+ * <p>Paths are git paths (relative to the root of the repository, without a leading separator).</p>
+ *
+ * @since 4.1.0
+ */
+public class PublishedTreeEditor {
+
+    private static final String INDEX_FILE_SUFFIX = FILE_SEPARATOR + INDEX_FILE;
+
+    /**
+     * Tree entries keyed by path. A {@link TreeMap} keeps the entries of a folder contiguous so they can be
+     * found with a range lookup.
+     */
+    private final NavigableMap<String, DirCacheEntry> entries = new TreeMap<>();
+
+    private final ObjectReader reader;
+
+    public PublishedTreeEditor(ObjectReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Loads all the files from the given tree, replacing any existing entries
+     * @param treeId the id of the tree to load
+     * @throws IOException if there is any error reading the tree
+     */
+    public void load(AnyObjectId treeId) throws IOException {
+        entries.clear();
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(treeId);
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                put(treeWalk.getPathString(), treeWalk.getFileMode(0), treeWalk.getObjectId(0));
+            }
+        }
+    }
+
+    /**
+     * Equivalent of {@code git checkout <commit> -- <path>}: copies the file, or all the files of the folder, found
+     * at the given path in the given tree
+     * @param treeId the id of the tree of the commit to checkout from
+     * @param path the path to checkout
+     * @return true if the path was found in the tree
+     * @throws IOException if there is any error reading the tree
+     */
+    public boolean checkout(AnyObjectId treeId, String path) throws IOException {
+        try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, treeId)) {
+            if (treeWalk == null) {
+                return false;
+            }
+            if (!treeWalk.isSubtree()) {
+                put(path, treeWalk.getFileMode(0), treeWalk.getObjectId(0));
+                return true;
+            }
+        }
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(treeId);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilter.create(path));
+            while (treeWalk.next()) {
+                put(treeWalk.getPathString(), treeWalk.getFileMode(0), treeWalk.getObjectId(0));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Equivalent of {@code git rm -r <path>}
+     * @param path the path of the file or folder to remove
+     */
+    public void remove(String path) {
+        entries.remove(path);
+        getEntriesWithin(path).clear();
+    }
+
+    /**
+     * Removes a deleted item and, depending on the contents of the parent folder, the folder itself.
+     * @param path the path of the deleted item
+     */
+    public void delete(String path) {
+        remove(path);
+        String parent = getParent(path);
+        if (parent != null) {
+            deleteParentFolder(parent, path.endsWith(INDEX_FILE_SUFFIX));
+        }
+    }
+
+    /**
+     * Removes the old path of a moved item and cleans up all the folders that become empty.
+     * @param oldPath the path of the item before the move
+     */
+    public void move(String oldPath) {
+        remove(oldPath);
+        cleanUpMoveFolders(oldPath);
+    }
+
+    /**
+     * Indicates if the given folder contains any file
+     * @param folder the path of the folder
+     * @return true if there is at least one file inside the folder
+     */
+    public boolean folderExists(String folder) {
+        return !getEntriesWithin(folder).isEmpty();
+    }
+
+    /**
+     * Indicates if the given file is part of the tree
+     * @param path the path of the file
+     * @return true if the file exists
+     */
+    public boolean fileExists(String path) {
+        return entries.containsKey(path);
+    }
+
+    /**
+     * @return the number of files in the tree
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the current tree and all its subtrees
+     * @param inserter the inserter used to write the tree objects
+     * @return the id of the root tree
+     * @throws IOException if there is any error writing the tree objects
+     */
+    public ObjectId writeTree(ObjectInserter inserter) throws IOException {
+        DirCache dirCache = DirCache.newInCore();
+        DirCacheBuilder builder = dirCache.builder();
+        entries.values().forEach(builder::add);
+        builder.finish();
+        return dirCache.writeTree(inserter);
+    }
+
+    protected void cleanUpMoveFolders(String path) {
+        String parent = getParent(path);
+        if (parent == null) {
+            return;
+        }
+        deleteParentFolder(parent, path.endsWith(INDEX_FILE_SUFFIX));
+        if (!folderExists(parent)) {
+            cleanUpMoveFolders(parent);
+        }
+    }
+
+    /**
+     * Removes the given folder if it belonged to a page or if it only contains the empty placeholder file
+     */
+    protected void deleteParentFolder(String folder, boolean wasPage) {
+        SortedMap<String, DirCacheEntry> children = getEntriesWithin(folder);
+        if (children.isEmpty()) {
+            return;
+        }
+        if (!wasPage) {
+            String prefix = folder + FILE_SEPARATOR;
+            int files = 0;
+            boolean onlyEmptyFile = true;
+            for (String child : children.keySet()) {
+                String name = child.substring(prefix.length());
+                if (name.contains(FILE_SEPARATOR)) {
+                    // the folder has subfolders, keep it
+                    return;
+                }
+                files++;
+                onlyEmptyFile = onlyEmptyFile && StringUtils.equals(name, EMPTY_FILE);
+            }
+            if (files > 1 || !onlyEmptyFile) {
+                return;
+            }
+        }
+        children.clear();
+    }
+
+    protected SortedMap<String, DirCacheEntry> getEntriesWithin(String folder) {
+        // '0' is the character that follows '/', so this covers every path that starts with "folder/"
+        return entries.subMap(folder + FILE_SEPARATOR, folder + '0');
+    }
+
+    protected void put(String path, FileMode mode, ObjectId objectId) {
+        DirCacheEntry entry = new DirCacheEntry(path);
+        entry.setFileMode(mode);
+        entry.setObjectId(objectId);
+        entries.put(path, entry);
+    }
+
+    protected static String getParent(String path) {
+        int idx = path.lastIndexOf(FILE_SEPARATOR);
+        return idx > 0 ? path.substring(0, idx) : null;
+    }
+
+}
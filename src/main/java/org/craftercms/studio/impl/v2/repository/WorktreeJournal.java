@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Paths of each site that have been written to the sandbox worktree and could have uncommitted changes. The
+ * repository records the paths before committing them, so writes whose commit fails are included too. Sites without
+ * a journal have not been scanned yet.
+ *
+ * @since 4.1.0
+ */
+public class WorktreeJournal {
+
+    /**
+     * Git path of the root of the repository
+     */
+    public static final String ROOT_PATH = ".";
+
+    protected final ConcurrentMap<String, Set<String>> journals = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the paths of the journal of the site
+     * @param siteId the id of the site
+     * @return the paths, or null if the worktree of the site has not been scanned yet
+     */
+    public Set<String> getPaths(String siteId) {
+        return journals.get(siteId);
+    }
+
+    /**
+     * Starts the journal of the site with the paths found by a scan of the whole worktree
+     * @param siteId the id of the site
+     * @param dirtyPaths the git paths that are not clean
+     */
+    public void start(String siteId, Collection<String> dirtyPaths) {
+        Set<String> journal = ConcurrentHashMap.newKeySet();
+        journal.addAll(dirtyPaths);
+        Set<String> existingJournal = journals.putIfAbsent(siteId, journal);
+        if (existingJournal != null) {
+            existingJournal.addAll(journal);
+        }
+    }
+
+    /**
+     * Adds the given path to the journal of the site, so it is included in the next status check
+     * @param siteId the id of the site
+     * @param gitPath the git path that has been written
+     */
+    public void add(String siteId, String gitPath) {
+        Set<String> journal = journals.get(siteId);
+        if (journal == null) {
+            // the next status check will scan the whole worktree anyway
+            return;
+        }
+        if (ROOT_PATH.equals(gitPath)) {
+            reset(siteId);
+        } else {
+            journal.add(gitPath);
+        }
+    }
+
+    /**
+     * Removes the journal of the site, the next status check will scan the whole worktree
+     * @param siteId the id of the site
+     */
+    public void reset(String siteId) {
+        journals.remove(siteId);
+    }
+
+}
@@ -168,6 +168,20 @@ public class BlobAwareContentRepository implements ContentRepository,
         }
     }
 
+    @Override
+    public Set<String> getExistingPaths(String site, Collection<String> paths) {
+        logger.debug("Check if '{}' paths exist in site '{}'", paths.size(), site);
+        Set<String> localPaths = localRepositoryV1.getExistingPaths(site, paths);
+        Set<String> existingPaths = new LinkedHashSet<>();
+        for (String path : paths) {
+            // Only the paths missing from git need to be checked for blob pointers
+            if (localPaths.contains(path) || contentExists(site, path)) {
+                existingPaths.add(path);
+            }
+        }
+        return existingPaths;
+    }
+
     @Override
     public void checkContentExists(String site, String path) throws ServiceLayerException {
         if (!isFolder(site, path) && pointersExist(site, path)) {
@@ -280,6 +294,21 @@ public class BlobAwareContentRepository implements ContentRepository,
         }
     }
 
+    @Override
+    public void startWriteBatch(String site) throws ServiceLayerException {
+        localRepositoryV1.startWriteBatch(site);
+    }
+
+    @Override
+    public Map<String, String> commitWriteBatch(String site, String fromPath, String toPath)
+            throws ServiceLayerException {
+        // the blob stores write directly, only the pointers are part of the batch
+        Map<String, String> commitIds = new LinkedHashMap<>();
+        localRepositoryV1.commitWriteBatch(site, fromPath, toPath)
+                .forEach((path, commitId) -> commitIds.put(getOriginalPath(path), commitId));
+        return commitIds;
+    }
+
     @Override
     public String deleteContent(String site, String path, String approver) {
         logger.debug("Delete content in site '{}' path '{}'", site, path);
@@ -534,7 +563,15 @@ public class BlobAwareContentRepository implements ContentRepository,
     @Override
     public void publish(String site, String sandboxBranch, List<DeploymentItemTO> deploymentItems, String environment,
                         String author, String comment) throws DeploymentException {
-        logger.debug("Publish the items '{}' in site '{}' to target '{}'", deploymentItems, site, environment);
+        publishToEnvironments(site, sandboxBranch, deploymentItems, Collections.singletonList(environment), author,
+                comment);
+    }
+
+    @Override
+    public void publishToEnvironments(String site, String sandboxBranch, List<DeploymentItemTO> deploymentItems,
+                                      List<String> environments, String author, String comment)
+            throws DeploymentException {
+        logger.debug("Publish the items '{}' in site '{}' to targets '{}'", deploymentItems, site, environments);
         Map<String, StudioBlobStore> stores = new LinkedHashMap<>();
         MultiValueMap<String, DeploymentItemTO> items = new LinkedMultiValueMap<>();
         List<DeploymentItemTO> localItems = new LinkedList<>();
@@ -553,17 +590,26 @@ public class BlobAwareContentRepository implements ContentRepository,
                 }
                 localItems.add(item);
             }
-            for (String storeId : stores.keySet()) {
-                logger.trace("Publish the blobs in site '{}' to target '{}' using the store '{}'",
-                        site, environment, storeId);
-                stores.get(storeId).publish(site, sandboxBranch, items.get(storeId), environment, author, comment);
+            for (String environment : environments) {
+                for (String storeId : stores.keySet()) {
+                    logger.trace("Publish the blobs in site '{}' to target '{}' using the store '{}'",
+                            site, environment, storeId);
+                    stores.get(storeId).publish(site, sandboxBranch, items.get(storeId), environment, author,
+                            comment);
+                }
+            }
+            logger.debug("Publish the local files in site '{}' to targets '{}'", site, environments);
+            if (environments.size() == 1) {
+                localRepositoryV2.publish(site, sandboxBranch, localItems, environments.get(0), author, comment);
+            } else {
+                // the local repository builds the changes once for all the targets
+                localRepositoryV2.publishToEnvironments(site, sandboxBranch, localItems, environments, author,
+                        comment);
             }
-            logger.debug("Publish the local files in site '{}' to target '{}'", site, environment);
-            localRepositoryV2.publish(site, sandboxBranch, localItems, environment, author, comment);
         } catch (Exception e) {
-            logger.error("Failed to publish items in site '{}' to target '{}'", site, environment, e);
-            throw new DeploymentException(format("Failed to publish items in site '%s' to target '%s'",
-                    site, environment), e);
+            logger.error("Failed to publish items in site '{}' to targets '{}'", site, environments, e);
+            throw new DeploymentException(format("Failed to publish items in site '%s' to targets '%s'",
+                    site, environments), e);
         }
     }
 
@@ -647,6 +693,16 @@ public class BlobAwareContentRepository implements ContentRepository,
                 .collect(toList());
     }
 
+    @Override
+    public Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds) {
+        Map<String, List<RepoOperation>> operations = localRepositoryV2.getOperationsFromCommits(site, commitIds);
+        operations.values().forEach(commitOperations -> commitOperations.forEach(operation -> {
+            operation.setPath(getOriginalPath(operation.getPath()));
+            operation.setMoveToPath(getOriginalPath(operation.getMoveToPath()));
+        }));
+        return operations;
+    }
+
     @Override
     public List<PublishingHistoryItem> getPublishingHistory(String siteId, String environment, String path,
                                                             String publisher, ZonedDateTime fromDate,
@@ -683,6 +739,16 @@ public class BlobAwareContentRepository implements ContentRepository,
         localRepositoryV2.markGitLogAudited(siteId, commitId);
     }
 
+    @Override
+    public void markGitLogAuditedBulk(String siteId, List<String> commitIds) {
+        localRepositoryV2.markGitLogAuditedBulk(siteId, commitIds);
+    }
+
+    @Override
+    public int countUnauditedCommits(String siteId) {
+        return localRepositoryV2.countUnauditedCommits(siteId);
+    }
+
     @Override
     public void updateGitlog(String siteId, String lastProcessedCommitId, int batchSize) {
         localRepositoryV2.updateGitlog(siteId, lastProcessedCommitId, batchSize);
@@ -155,9 +155,9 @@ public class ScriptEngineManagerImpl implements ScriptEngineManager {
                 filename += "." + scriptExtension;
             }
 
-            var context = contextManager.getContext(getSiteId());
             var path = basePath + "/" + filename;
-            if (contentStoreService.exists(context, path)){
+            // groovy looks for a script for every class name that it needs to resolve, most lookups are misses
+            if (contextManager.exists(getSiteId(), path)){
                 return new URL(null, "site:" + path, urlStreamHandler);
             } else {
                 return null;
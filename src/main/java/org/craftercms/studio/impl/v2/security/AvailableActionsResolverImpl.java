@@ -25,9 +25,9 @@ import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.craftercms.studio.api.v2.dal.Group;
-import org.craftercms.studio.api.v2.dal.security.RolePermissionMappings;
 import org.craftercms.studio.api.v2.dal.security.SitePermissionMappings;
 import org.craftercms.studio.api.v2.security.AvailableActionsResolver;
+import org.craftercms.studio.api.v2.security.PermissionRules;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
@@ -36,7 +36,10 @@ import org.dom4j.Element;
 import org.dom4j.Node;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -44,7 +47,6 @@ import java.util.stream.Collectors;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.MODULE_STUDIO;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.SYSTEM_ADMIN_GROUP;
-import static org.craftercms.studio.api.v2.security.ContentItemAvailableActionsConstants.mapPermissionsToContentItemAvailableActions;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_ENVIRONMENT_ACTIVE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_GLOBAL_CONFIG_BASE_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_GLOBAL_PERMISSION_MAPPINGS_FILE_NAME;
@@ -90,18 +92,20 @@ public class AvailableActionsResolverImpl implements AvailableActionsResolver {
                 configurationService.getGlobalConfigurationAsDocument(globalPermissionsConfigPath);
 
         loadRoles(globalRoleMappingsDocument, sitePermissionMappings);
-        loadPermissions(globalPermissionMappingsDocument, sitePermissionMappings);
+        Document permissionsMappingsDocument = null;
 
         if (!StringUtils.equals(site, studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE))) {
             Document roleMappingsDocument = configurationService.getConfigurationAsDocument(site, MODULE_STUDIO,
                     studioConfiguration.getProperty(CONFIGURATION_SITE_ROLE_MAPPINGS_FILE_NAME),
                     studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE));
-            Document permissionsMappingsDocument = configurationService.getConfigurationAsDocument(site, MODULE_STUDIO,
+            permissionsMappingsDocument = configurationService.getConfigurationAsDocument(site, MODULE_STUDIO,
                     studioConfiguration.getProperty(CONFIGURATION_SITE_PERMISSION_MAPPINGS_FILE_NAME),
                     studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE));
             loadRoles(roleMappingsDocument, sitePermissionMappings);
-            loadPermissions(permissionsMappingsDocument, sitePermissionMappings);
         }
+        // site roles override the global roles with the same name
+        sitePermissionMappings.setPermissionRules(
+                PermissionRules.compile(false, globalPermissionMappingsDocument, permissionsMappingsDocument));
         return sitePermissionMappings;
     }
 
@@ -136,41 +140,17 @@ public class AvailableActionsResolverImpl implements AvailableActionsResolver {
         return rolesMap;
     }
 
-    private SitePermissionMappings loadPermissions(Document document, SitePermissionMappings sitePermissionMappings) {
-        Element permissionsRoot = document.getRootElement();
-        if (permissionsRoot.getName().equals(StudioXmlConstants.DOCUMENT_PERMISSIONS)) {
-            Element siteNode = (Element) permissionsRoot.selectSingleNode(StudioXmlConstants.DOCUMENT_ELM_SITE);
-            if(siteNode != null) {
-                permissionsRoot = siteNode;
-            }
-
-            List<Node> roleNodes = permissionsRoot.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_ROLE);
-            for (Node roleNode : roleNodes) {
-                String roleName = roleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_PERMISSIONS_NAME);
-                RolePermissionMappings rolePermissionMappings = new RolePermissionMappings();
-                rolePermissionMappings.setRole(roleName);
-                List<Node> ruleNodes = roleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_RULE);
-                ruleNodes.forEach(r -> {
-                    String regex = r.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
-                    List<Node> permissionNodes = r.selectNodes(StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                    List<String> permissions = new ArrayList<>();
-                    permissionNodes.forEach(pn -> {
-                        permissions.add(pn.getText().toLowerCase());
-                    });
-                    long availableActions = mapPermissionsToContentItemAvailableActions(permissions);
-                    rolePermissionMappings.addRuleContentItemPermissionsMapping(regex, availableActions);
-                });
-                sitePermissionMappings.addRolePermissionMapping(roleName, rolePermissionMappings);
-            }
-        }
-        return sitePermissionMappings;
+    @Override
+    public long getContentItemAvailableActions(String username, String siteId, String path)
+            throws ServiceLayerException, UserNotFoundException {
+        return getContentItemAvailableActions(username, siteId, Collections.singletonList(path)).get(path);
     }
 
     @Override
-    public long getContentItemAvailableActions(String username, String siteId, String path)
+    public Map<String, Long> getContentItemAvailableActions(String username, String siteId, Collection<String> paths)
             throws ServiceLayerException, UserNotFoundException {
         SitePermissionMappings sitePermissionMappings = findSitePermissionMappings(siteId);
-        return calculateAvailableActions(username, path, sitePermissionMappings);
+        return calculateAvailableActions(username, paths, sitePermissionMappings);
     }
 
     private SitePermissionMappings findSitePermissionMappings(final String site) throws ServiceLayerException {
@@ -184,18 +164,20 @@ public class AvailableActionsResolverImpl implements AvailableActionsResolver {
         return mappings;
     }
 
-    private long calculateAvailableActions(String username, String path,
-                                           SitePermissionMappings sitePermissionMappings)
+    private Map<String, Long> calculateAvailableActions(String username, Collection<String> paths,
+                                                        SitePermissionMappings sitePermissionMappings)
             throws ServiceLayerException, UserNotFoundException {
-        long toReturn = 0L;
+        Map<String, Long> toReturn = new LinkedHashMap<>();
         List<Group> groups = userServiceInternal.getUserGroups(-1, username);
         if (CollectionUtils.isNotEmpty(groups)) {
             List<String> groupNames = groups.stream().map(g -> g.getGroupName()).collect(Collectors.toList());
             if (groupNames.contains(SYSTEM_ADMIN_GROUP)) {
-                toReturn = -1L;
+                paths.forEach(path -> toReturn.put(path, -1L));
             } else {
-                toReturn = sitePermissionMappings.getAvailableActions(username, groups, path);
+                toReturn.putAll(sitePermissionMappings.getAvailableActions(username, groups, paths));
             }
+        } else {
+            paths.forEach(path -> toReturn.put(path, 0L));
         }
         return toReturn;
     }
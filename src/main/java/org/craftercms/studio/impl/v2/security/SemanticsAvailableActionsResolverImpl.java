@@ -36,7 +36,12 @@ import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FOLDER;
@@ -78,20 +83,47 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
     @Override
     public long calculateContentItemAvailableActions(String username, String siteId, Item item)
             throws ServiceLayerException, UserNotFoundException {
-        long userPermissionsBitmap = securityService.getAvailableActions(username, siteId, item.getPath());
+        return calculateContentItemAvailableActions(username, siteId, item, new HashMap<>());
+    }
+
+    @Override
+    public Map<String, Long> calculateContentItemAvailableActions(String username, String siteId,
+                                                                  Collection<Item> items)
+            throws ServiceLayerException, UserNotFoundException {
+        Map<String, Long> toRet = new LinkedHashMap<>();
+        if (CollectionUtils.isNotEmpty(items)) {
+            List<String> paths = items.stream().map(Item::getPath).collect(Collectors.toList());
+            // Controllers and templates are shared by all items of the same content type, those are resolved as
+            // needed and reused for the rest of the items
+            Map<String, Long> userPermissions =
+                    new HashMap<>(securityService.getAvailableActions(username, siteId, paths));
+            for (Item item : items) {
+                toRet.put(item.getPath(), calculateContentItemAvailableActions(username, siteId, item,
+                        userPermissions));
+            }
+        }
+        return toRet;
+    }
+
+    private long calculateContentItemAvailableActions(String username, String siteId, Item item,
+                                                      Map<String, Long> userPermissions)
+            throws ServiceLayerException, UserNotFoundException {
+        long userPermissionsBitmap = getUserPermissions(username, siteId, item.getPath(), userPermissions);
         long systemTypeBitmap = getPossibleActionsForObject(item.getSystemType());
         long workflowStateBitmap = getPossibleActionsForItemState(item.getState(),
                 StringUtils.equals(username, item.getLockOwner()));
 
         long result = (userPermissionsBitmap & systemTypeBitmap) & workflowStateBitmap;
         return applySpecialUseCaseFilters(username, siteId, item.getPath(), item.getMimeType(),
-                item.getSystemType(), item.getContentTypeId(), item.getModifier(), item.getState(), result);
+                item.getSystemType(), item.getContentTypeId(), item.getModifier(), item.getState(), result,
+                userPermissions);
     }
 
     @Override
     public long calculateContentItemAvailableActions(String username, String siteId, DetailedItem detailedItem)
             throws ServiceLayerException, UserNotFoundException {
-        long userPermissionsBitmap = securityService.getAvailableActions(username, siteId, detailedItem.getPath());
+        Map<String, Long> userPermissions = new HashMap<>();
+        long userPermissionsBitmap = getUserPermissions(username, siteId, detailedItem.getPath(), userPermissions);
         long systemTypeBitmap = getPossibleActionsForObject(detailedItem.getSystemType());
         long workflowStateBitmap = getPossibleActionsForItemState(detailedItem.getState(),
                 StringUtils.equals(username, detailedItem.getLockOwner()));
@@ -100,13 +132,23 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         return applySpecialUseCaseFilters(username, siteId, detailedItem.getPath(), detailedItem.getMimeType(),
                 detailedItem.getSystemType(), detailedItem.getContentTypeId(), detailedItem.getSandbox().getModifier(),
                 detailedItem.getState(),
-                result);
+                result, userPermissions);
+    }
+
+    private long getUserPermissions(String username, String siteId, String path, Map<String, Long> userPermissions)
+            throws ServiceLayerException, UserNotFoundException {
+        Long permissions = userPermissions.get(path);
+        if (permissions == null) {
+            permissions = securityService.getAvailableActions(username, siteId, path);
+            userPermissions.put(path, permissions);
+        }
+        return permissions;
     }
 
     private long applySpecialUseCaseFilters(String username, String siteId, String itemPath, String itemMimeType,
                                             String itemSystemType, String itemContentTypeId, String itemModifier,
                                             long itemState,
-                                            long availableActions)
+                                            long availableActions, Map<String, Long> userPermissions)
             throws ServiceLayerException, UserNotFoundException {
         long result = availableActions;
 
@@ -170,10 +212,10 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         if (isNotEmpty(itemContentTypeId)) {
             String controllerPath = contentTypeServiceInternal.getContentTypeControllerPath(itemContentTypeId);
             result = checkActionForDependency(siteId, username, controllerPath, result,
-                    CONTENT_EDIT_CONTROLLER, CONTENT_EDIT, CONTENT_DELETE_CONTROLLER, CONTENT_DELETE);
+                    CONTENT_EDIT_CONTROLLER, CONTENT_EDIT, CONTENT_DELETE_CONTROLLER, CONTENT_DELETE, userPermissions);
             String templatePath = contentTypeServiceInternal.getContentTypeTemplatePath(siteId, itemContentTypeId);
             result = checkActionForDependency(siteId, username, templatePath, result,
-                    CONTENT_EDIT_TEMPLATE, CONTENT_EDIT, CONTENT_DELETE_TEMPLATE, CONTENT_DELETE);
+                    CONTENT_EDIT_TEMPLATE, CONTENT_EDIT, CONTENT_DELETE_TEMPLATE, CONTENT_DELETE, userPermissions);
         }
 
         return result;
@@ -181,10 +223,11 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
 
     private long checkActionForDependency(String siteId, String username, String dependencyPath,
                                           long actions, long itemEditMask, long depEditMask,
-                                          long itemDeleteMask, long depDeleteMask)
+                                          long itemDeleteMask, long depDeleteMask,
+                                          Map<String, Long> userPermissions)
             throws UserNotFoundException, ServiceLayerException {
         if (isNotEmpty(dependencyPath)) {
-            long depAvailableActions = securityService.getAvailableActions(username, siteId, dependencyPath);
+            long depAvailableActions = getUserPermissions(username, siteId, dependencyPath, userPermissions);
             actions = updateForDependency(actions, depAvailableActions, itemEditMask, depEditMask);
             actions = updateForDependency(actions, depAvailableActions, itemDeleteMask, depDeleteMask);
         } else {
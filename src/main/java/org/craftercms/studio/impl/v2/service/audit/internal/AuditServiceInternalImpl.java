@@ -28,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -42,6 +43,7 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
 
     private AuditDAO auditDao;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    private int batchSize = 100;
 
     @Override
     public List<AuditLog> getAuditLogForSite(String site, int offset, int limit, String user, List<String> actions)
@@ -266,6 +268,33 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
         return result > 0;
     }
 
+    @Override
+    public int insertAuditLogs(List<AuditLog> auditLogs) {
+        int result = 0;
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        for (AuditLog auditLog : auditLogs) {
+            // Entries with parameters need the generated id, so they are inserted one by one
+            if (CollectionUtils.isNotEmpty(auditLog.getParameters())) {
+                result += insertAuditLog(auditLog) ? 1 : 0;
+                continue;
+            }
+            batch.add(auditLog);
+            if (batch.size() >= batchSize) {
+                result += insertAuditLogBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            result += insertAuditLogBatch(batch);
+        }
+        return result;
+    }
+
+    protected int insertAuditLogBatch(List<AuditLog> batch) {
+        List<AuditLog> entries = new ArrayList<>(batch);
+        return retryingDatabaseOperationFacade.retry(() -> auditDao.insertAuditLogs(entries));
+    }
+
     @Override
     public AuditLog createAuditLogEntry() {
         AuditLog auditLog = new AuditLog();
@@ -308,4 +337,8 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
@@ -18,6 +18,10 @@ package org.craftercms.studio.impl.v2.service.clipboard.internal;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
+import org.craftercms.studio.api.v1.repository.ContentRepository;
+import org.craftercms.studio.api.v1.service.security.SecurityService;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.event.content.ContentEvent;
 import org.craftercms.studio.api.v2.exception.content.ContentMoveInvalidLocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +30,7 @@ import org.craftercms.studio.api.v1.service.workflow.WorkflowService;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.api.v2.service.clipboard.internal.ClipboardServiceInternal;
+import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.model.clipboard.Operation;
 import org.craftercms.studio.model.clipboard.PasteItem;
@@ -34,6 +39,7 @@ import org.springframework.context.ApplicationContextAware;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static java.lang.String.format;
@@ -41,6 +47,7 @@ import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.io.FilenameUtils.getFullPathNoEndSeparator;
 import static org.apache.commons.lang3.StringUtils.removeEnd;
 import static org.craftercms.studio.api.v1.constant.DmConstants.SLASH_INDEX_FILE;
+import static org.craftercms.studio.model.clipboard.Operation.COPY;
 import static org.craftercms.studio.model.clipboard.Operation.CUT;
 
 /**
@@ -55,9 +62,16 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
 
     private static final Logger logger = LoggerFactory.getLogger(ClipboardServiceInternalImpl.class);
 
+    private static final int PROGRESS_LOG_INTERVAL = 100;
+
     protected ContentService contentService;
     protected WorkflowService workflowService;
     protected ApplicationContext applicationContext;
+    protected ContentRepository contentRepository;
+    protected org.craftercms.studio.api.v2.repository.ContentRepository contentRepositoryV2;
+    protected ItemServiceInternal itemServiceInternal;
+    protected SiteService siteService;
+    protected SecurityService securityService;
 
     protected void validatePasteItemsAction(final String siteId, Operation operation, final String sourcePath, final String targetPath)
             throws ServiceLayerException {
@@ -98,15 +112,66 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
             throws ServiceLayerException, UserNotFoundException {
         validatePasteItemsAction(siteId, operation, item.getPath(), targetPath);
         var pastedItems = new LinkedList<String>();
-        pasteItemsInternal(siteId, operation, targetPath, List.of(item), pastedItems);
+        int totalItems = countItems(List.of(item));
+        if (COPY == operation) {
+            // all the copies are committed together, the items are still created in the database one by one
+            contentRepository.startWriteBatch(siteId);
+            try {
+                pasteItemsInternal(siteId, operation, targetPath, List.of(item), pastedItems, totalItems);
+            } catch (Exception e) {
+                // commit the items already copied, as if each one had been committed on its own
+                try {
+                    commitCopiedItems(siteId, item.getPath(), targetPath);
+                } catch (ServiceLayerException commitException) {
+                    e.addSuppressed(commitException);
+                }
+                throw e;
+            }
+            commitCopiedItems(siteId, item.getPath(), targetPath);
+        } else {
+            pasteItemsInternal(siteId, operation, targetPath, List.of(item), pastedItems, totalItems);
+        }
         logger.trace("'{}' items pasted in site '{}' from '{}' to '{}'",
                 pastedItems.size(), siteId, item.getPath(), targetPath);
         return pastedItems;
     }
 
+    protected int countItems(List<PasteItem> items) {
+        int count = 0;
+        for (var item : items) {
+            count++;
+            if (isNotEmpty(item.getChildren())) {
+                count += countItems(item.getChildren());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Commits the items written since the paste started and updates the commit id of all of them, the items were
+     * created with the last commit id of the repository because the commit didn't exist yet
+     */
+    protected void commitCopiedItems(String siteId, String sourcePath, String targetPath)
+            throws ServiceLayerException {
+        Map<String, String> commitIds = contentRepository.commitWriteBatch(siteId, sourcePath, targetPath);
+        if (commitIds.isEmpty()) {
+            // nothing was written
+            return;
+        }
+        String commitId = commitIds.values().iterator().next();
+        itemServiceInternal.updateCommitIds(siteId, commitIds.keySet(), commitId);
+        contentRepositoryV2.insertGitLog(siteId, commitId, 1, 1);
+        siteService.updateLastCommitId(siteId, commitId);
+        logger.debug("Committed '{}' copied items in site '{}' from '{}' to '{}' with commit id '{}'",
+                commitIds.size(), siteId, sourcePath, targetPath, commitId);
+        // preview may have been synced while the items were not committed
+        applicationContext.publishEvent(new ContentEvent(securityService.getAuthentication(), siteId, targetPath));
+    }
+
     // Code based on the original clipboard service v1
     protected void pasteItemsInternal(String siteId, Operation operation, String targetPath, List<PasteItem> items,
-                                      List<String> pastedItems) throws ServiceLayerException, UserNotFoundException {
+                                      List<String> pastedItems, int totalItems)
+            throws ServiceLayerException, UserNotFoundException {
         for (var item: items) {
             try {
                 String newPath = null;
@@ -124,7 +189,8 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
 
                         // recurse on copied children
                         if (isNotEmpty(item.getChildren())) {
-                            pasteItemsInternal(siteId, operation, newPath, item.getChildren(), pastedItems);
+                            pasteItemsInternal(siteId, operation, newPath, item.getChildren(), pastedItems,
+                                    totalItems);
                         }
                         break;
                     default:
@@ -134,6 +200,10 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
                 }
 
                 pastedItems.add(newPath);
+                if (pastedItems.size() % PROGRESS_LOG_INTERVAL == 0) {
+                    logger.info("Pasted '{}' of '{}' items in site '{}' to target path '{}'",
+                            pastedItems.size(), totalItems, siteId, targetPath);
+                }
             } catch (Exception e) {
                 logger.error("Paste operation '{}' failed in site '{}' item '{}' to target path '{}'",
                         operation, siteId, item.getPath(), targetPath, e);
@@ -176,4 +246,24 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
         this.workflowService = workflowService;
     }
 
+    public void setContentRepository(ContentRepository contentRepository) {
+        this.contentRepository = contentRepository;
+    }
+
+    public void setContentRepositoryV2(org.craftercms.studio.api.v2.repository.ContentRepository contentRepositoryV2) {
+        this.contentRepositoryV2 = contentRepositoryV2;
+    }
+
+    public void setItemServiceInternal(ItemServiceInternal itemServiceInternal) {
+        this.itemServiceInternal = itemServiceInternal;
+    }
+
+    public void setSiteService(SiteService siteService) {
+        this.siteService = siteService;
+    }
+
+    public void setSecurityService(SecurityService securityService) {
+        this.securityService = securityService;
+    }
+
 }
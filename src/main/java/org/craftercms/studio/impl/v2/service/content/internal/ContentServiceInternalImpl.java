@@ -110,10 +110,11 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         GetChildrenResult toRet = new GetChildrenResult();
         String user = securityService.getCurrentUser();
         if (resultSet != null && resultSet.size() > 0) {
+            Map<String, Long> availableActions =
+                    semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, resultSet);
             int idx = 0;
             Item item = resultSet.get(idx);
-            item.setAvailableActions(
-                    semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, item));
+            item.setAvailableActions(availableActions.get(item.getPath()));
             if (StringUtils.endsWith(item.getPath(), FILE_SEPARATOR +
                     servicesConfig.getLevelDescriptorName(siteId))) {
                 toRet.setLevelDescriptor(SandboxItem.getInstance(item));
@@ -122,8 +123,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
             List<SandboxItem> children = new ArrayList<>();
             while (idx < resultSet.size()) {
                 Item child = resultSet.get(idx);
-                child.setAvailableActions(
-                        semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, child));
+                child.setAvailableActions(availableActions.get(child.getPath()));
                 children.add(SandboxItem.getInstance(child));
                 idx++;
             }
@@ -205,15 +205,21 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         List<SandboxItem> toRet = new ArrayList<>();
         if (CollectionUtils.isNotEmpty(items)) {
             String user = securityService.getCurrentUser();
+            List<Item> existingItems = new ArrayList<>();
             for (Item item : items) {
                 if (!contentRepository.contentExists(siteId, item.getPath())) {
                     logger.warn("Content not found in site '{}' path '{}'", siteId, item.getPath());
                 } else {
-                    item.setAvailableActions(
-                            semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, item));
-                    toRet.add(SandboxItem.getInstance(item));
+                    existingItems.add(item);
                 }
             }
+            Map<String, Long> availableActions =
+                    semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId,
+                            existingItems);
+            for (Item item : existingItems) {
+                item.setAvailableActions(availableActions.get(item.getPath()));
+                toRet.add(SandboxItem.getInstance(item));
+            }
         }
         return toRet;
     }
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.craftercms.studio.api.v2.dal.Dependency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of the dependency table of a single site. Every path is assigned a primitive id and the
+ * dependencies are kept as forward (source to targets) and reverse (target to sources) adjacency lists, so the
+ * transitive closure of a set of items can be calculated without going to the database.
+ *
+ * <p>The graph starts unloaded; all updates applied before {@link #load(Collection)} are ignored because the
+ * load will read them from the database anyway.</p>
+ *
+ * @since 4.1.0
+ */
+public class DependencyGraph {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> paths = new ArrayList<>();
+    private final List<Edges> targets = new ArrayList<>();
+    private final List<Edges> sources = new ArrayList<>();
+
+    private boolean loaded;
+
+    /**
+     * Indicates if the graph has been loaded
+     * @return true if {@link #load(Collection)} has been called since the last {@link #clear()}
+     */
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the content of the graph if it has not been loaded yet. The loader is called while holding the write
+     * lock so that no update can be applied between reading the dependencies and publishing them.
+     * @param loader supplier for all the dependencies of the site
+     */
+    public void loadIfNeeded(Supplier<? extends Collection<Dependency>> loader) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load(loader.get());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the content of the graph
+     * @param dependencies all the dependencies of the site
+     */
+    public void load(Collection<Dependency> dependencies) {
+        lock.writeLock().lock();
+        try {
+            reset();
+            for (Dependency dependency : dependencies) {
+                addEdge(getOrCreateId(dependency.getSourcePath()), getOrCreateId(dependency.getTargetPath()));
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the content from the graph, it will need to be loaded again
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all the dependencies of the given source paths
+     * @param dependencies map of source path to all its target paths
+     */
+    public void setTargets(Map<String, ? extends Collection<String>> dependencies) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            for (Map.Entry<String, ? extends Collection<String>> entry : dependencies.entrySet()) {
+                int source = getOrCreateId(entry.getKey());
+                removeTargets(source);
+                for (String target : entry.getValue()) {
+                    addEdge(source, getOrCreateId(target));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Renames a path in all the dependencies where it is used as source or target
+     * @param oldPath the current path
+     * @param newPath the new path
+     */
+    public void move(String oldPath, String newPath) {
+        lock.writeLock().lock();
+        try {
+            Integer oldId = ids.get(oldPath);
+            if (!loaded || oldId == null || oldPath.equals(newPath)) {
+                return;
+            }
+            int newId = getOrCreateId(newPath);
+            Edges oldTargets = targets.get(oldId);
+            for (int i = 0; i < oldTargets.size; i++) {
+                int target = oldTargets.values[i];
+                addEdge(newId, target == oldId ? newId : target);
+            }
+            Edges oldSources = sources.get(oldId);
+            for (int i = 0; i < oldSources.size; i++) {
+                int source = oldSources.values[i];
+                addEdge(source == oldId ? newId : source, newId);
+            }
+            removeTargets(oldId);
+            removeSources(oldId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the dependencies where the given path is used as source or target
+     * @param path the path of the item
+     */
+    public void remove(String path) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.get(path);
+            if (loaded && id != null) {
+                removeTargets(id);
+                removeSources(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds all the items that can be reached from the given paths following only items accepted by the filter.
+     * The starting paths are not included in the result unless they can be reached from another path.
+     * @param start the paths to start from
+     * @param filter the filter that each target needs to match to be included and followed
+     * @param maxDepth the maximum number of dependency levels to follow, a negative value means no limit
+     * @return the paths of all the reachable items, in breadth-first order
+     */
+    public Set<String> getReachable(Collection<String> start, Predicate<String> filter, int maxDepth) {
+        lock.readLock().lock();
+        try {
+            Set<String> result = new LinkedHashSet<>();
+            BitSet visited = new BitSet(paths.size());
+            int[] frontier = new int[start.size()];
+            int frontierSize = 0;
+            for (String path : start) {
+                Integer id = ids.get(path);
+                if (id != null) {
+                    frontier[frontierSize++] = id;
+                }
+            }
+            int depth = 0;
+            while (frontierSize > 0 && (maxDepth < 0 || depth++ < maxDepth)) {
+                int[] next = new int[Math.max(frontierSize, 16)];
+                int nextSize = 0;
+                for (int i = 0; i < frontierSize; i++) {
+                    Edges edges = targets.get(frontier[i]);
+                    for (int j = 0; j < edges.size; j++) {
+                        int target = edges.values[j];
+                        // the filter only depends on the target, so rejected items are not evaluated again
+                        if (!visited.get(target)) {
+                            visited.set(target);
+                            String targetPath = paths.get(target);
+                            if (filter.test(targetPath)) {
+                                result.add(targetPath);
+                                if (nextSize == next.length) {
+                                    next = Arrays.copyOf(next, nextSize * 2);
+                                }
+                                next[nextSize++] = target;
+                            }
+                        }
+                    }
+                }
+                frontier = next;
+                frontierSize = nextSize;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the direct dependencies of the given paths
+     * @param sourcePaths the source paths
+     * @return the target paths
+     */
+    public Set<String> getTargets(Collection<String> sourcePaths) {
+        lock.readLock().lock();
+        try {
+            Set<String> result = new LinkedHashSet<>();
+            for (String path : sourcePaths) {
+                Integer id = ids.get(path);
+                if (id != null) {
+                    Edges edges = targets.get(id);
+                    for (int i = 0; i < edges.size; i++) {
+                        result.add(paths.get(edges.values[i]));
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of dependencies in the graph
+     * @return the number of edges
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int size = 0;
+            for (Edges edges : targets) {
+                size += edges.size;
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected void reset() {
+        ids.clear();
+        paths.clear();
+        targets.clear();
+        sources.clear();
+        loaded = false;
+    }
+
+    protected int getOrCreateId(String path) {
+        Integer id = ids.get(path);
+        if (id == null) {
+            id = paths.size();
+            ids.put(path, id);
+            paths.add(path);
+            targets.add(new Edges());
+            sources.add(new Edges());
+        }
+        return id;
+    }
+
+    protected void addEdge(int source, int target) {
+        if (targets.get(source).add(target)) {
+            sources.get(target).add(source);
+        }
+    }
+
+    protected void removeTargets(int source) {
+        Edges edges = targets.get(source);
+        for (int i = 0; i < edges.size; i++) {
+            sources.get(edges.values[i]).remove(source);
+        }
+        edges.clear();
+    }
+
+    protected void removeSources(int target) {
+        Edges edges = sources.get(target);
+        for (int i = 0; i < edges.size; i++) {
+            targets.get(edges.values[i]).remove(target);
+        }
+        edges.clear();
+    }
+
+    /**
+     * Set of node ids backed by a primitive array, most items only have a handful of dependencies
+     */
+    private static class Edges {
+
+        private int[] values = new int[0];
+        private int size;
+
+        boolean add(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    return false;
+                }
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, size * 2));
+            }
+            values[size++] = value;
+            return true;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            values = new int[0];
+            size = 0;
+        }
+
+    }
+
+}
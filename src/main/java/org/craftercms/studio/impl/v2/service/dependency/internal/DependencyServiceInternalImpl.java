@@ -17,7 +17,7 @@
 package org.craftercms.studio.impl.v2.service.dependency.internal;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
@@ -34,18 +34,24 @@ import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.INDEX_FILE;
-import static org.craftercms.studio.api.v2.dal.DependencyDAO.SOURCE_PATH_COLUMN_NAME;
-import static org.craftercms.studio.api.v2.dal.DependencyDAO.TARGET_PATH_COLUMN_NAME;
+import static org.craftercms.studio.api.v2.dal.DependencyDAO.PATH_COLUMN_NAME;
+import static org.craftercms.studio.api.v2.dal.DependencyDAO.STATE_COLUMN_NAME;
 import static org.craftercms.studio.api.v2.dal.ItemState.MODIFIED_MASK;
 import static org.craftercms.studio.api.v2.dal.ItemState.NEW_MASK;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS;
@@ -54,6 +60,13 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
 
     private static final Logger logger = LoggerFactory.getLogger(DependencyServiceInternalImpl.class);
 
+    private static final int ITEM_STATES_BATCH_SIZE = 1000;
+
+    /**
+     * In-memory dependency graph for each site, loaded on first use
+     */
+    private final ConcurrentMap<String, DependencyGraph> dependencyGraphs = new ConcurrentHashMap<>();
+
     private SiteService siteService;
     private StudioConfiguration studioConfiguration;
     private DependencyDAO dependencyDao;
@@ -64,52 +77,36 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     @Override
     public List<String> getSoftDependencies(String site, List<String> paths)
             throws ServiceLayerException {
-        Map<String, String> toRet = calculateSoftDependencies(site, paths);
-        return new ArrayList<>(toRet.keySet());
+        return new ArrayList<>(calculateSoftDependencies(site, paths));
     }
 
-    private Map<String, String> calculateSoftDependencies(String site, List<String> paths) {
-        Set<String> toRet = new HashSet<>();
-
+    private Set<String> calculateSoftDependencies(String site, List<String> paths) {
         logger.trace("Get all soft dependencies for site '{}' paths '{}'", site, paths);
-        Set<String> pathsParams = new HashSet<>(paths);
-        boolean exitCondition = false;
-        Map<String, String> softDeps = new HashMap<>();
-        for (String p : paths) {
-            softDeps.put(p, p);
-        }
-        do {
-            List<Map<String, String>> deps = getSoftDependenciesForListFromDB(site, pathsParams);
-            List<String> targetPaths = new ArrayList<>();
-            for (Map<String, String> d : deps) {
-                String srcPath = d.get(SOURCE_PATH_COLUMN_NAME);
-                String targetPath = d.get(TARGET_PATH_COLUMN_NAME);
-                if (!softDeps.containsKey(targetPath) && !StringUtils.equals(targetPath, softDeps.get(srcPath))) {
-                    softDeps.put(targetPath, softDeps.get(srcPath));
-                }
-                targetPaths.add(targetPath);
-            }
-            exitCondition = !toRet.addAll(targetPaths);
-            pathsParams.clear();
-            pathsParams.addAll(targetPaths);
-        } while (!exitCondition);
-
+        List<Pattern> patterns = getItemSpecificDependenciesCompiledPatterns();
+        Set<String> softDeps = new LinkedHashSet<>(paths);
+        // same condition as the previous query: the target does not match at least one of the patterns
+        softDeps.addAll(getDependenciesClosure(site, paths, (path, state) ->
+                (state & MODIFIED_MASK) > 0 && (state & NEW_MASK) == 0 &&
+                        patterns.stream().anyMatch(pattern -> !pattern.matcher(path).find())));
         return softDeps;
     }
 
-    private List<Map<String, String>> getSoftDependenciesForListFromDB(String site, Set<String> paths) {
-        return dependencyDao.getSoftDependenciesForList(site, paths, getItemSpecificDependenciesPatterns(),
-                MODIFIED_MASK, NEW_MASK);
+    protected List<String> getItemSpecificDependenciesPatterns() {
+        return studioConfiguration.getCommaSeparatedValues(CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS);
     }
 
-    protected List<String> getItemSpecificDependenciesPatterns() {
-        StringTokenizer st = new StringTokenizer(
-                studioConfiguration.getProperty(CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS), ",");
-        List<String> itemSpecificDependenciesPatterns = new ArrayList<>(st.countTokens());
-        while (st.hasMoreTokens()) {
-            itemSpecificDependenciesPatterns.add(st.nextToken().trim());
-        }
-        return itemSpecificDependenciesPatterns;
+    /**
+     * Returns the compiled item specific patterns. They are applied the same way as the database {@code RLIKE}
+     * operator used by the previous queries: unanchored and case-insensitive.
+     */
+    protected List<Pattern> getItemSpecificDependenciesCompiledPatterns() {
+        return studioConfiguration.getPatterns(CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS,
+                Pattern.CASE_INSENSITIVE);
+    }
+
+    protected Predicate<String> getItemSpecificDependenciesPredicate() {
+        List<Pattern> patterns = getItemSpecificDependenciesCompiledPatterns();
+        return path -> patterns.stream().anyMatch(pattern -> pattern.matcher(path).find());
     }
 
     @Override
@@ -127,57 +124,36 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     public List<String> getHardDependencies(String site, List<String> paths)
             throws ServiceLayerException {
         siteService.checkSiteExists(site);
-        Map<String, String> dependencies = calculateHardDependencies(site, paths);
-        return new ArrayList<>(dependencies.keySet());
+        return new ArrayList<>(calculateHardDependencies(site, paths));
     }
 
-    private Map<String, String> calculateHardDependencies(String site, List<String> paths) {
-        Set<String> toRet = new HashSet<>();
-
+    private Set<String> calculateHardDependencies(String site, List<String> paths) {
         logger.trace("Get all hard dependencies for site '{}' paths '{}'", site, paths);
         Set<String> pathsParams = new HashSet<>(paths);
         List<String> mandatoryParents = itemServiceInternal.getMandatoryParentsForPublishing(site, paths);
-        List<String> mpAsList = new ArrayList<>(mandatoryParents);
-        Map<String, String> ancestors = new HashMap<>();
+        Set<String> hardDeps = new LinkedHashSet<>();
         if (CollectionUtils.isNotEmpty(mandatoryParents)) {
             pathsParams.addAll(mandatoryParents);
             Set<String> existingRenamedChildrenOfMandatoryParents =
-                    getExistingRenamedChildrenOfMandatoryParents(site, mpAsList);
-            for (String p3: existingRenamedChildrenOfMandatoryParents) {
-                    ancestors.put(p3, p3);
-            }
+                    getExistingRenamedChildrenOfMandatoryParents(site, mandatoryParents);
+            hardDeps.addAll(existingRenamedChildrenOfMandatoryParents);
             pathsParams.addAll(existingRenamedChildrenOfMandatoryParents);
         }
-        boolean exitCondition = false;
 
         for (String p : mandatoryParents) {
             String prefix = p.replace(FILE_SEPARATOR + INDEX_FILE, "");
             for (String p2 : paths) {
                 if (p2.startsWith(prefix)) {
-                    ancestors.put(p, p2);
+                    hardDeps.add(p);
                     break;
                 }
             }
-
         }
-        do {
-            List<Map<String, String>> deps = calculateHardDependenciesForListFromDB(site, pathsParams);
-            List<String> targetPaths = new ArrayList<>();
-            for (Map<String, String> d : deps) {
-                String srcPath = d.get(SOURCE_PATH_COLUMN_NAME);
-                String targetPath = d.get(TARGET_PATH_COLUMN_NAME);
-                if (!ancestors.containsKey(targetPath) &&
-                        !StringUtils.equals(targetPath, ancestors.get(srcPath))) {
-                    ancestors.put(targetPath, ancestors.get(srcPath));
-                }
-                targetPaths.add(targetPath);
-            }
-            exitCondition = !toRet.addAll(targetPaths);
-            pathsParams.clear();
-            pathsParams.addAll(targetPaths);
-        } while (!exitCondition);
 
-        return ancestors;
+        Predicate<String> itemSpecific = getItemSpecificDependenciesPredicate();
+        hardDeps.addAll(getDependenciesClosure(site, pathsParams, (path, state) -> (state & NEW_MASK) > 0 ||
+                ((state & MODIFIED_MASK) > 0 && (state & NEW_MASK) == 0 && itemSpecific.test(path))));
+        return hardDeps;
     }
 
     private Set<String> getExistingRenamedChildrenOfMandatoryParents(String site, List<String> paths) {
@@ -185,9 +161,85 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
         return toRet;
     }
 
-    private List<Map<String, String>> calculateHardDependenciesForListFromDB(String site, Set<String> paths) {
-        return dependencyDao.getHardDependenciesForList(site, paths, getItemSpecificDependenciesPatterns(),
-                MODIFIED_MASK, NEW_MASK);
+    /**
+     * Calculates all the existing items that can be reached from the given paths through items that match the
+     * given filter. The candidates are found first in the dependency graph so that the state of all of them can be
+     * loaded with a single query.
+     */
+    protected Set<String> getDependenciesClosure(String site, Collection<String> paths,
+                                                 BiPredicate<String, Long> filter) {
+        DependencyGraph graph = getDependencyGraph(site);
+        Set<String> candidates = graph.getReachable(paths, path -> true, -1);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Map<String, Long> states = getItemStates(site, candidates);
+        return graph.getReachable(paths, path -> {
+            Long state = states.get(path);
+            return state != null && filter.test(path, state);
+        }, -1);
+    }
+
+    protected Map<String, Long> getItemStates(String site, Collection<String> paths) {
+        Map<String, Long> states = new HashMap<>(paths.size());
+        for (List<String> batch : ListUtils.partition(new ArrayList<>(paths), ITEM_STATES_BATCH_SIZE)) {
+            for (Map<String, Object> row : dependencyDao.getItemStatesForList(site, batch)) {
+                states.put((String) row.get(PATH_COLUMN_NAME), ((Number) row.get(STATE_COLUMN_NAME)).longValue());
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Returns the dependency graph for the given site, loading it from the database if needed
+     */
+    protected DependencyGraph getDependencyGraph(String site) {
+        DependencyGraph graph = dependencyGraphs.computeIfAbsent(site, k -> new DependencyGraph());
+        if (!graph.isLoaded()) {
+            graph.loadIfNeeded(() -> {
+                long start = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
+                List<Dependency> dependencies = dependencyDao.getDependenciesForSite(site);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Loaded '{}' dependencies for site '{}' in '{}' milliseconds",
+                            dependencies.size(), site, System.currentTimeMillis() - start);
+                }
+                return dependencies;
+            });
+        }
+        return graph;
+    }
+
+    @Override
+    public void dependenciesUpdated(String siteId, Map<String, Set<String>> dependencies) {
+        DependencyGraph graph = dependencyGraphs.get(siteId);
+        if (graph != null) {
+            graph.setTargets(dependencies);
+        }
+    }
+
+    @Override
+    public void dependenciesMoved(String siteId, String oldPath, String newPath) {
+        DependencyGraph graph = dependencyGraphs.get(siteId);
+        if (graph != null) {
+            graph.move(oldPath, newPath);
+        }
+    }
+
+    @Override
+    public void dependenciesDeleted(String siteId, String path) {
+        DependencyGraph graph = dependencyGraphs.get(siteId);
+        if (graph != null) {
+            graph.remove(path);
+        }
+    }
+
+    @Override
+    public void invalidateDependencies(String siteId) {
+        logger.debug("Invalidate the dependency graph for site '{}'", siteId);
+        DependencyGraph graph = dependencyGraphs.remove(siteId);
+        if (graph != null) {
+            graph.clear();
+        }
     }
 
     @Override
@@ -209,21 +261,42 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     @Override
     public List<String> getItemSpecificDependencies(String siteId, List<String> paths) {
         if (CollectionUtils.isNotEmpty(paths)) {
-            return dependencyDao.getItemSpecificDependencies(siteId, paths, getItemSpecificDependenciesPatterns());
+            return new ArrayList<>(getItemSpecificDependencies(siteId, paths, 1));
         } else {
             return new ArrayList<>();
         }
     }
 
+    @Override
+    public Set<String> getItemSpecificDependencies(String siteId, Collection<String> paths, int depth) {
+        if (CollectionUtils.isEmpty(paths)) {
+            return new HashSet<>();
+        }
+        return getDependencyGraph(siteId).getReachable(paths, getItemSpecificDependenciesPredicate(), depth);
+    }
+
+    @Override
+    public Set<String> getDirectDependencies(String siteId, Collection<String> paths) {
+        if (CollectionUtils.isEmpty(paths)) {
+            return new HashSet<>();
+        }
+        return getDependencyGraph(siteId).getTargets(paths);
+    }
+
     @Override
     public Map<String, Set<String>> resolveDependencies(String siteId, String path) {
+        return resolveDependencies(siteId, path, null);
+    }
+
+    @Override
+    public Map<String, Set<String>> resolveDependencies(String siteId, String path, String content) {
         Map<String, Set<String>> dependencies = null;
         boolean isXml = path.endsWith(DmConstants.XML_PATTERN);
         boolean isCss = path.endsWith(DmConstants.CSS_PATTERN);
         boolean isJs = path.endsWith(DmConstants.JS_PATTERN);
         boolean isTemplate = ContentUtils.matchesPatterns(path, servicesConfig.getRenderingTemplatePatterns(siteId));
         if (isXml || isCss || isJs || isTemplate) {
-            dependencies = dependencyResolver.resolve(siteId, path);
+            dependencies = dependencyResolver.resolve(siteId, path, content);
         }
         return dependencies;
     }
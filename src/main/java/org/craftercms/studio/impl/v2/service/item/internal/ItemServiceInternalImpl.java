@@ -20,7 +20,6 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
 import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
@@ -39,7 +38,6 @@ import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInter
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
-import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.craftercms.studio.model.rest.dashboard.ContentDashboardItem;
 import org.craftercms.studio.model.rest.dashboard.PublishingDashboardItem;
@@ -49,13 +47,11 @@ import java.util.*;
 
 import static java.util.stream.Collectors.toList;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FOLDER;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY_REGEX;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_CONFIG_REGEX;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_UNKNOWN;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v2.dal.ItemState.*;
 import static org.craftercms.studio.api.v2.dal.PublishRequest.State.COMPLETED;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
+import static org.craftercms.studio.api.v2.utils.PathRegexUtils.getDescendantsLikePattern;
 
 public class ItemServiceInternalImpl implements ItemServiceInternal {
     // TODO: SJ: Add logging to this class
@@ -346,42 +342,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public String getBrowserUrl(String site, String path) {
-        String replacePattern;
-        boolean isPage = false;
-        if (ContentUtils.matchesPatterns(path, servicesConfig.getRenderingTemplatePatterns(site))) {
-            return null;
-        } else if (ContentUtils.matchesPatterns(path, List.of(CONTENT_TYPE_TAXONOMY_REGEX))) {
-            return null;
-        } else if (ContentUtils.matchesPatterns(path, servicesConfig.getComponentPatterns(site)) ||
-                StringUtils.endsWith(path,FILE_SEPARATOR + servicesConfig.getLevelDescriptorName(site))) {
-            return null;
-        } else if (ContentUtils.matchesPatterns(path, servicesConfig.getScriptsPatterns(site))) {
-            return null;
-        } else if (ContentUtils.matchesPatterns(path, List.of(CONTENT_TYPE_CONFIG_REGEX))) {
-            return null;
-        } else if (ContentUtils.matchesPatterns(path, servicesConfig.getAssetPatterns(site))) {
-            replacePattern = StringUtils.EMPTY;
-        } else if (ContentUtils.matchesPatterns(path, servicesConfig.getDocumentPatterns(site))) {
-            replacePattern = DmConstants.ROOT_PATTERN_DOCUMENTS;
-        } else {
-            replacePattern = DmConstants.ROOT_PATTERN_PAGES;
-            isPage = true;
-        }
-
-        return getBrowserUri(path, replacePattern, isPage);
-    }
-
-    protected String getBrowserUri(String uri, String replacePattern, boolean isPage) {
-        String browserUri = uri.replaceFirst(replacePattern, "");
-        browserUri = browserUri.replaceFirst(FILE_SEPARATOR + DmConstants.INDEX_FILE, "");
-        if (browserUri.length() == 0) {
-            browserUri = FILE_SEPARATOR;
-        }
-        // TODO: come up with a better way of doing this.
-        if (isPage) {
-            browserUri = browserUri.replaceFirst("\\.xml", ".html");
-        }
-        return browserUri;
+        return servicesConfig.getPathClassifier(site).getBrowserUrl(path);
     }
 
     @Override
@@ -534,6 +495,13 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
         retryingDatabaseOperationFacade.retry(() -> itemDao.clearPreviousPath(siteId, path));
     }
 
+    @Override
+    public void clearPreviousPathBulk(String siteId, Collection<String> paths) {
+        if (CollectionUtils.isNotEmpty(paths)) {
+            retryingDatabaseOperationFacade.retry(() -> itemDao.clearPreviousPathBulk(siteId, paths));
+        }
+    }
+
     @Override
     public PublishingDashboardItem convertHistoryItemToDashboardItem(PublishingHistoryItem historyItem) {
         PublishingDashboardItem dashboardItem = new PublishingDashboardItem();
@@ -601,6 +569,13 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
         retryingDatabaseOperationFacade.retry(() -> itemDao.updateCommitId(siteId, path, commitId));
     }
 
+    @Override
+    public void updateCommitIds(String siteId, Collection<String> paths, String commitId) {
+        if (CollectionUtils.isNotEmpty(paths)) {
+            retryingDatabaseOperationFacade.retry(() -> itemDao.updateCommitIds(siteId, paths, commitId));
+        }
+    }
+
     @Override
     public List<String> getMandatoryParentsForPublishing(String siteId, List<String> paths) {
         return itemDao.getMandatoryParentsForPublishing(siteId, paths, NEW_MASK, MODIFIED_MASK);
@@ -614,7 +589,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public List<String> getChangeSetForSubtree(String siteId, String path) {
-        String likePath = path + (path.endsWith(FILE_SEPARATOR) ? "" : FILE_SEPARATOR) + "%";
+        String likePath = getDescendantsLikePattern(path);
         return itemDao.getChangeSetForSubtree(siteId, path, likePath,
                 List.of(CONTENT_TYPE_FOLDER, CONTENT_TYPE_UNKNOWN), IN_PROGRESS_MASK);
     }
@@ -730,7 +705,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public List<String> getSubtreeForDelete(String siteId, String path) {
-        String likePath = path + (path.endsWith(FILE_SEPARATOR) ? "" : FILE_SEPARATOR) + "%";
+        String likePath = getDescendantsLikePattern(path);
         return itemDao.getSubtreeForDelete(siteId, likePath);
     }
 
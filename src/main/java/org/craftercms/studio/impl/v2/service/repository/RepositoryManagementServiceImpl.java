@@ -91,8 +91,15 @@ public class RepositoryManagementServiceImpl implements RepositoryManagementServ
     @HasPermission(type = DefaultPermission.class, action = PERMISSION_LIST_REMOTES)
     public List<RemoteRepositoryInfo> listRemotes(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId)
             throws ServiceLayerException {
+        return listRemotes(siteId, false);
+    }
+
+    @Override
+    @HasPermission(type = DefaultPermission.class, action = PERMISSION_LIST_REMOTES)
+    public List<RemoteRepositoryInfo> listRemotes(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId,
+                                                  boolean refresh) throws ServiceLayerException {
         SiteFeed siteFeed = siteService.getSite(siteId);
-        return repositoryManagementServiceInternal.listRemotes(siteId, siteFeed.getSandboxBranch());
+        return repositoryManagementServiceInternal.listRemotes(siteId, siteFeed.getSandboxBranch(), refresh);
     }
 
     @Override
@@ -148,8 +155,15 @@ public class RepositoryManagementServiceImpl implements RepositoryManagementServ
     @HasPermission(type = DefaultPermission.class, action = PERMISSION_SITE_STATUS)
     public RepositoryStatus getRepositoryStatus(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId)
             throws ServiceLayerException {
+        return getRepositoryStatus(siteId, false);
+    }
+
+    @Override
+    @HasPermission(type = DefaultPermission.class, action = PERMISSION_SITE_STATUS)
+    public RepositoryStatus getRepositoryStatus(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId,
+                                                boolean fullScan) throws ServiceLayerException {
         siteService.checkSiteExists(siteId);
-        return repositoryManagementServiceInternal.getRepositoryStatus(siteId);
+        return repositoryManagementServiceInternal.getRepositoryStatus(siteId, fullScan);
     }
 
     @Override
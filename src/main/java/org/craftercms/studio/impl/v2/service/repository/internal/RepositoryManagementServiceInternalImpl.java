@@ -17,7 +17,6 @@
 package org.craftercms.studio.impl.v2.service.repository.internal;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -32,6 +31,9 @@ import org.craftercms.studio.api.v1.service.GeneralLockService;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v2.dal.*;
+import org.craftercms.studio.api.v2.event.content.ContentEvent;
+import org.craftercms.studio.api.v2.event.content.MoveContentEvent;
+import org.craftercms.studio.api.v2.event.site.SiteDeleteEvent;
 import org.craftercms.studio.api.v2.repository.ContentRepository;
 import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade;
 import org.craftercms.studio.api.v2.service.notification.NotificationService;
@@ -40,23 +42,35 @@ import org.craftercms.studio.api.v2.service.repository.internal.RepositoryManage
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.repository.WorktreeJournal;
+import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.craftercms.studio.impl.v2.utils.GitUtils;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.errors.CorruptObjectException;
 import org.eclipse.jgit.errors.NoRemoteRepositoryException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.merge.MergeStrategy;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.RevWalkUtils;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.transport.*;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.task.TaskExecutor;
 
 import java.io.ByteArrayOutputStream;
@@ -67,10 +81,19 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
@@ -101,6 +124,17 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
     private RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
     protected TaskExecutor taskExecutor;
+    protected Executor remoteFetchExecutor;
+    protected int remoteFetchTimeout = 30;
+    protected long remoteRefreshInterval = 300000;
+
+    /**
+     * Last known state of the remotes of each site, the remote refs themselves are stored in the sandbox repository
+     */
+    protected final ConcurrentMap<String, Map<String, RemoteFetchState>> remoteFetchStates =
+            new ConcurrentHashMap<>();
+
+    protected WorktreeJournal worktreeJournal;
 
     @Override
     public boolean addRemote(String siteId, RemoteRepository remoteRepository)
@@ -228,51 +262,145 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
     }
 
     @Override
-    public List<RemoteRepositoryInfo> listRemotes(String siteId, String sandboxBranch) {
+    public List<RemoteRepositoryInfo> listRemotes(String siteId, String sandboxBranch, boolean refresh) {
         List<RemoteRepositoryInfo> res = new ArrayList<>();
-        Map<String, String> unreachableRemotes = new HashMap<>();
-        try (Repository repo = gitRepositoryHelper.getRepository(siteId, SANDBOX)) {
-            try (Git git = new Git(repo)) {
-                RemoteListCommand remoteListCommand = git.remoteList();
-                List<RemoteConfig> resultRemotes = retryingRepositoryOperationFacade.call(remoteListCommand);
-                if (isNotEmpty(resultRemotes)) {
-                    for (RemoteConfig conf : resultRemotes) {
-                        try {
-                            fetchRemote(siteId, git, conf);
-                        } catch (Exception e) {
-                            logger.warn("Failed to fetch from the remote repository '{}' in site '{}'",
-                                    conf.getName(), siteId, e);
-                            unreachableRemotes.put(conf.getName(), e.getMessage());
-                        }
-                    }
-                    Map<String, List<String>> remoteBranches = getRemoteBranches(git);
-                    String sandboxBranchName = sandboxBranch;
-                    if (StringUtils.isEmpty(sandboxBranchName)) {
-                        sandboxBranchName = studioConfiguration.getProperty(REPO_SANDBOX_BRANCH);
+        Repository repo = gitRepositoryHelper.getRepository(siteId, SANDBOX);
+        try (Git git = new Git(repo)) {
+            RemoteListCommand remoteListCommand = git.remoteList();
+            List<RemoteConfig> resultRemotes = retryingRepositoryOperationFacade.call(remoteListCommand);
+            if (isNotEmpty(resultRemotes)) {
+                Map<String, RemoteFetchState> siteStates =
+                        remoteFetchStates.computeIfAbsent(siteId, k -> new ConcurrentHashMap<>());
+                siteStates.keySet().retainAll(resultRemotes.stream().map(RemoteConfig::getName).collect(toSet()));
+
+                // Remotes that were never fetched (or all of them when requested) are fetched before returning,
+                // the rest are refreshed in the background once they are stale
+                List<CompletableFuture<Void>> fetches = new ArrayList<>();
+                long staleTime = System.currentTimeMillis() - remoteRefreshInterval;
+                for (RemoteConfig conf : resultRemotes) {
+                    RemoteFetchState state = siteStates.computeIfAbsent(conf.getName(), k -> new RemoteFetchState());
+                    if (refresh || state.lastFetchDate == null) {
+                        fetches.add(fetchRemoteAsync(siteId, conf, state));
+                    } else if (state.lastFetchDate.toInstant().toEpochMilli() < staleTime) {
+                        fetchRemoteAsync(siteId, conf, state);
                     }
-                    res = getRemoteRepositoryInfo(resultRemotes, remoteBranches, unreachableRemotes, sandboxBranchName);
                 }
-            } catch (GitAPIException e) {
-                logger.error("Failed to get the remote repositories for site '{}'", siteId, e);
+                waitForFetches(siteId, fetches);
+
+                Map<String, List<String>> remoteBranches = getRemoteBranches(git);
+                String sandboxBranchName = sandboxBranch;
+                if (StringUtils.isEmpty(sandboxBranchName)) {
+                    sandboxBranchName = studioConfiguration.getProperty(REPO_SANDBOX_BRANCH);
+                }
+                res = getRemoteRepositoryInfo(resultRemotes, remoteBranches, siteStates, sandboxBranchName);
+                for (RemoteRepositoryInfo info : res) {
+                    setAheadBehind(repo, info, sandboxBranchName);
+                }
             }
+        } catch (GitAPIException e) {
+            logger.error("Failed to get the remote repositories for site '{}'", siteId, e);
         }
         return res;
     }
 
+    /**
+     * Starts a fetch of the given remote, if there is already one in progress for the remote it is reused
+     */
+    protected CompletableFuture<Void> fetchRemoteAsync(String siteId, RemoteConfig conf, RemoteFetchState state) {
+        synchronized (state) {
+            if (state.pendingFetch == null) {
+                state.pendingFetch = CompletableFuture.runAsync(() -> {
+                    try (Git git = new Git(gitRepositoryHelper.getRepository(siteId, SANDBOX))) {
+                        fetchRemote(siteId, git, conf);
+                        state.reachable = true;
+                        state.unreachableReason = null;
+                    } catch (Exception e) {
+                        logger.warn("Failed to fetch from the remote repository '{}' in site '{}'",
+                                conf.getName(), siteId, e);
+                        state.reachable = false;
+                        state.unreachableReason = e.getMessage();
+                    } finally {
+                        state.lastFetchDate = DateUtils.getCurrentTime();
+                        synchronized (state) {
+                            state.pendingFetch = null;
+                        }
+                    }
+                }, remoteFetchExecutor);
+            }
+            return state.pendingFetch;
+        }
+    }
+
+    private void waitForFetches(String siteId, List<CompletableFuture<Void>> fetches) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(remoteFetchTimeout);
+        for (CompletableFuture<Void> fetch : fetches) {
+            try {
+                fetch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                logger.debug("Fetch from remote repositories in site '{}' is still running, return the last " +
+                        "known state", siteId);
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                logger.debug("Fetch from remote repository in site '{}' failed", siteId, e);
+            }
+        }
+    }
+
+    /**
+     * Computes how many commits the sandbox branch is ahead and behind the same branch of the remote, using only
+     * the local refs
+     */
+    private void setAheadBehind(Repository repo, RemoteRepositoryInfo info, String sandboxBranchName) {
+        try {
+            Ref localRef = repo.exactRef(Constants.R_HEADS + sandboxBranchName);
+            Ref remoteRef = repo.exactRef(Constants.R_REMOTES + info.getName() + "/" + sandboxBranchName);
+            if (localRef == null || remoteRef == null) {
+                return;
+            }
+            try (RevWalk walk = new RevWalk(repo)) {
+                RevCommit localCommit = walk.parseCommit(localRef.getObjectId());
+                RevCommit remoteCommit = walk.parseCommit(remoteRef.getObjectId());
+                walk.setRevFilter(RevFilter.MERGE_BASE);
+                walk.markStart(localCommit);
+                walk.markStart(remoteCommit);
+                RevCommit mergeBase = walk.next();
+                walk.reset();
+                walk.setRevFilter(RevFilter.ALL);
+                info.setAhead(RevWalkUtils.count(walk, localCommit, mergeBase));
+                info.setBehind(RevWalkUtils.count(walk, remoteCommit, mergeBase));
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to compare the sandbox branch with the remote '{}'", info.getName(), e);
+        }
+    }
+
     private void fetchRemote(String siteId, Git git, RemoteConfig conf)
             throws CryptoException, IOException, ServiceLayerException, GitAPIException {
         RemoteRepository remoteRepository = getRemoteRepository(siteId, conf.getName());
         if (remoteRepository != null) {
             Path tempKey = Files.createTempFile(UUID.randomUUID().toString(), ".tmp");
-            FetchCommand fetchCommand = git.fetch().setRemote(conf.getName());
-            gitRepositoryHelper.setAuthenticationForCommand(fetchCommand,
-                    remoteRepository.getAuthenticationType(), remoteRepository.getRemoteUsername(),
-                    remoteRepository.getRemotePassword(), remoteRepository.getRemoteToken(),
-                    remoteRepository.getRemotePrivateKey(), tempKey, true);
-            retryingRepositoryOperationFacade.call(fetchCommand);
+            try {
+                FetchCommand fetchCommand = git.fetch().setRemote(conf.getName()).setTimeout(remoteFetchTimeout);
+                gitRepositoryHelper.setAuthenticationForCommand(fetchCommand,
+                        remoteRepository.getAuthenticationType(), remoteRepository.getRemoteUsername(),
+                        remoteRepository.getRemotePassword(), remoteRepository.getRemoteToken(),
+                        remoteRepository.getRemotePrivateKey(), tempKey, true);
+                retryingRepositoryOperationFacade.call(fetchCommand);
+            } finally {
+                Files.deleteIfExists(tempKey);
+            }
         }
     }
 
+    @EventListener
+    public void onSiteDelete(SiteDeleteEvent event) {
+        remoteFetchStates.remove(event.getSiteId());
+        worktreeJournal.reset(event.getSiteId());
+    }
+
     private RemoteRepository getRemoteRepository(String siteId, String remoteName) {
         Map<String, String> params = new HashMap<>();
         params.put("siteId", siteId);
@@ -305,15 +433,17 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
 
     private List<RemoteRepositoryInfo> getRemoteRepositoryInfo(List<RemoteConfig> resultRemotes,
                                                                Map<String, List<String>> remoteBranches,
-                                                               Map<String, String> unreachableRemotes,
+                                                               Map<String, RemoteFetchState> fetchStates,
                                                                String sandboxBranchName) {
         List<RemoteRepositoryInfo> res = new ArrayList<>();
         for (RemoteConfig conf : resultRemotes) {
             RemoteRepositoryInfo rri = new RemoteRepositoryInfo();
             rri.setName(conf.getName());
-            if (MapUtils.isNotEmpty(unreachableRemotes) && unreachableRemotes.containsKey(conf.getName())) {
-                rri.setReachable(false);
-                rri.setUnreachableReason(unreachableRemotes.get(conf.getName()));
+            RemoteFetchState state = fetchStates.get(conf.getName());
+            if (state != null) {
+                rri.setReachable(state.reachable);
+                rri.setUnreachableReason(state.unreachableReason);
+                rri.setLastFetchDate(state.lastFetchDate);
             }
             List<String> branches = remoteBranches.get(rri.getName());
             if (CollectionUtils.isEmpty(branches)) {
@@ -636,6 +766,10 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
         params.put("siteId", siteId);
         params.put("remoteName", remoteName);
         retryingDatabaseOperationFacade.retry(() -> remoteRepositoryDao.deleteRemoteRepository(params));
+        Map<String, RemoteFetchState> siteStates = remoteFetchStates.get(siteId);
+        if (siteStates != null) {
+            siteStates.remove(remoteName);
+        }
 
         return true;
     }
@@ -645,25 +779,137 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
     }
 
     @Override
-    public RepositoryStatus getRepositoryStatus(String siteId)
-            throws ServiceLayerException {
+    public RepositoryStatus getRepositoryStatus(String siteId) throws ServiceLayerException {
+        return getRepositoryStatus(siteId, false);
+    }
+
+    @Override
+    public RepositoryStatus getRepositoryStatus(String siteId, boolean fullScan) throws ServiceLayerException {
         Repository repo = gitRepositoryHelper.getRepository(siteId, SANDBOX);
+        Set<String> journal = worktreeJournal.getPaths(siteId);
+        if (fullScan || journal == null) {
+            return scanRepositoryStatus(siteId, repo);
+        }
+        RepositoryStatus repositoryStatus = new RepositoryStatus();
+        try (Git git = new Git(repo)) {
+            logger.debug("Check the status of the sandbox repository incrementally in site '{}'", siteId);
+            DirCache index = repo.readDirCache();
+            Set<String> paths = new HashSet<>(journal);
+            Set<String> conflicting = getConflictingPaths(index);
+            paths.addAll(conflicting);
+            if (repo.getRepositoryState() != RepositoryState.SAFE || !conflicting.isEmpty()) {
+                // the files merged so far are staged but not committed yet
+                paths.addAll(getStagedPaths(repo, index));
+            }
+            if (paths.isEmpty()) {
+                repositoryStatus.setClean(true);
+                repositoryStatus.setConflicting(new HashSet<>());
+                repositoryStatus.setUncommittedChanges(new HashSet<>());
+                return repositoryStatus;
+            }
+            StatusCommand statusCommand = git.status();
+            paths.forEach(statusCommand::addPath);
+            Status status = retryingRepositoryOperationFacade.call(statusCommand);
+            setRepositoryStatus(repositoryStatus, status);
+
+            // paths that are clean again don't need to be checked anymore
+            Set<String> dirtyPaths = getDirtyPaths(status);
+            journal.removeIf(path -> paths.contains(path) && !isDirty(dirtyPaths, path));
+        } catch (GitAPIException | IOException e) {
+            logger.error("Failed to get the status of the sandbox repository in site '{}'", siteId, e);
+            throw new ServiceLayerException(format("Failed to get the status of the sandbox repository in site '%s'",
+                    siteId), e);
+        }
+        return repositoryStatus;
+    }
+
+    /**
+     * Runs a status of the whole worktree and starts the journal of the site with the paths that are not clean
+     */
+    protected RepositoryStatus scanRepositoryStatus(String siteId, Repository repo) throws ServiceLayerException {
         RepositoryStatus repositoryStatus = new RepositoryStatus();
-        logger.trace("Execute git status in site '{}' and return any conflicting paths and uncommitted changes",
-                siteId);
         try (Git git = new Git(repo)) {
+            logger.debug("Scan the worktree of the sandbox repository in site '{}'", siteId);
             StatusCommand statusCommand = git.status();
             Status status = retryingRepositoryOperationFacade.call(statusCommand);
-            repositoryStatus.setClean(status.isClean());
-            repositoryStatus.setConflicting(status.getConflicting());
-            repositoryStatus.setUncommittedChanges(status.getUncommittedChanges());
+            setRepositoryStatus(repositoryStatus, status);
+
+            worktreeJournal.start(siteId, getDirtyPaths(status));
         } catch (GitAPIException e) {
-            logger.error("Failed to execute git status in site '{}'", siteId, e);
-            throw new ServiceLayerException(format("Failed to execute git status in site '%s'", siteId), e);
+            logger.error("Failed to get the status of the sandbox repository in site '{}'", siteId, e);
+            throw new ServiceLayerException(format("Failed to get the status of the sandbox repository in site '%s'",
+                    siteId), e);
         }
         return repositoryStatus;
     }
 
+    private void setRepositoryStatus(RepositoryStatus repositoryStatus, Status status) {
+        repositoryStatus.setClean(status.isClean());
+        repositoryStatus.setConflicting(status.getConflicting());
+        repositoryStatus.setUncommittedChanges(status.getUncommittedChanges());
+    }
+
+    private Set<String> getDirtyPaths(Status status) {
+        Set<String> dirtyPaths = new HashSet<>(status.getUncommittedChanges());
+        dirtyPaths.addAll(status.getUntracked());
+        return dirtyPaths;
+    }
+
+    private boolean isDirty(Set<String> dirtyPaths, String path) {
+        return dirtyPaths.stream().anyMatch(dirtyPath -> dirtyPath.equals(path) || dirtyPath.startsWith(path + "/"));
+    }
+
+    /**
+     * Returns the paths that have unmerged stages in the index
+     */
+    private Set<String> getConflictingPaths(DirCache index) {
+        Set<String> conflicting = new HashSet<>();
+        for (int i = 0; i < index.getEntryCount(); i++) {
+            DirCacheEntry entry = index.getEntry(i);
+            if (entry.getStage() != DirCacheEntry.STAGE_0) {
+                conflicting.add(entry.getPathString());
+            }
+        }
+        return conflicting;
+    }
+
+    /**
+     * Returns the paths that are different in the index and the HEAD commit, without reading the worktree
+     */
+    private Set<String> getStagedPaths(Repository repo, DirCache index) throws IOException {
+        Set<String> staged = new HashSet<>();
+        try (TreeWalk treeWalk = new TreeWalk(repo)) {
+            ObjectId headTree = repo.resolve(Constants.HEAD + "^{tree}");
+            if (headTree != null) {
+                treeWalk.addTree(headTree);
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(new DirCacheIterator(index));
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            while (treeWalk.next()) {
+                staged.add(treeWalk.getPathString());
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * Adds the given path to the worktree journal of the site, so it is included in the next status check
+     */
+    protected void journalPath(String siteId, String path) {
+        worktreeJournal.add(siteId, gitRepositoryHelper.getGitPath(path));
+    }
+
+    @EventListener
+    public void onContentEvent(ContentEvent event) {
+        journalPath(event.getSiteId(), event.getTargetPath());
+        if (event instanceof MoveContentEvent) {
+            journalPath(event.getSiteId(), ((MoveContentEvent) event).getSourcePath());
+        }
+    }
+
     @Override
     public boolean resolveConflict(String siteId, String path, String resolution)
             throws ServiceLayerException {
@@ -672,6 +918,7 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
         generalLockService.lock(gitLockKey);
         ResetCommand resetCommand;
         CheckoutCommand checkoutCommand;
+        journalPath(siteId, path);
         try (Git git = new Git(repo)) {
             switch (resolution.toLowerCase()) {
                 case "ours" :
@@ -836,6 +1083,8 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
         try (Git git = new Git(repo)) {
             ResetCommand resetCommand = git.reset().setMode(ResetCommand.ResetType.HARD);
             retryingRepositoryOperationFacade.call(resetCommand);
+            // untracked files are not removed by the reset, so the worktree needs a new scan
+            worktreeJournal.reset(siteId);
         } catch (GitAPIException e) {
             logger.error("Failed to cancel the pull operation in site '{}'", siteId, e);
             throw new ServiceLayerException(format("Failed to cancel the pull operation in site '%s'", siteId), e);
@@ -886,6 +1135,8 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
             FileUtils.forceDelete(repository.getIndexFile());
             ResetCommand resetCommand = git.reset().setMode(ResetCommand.ResetType.HARD);
             retryingRepositoryOperationFacade.call(resetCommand);
+            // untracked files are not removed by the reset, so the worktree needs a new scan
+            worktreeJournal.reset(siteId);
         } catch (Exception e) {
             throw new ServiceLayerException("Error repairing corrupted repository for site " + siteId, e);
         } finally {
@@ -957,4 +1208,30 @@ public class RepositoryManagementServiceInternalImpl implements RepositoryManage
     public void setTaskExecutor(TaskExecutor taskExecutor) {
         this.taskExecutor = taskExecutor;
     }
+
+    public void setRemoteFetchExecutor(Executor remoteFetchExecutor) {
+        this.remoteFetchExecutor = remoteFetchExecutor;
+    }
+
+    public void setRemoteFetchTimeout(int remoteFetchTimeout) {
+        this.remoteFetchTimeout = remoteFetchTimeout;
+    }
+
+    public void setRemoteRefreshInterval(long remoteRefreshInterval) {
+        this.remoteRefreshInterval = remoteRefreshInterval;
+    }
+
+    public void setWorktreeJournal(WorktreeJournal worktreeJournal) {
+        this.worktreeJournal = worktreeJournal;
+    }
+
+    protected static class RemoteFetchState {
+
+        protected volatile ZonedDateTime lastFetchDate;
+        protected volatile boolean reachable = true;
+        protected volatile String unreachableReason;
+        protected CompletableFuture<Void> pendingFetch;
+
+    }
+
 }
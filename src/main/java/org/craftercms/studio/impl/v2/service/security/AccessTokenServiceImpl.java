@@ -74,6 +74,11 @@ public class AccessTokenServiceImpl implements AccessTokenService {
         accessTokenServiceInternal.deleteExpiredRefreshTokens();
     }
 
+    @Override
+    public void flushLoginAuditLog() {
+        accessTokenServiceInternal.flushLoginAuditLog();
+    }
+
     // Persistent tokens
 
     @Override
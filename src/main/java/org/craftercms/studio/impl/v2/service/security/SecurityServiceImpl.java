@@ -19,23 +19,21 @@ package org.craftercms.studio.impl.v2.service.security;
 import com.google.common.cache.Cache;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.craftercms.studio.api.v1.constant.StudioXmlConstants;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.craftercms.studio.api.v2.security.AvailableActionsResolver;
+import org.craftercms.studio.api.v2.security.PermissionRules;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.service.security.SecurityService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.dom4j.Document;
-import org.dom4j.Element;
-import org.dom4j.Node;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
@@ -57,12 +55,20 @@ public class SecurityServiceImpl implements SecurityService {
 
     private static final String CACHE_KEY = "user-permissions";
 
+    private static final String RULES_CACHE_SUFFIX = "rules";
+
     @Override
     public long getAvailableActions(String username, String site, String path)
             throws ServiceLayerException, UserNotFoundException {
         return availableActionsResolver.getContentItemAvailableActions(username, site, path);
     }
 
+    @Override
+    public Map<String, Long> getAvailableActions(String username, String site, Collection<String> paths)
+            throws ServiceLayerException, UserNotFoundException {
+        return availableActionsResolver.getContentItemAvailableActions(username, site, paths);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<String> getUserPermission(String siteId, String username, List<String> roles) {
@@ -97,47 +103,35 @@ public class SecurityServiceImpl implements SecurityService {
     }
 
     private Set<String> getPermissionsFromConfig(String siteId, String configPath, List<String> roles) {
-        Document document = null;
-        Set<String> permissions = new HashSet<>();
-        try {
-            if (StringUtils.isEmpty(siteId)) {
-                document = configurationService.getGlobalConfigurationAsDocument(configPath);
-            } else {
-                document = configurationService.getConfigurationAsDocument(siteId, MODULE_STUDIO, configPath,
-                        studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE));
-            }
-        } catch (ServiceLayerException e) {
-            logger.error("Permission mapping not found in site '{}' path '{}'", siteId, configPath);
-        }
-        if (Objects.nonNull(document)) {
-            Element root = document.getRootElement();
-            if (root.getName().equals(StudioXmlConstants.DOCUMENT_PERMISSIONS)) {
-                //backwards compatibility for nested <site>
-                Element permissionsRoot = root;
-                Element siteNode = (Element) permissionsRoot.selectSingleNode(StudioXmlConstants.DOCUMENT_ELM_SITE);
-                if (siteNode != null) {
-                    permissionsRoot = siteNode;
-                }
+        return getPermissionRules(siteId, configPath).getAllPermissions(roles);
+    }
 
-                List<Node> roleNodes = permissionsRoot.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_ROLE);
-                for (Node roleNode : roleNodes) {
-                    String roleName = roleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_PERMISSIONS_NAME);
-                    if (roles.contains(roleName)) {
-                        List<Node> ruleNodes = roleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_RULE);
-
-                        for (Node ruleNode : ruleNodes) {
-                            List<Node> permissionNodes = ruleNode.selectNodes(
-                                    StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                            for (Node permissionNode : permissionNodes) {
-                                String permission = permissionNode.getText().toLowerCase();
-                                permissions.add(permission);
-                            }
-                        }
-                    }
+    private PermissionRules getPermissionRules(String siteId, String configPath) {
+        String cacheKey;
+        if (StringUtils.isEmpty(siteId)) {
+            cacheKey = configurationService.getCacheKey(null, null, configPath, null, RULES_CACHE_SUFFIX);
+        } else {
+            cacheKey = configurationService.getCacheKey(siteId, MODULE_STUDIO, configPath,
+                    studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE), RULES_CACHE_SUFFIX);
+        }
+        PermissionRules rules = (PermissionRules) configurationCache.getIfPresent(cacheKey);
+        if (rules == null) {
+            logger.debug("Cache miss for key '{}'", cacheKey);
+            Document document = null;
+            try {
+                if (StringUtils.isEmpty(siteId)) {
+                    document = configurationService.getGlobalConfigurationAsDocument(configPath);
+                } else {
+                    document = configurationService.getConfigurationAsDocument(siteId, MODULE_STUDIO, configPath,
+                            studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE));
                 }
+            } catch (ServiceLayerException e) {
+                logger.error("Permission mapping not found in site '{}' path '{}'", siteId, configPath);
             }
+            rules = PermissionRules.compile(false, document);
+            configurationCache.put(cacheKey, rules);
         }
-        return permissions;
+        return rules;
     }
 
     public void setAvailableActionsResolver(AvailableActionsResolver availableActionsResolver) {
@@ -17,12 +17,15 @@ package org.craftercms.studio.impl.v2.service.security.internal;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.dal.AuditLog;
 import org.craftercms.studio.api.v2.dal.SecurityDAO;
 import org.craftercms.studio.api.v2.dal.User;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
@@ -30,6 +33,7 @@ import org.craftercms.studio.api.v2.service.security.internal.AccessTokenService
 import org.craftercms.studio.api.v2.service.system.InstanceService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.spring.context.SystemStatusProvider;
+import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.craftercms.studio.model.security.AccessToken;
 import org.craftercms.studio.model.security.PersistentAccessToken;
 import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
@@ -41,10 +45,12 @@ import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 import org.jose4j.jwt.NumericDate;
 import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
 import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import org.jose4j.keys.HmacKey;
 import org.jose4j.keys.PbkdfKey;
 import org.jose4j.lang.JoseException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -56,9 +62,16 @@ import java.beans.ConstructorProperties;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 import static java.lang.Long.parseLong;
 import static java.time.Instant.now;
@@ -81,12 +94,14 @@ import static org.springframework.web.util.WebUtils.getCookie;
  * @since 4.0
  */
 public class AccessTokenServiceInternalImpl extends CookieGenerator
-        implements AccessTokenServiceInternal, InitializingBean {
+        implements AccessTokenServiceInternal, InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(AccessTokenServiceInternalImpl.class);
 
     public static final String ACTIVITY_CACHE_CONFIG_KEY = "studio.security.activity.cache.config";
 
+    public static final String VALIDATION_CACHE_CONFIG_KEY = "studio.security.token.validation.cache.config";
+
     /**
      * The issuer for generation access tokens
      */
@@ -132,6 +147,26 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
      */
     protected Cache<Long, Instant> userActivity;
 
+    /**
+     * Cache of the tokens that have already been validated, indexed by the digest of the token
+     */
+    protected Cache<String, ValidatedToken> validatedTokens;
+
+    /**
+     * Incremented every time a persistent token is changed, used to avoid caching a token validated before the change
+     */
+    protected final AtomicLong tokenChanges = new AtomicLong();
+
+    /**
+     * Logins with persistent tokens that have not been written to the audit log yet
+     */
+    protected final Queue<TokenLogin> pendingLogins = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The consumer used to validate the tokens, it is thread safe so it is only created once
+     */
+    protected volatile JwtConsumer jwtConsumer;
+
     protected Key jwtSignKey;
     protected Key jwtEncryptKey;
 
@@ -176,11 +211,17 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
     @Override
     public void afterPropertiesSet() {
         userActivity = CacheBuilder.from(studioConfiguration.getProperty(ACTIVITY_CACHE_CONFIG_KEY)).build();
+        validatedTokens = CacheBuilder.from(studioConfiguration.getProperty(VALIDATION_CACHE_CONFIG_KEY)).build();
         jwtSignKey = new HmacKey(signPassword.getBytes(StandardCharsets.UTF_8));
         jwtEncryptKey = new PbkdfKey(encryptPassword);
         setCookieHttpOnly(true); // Always HTTPOnly to protect the refresh token
     }
 
+    @Override
+    public void destroy() {
+        flushLoginAuditLog();
+    }
+
     @Override
     public boolean hasValidRefreshToken(Authentication auth, HttpServletRequest request, HttpServletResponse response) {
         var cookie = getCookie(request, getCookieName());
@@ -237,6 +278,7 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
     public void deleteRefreshToken(User user) {
         logger.debug("Trigger re-authentication for user '{}'", user.getUsername());
         userActivity.invalidate(user.getId());
+        invalidateValidatedTokens(token -> StringUtils.equals(token.username, user.getUsername()));
         retryingDatabaseOperationFacade.retry(() -> securityDao.deleteRefreshToken(user.getId()));
     }
 
@@ -286,6 +328,7 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
         var userId = getUserId(auth);
 
         retryingDatabaseOperationFacade.retry(() -> securityDao.updateAccessToken(userId, tokenId, enabled));
+        invalidateValidatedTokens(token -> Objects.equals(token.tokenId, tokenId));
 
         createAuditLog(auth, tokenId, TARGET_TYPE_ACCESS_TOKEN, OPERATION_UPDATE);
 
@@ -297,6 +340,7 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
         var auth = SecurityContextHolder.getContext().getAuthentication();
 
         retryingDatabaseOperationFacade.retry(() -> securityDao.deleteAccessToken(getUserId(auth), tokenId));
+        invalidateValidatedTokens(token -> Objects.equals(token.tokenId, tokenId));
 
         createAuditLog(auth, tokenId, TARGET_TYPE_ACCESS_TOKEN, OPERATION_DELETE);
     }
@@ -305,10 +349,9 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
         return isNotEmpty(audience)? audience : instanceService.getInstanceId();
     }
 
-    @Override
-    public String getUsername(String token) {
-        try {
-            var jwtConsumer = new JwtConsumerBuilder()
+    protected JwtConsumer getJwtConsumer() {
+        if (jwtConsumer == null) {
+            jwtConsumer = new JwtConsumerBuilder()
                     .setEnableRequireEncryption()
                     .setRequireSubject()
                     .setExpectedIssuers(true, validIssuers)
@@ -316,13 +359,35 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
                     .setVerificationKey(jwtSignKey)
                     .setDecryptionKey(jwtEncryptKey)
                     .build();
+        }
+        return jwtConsumer;
+    }
+
+    @Override
+    public String getUsername(String token) {
+        // The decryption of the token is deliberately slow, so valid tokens are only checked once
+        var digest = DigestUtils.sha256Hex(token);
+        var validatedToken = validatedTokens.getIfPresent(digest);
+        if (validatedToken != null) {
+            if (validatedToken.expiresAt > System.currentTimeMillis()) {
+                logger.trace("Found validated JWT for user '{}' in the cache", validatedToken.username);
+                if (validatedToken.tokenId != null) {
+                    addLogin(validatedToken.username, validatedToken.tokenId);
+                }
+                return validatedToken.username;
+            }
+            validatedTokens.invalidate(digest);
+        }
 
-            var claims = jwtConsumer.processToClaims(token);
+        try {
+            var changes = tokenChanges.get();
+            var claims = getJwtConsumer().processToClaims(token);
 
             var username = claims.getSubject();
             var jwtId = claims.getJwtId();
+            Long tokenId = null;
             if (isNotEmpty(jwtId)) {
-                var tokenId = parseLong(jwtId);
+                tokenId = parseLong(jwtId);
                 var storedToken = securityDao.getAccessTokenById(tokenId);
                 if (storedToken == null) {
                     // someone is trying to use a deleted token!
@@ -340,11 +405,18 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
                 }
 
                 logger.debug("Successfully validated JWT with ID '{}' for user '{}'", tokenId, username);
-                createAuditLog(username, tokenId, TARGET_TYPE_ACCESS_TOKEN, OPERATION_LOGIN);
+                addLogin(username, tokenId);
             } else {
                 logger.debug("Successfully validated JWT with for user '{}'", username);
             }
 
+            var expirationTime = claims.getExpirationTime();
+            var expiresAt = expirationTime != null? expirationTime.getValueInMillis() : Long.MAX_VALUE;
+            // skip the cache if the token was changed while it was being validated
+            if (changes == tokenChanges.get()) {
+                validatedTokens.put(digest, new ValidatedToken(username, tokenId, expiresAt));
+            }
+
             // Return the user
             return username;
         } catch (InvalidJwtException | MalformedClaimException e) {
@@ -356,6 +428,42 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
         return null;
     }
 
+    protected void invalidateValidatedTokens(Predicate<ValidatedToken> predicate) {
+        tokenChanges.incrementAndGet();
+        validatedTokens.asMap().values().removeIf(predicate);
+    }
+
+    /**
+     * Registers a successful login with a persistent token, it will be written to the audit log by the next flush
+     */
+    protected void addLogin(String username, long tokenId) {
+        pendingLogins.add(new TokenLogin(username, tokenId, DateUtils.getCurrentTime()));
+    }
+
+    @Override
+    public void flushLoginAuditLog() {
+        if (pendingLogins.isEmpty()) {
+            return;
+        }
+        try {
+            var site = siteService.getSite(studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE));
+            List<AuditLog> entries = new ArrayList<>();
+            TokenLogin login;
+            while ((login = pendingLogins.poll()) != null) {
+                var entry = createAuditLogEntry(site.getId(), login.username, login.tokenId,
+                        TARGET_TYPE_ACCESS_TOKEN, Long.toString(login.tokenId), OPERATION_LOGIN);
+                entry.setOperationTimestamp(login.timestamp);
+                entries.add(entry);
+            }
+            if (!entries.isEmpty()) {
+                auditService.insertAuditLogs(entries);
+                logger.debug("Wrote '{}' audit entries for logins with access tokens", entries.size());
+            }
+        } catch (SiteNotFoundException e) {
+            // should never happen
+        }
+    }
+
     protected long getUserId(Authentication auth) {
         return ((User) auth.getPrincipal()).getId();
     }
@@ -406,23 +514,62 @@ public class AccessTokenServiceInternalImpl extends CookieGenerator
     protected void createAuditLog(String actor, long tokenId, String type, String value, String operation) {
         try {
             var site = siteService.getSite(studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE));
-            var entry = auditService.createAuditLogEntry();
-            entry.setOperation(operation);
-            entry.setActorId(actor);
-            entry.setSiteId(site.getId());
-            entry.setPrimaryTargetId(Long.toString(tokenId));
-            entry.setPrimaryTargetType(type);
-            entry.setPrimaryTargetValue(value);
-            auditService.insertAuditLog(entry);
+            auditService.insertAuditLog(createAuditLogEntry(site.getId(), actor, tokenId, type, value, operation));
         } catch (SiteNotFoundException e) {
             // should never happen
         }
     }
 
+    protected AuditLog createAuditLogEntry(long siteId, String actor, long tokenId, String type, String value,
+                                           String operation) {
+        var entry = auditService.createAuditLogEntry();
+        entry.setOperation(operation);
+        entry.setActorId(actor);
+        entry.setSiteId(siteId);
+        entry.setPrimaryTargetId(Long.toString(tokenId));
+        entry.setPrimaryTargetType(type);
+        entry.setPrimaryTargetValue(value);
+        return entry;
+    }
+
     @Override
     public void updateUserActivity(Authentication authentication) {
         logger.debug("Update user activity for '{}'", authentication.getName());
         userActivity.put(getUserId(authentication), now());
     }
 
+    /**
+     * A token that has already been validated
+     */
+    protected static class ValidatedToken {
+
+        protected final String username;
+        protected final Long tokenId;
+        protected final long expiresAt;
+
+        protected ValidatedToken(String username, Long tokenId, long expiresAt) {
+            this.username = username;
+            this.tokenId = tokenId;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+    /**
+     * The user, persistent token and time of a login
+     */
+    protected static class TokenLogin {
+
+        protected final String username;
+        protected final long tokenId;
+        protected final ZonedDateTime timestamp;
+
+        protected TokenLogin(String username, long tokenId, ZonedDateTime timestamp) {
+            this.username = username;
+            this.tokenId = tokenId;
+            this.timestamp = timestamp;
+        }
+
+    }
+
 }
@@ -25,10 +25,14 @@ import org.craftercms.studio.api.v1.exception.SiteAlreadyExistsException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
 import org.craftercms.studio.api.v1.repository.RepositoryItem;
+import org.craftercms.studio.api.v2.dal.PublishRequest;
+import org.craftercms.studio.api.v2.dal.PublishRequestDAO;
 import org.craftercms.studio.api.v2.dal.PublishStatus;
+import org.craftercms.studio.api.v2.dal.PublishingTargetQueue;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
 import org.craftercms.studio.api.v2.service.site.SitesService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +42,8 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,6 +59,7 @@ public class SitesServiceInternalImpl implements SitesService {
     private StudioConfiguration studioConfiguration;
     private SiteFeedMapper siteFeedMapper;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    private PublishRequestDAO publishRequestDao;
 
     @Override
     public List<PluginDescriptor> getAvailableBlueprints() {
@@ -159,7 +166,20 @@ public class SitesServiceInternalImpl implements SitesService {
     @Override
     public PublishStatus getPublishingStatus(String siteId) {
         int ttl = studioConfiguration.getProperty(PUBLISHING_SITE_LOCK_TTL, Integer.class);
-        return siteFeedMapper.getPublishingStatus(siteId, ttl);
+        PublishStatus publishStatus = siteFeedMapper.getPublishingStatus(siteId, ttl);
+        if (publishStatus != null) {
+            ZonedDateTime now = DateUtils.getCurrentTime();
+            List<PublishingTargetQueue> queues = publishRequestDao.getPublishingTargetQueues(siteId,
+                    PublishRequest.State.READY_FOR_LIVE, now);
+            for (PublishingTargetQueue queue : queues) {
+                if (queue.getOldestScheduledDate() != null) {
+                    queue.setLagSeconds(Math.max(0,
+                            Duration.between(queue.getOldestScheduledDate(), now).getSeconds()));
+                }
+            }
+            publishStatus.setQueues(queues);
+        }
+        return publishStatus;
     }
 
     @Override
@@ -202,4 +222,8 @@ public class SitesServiceInternalImpl implements SitesService {
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public void setPublishRequestDao(PublishRequestDAO publishRequestDao) {
+        this.publishRequestDao = publishRequestDao;
+    }
 }
@@ -26,6 +26,9 @@ import org.apache.commons.configuration2.tree.ExpressionEngine;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.configuration2.tree.OverrideCombiner;
 import org.craftercms.commons.config.YamlConfiguration;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
@@ -38,9 +41,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
 import static org.apache.commons.lang3.StringUtils.prependIfMissing;
+import static org.apache.commons.lang3.StringUtils.split;
+import static org.apache.commons.lang3.StringUtils.trim;
+import static org.eclipse.jgit.lib.Constants.DOT_GIT;
+import static org.eclipse.jgit.lib.Constants.HEAD;
 
 public class StudioConfigurationImpl implements StudioConfiguration {
 
@@ -52,6 +69,23 @@ public class StudioConfigurationImpl implements StudioConfiguration {
 
     protected String configLocation;
 
+    /**
+     * The key of the global repository configuration in the cache, it only changes when the config is loaded
+     */
+    protected String globalRepoConfigCacheKey;
+
+    /**
+     * The values already resolved from the current configuration, null until the next lookup after a change
+     */
+    protected volatile Snapshot snapshot;
+
+    /**
+     * Milliseconds between checks of the global repository HEAD, to pick up changes that were not made by this node
+     */
+    protected long globalRepoCheckInterval;
+
+    protected final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
     @ConstructorProperties({"configurationCache", "configLocation"})
     public StudioConfigurationImpl(Cache<String, HierarchicalConfiguration<ImmutableNode>> configurationCache,
                                    String configLocation) {
@@ -106,10 +140,14 @@ public class StudioConfigurationImpl implements StudioConfiguration {
         } else {
             systemConfig = baseConfig;
         }
+
+        globalRepoConfigCacheKey = prependIfMissing(systemConfig.getString(STUDIO_CONFIG_GLOBAL_REPO_OVERRIDE_CONFIG), "/");
+        globalRepoCheckInterval = systemConfig.getLong(STUDIO_CONFIG_GLOBAL_REPO_CHECK_INTERVAL, 10000);
+        invalidateGlobalRepoConfig();
     }
 
     private HierarchicalConfiguration<ImmutableNode> loadGlobalRepoConfig() {
-        String cacheKey = prependIfMissing(systemConfig.getString(STUDIO_CONFIG_GLOBAL_REPO_OVERRIDE_CONFIG), "/");
+        String cacheKey = globalRepoConfigCacheKey;
         try {
             HierarchicalConfiguration<ImmutableNode> config = configurationCache.getIfPresent(cacheKey);
             if (config == null) {
@@ -164,22 +202,99 @@ public class StudioConfigurationImpl implements StudioConfiguration {
     }
 
     protected HierarchicalConfiguration<ImmutableNode> getConfig() {
-        return loadGlobalRepoConfig();
+        return getSnapshot().config;
+    }
+
+    /**
+     * Returns the snapshot for the current configuration. The snapshot is tied to the HEAD commit of the global
+     * repository, which is checked at most once per interval, so changes pushed or pulled into the repository are
+     * also picked up
+     */
+    protected Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.checkedAt < globalRepoCheckInterval) {
+            return current;
+        }
+        boolean changed = false;
+        synchronized (this) {
+            current = snapshot;
+            long now = System.currentTimeMillis();
+            if (current == null || now - current.checkedAt >= globalRepoCheckInterval) {
+                String commitId = getGlobalRepoHeadId();
+                if (current != null && Objects.equals(current.commitId, commitId)) {
+                    current.checkedAt = now;
+                } else {
+                    if (current != null) {
+                        logger.debug("The global repository changed to '{}', reloading the Studio configuration",
+                                commitId);
+                    }
+                    configurationCache.invalidate(globalRepoConfigCacheKey);
+                    current = new Snapshot(loadGlobalRepoConfig(), commitId, now);
+                    snapshot = current;
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            notifyChangeListeners();
+        }
+        return current;
+    }
+
+    /**
+     * Returns the id of the HEAD commit of the global repository, or null if the repository doesn't exist yet
+     */
+    protected String getGlobalRepoHeadId() {
+        Path gitDir = Paths.get(systemConfig.getString(REPO_BASE_PATH), systemConfig.getString(GLOBAL_REPO_PATH),
+                DOT_GIT);
+        if (!gitDir.toFile().exists()) {
+            return null;
+        }
+        try (Repository repo = new FileRepositoryBuilder().setGitDir(gitDir.toFile()).setMustExist(true).build()) {
+            ObjectId head = repo.resolve(HEAD);
+            return head != null ? head.name() : null;
+        } catch (Exception e) {
+            logger.warn("Failed to resolve the HEAD of the global repository at '{}'", gitDir, e);
+            return null;
+        }
+    }
+
+    protected void notifyChangeListeners() {
+        logger.debug("Studio configuration changed, notifying '{}' listeners", changeListeners.size());
+        for (Runnable listener : changeListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error("Failed to notify listener of a configuration change", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void invalidateGlobalRepoConfig() {
+        logger.debug("Invalidate the Studio configuration loaded from the global repository");
+        snapshot = null;
+    }
+
+    @Override
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
     }
 
     @Override
     public String getProperty(String key) {
-        return getConfig().getString(key);
+        return getSnapshot().get(key, config -> config.getString(key));
     }
 
     @Override
     public <T> T getProperty(String key, Class<T> clazz) {
-        return getConfig().get(clazz, key);
+        return getSnapshot().get(clazz.getName() + ":" + key, config -> config.get(clazz, key));
     }
 
     @Override
     public <T> T getProperty(String key, Class<T> clazz, T defaultVal) {
-        return getConfig().get(clazz, key, defaultVal);
+        T value = getProperty(key, clazz);
+        return value != null ? value : defaultVal;
     }
 
     @Override
@@ -213,4 +328,51 @@ public class StudioConfigurationImpl implements StudioConfiguration {
         }
     }
 
+    @Override
+    public List<String> getCommaSeparatedValues(String key) {
+        return getSnapshot().get("csv:" + key, config -> {
+            String[] values = split(config.getString(key), ',');
+            if (values == null) {
+                return Collections.<String>emptyList();
+            }
+            return Arrays.stream(values).map(value -> trim(value)).collect(toUnmodifiableList());
+        });
+    }
+
+    @Override
+    public List<Pattern> getPatterns(String key, int flags) {
+        return getSnapshot().get("patterns:" + flags + ":" + key, config -> getCommaSeparatedValues(key).stream()
+                .map(value -> Pattern.compile(value, flags))
+                .collect(toUnmodifiableList()));
+    }
+
+    /**
+     * Values resolved from a single version of the configuration. Lookups in the combined configuration are
+     * expensive, so each key is only resolved once and the whole snapshot is replaced when the configuration changes.
+     */
+    protected static class Snapshot {
+
+        protected final HierarchicalConfiguration<ImmutableNode> config;
+        protected final String commitId;
+        protected volatile long checkedAt;
+        protected final Map<String, Optional<Object>> values = new ConcurrentHashMap<>();
+
+        protected Snapshot(HierarchicalConfiguration<ImmutableNode> config, String commitId, long checkedAt) {
+            this.config = config;
+            this.commitId = commitId;
+            this.checkedAt = checkedAt;
+        }
+
+        @SuppressWarnings("unchecked")
+        protected <T> T get(String cacheKey, Function<HierarchicalConfiguration<ImmutableNode>, T> loader) {
+            Optional<Object> value = values.get(cacheKey);
+            if (value == null) {
+                value = Optional.ofNullable(loader.apply(config));
+                values.putIfAbsent(cacheKey, value);
+            }
+            return (T) value.orElse(null);
+        }
+
+    }
+
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.utils.cache;
+
+import com.google.common.cache.Cache;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.api.v2.utils.cache.CacheInvalidator;
+
+import java.beans.ConstructorProperties;
+
+import static org.apache.commons.lang3.StringUtils.prependIfMissing;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.STUDIO_CONFIG_GLOBAL_REPO_OVERRIDE_CONFIG;
+
+/**
+ * Implementation of {@link CacheInvalidator} that invalidates the Studio configuration when the override file in the
+ * global repository changes. It doesn't remove the key from the cache, so it should run after the invalidator that
+ * does.
+ *
+ * @since 4.1.0
+ * @param <K> the type for the keys
+ * @param <V> the type for the values
+ */
+public class StudioConfigurationCacheInvalidator<K extends String, V> implements CacheInvalidator<K, V> {
+
+    protected final StudioConfiguration studioConfiguration;
+
+    @ConstructorProperties({"studioConfiguration"})
+    public StudioConfigurationCacheInvalidator(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    @Override
+    public void invalidate(Cache<K, V> cache, K key) {
+        String overrideConfig = studioConfiguration.getProperty(STUDIO_CONFIG_GLOBAL_REPO_OVERRIDE_CONFIG);
+        if (overrideConfig != null &&
+                StringUtils.equals(prependIfMissing(key, "/"), prependIfMissing(overrideConfig, "/"))) {
+            studioConfiguration.invalidateGlobalRepoConfig();
+        }
+    }
+
+}
@@ -94,10 +94,10 @@ public class CompositePermissionResolverImpl implements PermissionResolver<Strin
             paths.add("/");
         }
 
-        String finalSiteName = siteName;
+        Map<String, Set<String>> userPermissions = securityService.getUserPermissions(siteName, paths, username, null);
         CompositePermission permission = paths.stream().map(x -> {
            DefaultPermission dp = new DefaultPermission();
-            Set<String> allowedActions = securityService.getUserPermissions(finalSiteName, x, username, null);
+            Set<String> allowedActions = userPermissions.get(x);
             dp.setAllowedActions(allowedActions);
             return dp;
         }).collect(CompositePermission::new, CompositePermission::addPermission, CompositePermission::addPermission);
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PathRegexUtilsTest {
+
+    private static final List<String> PATHS = List.of(
+            "/",
+            "/site",
+            "/site/a",
+            "/site/aa/b.xml",
+            "/site/item",
+            "/site/items/article.xml",
+            "/site/123/index.xml",
+            "/site/website/index.xml",
+            "/site/website/indexAxml",
+            "/site/web_site/index.xml",
+            "/static-assets/100%_off/banner.png",
+            "/static-assets/100xyoff/banner.png",
+            "/static-assets/b",
+            "/a",
+            "/a(",
+            "/a|",
+            "/a.b",
+            "/ab",
+            "/b",
+            "/xb",
+            "/c\\d");
+
+    private static final List<String> REGEXES = List.of(
+            "",
+            ".*",
+            "^.*",
+            "^/.*",
+            "^/site/website/index\\.xml$",
+            "^/site/website/.*",
+            "/site/website/.*",
+            "^/static-assets/100%_off/.*",
+            "^/site/items?",
+            "^/site/items*/",
+            "^/site/a{0,2}",
+            "^/site/a+",
+            "^/a\\.?b",
+            "^/c\\\\d",
+            "^/site/\\d+/.*",
+            "^/site/[a-z]+",
+            "^/site/(items|website)/.*",
+            "^/site/a|^/static-assets/b",
+            "^/site/a|/b",
+            "^/a[(]|/b",
+            "^/a[)]|/b",
+            "^/a[|]",
+            "^/a[]()]|/b",
+            "^/a\\(|/b",
+            "^/a\\||/xb",
+            "^/site$",
+            "^(/site|/static-assets)/.*",
+            "^/site/(?:a|b)");
+
+    @Test
+    public void testLikePrefixNeverDropsMatches() {
+        for (String regex : REGEXES) {
+            String likePrefix = PathRegexUtils.getLikePrefix(regex);
+            if (likePrefix == null) {
+                continue;
+            }
+            Pattern pattern = Pattern.compile(regex);
+            for (String path : PATHS) {
+                if (pattern.matcher(path).find()) {
+                    assertTrue(like(path, likePrefix), String.format("LIKE '%s' drops path '%s' matched by '%s'",
+                            likePrefix, path, regex));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEscapedMetaCharacters() {
+        assertEquals("/site/website/index.xml%", PathRegexUtils.getLikePrefix("^/site/website/index\\.xml$"));
+        assertEquals("/a(%", PathRegexUtils.getLikePrefix("^/a\\("));
+        assertEquals("/c\\\\d%", PathRegexUtils.getLikePrefix("^/c\\\\d"));
+        // character classes are not literals
+        assertEquals("/site/%", PathRegexUtils.getLikePrefix("^/site/\\d+/.*"));
+        assertEquals("/site/%", PathRegexUtils.getLikePrefix("^/site/[a-z]+"));
+    }
+
+    @Test
+    public void testLikeWildcardsAreEscaped() {
+        assertEquals("/static-assets/100\\%\\_off/%", PathRegexUtils.getLikePrefix("^/static-assets/100%_off/.*"));
+        assertEquals("a\\\\b\\%c\\_d", PathRegexUtils.escapeLike("a\\b%c_d"));
+        assertEquals("/site/web\\_site/%", PathRegexUtils.getDescendantsLikePattern("/site/web_site"));
+        assertEquals("/site/website/%", PathRegexUtils.getDescendantsLikePattern("/site/website/"));
+    }
+
+    @Test
+    public void testQuantifierAfterLastLiteral() {
+        assertEquals("/site/item%", PathRegexUtils.getLikePrefix("^/site/items?"));
+        assertEquals("/site/item%", PathRegexUtils.getLikePrefix("^/site/items*/"));
+        assertEquals("/site/%", PathRegexUtils.getLikePrefix("^/site/a{0,2}"));
+        assertEquals("/site/a%", PathRegexUtils.getLikePrefix("^/site/a+"));
+        assertEquals("/a%", PathRegexUtils.getLikePrefix("^/a\\.?b"));
+    }
+
+    @Test
+    public void testAlternation() {
+        assertNull(PathRegexUtils.getLikePrefix("^/site/a|^/static-assets/b"));
+        assertNull(PathRegexUtils.getLikePrefix("^/site/a|/b"));
+        assertNull(PathRegexUtils.getLikePrefix("^(/site|/static-assets)/.*"));
+        assertEquals("/site/%", PathRegexUtils.getLikePrefix("^/site/(items|website)/.*"));
+        assertEquals("/site/%", PathRegexUtils.getLikePrefix("^/site/(?:a|b)"));
+        // parentheses and pipes inside character classes don't hide a top level alternation
+        assertNull(PathRegexUtils.getLikePrefix("^/a[(]|/b"));
+        assertNull(PathRegexUtils.getLikePrefix("^/a[)]|/b"));
+        assertNull(PathRegexUtils.getLikePrefix("^/a[]()]|/b"));
+        // escaped pipes are literals
+        assertNull(PathRegexUtils.getLikePrefix("^/a\\||/xb"));
+        assertEquals("/a|%", PathRegexUtils.getLikePrefix("^/a\\|"));
+    }
+
+    @Test
+    public void testAnchors() {
+        assertNull(PathRegexUtils.getLikePrefix("/site/website/.*"));
+        assertEquals("/site/website/%", PathRegexUtils.getLikePrefix("^/site/website/.*"));
+        assertEquals("/site%", PathRegexUtils.getLikePrefix("^/site$"));
+        assertNull(PathRegexUtils.getLikePrefix("^$"));
+    }
+
+    @Test
+    public void testMatchAll() {
+        assertTrue(PathRegexUtils.matchesAll(""));
+        assertTrue(PathRegexUtils.matchesAll(".*"));
+        assertTrue(PathRegexUtils.matchesAll("^.*"));
+        assertTrue(PathRegexUtils.matchesAll("^.*$"));
+        assertTrue(PathRegexUtils.matchesAll("^/.*"));
+        assertFalse(PathRegexUtils.matchesAll(null));
+        assertFalse(PathRegexUtils.matchesAll("^/site/.*"));
+        assertNull(PathRegexUtils.getLikePrefix(null));
+        assertNull(PathRegexUtils.getLikePrefix(".*"));
+        assertNull(PathRegexUtils.getLikePrefix("^.*"));
+        assertEquals("/%", PathRegexUtils.getLikePrefix("^/.*"));
+    }
+
+    /**
+     * Evaluates a LIKE pattern using the default escape character
+     */
+    private static boolean like(String value, String likePattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < likePattern.length(); i++) {
+            char c = likePattern.charAt(i);
+            if (c == '\\' && i + 1 < likePattern.length()) {
+                regex.append(Pattern.quote(String.valueOf(likePattern.charAt(++i))));
+            } else if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL).matcher(value).matches();
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeneralLockServiceImplTest {
+
+    private static final String SANDBOX_LOCK = "mysite_SANDBOX_REPOSITORY_GIT_LOCK";
+
+    private GeneralLockServiceImpl lockService;
+
+    @Before
+    public void setUp() {
+        lockService = new GeneralLockServiceImpl();
+    }
+
+    @Test
+    public void locksAreRemovedWhenReleased() {
+        lockService.lock(SANDBOX_LOCK);
+        lockService.lock(SANDBOX_LOCK);
+        lockService.lockContentItem("mysite", "/site/website/index.xml");
+        assertEquals(2, lockService.getActiveLockCount());
+
+        lockService.unlock(SANDBOX_LOCK);
+        assertEquals(2, lockService.getActiveLockCount());
+        lockService.unlock(SANDBOX_LOCK);
+        lockService.unlockContentItem("mysite", "/site/website/index.xml");
+        assertEquals(0, lockService.getActiveLockCount());
+    }
+
+    @Test
+    public void tryLockFailsWhenHeldByOtherThread() throws Exception {
+        lockService.lock(SANDBOX_LOCK);
+        try {
+            assertFalse(CompletableFuture.supplyAsync(() -> lockService.tryLock(SANDBOX_LOCK)).get());
+            assertFalse(CompletableFuture.supplyAsync(() ->
+                    lockService.tryLock(SANDBOX_LOCK, 10, TimeUnit.MILLISECONDS)).get());
+        } finally {
+            lockService.unlock(SANDBOX_LOCK);
+        }
+        assertEquals(0, lockService.getActiveLockCount());
+        assertEquals(2, lockService.getStatistics().get("SANDBOX_REPOSITORY_GIT_LOCK").getFailures());
+    }
+
+    @Test
+    public void concurrentCallersAreMutuallyExclusive() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[1000];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    lockService.lock(SANDBOX_LOCK);
+                    try {
+                        if (holders.incrementAndGet() > 1) {
+                            violations.incrementAndGet();
+                        }
+                        holders.decrementAndGet();
+                    } finally {
+                        lockService.unlock(SANDBOX_LOCK);
+                    }
+                }, executor);
+            }
+            CompletableFuture.allOf(futures).get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, violations.get());
+        assertEquals(0, lockService.getActiveLockCount());
+        assertEquals(1000, lockService.getStatistics().get("SANDBOX_REPOSITORY_GIT_LOCK").getAcquisitions());
+    }
+
+    @Test
+    public void keyPrefixesDoNotIncludeSiteOrPath() {
+        assertEquals("CONTENT_ITEM", lockService.getKeyPrefix("CONTENT_ITEM_mysite_/site/website/index.xml"));
+        assertEquals("SANDBOX_REPOSITORY_GIT_LOCK", lockService.getKeyPrefix(SANDBOX_LOCK));
+        assertEquals("GLOBAL_REPOSITORY_GIT_LOCK", lockService.getKeyPrefix("GLOBAL_REPOSITORY_GIT_LOCK"));
+        assertTrue(lockService.getKeyPrefix("mysite").length() > 0);
+    }
+
+}
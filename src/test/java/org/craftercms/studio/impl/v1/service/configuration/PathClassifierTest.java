@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.configuration;
+
+import org.craftercms.studio.api.v1.to.RepositoryConfigTO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_ASSET;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_COMPONENT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_CONTENT_TYPE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_DOCUMENT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FILE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_LEVEL_DESCRIPTOR;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_PAGE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_RENDERING_TEMPLATE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_SCRIPT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PathClassifierTest {
+
+    private static final String CONTENT_TYPES_PATH = "/config/studio/content-types";
+
+    private PathClassifier classifier;
+
+    @Before
+    public void setUp() {
+        RepositoryConfigTO config = new RepositoryConfigTO();
+        config.setLevelDescriptorName("crafter-level-descriptor.level.xml");
+        config.setPagePatterns(List.of("/site/website/([^<]+)\\.xml"));
+        config.setComponentPatterns(List.of("/site/components/([^<]+)\\.xml", "/site/taxonomy/([^<]+)\\.xml"));
+        config.setDocumentPatterns(List.of("/static-assets/documents/([^<]+)\\.pdf"));
+        config.setAssetPatterns(List.of("/static-assets/([^<]+)"));
+        config.setRenderingTemplatePatterns(List.of("/templates/([^<]+)"));
+        config.setScriptsPatterns(List.of("/scripts/([^<]+)"));
+        classifier = new PathClassifier(config, CONTENT_TYPES_PATH, 100);
+    }
+
+    @Test
+    public void contentTypeClassFollowsThePatternPriority() {
+        assertEquals(CONTENT_TYPE_LEVEL_DESCRIPTOR,
+                classifier.getContentTypeClass("/site/website/crafter-level-descriptor.level.xml"));
+        assertEquals(CONTENT_TYPE_PAGE, classifier.getContentTypeClass("/site/website/about/index.xml"));
+        assertEquals(CONTENT_TYPE_COMPONENT, classifier.getContentTypeClass("/site/components/header.xml"));
+        assertEquals(CONTENT_TYPE_COMPONENT, classifier.getContentTypeClass("/site/taxonomy/categories.xml"));
+        assertEquals(CONTENT_TYPE_DOCUMENT, classifier.getContentTypeClass("/static-assets/documents/guide.pdf"));
+        assertEquals(CONTENT_TYPE_ASSET, classifier.getContentTypeClass("/static-assets/images/logo.png"));
+        assertEquals(CONTENT_TYPE_RENDERING_TEMPLATE, classifier.getContentTypeClass("/templates/web/page.ftl"));
+        assertEquals(CONTENT_TYPE_CONTENT_TYPE,
+                classifier.getContentTypeClass(CONTENT_TYPES_PATH + "/page/home/form-definition.xml"));
+        assertEquals(CONTENT_TYPE_SCRIPT, classifier.getContentTypeClass("/scripts/pages/home.groovy"));
+        assertEquals(CONTENT_TYPE_FILE, classifier.getContentTypeClass("/other/file.txt"));
+    }
+
+    @Test
+    public void taxonomiesAreDetectedWithoutPatterns() {
+        PathClassifier defaultClassifier = new PathClassifier(null, CONTENT_TYPES_PATH, 0);
+        assertEquals(CONTENT_TYPE_TAXONOMY, defaultClassifier.getContentTypeClass("/site/taxonomy/tags.xml"));
+        assertEquals(CONTENT_TYPE_FILE, defaultClassifier.getContentTypeClass("/site/website/index.xml"));
+    }
+
+    @Test
+    public void browserUrlIsOnlyReturnedForPreviewableItems() {
+        assertEquals("/", classifier.getBrowserUrl("/site/website/index.xml"));
+        assertEquals("/about", classifier.getBrowserUrl("/site/website/about/index.xml"));
+        assertEquals("/about/team.html", classifier.getBrowserUrl("/site/website/about/team.xml"));
+        assertEquals("/static-assets/images/logo.png", classifier.getBrowserUrl("/static-assets/images/logo.png"));
+        assertEquals("/static-assets/documents/guide.pdf",
+                classifier.getBrowserUrl("/static-assets/documents/guide.pdf"));
+
+        assertNull(classifier.getBrowserUrl("/site/components/header.xml"));
+        assertNull(classifier.getBrowserUrl("/site/taxonomy/categories.xml"));
+        assertNull(classifier.getBrowserUrl("/site/website/crafter-level-descriptor.level.xml"));
+        assertNull(classifier.getBrowserUrl("/templates/web/page.ftl"));
+        assertNull(classifier.getBrowserUrl("/scripts/pages/home.groovy"));
+        assertNull(classifier.getBrowserUrl("/config/studio/site-config.xml"));
+    }
+
+    @Test
+    public void cachedResultsMatchTheFirstClassification() {
+        String path = "/site/website/about/index.xml";
+        int flags = classifier.classify(path);
+        assertEquals(PathClassifier.PAGE, flags);
+        assertEquals(flags, classifier.classify(path));
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.craftercms.studio.impl.v1.service.dependency;
 
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.io.IOUtils;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.service.content.ContentService;
@@ -45,6 +46,8 @@ import static org.mockito.MockitoAnnotations.initMocks;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -73,6 +76,8 @@ public class RegexDependencyResolverTest {
 
     public static final String DEFAULT_CONFIG_FILE_NAME = "resolver-config.xml";
 
+    public static final String CONFIG_CACHE_KEY = SITE_ID + ":studio:" + SITE_CONFIG_FILE_NAME + ":object";
+
     @Mock
     private StudioConfiguration studioConfiguration;
 
@@ -88,6 +93,10 @@ public class RegexDependencyResolverTest {
     @BeforeTest
     public void setUp() throws IOException, DocumentException, ServiceLayerException {
         initMocks(this);
+        dependencyResolver.setConfigurationCache(CacheBuilder.newBuilder().build());
+
+        when(configurationService.getCacheKey(SITE_ID, MODULE_STUDIO, SITE_CONFIG_FILE_NAME, null, "object"))
+                .thenReturn(CONFIG_CACHE_KEY);
 
         when(studioConfiguration.getProperty(CONFIGURATION_SITE_DEPENDENCY_RESOLVER_CONFIG_FILE_NAME))
                 .thenReturn(SITE_CONFIG_FILE_NAME);
@@ -109,9 +118,9 @@ public class RegexDependencyResolverTest {
             when(contentService.getContentAsString(SITE_ID, FORM_DEFINITION_PATH)).thenReturn(form);
         }
 
-        when(contentService.contentExists(SITE_ID, PAGE_A_PATH)).thenReturn(true);
-        when(contentService.contentExists(SITE_ID, COMPONENT_A_PATH)).thenReturn(true);
-        when(contentService.contentExists(SITE_ID, COMPONENT_B_PATH)).thenReturn(true);
+        when(contentService.shallowContentExists(SITE_ID, PAGE_A_PATH)).thenReturn(true);
+        when(contentService.shallowContentExists(SITE_ID, COMPONENT_A_PATH)).thenReturn(true);
+        when(contentService.shallowContentExists(SITE_ID, COMPONENT_B_PATH)).thenReturn(true);
 
     }
 
@@ -135,4 +144,24 @@ public class RegexDependencyResolverTest {
         assertEquals(deps.get("multiple"), Set.of(COMPONENT_A_PATH, COMPONENT_B_PATH));
     }
 
+    @Test
+    public void testCompiledConfigurationIsCached() {
+        CompiledDependencyResolverConfig config = dependencyResolver.getCompiledConfiguration(SITE_ID);
+
+        assertNotNull(config);
+        assertSame(dependencyResolver.getCompiledConfiguration(SITE_ID), config);
+        assertNotNull(config.getItemType(FORM_DEFINITION_PATH));
+        assertNull(config.getItemType("/site/website/index.xml"));
+    }
+
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals(CompiledDependencyResolverConfig.getLiteralPrefix("/site/website/([^<]+)\\.xml"),
+                "/site/website/");
+        assertEquals(CompiledDependencyResolverConfig.getLiteralPrefix("<component.+>[\\s\\S]*?<\\/component>"),
+                "<component");
+        assertEquals(CompiledDependencyResolverConfig.getLiteralPrefix("/scripts?/.*"), "/script");
+        assertEquals(CompiledDependencyResolverConfig.getLiteralPrefix("/site/a|/site/b"), "");
+    }
+
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eclipse.jgit.lib.Constants.OBJ_BLOB;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PublishedTreeEditorTest {
+
+    private InMemoryRepository repository;
+    private ObjectInserter inserter;
+    private ObjectReader reader;
+
+    @Before
+    public void setUp() {
+        repository = new InMemoryRepository(new DfsRepositoryDescription("test"));
+        inserter = repository.newObjectInserter();
+        reader = inserter.newReader();
+    }
+
+    @After
+    public void tearDown() {
+        reader.close();
+        inserter.close();
+        repository.close();
+    }
+
+    @Test
+    public void checkoutFileAndFolder() throws IOException {
+        ObjectId published = createTree("site/website/index.xml");
+        ObjectId sandbox = createTree("site/website/index.xml", "site/website/about/index.xml",
+                "static-assets/css/main.css", "static-assets/css/print.css");
+
+        PublishedTreeEditor editor = new PublishedTreeEditor(reader);
+        editor.load(published);
+        assertTrue(editor.checkout(sandbox, "site/website/about/index.xml"));
+        assertTrue(editor.checkout(sandbox, "static-assets/css"));
+        assertFalse(editor.checkout(sandbox, "site/website/missing/index.xml"));
+
+        assertEquals(4, editor.size());
+        assertTrue(editor.fileExists("site/website/about/index.xml"));
+        assertTrue(editor.fileExists("static-assets/css/print.css"));
+    }
+
+    @Test
+    public void deletePageRemovesFolder() throws IOException {
+        PublishedTreeEditor editor = new PublishedTreeEditor(reader);
+        editor.load(createTree("site/website/index.xml", "site/website/about/index.xml",
+                "site/website/about/team/index.xml"));
+
+        editor.delete("site/website/about/index.xml");
+
+        assertFalse(editor.folderExists("site/website/about"));
+        assertTrue(editor.fileExists("site/website/index.xml"));
+    }
+
+    @Test
+    public void deleteComponentKeepsFolderWithOtherFiles() throws IOException {
+        PublishedTreeEditor editor = new PublishedTreeEditor(reader);
+        editor.load(createTree("site/components/header.xml", "site/components/footer.xml",
+                "site/components/empty/.keep", "site/components/empty/old.xml"));
+
+        editor.delete("site/components/header.xml");
+        editor.delete("site/components/empty/old.xml");
+
+        assertTrue(editor.fileExists("site/components/footer.xml"));
+        assertFalse(editor.folderExists("site/components/empty"));
+    }
+
+    @Test
+    public void moveCleansUpEmptyFolders() throws IOException {
+        PublishedTreeEditor editor = new PublishedTreeEditor(reader);
+        editor.load(createTree("site/website/index.xml", "site/website/old/index.xml",
+                "site/website/old/child/index.xml", "site/components/a/b/item.xml"));
+
+        editor.move("site/website/old/index.xml");
+        editor.move("site/components/a/b/item.xml");
+
+        assertFalse(editor.folderExists("site/website/old"));
+        assertFalse(editor.folderExists("site/components"));
+        assertTrue(editor.fileExists("site/website/index.xml"));
+    }
+
+    @Test
+    public void writeTreeMatchesLoadedTree() throws IOException {
+        ObjectId treeId = createTree("site/website/index.xml", "site/website-x/index.xml", "site/website.xml");
+
+        PublishedTreeEditor editor = new PublishedTreeEditor(reader);
+        editor.load(treeId);
+
+        assertEquals(treeId, editor.writeTree(inserter));
+    }
+
+    private ObjectId createTree(String... paths) throws IOException {
+        DirCache dirCache = DirCache.newInCore();
+        DirCacheBuilder builder = dirCache.builder();
+        for (String path : paths) {
+            DirCacheEntry entry = new DirCacheEntry(path);
+            entry.setFileMode(FileMode.REGULAR_FILE);
+            entry.setObjectId(inserter.insert(OBJ_BLOB, path.getBytes(UTF_8)));
+            builder.add(entry);
+        }
+        builder.finish();
+        ObjectId treeId = dirCache.writeTree(inserter);
+        inserter.flush();
+        return treeId;
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.craftercms.studio.api.v2.dal.Dependency;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DependencyGraphTest {
+
+    private static final String PAGE = "/site/website/index.xml";
+    private static final String HEADER = "/site/components/header.xml";
+    private static final String LOGO = "/static-assets/images/logo.png";
+    private static final String ITEM = "/site/components/item/banner.xml";
+    private static final String ITEM_IMAGE = "/static-assets/item/banner.png";
+
+    private DependencyGraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new DependencyGraph();
+        graph.load(List.of(
+                dependency(PAGE, HEADER),
+                dependency(PAGE, ITEM),
+                dependency(HEADER, LOGO),
+                dependency(ITEM, ITEM_IMAGE),
+                dependency(ITEM_IMAGE, PAGE)));
+    }
+
+    @Test
+    public void closureFollowsAllLevels() {
+        Set<String> reachable = graph.getReachable(List.of(PAGE), path -> true, -1);
+        assertEquals(Set.of(HEADER, ITEM, LOGO, ITEM_IMAGE, PAGE), reachable);
+        assertEquals(Set.of(HEADER, ITEM), graph.getReachable(List.of(PAGE), path -> true, 1));
+    }
+
+    @Test
+    public void closureOnlyFollowsAcceptedItems() {
+        Set<String> reachable = graph.getReachable(List.of(PAGE), path -> !path.equals(HEADER), -1);
+        assertEquals(Set.of(ITEM, ITEM_IMAGE, PAGE), reachable);
+    }
+
+    @Test
+    public void updatesAreAppliedToTheGraph() {
+        graph.setTargets(Map.of(HEADER, Set.of()));
+        assertEquals(Set.of(HEADER, ITEM, ITEM_IMAGE, PAGE), graph.getReachable(List.of(PAGE), path -> true, -1));
+
+        graph.move(ITEM, "/site/components/item/hero.xml");
+        assertEquals(Set.of(HEADER, "/site/components/item/hero.xml"), graph.getTargets(List.of(PAGE)));
+        assertEquals(Set.of(ITEM_IMAGE), graph.getTargets(List.of("/site/components/item/hero.xml")));
+        assertTrue(graph.getTargets(List.of(ITEM)).isEmpty());
+
+        graph.remove(ITEM_IMAGE);
+        assertEquals(2, graph.size());
+    }
+
+    @Test
+    public void updatesAreIgnoredUntilLoaded() {
+        graph.clear();
+        assertFalse(graph.isLoaded());
+        graph.setTargets(Map.of(PAGE, Set.of(HEADER)));
+        assertEquals(0, graph.size());
+
+        graph.loadIfNeeded(ArrayList::new);
+        assertTrue(graph.isLoaded());
+        graph.setTargets(Map.of(PAGE, Set.of(HEADER)));
+        assertEquals(1, graph.size());
+    }
+
+    private static Dependency dependency(String source, String target) {
+        Dependency dependency = new Dependency();
+        dependency.setSourcePath(source);
+        dependency.setTargetPath(target);
+        return dependency;
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2007-2023 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.repository.internal;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v1.service.security.SecurityService;
+import org.craftercms.studio.api.v2.dal.RepositoryStatus;
+import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v1.repository.git.GitContentRepository;
+import org.craftercms.studio.impl.v2.repository.RetryingRepositoryOperationFacadeImpl;
+import org.craftercms.studio.impl.v2.repository.WorktreeJournal;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_GROUP_COMMIT_ENABLED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_WRITE_COMMIT_MESSAGE;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RepositoryManagementServiceInternalImplTest {
+
+    private static final String SITE_ID = "test";
+    private static final String PATH = "/site/website/index.xml";
+    private static final String GIT_PATH = "site/website/index.xml";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private GitContentRepository contentRepository;
+    private RepositoryManagementServiceInternalImpl repositoryManagementService;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(folder.getRoot()).call();
+        Repository repository = git.getRepository();
+        writeWorktreeFile(GIT_PATH, "<page/>");
+        git.add().addFilepattern(GIT_PATH).call();
+        git.commit()
+                .setMessage("Initial commit")
+                .setAuthor(new PersonIdent("test", "test@example.com"))
+                .setCommitter(new PersonIdent("test", "test@example.com"))
+                .call();
+
+        GitRepositoryHelper helper = mock(GitRepositoryHelper.class);
+        when(helper.getRepository(SITE_ID, SANDBOX)).thenReturn(repository);
+        when(helper.getGitPath(anyString())).thenAnswer(invocation ->
+                StringUtils.removeStart(invocation.getArgument(0), "/"));
+        when(helper.getSandboxRepoLockKey(anyString(), anyBoolean())).thenReturn(SITE_ID);
+        when(helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)).thenReturn("Write content");
+        when(helper.writeFile(eq(repository), eq(SITE_ID), anyString(), any(InputStream.class)))
+                .thenAnswer(invocation -> {
+                    String path = StringUtils.removeStart(invocation.getArgument(2), "/");
+                    InputStream content = invocation.getArgument(3);
+                    writeWorktreeFile(path, IOUtils.toString(content, StandardCharsets.UTF_8));
+                    return true;
+                });
+        // commitFiles is not stubbed, so every commit fails leaving the written files in the worktree
+
+        StudioConfiguration studioConfiguration = mock(StudioConfiguration.class);
+        when(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_ENABLED, Boolean.class, false))
+                .thenReturn(false);
+        SecurityService securityService = mock(SecurityService.class);
+        when(securityService.getCurrentUser()).thenReturn("admin");
+
+        WorktreeJournal worktreeJournal = new WorktreeJournal();
+
+        contentRepository = new GitContentRepository();
+        contentRepository.setHelper(helper);
+        contentRepository.setStudioConfiguration(studioConfiguration);
+        contentRepository.setSecurityService(securityService);
+        contentRepository.setGeneralLockService(mock(GeneralLockService.class));
+        contentRepository.setWorktreeJournal(worktreeJournal);
+
+        repositoryManagementService = new RepositoryManagementServiceInternalImpl();
+        repositoryManagementService.setGitRepositoryHelper(helper);
+        repositoryManagementService.setRetryingRepositoryOperationFacade(new RetryingRepositoryOperationFacadeImpl());
+        repositoryManagementService.setWorktreeJournal(worktreeJournal);
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void testFailedCommitIsIncludedInIncrementalStatus() throws Exception {
+        RepositoryStatus initialStatus = repositoryManagementService.getRepositoryStatus(SITE_ID, false);
+        assertTrue(initialStatus.isClean());
+
+        String commitId = contentRepository.writeContent(SITE_ID, PATH,
+                new ByteArrayInputStream("<page><title>Home</title></page>".getBytes(StandardCharsets.UTF_8)));
+        assertNull(commitId);
+
+        RepositoryStatus status = repositoryManagementService.getRepositoryStatus(SITE_ID, false);
+        assertFalse(status.isClean());
+        assertTrue(status.getUncommittedChanges().contains(GIT_PATH));
+    }
+
+    private void writeWorktreeFile(String path, String content) throws Exception {
+        File file = new File(folder.getRoot(), path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.writeString(file.toPath(), content);
+    }
+
+}